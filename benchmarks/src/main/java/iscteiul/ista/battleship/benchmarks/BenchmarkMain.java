@@ -0,0 +1,28 @@
+package iscteiul.ista.battleship.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Entry point of the benchmarks jar.
+ * <p>
+ * Accepts the usual JMH command line (benchmark filters, {@code -f},
+ * {@code -wi}, {@code -rf json}, ...) and always attaches the GC profiler,
+ * so that every benchmark reports its allocation rate
+ * ({@code gc.alloc.rate.norm}, in bytes per operation) next to its
+ * throughput.
+ * </p>
+ */
+public class BenchmarkMain {
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        new Runner(new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
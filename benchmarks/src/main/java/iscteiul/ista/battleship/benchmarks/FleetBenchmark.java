@@ -0,0 +1,127 @@
+package iscteiul.ista.battleship.benchmarks;
+
+import iscteiul.ista.battleship.Compass;
+import iscteiul.ista.battleship.Coordinate;
+import iscteiul.ista.battleship.Fleet;
+import iscteiul.ista.battleship.IPosition;
+import iscteiul.ista.battleship.IShip;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of {@link Fleet#addShip(IShip)} and {@link Fleet#shipAt(IPosition)}.
+ * <p>
+ * {@code addValidShip} changes the fleet it adds to, so each call takes the
+ * next empty fleet of a pool built outside the measured time. It is timed in
+ * batches of {@value #BATCH} calls: its score, in microseconds per batch,
+ * reads as nanoseconds per call. The pool holds a fleet for every call of the
+ * default iterations, so it is built once, in the first warmup iteration,
+ * and the allocation profiled in the measured iterations is that of
+ * {@code addShip} alone; it is only rebuilt, in the iteration setup, if more
+ * iterations are asked for.
+ * </p>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xms1g")
+@State(Scope.Thread)
+public class FleetBenchmark {
+
+    /** The number of calls of {@code addValidShip} timed together. */
+    static final int BATCH = 1000;
+
+    static final int WARMUP_BATCHES = 20;
+    static final int MEASURED_BATCHES = 100;
+
+    /** A full fleet, to look up. */
+    private Fleet fleet;
+
+    /**
+     * A fleet with room for more ships, so that adding to it gets past the
+     * size check to the collision check.
+     */
+    private Fleet partialFleet;
+
+    /** A barge on a cell of a ship of {@link #partialFleet}: inside the board, but always rejected as colliding. */
+    private IShip colliding;
+
+    /** A ship that fits on an empty board. */
+    private IShip valid;
+
+    private IPosition occupied;
+    private IPosition empty;
+
+    @Setup
+    public void setUp() {
+        fleet = Fleets.randomFleet(new SplittableRandom(42));
+        IShip first = fleet.getShips().get(0);
+        partialFleet = Fleets.randomFleet(new SplittableRandom(42), 5);
+        IPosition target = partialFleet.getShips().get(0).getPositions().get(0);
+        colliding = Fleets.ship(1, Compass.NORTH, target.getRow(), target.getColumn());
+        valid = Fleets.ship(5, Compass.NORTH, 3, 3);
+        occupied = first.getPositions().get(0);
+        for (int cell = 0; ; cell++) {
+            IPosition pos = Coordinate.of(cell / 10, cell % 10);
+            if (fleet.shipAt(pos) == null) {
+                empty = pos;
+                break;
+            }
+        }
+    }
+
+    /**
+     * A pool of empty fleets, one per call of the default iterations, built
+     * outside the measured time.
+     */
+    @State(Scope.Thread)
+    public static class EmptyFleets {
+        final Fleet[] fleets = new Fleet[(WARMUP_BATCHES + MEASURED_BATCHES) * BATCH];
+        int next = fleets.length;
+
+        @Setup(Level.Iteration)
+        public void setUp() {
+            if (next + BATCH <= fleets.length)
+                return;
+            for (int i = 0; i < fleets.length; i++)
+                fleets[i] = new Fleet();
+            next = 0;
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = WARMUP_BATCHES, batchSize = BATCH)
+    @Measurement(iterations = MEASURED_BATCHES, batchSize = BATCH)
+    public boolean addValidShip(EmptyFleets pool) {
+        return pool.fleets[pool.next++].addShip(valid);
+    }
+
+    @Benchmark
+    public boolean addCollidingShip() {
+        return partialFleet.addShip(colliding);
+    }
+
+    @Benchmark
+    public IShip shipAtOccupied() {
+        return fleet.shipAt(occupied);
+    }
+
+    @Benchmark
+    public IShip shipAtEmpty() {
+        return fleet.shipAt(empty);
+    }
+}
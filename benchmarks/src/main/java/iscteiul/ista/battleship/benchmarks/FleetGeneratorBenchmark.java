@@ -0,0 +1,59 @@
+package iscteiul.ista.battleship.benchmarks;
+
+import iscteiul.ista.battleship.Fleet;
+import iscteiul.ista.battleship.FleetGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of random fleet generation: {@link FleetGenerator} against
+ * rejection sampling through {@link Fleet#addShip}. The generator draws
+ * uniform fleets, keeping about one draw in 370, so {@code generatePlacements}
+ * runs at several thousand fleets per second per core, not the million once
+ * targeted for the biased sequential draw.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class FleetGeneratorBenchmark {
+
+    private FleetGenerator generator;
+    private SplittableRandom random;
+    private final int[] placements = new int[FleetGenerator.FLEET_SHIPS];
+
+    @Setup
+    public void setUp() {
+        generator = new FleetGenerator(42);
+        random = new SplittableRandom(42);
+    }
+
+    @Benchmark
+    public int[] generatePlacements() {
+        generator.next(placements);
+        return placements;
+    }
+
+    @Benchmark
+    public Fleet generateFleet() {
+        return generator.nextFleet();
+    }
+
+    @Benchmark
+    public Fleet rejectionSampling() {
+        return Fleets.randomFleet(random);
+    }
+}
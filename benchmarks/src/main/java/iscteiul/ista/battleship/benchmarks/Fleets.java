@@ -0,0 +1,81 @@
+package iscteiul.ista.battleship.benchmarks;
+
+import iscteiul.ista.battleship.Caravel;
+import iscteiul.ista.battleship.Carrack;
+import iscteiul.ista.battleship.Compass;
+import iscteiul.ista.battleship.Coordinate;
+import iscteiul.ista.battleship.Fleet;
+import iscteiul.ista.battleship.Frigate;
+import iscteiul.ista.battleship.Galleon;
+import iscteiul.ista.battleship.Barge;
+import iscteiul.ista.battleship.IFleet;
+import iscteiul.ista.battleship.IShip;
+
+import java.util.SplittableRandom;
+
+/**
+ * Builds the fleets shared by the benchmarks.
+ */
+final class Fleets {
+
+    /** The ships of a standard fleet, largest first: sizes of 1 galleon, 1 frigate, 2 carracks, 3 caravels and 4 barges. */
+    static final int[] STANDARD_SIZES = {5, 4, 3, 3, 2, 2, 2, 1, 1, 1, 1};
+
+    private static final Compass[] BEARINGS = {Compass.NORTH, Compass.SOUTH, Compass.EAST, Compass.WEST};
+
+    private Fleets() {
+    }
+
+    /**
+     * Builds a ship of the given size.
+     */
+    static IShip ship(int size, Compass bearing, int row, int column) {
+        switch (size) {
+            case 5:
+                return new Galleon(bearing, Coordinate.of(row, column));
+            case 4:
+                return new Frigate(bearing, Coordinate.of(row, column));
+            case 3:
+                return new Carrack(bearing, Coordinate.of(row, column));
+            case 2:
+                return new Caravel(bearing, Coordinate.of(row, column));
+            default:
+                return new Barge(bearing, Coordinate.of(row, column));
+        }
+    }
+
+    /**
+     * Builds a random standard fleet by rejection sampling through {@link Fleet#addShip(IShip)}.
+     * Restarts from an empty fleet when a ship cannot be placed after many attempts.
+     */
+    static Fleet randomFleet(SplittableRandom random) {
+        return randomFleet(random, STANDARD_SIZES.length);
+    }
+
+    /**
+     * Builds a random fleet of the first ships of a standard fleet, as {@link #randomFleet(SplittableRandom)} does.
+     *
+     * @param ships the number of ships, largest first
+     */
+    static Fleet randomFleet(SplittableRandom random, int ships) {
+        while (true) {
+            Fleet fleet = new Fleet();
+            boolean complete = true;
+            for (int i = 0; i < ships; i++) {
+                int size = STANDARD_SIZES[i];
+                int attempts = 0;
+                while (!fleet.addShip(ship(size, BEARINGS[random.nextInt(4)],
+                        random.nextInt(IFleet.BOARD_SIZE), random.nextInt(IFleet.BOARD_SIZE)))) {
+                    if (++attempts == 1000) {
+                        complete = false;
+                        break;
+                    }
+                }
+                if (!complete)
+                    break;
+            }
+            if (complete)
+                return fleet;
+        }
+    }
+}
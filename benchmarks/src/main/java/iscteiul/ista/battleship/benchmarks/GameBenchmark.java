@@ -0,0 +1,121 @@
+package iscteiul.ista.battleship.benchmarks;
+
+import iscteiul.ista.battleship.Coordinate;
+import iscteiul.ista.battleship.Fleet;
+import iscteiul.ista.battleship.Game;
+import iscteiul.ista.battleship.IPosition;
+import iscteiul.ista.battleship.IShip;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of {@link Game#fire(IPosition)} after a given number of shots.
+ * <p>
+ * {@code fireRepeated} shoots a cell already in the history, which measures
+ * repeat detection on its own and leaves the game unchanged.
+ * {@code fireNew} shoots a fresh cell, which changes the game, so each call
+ * takes the next game of a pool built outside the measured time. It is
+ * timed in batches of {@value #BATCH} calls: its score, in microseconds per
+ * batch, reads as nanoseconds per call. The pool holds a game for every call
+ * of the default iterations, so it is built once, in the first warmup
+ * iteration; it is only rebuilt, in the iteration setup, if more iterations
+ * are asked for.
+ * </p>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xms1g")
+@State(Scope.Thread)
+public class GameBenchmark {
+
+    /** The number of calls of {@code fireNew} timed together. */
+    static final int BATCH = 1000;
+
+    static final int WARMUP_BATCHES = 10;
+    static final int MEASURED_BATCHES = 40;
+
+    @Param({"0", "25", "60", "100"})
+    public int history;
+
+    /** The cells of the board (and the extra row and column Game accepts), in a fixed random order. */
+    private final IPosition[] cells = shuffledCells();
+
+    private Game game;
+
+    private static IPosition[] shuffledCells() {
+        int side = Fleet.BOARD_SIZE + 1;
+        IPosition[] cells = new IPosition[side * side];
+        for (int i = 0; i < cells.length; i++)
+            cells[i] = Coordinate.of(i / side, i % side);
+        SplittableRandom random = new SplittableRandom(7);
+        for (int i = cells.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            IPosition tmp = cells[i];
+            cells[i] = cells[j];
+            cells[j] = tmp;
+        }
+        return cells;
+    }
+
+    @Setup(Level.Trial)
+    public void playHistory() {
+        game = newGame();
+    }
+
+    /**
+     * @return a game on a fixed random fleet, after the shots of the history
+     */
+    Game newGame() {
+        Game game = new Game(Fleets.randomFleet(new SplittableRandom(42)));
+        for (int i = 0; i < history; i++)
+            game.fire(cells[i]);
+        return game;
+    }
+
+    /**
+     * A pool of games after the history, one per call of the default
+     * iterations, built outside the measured time.
+     */
+    @State(Scope.Thread)
+    public static class Games {
+        final Game[] games = new Game[(WARMUP_BATCHES + MEASURED_BATCHES) * BATCH];
+        int next = games.length;
+
+        @Setup(Level.Iteration)
+        public void setUp(GameBenchmark benchmark) {
+            if (next + BATCH <= games.length)
+                return;
+            for (int i = 0; i < games.length; i++)
+                games[i] = benchmark.newGame();
+            next = 0;
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = WARMUP_BATCHES, batchSize = BATCH)
+    @Measurement(iterations = MEASURED_BATCHES, batchSize = BATCH)
+    public IShip fireNew(Games pool) {
+        return pool.games[pool.next++].fire(cells[history]);
+    }
+
+    @Benchmark
+    public IShip fireRepeated() {
+        return game.fire(cells[Math.max(history - 1, 0)]);
+    }
+}
@@ -0,0 +1,61 @@
+package iscteiul.ista.battleship.benchmarks;
+
+import iscteiul.ista.battleship.Coordinate;
+import iscteiul.ista.battleship.Fleet;
+import iscteiul.ista.battleship.Game;
+import iscteiul.ista.battleship.IFleet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of complete random games: a random legal fleet is built
+ * through {@link Fleet#addShip}, then shot at random cells, never twice the
+ * same, until every ship has sunk.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PlayoutBenchmark {
+
+    private SplittableRandom random;
+    private final int[] cells = new int[IFleet.BOARD_SIZE * IFleet.BOARD_SIZE];
+
+    @Setup
+    public void setUp() {
+        random = new SplittableRandom(2024);
+        for (int i = 0; i < cells.length; i++)
+            cells[i] = i;
+    }
+
+    /**
+     * @return the number of shots needed to sink the whole fleet
+     */
+    @Benchmark
+    public int randomGame() {
+        Game game = new Game(Fleets.randomFleet(random));
+        int shots = 0;
+        for (int i = cells.length - 1; game.getRemainingShips() > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int cell = cells[j];
+            cells[j] = cells[i];
+            cells[i] = cell;
+            game.fire(Coordinate.of(cell / IFleet.BOARD_SIZE, cell % IFleet.BOARD_SIZE));
+            shots++;
+        }
+        return shots;
+    }
+}
@@ -0,0 +1,60 @@
+package iscteiul.ista.battleship.benchmarks;
+
+import iscteiul.ista.battleship.Compass;
+import iscteiul.ista.battleship.IShip;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of {@link IShip#tooCloseTo(IShip)} and {@link IShip#stillFloating()}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ShipBenchmark {
+
+    private IShip galleon;
+    private IShip nearFrigate;
+    private IShip farFrigate;
+
+    /** A galleon with all cells but one hit, the worst case of a scan for an intact cell. */
+    private IShip damaged;
+
+    @Setup
+    public void setUp() {
+        galleon = Fleets.ship(5, Compass.NORTH, 2, 2);
+        nearFrigate = Fleets.ship(4, Compass.SOUTH, 4, 4);
+        farFrigate = Fleets.ship(4, Compass.EAST, 8, 5);
+        damaged = Fleets.ship(5, Compass.WEST, 4, 4);
+        for (int i = 0; i < damaged.getSize() - 1; i++)
+            damaged.shoot(damaged.getPositions().get(i));
+    }
+
+    @Benchmark
+    public boolean tooCloseToNear() {
+        return galleon.tooCloseTo(nearFrigate);
+    }
+
+    @Benchmark
+    public boolean tooCloseToFar() {
+        return galleon.tooCloseTo(farFrigate);
+    }
+
+    @Benchmark
+    public boolean stillFloating() {
+        return damaged.stillFloating();
+    }
+}
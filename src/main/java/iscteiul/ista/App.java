@@ -1,7 +1,17 @@
 package iscteiul.ista;
 
+import java.io.IOException;
+import java.nio.file.Path;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import iscteiul.ista.battleship.BatchRunner;
 import iscteiul.ista.battleship.Fleet;
+import iscteiul.ista.battleship.GameServer;
 import iscteiul.ista.battleship.Tasks;
+import iscteiul.ista.battleship.Tournament;
+import iscteiul.ista.battleship.TournamentResult;
 
 /**
  * @author britoeabreu
@@ -10,14 +20,102 @@ import iscteiul.ista.battleship.Tasks;
  */
 public class App
 {
-    public static void main( String[] args )
+    private static final Logger LOGGER = LogManager.getLogger(App.class);
+
+    /** Argument that starts the multi-session game server instead of a local task. */
+    private static final String SERVER = "servidor";
+
+    /** Argument that plays the installed strategies against each other. */
+    private static final String TOURNAMENT = "torneio";
+
+    /** Argument that plays a directory, or the standard input, of game scripts. */
+    private static final String BATCH = "lote";
+
+    public static void main( String[] args ) throws IOException
     {
+        if (args.length > 0 && args[0].equals(BATCH)) {
+            // no banner: the output is one result line per script
+            BatchRunner runner = new BatchRunner();
+            if (args.length > 1 && !args[1].equals("-"))
+                runner.run(Path.of(args[1]), System.out);
+            else
+                runner.run(System.in, System.out);
+            return;
+        }
 
         System.out.printf("\n***  Battleship Game ***\n");
 
+        if (args.length > 0 && args[0].equals(SERVER)) {
+            int port = args.length > 1 ? parsePort(args[1]) : GameServer.DEFAULT_PORT;
+            if (port < 0) {
+                LOGGER.info("Porta invalida: {}", args[1]);
+                return;
+            }
+            try (GameServer server = new GameServer(port)) {
+                server.serve();
+            }
+            return;
+        }
+        if (args.length > 0 && args[0].equals(TOURNAMENT)) {
+            long games = args.length > 1 ? parseGames(args[1]) : 100_000;
+            if (games < 0) {
+                LOGGER.info("Numero de jogos invalido: {}", args[1]);
+                return;
+            }
+            Long seed = args.length > 2 ? parseSeed(args[2]) : Long.valueOf(0);
+            if (seed == null) {
+                LOGGER.info("Semente invalida: {}", args[2]);
+                return;
+            }
+            for (TournamentResult result : Tournament.ofInstalledStrategies().run(games, seed))
+                result.printReport();
+            return;
+        }
+
         // Tasks.taskA();
         Tasks.taskB();
         //	Tasks.taskC();
         //	Tasks.taskD();
     }
+
+    /**
+     * @param text the port given, in decimal
+     * @return the port, or -1 if the text is not a port number
+     */
+    private static int parsePort(String text)
+    {
+        try {
+            int port = Integer.parseInt(text);
+            return port <= 65535 ? port : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * @param text the number of games given, in decimal
+     * @return the number, or -1 if the text is not a number of games
+     */
+    static long parseGames(String text)
+    {
+        try {
+            long games = Long.parseLong(text);
+            return games >= 0 ? games : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * @param text the seed given, in decimal
+     * @return the seed, or {@code null} if the text is not a number
+     */
+    static Long parseSeed(String text)
+    {
+        try {
+            return Long.parseLong(text);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
 }
@@ -0,0 +1,189 @@
+package iscteiul.ista.battleship;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A fixed-size two-dimensional set of cells that may be updated by several
+ * threads at once.
+ * <p>
+ * Cells are packed exactly as in {@link BitBoard}, but into an
+ * {@link AtomicLongArray}: every update is a compare-and-set on the word
+ * holding the cell, retried if another thread changed that word in the
+ * meantime. In particular {@link #testAndSet(int, int)} reports a cell as
+ * newly set to exactly one of the threads racing to set it.
+ * </p>
+ *
+ * @see BitBoard
+ * @see ConcurrentGame
+ */
+public class AtomicBitBoard implements IBitBoard {
+
+    /** Number of rows covered by the board. */
+    private final int rows;
+
+    /** Number of columns covered by the board. */
+    private final int columns;
+
+    /** The packed cells, 64 per word. */
+    private final AtomicLongArray words;
+
+    /**
+     * Creates an empty board with the given dimensions.
+     *
+     * @param rows    the number of rows
+     * @param columns the number of columns
+     * @throws IllegalArgumentException if a dimension is not positive
+     */
+    public AtomicBitBoard(int rows, int columns) {
+        if (rows <= 0 || columns <= 0)
+            throw new IllegalArgumentException("ERROR! invalid bitboard dimensions");
+
+        this.rows = rows;
+        this.columns = columns;
+        this.words = new AtomicLongArray((int) (((long) rows * columns + 63) >>> 6));
+    }
+
+    @Override
+    public int getRows() {
+        return rows;
+    }
+
+    @Override
+    public int getColumns() {
+        return columns;
+    }
+
+    @Override
+    public boolean contains(int row, int column) {
+        return row >= 0 && row < rows && column >= 0 && column < columns;
+    }
+
+    @Override
+    public boolean get(int row, int column) {
+        if (!contains(row, column))
+            return false;
+        int index = row * columns + column;
+        return (words.get(index >>> 6) & (1L << index)) != 0;
+    }
+
+    @Override
+    public void set(int row, int column) {
+        assert contains(row, column);
+
+        int index = row * columns + column;
+        or(index >>> 6, 1L << index);
+    }
+
+    @Override
+    public void clear(int row, int column) {
+        assert contains(row, column);
+
+        int index = row * columns + column;
+        int word = index >>> 6;
+        long mask = 1L << index;
+        long current;
+        do {
+            current = words.get(word);
+            if ((current & mask) == 0)
+                return;
+        } while (!words.compareAndSet(word, current, current & ~mask));
+    }
+
+    /**
+     * Sets a cell and reports whether it was already set. Of several threads
+     * setting the same cell, exactly one sees {@code false}.
+     *
+     * @param row    the row of the cell
+     * @param column the column of the cell
+     * @return {@code true} if the cell was set before this call
+     */
+    @Override
+    public boolean testAndSet(int row, int column) {
+        assert contains(row, column);
+
+        int index = row * columns + column;
+        int word = index >>> 6;
+        long mask = 1L << index;
+        long current;
+        do {
+            current = words.get(word);
+            if ((current & mask) != 0)
+                return true;
+        } while (!words.compareAndSet(word, current, current | mask));
+        return false;
+    }
+
+    /**
+     * Reads a horizontal run of cells. A run spanning two words is read with
+     * two separate reads, so it may mix cells set before and after a
+     * concurrent update.
+     */
+    @Override
+    public long getBits(int row, int column, int width) {
+        assert contains(row, column) && column + width <= columns && width > 0 && width <= 64;
+
+        int index = row * columns + column;
+        int word = index >>> 6;
+        int offset = index & 63;
+        long bits = words.get(word) >>> offset;
+        if (offset + width > 64)
+            bits |= words.get(word + 1) << (64 - offset);
+        return bits & BitBoard.lowBits(width);
+    }
+
+    @Override
+    public void orBits(int row, int column, int width, long bits) {
+        assert width > 0 && width <= 64;
+
+        if (row < 0 || row >= rows)
+            return;
+        if (column < 0) {
+            if (column <= -width)
+                return;
+            bits >>>= -column;
+            width += column;
+            column = 0;
+        }
+        if (column + width > columns)
+            width = columns - column;
+        if (width <= 0)
+            return;
+        bits &= BitBoard.lowBits(width);
+
+        int index = row * columns + column;
+        int word = index >>> 6;
+        int offset = index & 63;
+        or(word, bits << offset);
+        if (offset + width > 64)
+            or(word + 1, bits >>> (64 - offset));
+    }
+
+    /**
+     * Sets the bits of a mask in one word.
+     */
+    private void or(int word, long mask) {
+        long current;
+        do {
+            current = words.get(word);
+            if ((current | mask) == current)
+                return;
+        } while (!words.compareAndSet(word, current, current | mask));
+    }
+
+    /**
+     * Clears every cell of the board, one word at a time.
+     */
+    @Override
+    public void clear() {
+        for (int i = 0; i < words.length(); i++)
+            words.set(i, 0L);
+    }
+
+    @Override
+    public int cardinality() {
+        int count = 0;
+        for (int i = 0; i < words.length(); i++)
+            count += Long.bitCount(words.get(i));
+        return count;
+    }
+}
@@ -23,7 +23,12 @@ public class Barge extends Ship {
     /**
      * The display name of the ship.
      */
-    private static final String NAME = "Barca";
+    private static final String NAME = ShipCategory.BARCA.getName();
+
+    /**
+     * The shape of the Barge, the same whatever its bearing.
+     */
+    private static final ShipTemplate TEMPLATE = new ShipTemplate(new int[][]{{0, 0}});
 
     /**
      * Creates a new Barge.
@@ -33,8 +38,17 @@ public class Barge extends Ship {
      * @param pos     the initial position of the ship on the board
      */
     public Barge(Compass bearing, IPosition pos) {
-        super(Barge.NAME, bearing, pos);
-        getPositions().add(new Position(pos.getRow(), pos.getColumn()));
+        super(Barge.NAME, bearing, pos, TEMPLATE);
+    }
+
+    /**
+     * Returns the precomputed shape of a Barge.
+     *
+     * @param bearing the orientation of the barge, which does not change its shape
+     * @return the template of the barge
+     */
+    static ShipTemplate template(Compass bearing) {
+        return TEMPLATE;
     }
 
     /**
@@ -0,0 +1,199 @@
+package iscteiul.ista.battleship;
+
+import java.util.Arrays;
+
+/**
+ * A fixed-size two-dimensional set of cells packed into a {@code long[]}.
+ * <p>
+ * Cell {@code (row, column)} is stored in bit {@code row * columns + column}
+ * of the backing array, so testing, setting and clearing a cell are
+ * constant-time bit operations that do not allocate.
+ * </p>
+ *
+ * @see IBitBoard
+ * @see SparseBitBoard
+ */
+public class BitBoard implements IBitBoard {
+
+    /** Number of rows covered by the board. */
+    private final int rows;
+
+    /** Number of columns covered by the board. */
+    private final int columns;
+
+    /** The packed cells, 64 per word. */
+    private final long[] words;
+
+    /**
+     * Creates an empty board with the given dimensions.
+     *
+     * @param rows    the number of rows
+     * @param columns the number of columns
+     * @throws IllegalArgumentException if a dimension is not positive
+     */
+    public BitBoard(int rows, int columns) {
+        if (rows <= 0 || columns <= 0)
+            throw new IllegalArgumentException("ERROR! invalid bitboard dimensions");
+
+        this.rows = rows;
+        this.columns = columns;
+        this.words = new long[(int) (((long) rows * columns + 63) >>> 6)];
+    }
+
+    /**
+     * @return the number of rows
+     */
+    @Override
+    public int getRows() {
+        return rows;
+    }
+
+    /**
+     * @return the number of columns
+     */
+    @Override
+    public int getColumns() {
+        return columns;
+    }
+
+    /**
+     * Checks whether a cell lies within the board.
+     *
+     * @param row    the row of the cell
+     * @param column the column of the cell
+     * @return {@code true} if the cell is covered by the board
+     */
+    @Override
+    public boolean contains(int row, int column) {
+        return row >= 0 && row < rows && column >= 0 && column < columns;
+    }
+
+    /**
+     * Returns whether a cell is set. Cells outside the board are never set.
+     *
+     * @param row    the row of the cell
+     * @param column the column of the cell
+     * @return {@code true} if the cell is set
+     */
+    @Override
+    public boolean get(int row, int column) {
+        if (!contains(row, column))
+            return false;
+        int index = row * columns + column;
+        return (words[index >>> 6] & (1L << index)) != 0;
+    }
+
+    /**
+     * Sets a cell.
+     *
+     * @param row    the row of the cell
+     * @param column the column of the cell
+     */
+    @Override
+    public void set(int row, int column) {
+        assert contains(row, column);
+
+        int index = row * columns + column;
+        words[index >>> 6] |= 1L << index;
+    }
+
+    /**
+     * Clears a cell.
+     *
+     * @param row    the row of the cell
+     * @param column the column of the cell
+     */
+    @Override
+    public void clear(int row, int column) {
+        assert contains(row, column);
+
+        int index = row * columns + column;
+        words[index >>> 6] &= ~(1L << index);
+    }
+
+    /**
+     * Sets a cell and reports whether it was already set.
+     *
+     * @param row    the row of the cell
+     * @param column the column of the cell
+     * @return {@code true} if the cell was set before this call
+     */
+    @Override
+    public boolean testAndSet(int row, int column) {
+        assert contains(row, column);
+
+        int index = row * columns + column;
+        int word = index >>> 6;
+        long mask = 1L << index;
+        boolean wasSet = (words[word] & mask) != 0;
+        words[word] |= mask;
+        return wasSet;
+    }
+
+    @Override
+    public long getBits(int row, int column, int width) {
+        assert contains(row, column) && column + width <= columns && width > 0 && width <= 64;
+
+        int index = row * columns + column;
+        int word = index >>> 6;
+        int offset = index & 63;
+        long bits = words[word] >>> offset;
+        if (offset + width > 64)
+            bits |= words[word + 1] << (64 - offset);
+        return bits & lowBits(width);
+    }
+
+    @Override
+    public void orBits(int row, int column, int width, long bits) {
+        assert width > 0 && width <= 64;
+
+        if (row < 0 || row >= rows)
+            return;
+        if (column < 0) {
+            if (column <= -width)
+                return;
+            bits >>>= -column;
+            width += column;
+            column = 0;
+        }
+        if (column + width > columns)
+            width = columns - column;
+        if (width <= 0)
+            return;
+        bits &= lowBits(width);
+
+        int index = row * columns + column;
+        int word = index >>> 6;
+        int offset = index & 63;
+        words[word] |= bits << offset;
+        if (offset + width > 64)
+            words[word + 1] |= bits >>> (64 - offset);
+    }
+
+    /**
+     * @param width a number of bits, between 1 and 64
+     * @return a mask of the {@code width} lowest bits
+     */
+    static long lowBits(int width) {
+        return width == 64 ? -1L : (1L << width) - 1;
+    }
+
+    /**
+     * Clears every cell of the board.
+     */
+    @Override
+    public void clear() {
+        Arrays.fill(words, 0L);
+    }
+
+    /**
+     * @return the number of cells that are set
+     */
+    @Override
+    public int cardinality() {
+        int count = 0;
+        for (long word : words)
+            count += Long.bitCount(word);
+        return count;
+    }
+}
@@ -0,0 +1,246 @@
+package iscteiul.ista.battleship;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A fleet that keeps its board occupancy as an {@link IBitBoard}.
+ * <p>
+ * Besides the list of ships, the fleet maintains a packed occupancy board and
+ * a cell-to-ship table, so that the no-touch rule of {@link #addShip(IShip)}
+ * and the lookup in {@link #shipAt(IPosition)} cost a fixed number of bit
+ * tests instead of a scan over every ship and every position.
+ * </p>
+ * <p>
+ * It accepts and rejects exactly the same ships as {@link Fleet}.
+ * </p>
+ *
+ * @see BitboardGame
+ * @see Fleet
+ */
+public class BitboardFleet implements IFleet, SinkListener {
+
+    /** The ships of the fleet, in insertion order. */
+    private final List<IShip> ships;
+
+    /** Width and height of the board. */
+    private final int boardSize;
+
+    /** Limit on the number of ships, checked as {@link IFleet#FLEET_SIZE} is. */
+    private final int fleetSize;
+
+    /** Cells occupied by some ship. */
+    private final IBitBoard occupancy;
+
+    /** For each cell, the index of its ship plus one, or zero if the cell is empty. */
+    private final CellIndex owners;
+
+    /** Number of ships of the fleet still afloat, atomic as in {@link Fleet}. */
+    private final AtomicInteger floatingShips = new AtomicInteger();
+
+    /** The ships of each category, as in {@link Fleet}. */
+    private final CategoryIndex categories = new CategoryIndex();
+
+    /**
+     * Creates an empty fleet for the standard board.
+     */
+    public BitboardFleet() {
+        this(BOARD_SIZE, FLEET_SIZE);
+    }
+
+    /**
+     * Creates an empty fleet for a board of the given size. Large boards are
+     * kept sparse (see {@link IBitBoard#create(int, int)}).
+     *
+     * @param boardSize the width and height of the board
+     * @param fleetSize the limit on the number of ships, with the same meaning as {@link IFleet#FLEET_SIZE}
+     * @throws IllegalArgumentException if the board size is not positive or the fleet size is negative
+     */
+    public BitboardFleet(int boardSize, int fleetSize) {
+        if (boardSize <= 0 || fleetSize < 0)
+            throw new IllegalArgumentException("ERROR! invalid board or fleet size");
+
+        this.boardSize = boardSize;
+        this.fleetSize = fleetSize;
+        ships = new ArrayList<>();
+        occupancy = IBitBoard.create(boardSize, boardSize);
+        owners = CellIndex.create(boardSize);
+    }
+
+    @Override
+    public List<IShip> getShips() {
+        return ships;
+    }
+
+    @Override
+    public int getBoardSize() {
+        return boardSize;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see battleship.IFleet#addShip(battleship.IShip)
+     */
+    @Override
+    public boolean addShip(IShip s) {
+        if (ships.size() > fleetSize || !isInsideBoard(s) || colisionRisk(s))
+            return false;
+
+        ships.add(s);
+        int owner = ships.size();
+        for (IPosition p : s.getPositions()) {
+            occupancy.set(p.getRow(), p.getColumn());
+            owners.put(p.getRow(), p.getColumn(), owner);
+        }
+        if (s.stillFloating())
+            floatingShips.incrementAndGet();
+        categories.add(s);
+        if (s instanceof Ship)
+            ((Ship) s).setSinkListener(this);
+        return true;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see battleship.IFleet#getShipsLike(java.lang.String)
+     */
+    @Override
+    public List<IShip> getShipsLike(String category) {
+        ShipCategory c = ShipCategory.ofName(category);
+        return c == null ? Collections.emptyList() : categories.ships(c);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see battleship.IFleet#getShips(battleship.ShipCategory)
+     */
+    @Override
+    public List<IShip> getShips(ShipCategory category) {
+        return categories.ships(category);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see battleship.IFleet#getFloatingShipCount(battleship.ShipCategory)
+     */
+    @Override
+    public int getFloatingShipCount(ShipCategory category) {
+        return categories.floating(category);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see battleship.IFleet#getFloatingShips()
+     */
+    @Override
+    public List<IShip> getFloatingShips() {
+        List<IShip> floatingShips = new ArrayList<>();
+        for (IShip s : ships)
+            if (s.stillFloating())
+                floatingShips.add(s);
+
+        return floatingShips;
+    }
+
+    @Override
+    public int getFloatingShipCount() {
+        return floatingShips.get();
+    }
+
+    @Override
+    public void shipSunk(IShip ship) {
+        floatingShips.decrementAndGet();
+        categories.sunk(ship);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see battleship.IFleet#shipAt(battleship.IPosition)
+     */
+    @Override
+    public IShip shipAt(IPosition pos) {
+        return shipAt(pos.getRow(), pos.getColumn());
+    }
+
+    /**
+     * Returns the ship occupying a cell.
+     *
+     * @param row    the row of the cell
+     * @param column the column of the cell
+     * @return the ship at that cell, or {@code null} if the cell is empty or off the board
+     */
+    public IShip shipAt(int row, int column) {
+        int index = shipIndexAt(row, column);
+        return index < 0 ? null : ships.get(index);
+    }
+
+    /**
+     * Returns the index, in {@link #getShips()}, of the ship occupying a cell.
+     *
+     * @param row    the row of the cell
+     * @param column the column of the cell
+     * @return the index of the ship, or {@code -1} if the cell is empty or off the board
+     */
+    @Override
+    public int shipIndexAt(int row, int column) {
+        if (!occupancy.get(row, column))
+            return -1;
+        return owners.get(row, column) - 1;
+    }
+
+    /**
+     * @return the board of occupied cells
+     */
+    IBitBoard getOccupancy() {
+        return occupancy;
+    }
+
+    private boolean isInsideBoard(IShip s) {
+        return (s.getLeftMostPos() >= 0 && s.getRightMostPos() <= boardSize - 1 && s.getTopMostPos() >= 0
+                && s.getBottomMostPos() <= boardSize - 1);
+    }
+
+    /**
+     * A ship is at risk of colliding when any of its cells, or any of their
+     * eight neighbours, is already occupied.
+     */
+    private boolean colisionRisk(IShip s) {
+        for (IPosition p : s.getPositions())
+            for (int r = p.getRow() - 1; r <= p.getRow() + 1; r++)
+                for (int c = p.getColumn() - 1; c <= p.getColumn() + 1; c++)
+                    if (occupancy.get(r, c))
+                        return true;
+        return false;
+    }
+
+    /**
+     * This operation shows the state of a fleet
+     */
+    public void printStatus() {
+        printStatus(System.out);
+    }
+
+    /**
+     * This operation shows the state of a fleet on the given stream
+     *
+     * @param out The stream to print to
+     */
+    @Override
+    public void printStatus(PrintStream out) {
+        assert out != null;
+
+        Fleet.printShips(ships, out);
+        Fleet.printShips(getFloatingShips(), out);
+        for (ShipCategory c : ShipCategory.values())
+            Fleet.printShips(categories.ships(c), out);
+    }
+}
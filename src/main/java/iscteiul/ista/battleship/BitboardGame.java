@@ -0,0 +1,346 @@
+package iscteiul.ista.battleship;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A Battleship game session backed by bitboards.
+ * <p>
+ * Shots and hits are kept as {@link IBitBoard}s and the fleet is looked up
+ * through the occupancy board of a {@link BitboardFleet}, so that firing,
+ * detecting a repeated shot and testing for a hit are constant-time bit
+ * operations, whatever the number of shots already fired.
+ * </p>
+ * <p>
+ * The game counts hits, sinks, invalid and repeated shots exactly as
+ * {@link Game} does. In particular, and like {@link Game}, a shot at row or
+ * column equal to the board size is considered valid (it simply misses).
+ * Given an {@link IGameEventSink}, it tells it of the same events.
+ * </p>
+ *
+ * @see IGame
+ * @see BitboardFleet
+ * @see Game
+ */
+public class BitboardGame implements IGame {
+
+    /** The fleet participating in the game. */
+    private final BitboardFleet fleet;
+
+    /** Valid shots, on a board one row and one column larger than the fleet's (see {@link Game}). */
+    private final IBitBoard shotBoard;
+
+    /** Shots that hit a ship. */
+    private final IBitBoard hitBoard;
+
+    /** Valid shots in the order they were fired. */
+    private final List<IPosition> shots;
+
+    /** For each ship of the fleet, the number of its cells not yet hit. */
+    private final int[] remainingCells;
+
+    private int countInvalidShots;
+    private int countRepeatedShots;
+    private int countHits;
+    private int countSinks;
+
+    /** The sink told of the events of the game, or {@code null} if there is none. */
+    private IGameEventSink eventSink;
+
+    /** The event reused for every event told to the sink. */
+    private GameEvent event;
+
+    /** The renderer reused for every board printed, made when first needed. */
+    private BoardRenderer renderer;
+
+    /**
+     * Creates a new game over a bitboard fleet.
+     * <p>
+     * The fleet is expected to be complete: ships added after the game has
+     * been created are not taken into account.
+     * </p>
+     *
+     * @param fleet the fleet to be used in the game
+     */
+    public BitboardGame(BitboardFleet fleet) {
+        assert fleet != null;
+
+        this.fleet = fleet;
+        int boardSize = fleet.getBoardSize();
+        this.shotBoard = IBitBoard.create(boardSize + 1, boardSize + 1);
+        this.hitBoard = IBitBoard.create(boardSize, boardSize);
+        this.shots = new ArrayList<>();
+
+        List<IShip> ships = fleet.getShips();
+        this.remainingCells = new int[ships.size()];
+        for (int i = 0; i < ships.size(); i++) {
+            IShip s = ships.get(i);
+            for (IPosition p : s.getPositions())
+                if (!s.isHit(p))
+                    remainingCells[i]++;
+        }
+    }
+
+    /**
+     * Creates a new game over a bitboard fleet, telling a sink of its start
+     * and then of every shot, valid or not, and of every ship sunk, as
+     * {@link Game#Game(IFleet, IGameEventSink)} does.
+     *
+     * @param fleet     the fleet to be used in the game, complete
+     * @param eventSink the sink to tell of the events of the game
+     */
+    public BitboardGame(BitboardFleet fleet, IGameEventSink eventSink) {
+        this(fleet);
+        assert eventSink != null;
+
+        this.eventSink = eventSink;
+        this.event = new GameEvent();
+        eventSink.onEvent(event.gameStarted(fleet));
+    }
+
+    /**
+     * Fires a shot at the given position.
+     * <p>
+     * Invalid and repeated shots are counted and otherwise ignored. A new
+     * valid shot is recorded and, if it hits a ship, that ship is shot.
+     * </p>
+     *
+     * @param pos the position being targeted
+     * @return the sunk ship if the shot caused a ship to sink; {@code null} otherwise
+     */
+    @Override
+    public IShip fire(IPosition pos) {
+        int result = fire(pos.getRow(), pos.getColumn(), pos);
+        if (IGame.outcomeOf(result) == SUNK)
+            return fleet.getShips().get(IGame.shipIndexOf(result));
+        return null;
+    }
+
+    /**
+     * Fires a shot at the given coordinates, returning its outcome as a
+     * primitive code together with the index of the ship hit or sunk.
+     *
+     * @param row    the row being targeted
+     * @param column the column being targeted
+     * @return the outcome of the shot and the ship hit or sunk, to be read with
+     *         {@link IGame#outcomeOf(int)} and {@link IGame#shipIndexOf(int)}
+     */
+    @Override
+    public int fire(int row, int column) {
+        return fire(row, column, null);
+    }
+
+    /**
+     * Fires a shot, recording the given position, or an interned coordinate
+     * if none is given, in the list of shots.
+     */
+    private int fire(int row, int column, IPosition pos) {
+        int result = shoot(row, column, pos);
+        switch (IGame.outcomeOf(result)) {
+            case INVALID:
+                countInvalidShots++;
+                break;
+            case REPEATED:
+                countRepeatedShots++;
+                break;
+            case SUNK:
+                countSinks++;
+                countHits++;
+                break;
+            case HIT:
+                countHits++;
+                break;
+            default:
+                break;
+        }
+        if (eventSink != null)
+            shotFired(row, column, IGame.outcomeOf(result), IGame.shipIndexOf(result));
+        return result;
+    }
+
+    /**
+     * Tells the sink of a shot, and of the ship it sank if it did.
+     */
+    private void shotFired(int row, int column, byte outcome, int index) {
+        eventSink.onEvent(event.shotFired(row, column, outcome, index));
+        if (outcome == SUNK)
+            eventSink.onEvent(event.shipSunk(fleet.getShips().get(index), index));
+    }
+
+    /**
+     * Fires a shot without counting it, leaving the statistics to the caller.
+     */
+    private int shoot(int row, int column, IPosition pos) {
+        if (!shotBoard.contains(row, column))
+            return INVALID;
+        if (shotBoard.testAndSet(row, column))
+            return REPEATED;
+        if (pos == null)
+            pos = Coordinate.of(row, column);
+        shots.add(pos);
+
+        int index = fleet.shipIndexAt(row, column);
+        if (index < 0 || index >= remainingCells.length)
+            return MISS;
+
+        fleet.getShips().get(index).shoot(pos);
+        hitBoard.set(row, column);
+        return (--remainingCells[index] > 0 ? HIT : SUNK) | (index + 1) << 8;
+    }
+
+    /**
+     * Fires a salvo of shots given as primitive coordinates.
+     * <p>
+     * Each shot is fired as by {@link #fire(int, int)}, and told to the sink
+     * as it is, but the buffers are checked once for the whole salvo and the
+     * statistics are accumulated locally and stored once at the end. Apart
+     * from the growth of the list of shots, nothing is allocated for shots on
+     * the standard board.
+     * </p>
+     *
+     * @param rows     the rows of the shots
+     * @param columns  the columns of the shots
+     * @param count    the number of shots of the salvo
+     * @param outcomes the buffer receiving the outcome of each shot
+     * @return the number of ships sunk by the salvo
+     * @throws IllegalArgumentException if a buffer holds fewer than {@code count} elements
+     */
+    @Override
+    public int fireBatch(int[] rows, int[] columns, int count, byte[] outcomes) {
+        if (count < 0 || rows.length < count || columns.length < count || outcomes.length < count)
+            throw new IllegalArgumentException("ERROR! salvo buffers shorter than the salvo");
+
+        int invalid = 0, repeated = 0, hits = 0, sinks = 0;
+        for (int i = 0; i < count; i++) {
+            int result = shoot(rows[i], columns[i], null);
+            byte outcome = IGame.outcomeOf(result);
+            switch (outcome) {
+                case INVALID:
+                    invalid++;
+                    break;
+                case REPEATED:
+                    repeated++;
+                    break;
+                case SUNK:
+                    sinks++;
+                    hits++;
+                    break;
+                case HIT:
+                    hits++;
+                    break;
+                default:
+                    break;
+            }
+            outcomes[i] = outcome;
+            if (eventSink != null)
+                shotFired(rows[i], columns[i], outcome, IGame.shipIndexOf(result));
+        }
+
+        countInvalidShots += invalid;
+        countRepeatedShots += repeated;
+        countHits += hits;
+        countSinks += sinks;
+        return sinks;
+    }
+
+    /**
+     * Returns the list of valid shots fired during the game.
+     *
+     * @return list of fired shot positions
+     */
+    @Override
+    public List<IPosition> getShots() {
+        return shots;
+    }
+
+    @Override
+    public int getRepeatedShots() {
+        return countRepeatedShots;
+    }
+
+    @Override
+    public int getInvalidShots() {
+        return countInvalidShots;
+    }
+
+    @Override
+    public int getHits() {
+        return countHits;
+    }
+
+    @Override
+    public int getSunkShips() {
+        return countSinks;
+    }
+
+    @Override
+    public int getRemainingShips() {
+        return fleet.getFloatingShipCount();
+    }
+
+    /**
+     * Checks whether a cell has already been shot.
+     *
+     * @param row    the row of the cell
+     * @param column the column of the cell
+     * @return {@code true} if a valid shot was fired at that cell
+     */
+    public boolean isShot(int row, int column) {
+        return shotBoard.get(row, column);
+    }
+
+    /**
+     * Checks whether a shot at a cell hit a ship.
+     *
+     * @param row    the row of the cell
+     * @param column the column of the cell
+     * @return {@code true} if the cell was shot and holds a ship
+     */
+    public boolean isHit(int row, int column) {
+        return hitBoard.get(row, column);
+    }
+
+    /**
+     * Prints a board marking the cells set in the given bitboard.
+     *
+     * @param board  the cells to mark
+     * @param marker character used to represent those cells
+     * @param out    the stream to print to
+     */
+    private void printBoard(IBitBoard board, char marker, PrintStream out) {
+        if (renderer == null)
+            renderer = new BoardRenderer(fleet.getBoardSize());
+        renderer.clear();
+        renderer.mark(board, marker);
+        renderer.render(out);
+    }
+
+    /**
+     * Prints the board showing valid shots that have been fired.
+     * Valid shots are represented with the character 'X'.
+     */
+    @Override
+    public void printValidShots() {
+        printValidShots(System.out);
+    }
+
+    @Override
+    public void printValidShots(PrintStream out) {
+        printBoard(shotBoard, 'X', out);
+    }
+
+    /**
+     * Prints the board showing the fleet positions.
+     * Ship positions are represented with the character '#'.
+     */
+    @Override
+    public void printFleet() {
+        printFleet(System.out);
+    }
+
+    @Override
+    public void printFleet(PrintStream out) {
+        printBoard(fleet.getOccupancy(), '#', out);
+    }
+}
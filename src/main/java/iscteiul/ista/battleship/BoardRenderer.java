@@ -0,0 +1,334 @@
+package iscteiul.ista.battleship;
+
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Draws boards into a reusable buffer and sends each frame with a single
+ * write.
+ * <p>
+ * A frame is drawn by {@link #clear() clearing} the board to {@code '.'}
+ * and marking cells, one by one or from the shots, fleet or bitboard of a
+ * game. It is then sent either whole, as the lines
+ * {@link Game#printBoard(List, Character, PrintStream)} has always printed,
+ * by {@link #render(PrintStream)}, or as an incremental redraw by
+ * {@link #renderChanges(PrintStream)}: ANSI escape sequences that move the
+ * cursor to and rewrite only the cells that changed since the frame last
+ * sent that way, for large boards and spectator views on a terminal. No
+ * buffer is allocated once the renderer has drawn its first frames.
+ * </p>
+ * <p>
+ * The renderer keeps, for each row, the span of columns marked since the
+ * last clear and the span changed since the last incremental redraw, with
+ * the list of rows holding each. Clearing resets only the marked spans, and
+ * an incremental redraw compares only the changed ones with the frame last
+ * sent, so a frame costs time in proportion to the cells drawn rather than
+ * to the area of the board. When the escape sequences would take more bytes
+ * than the frame itself, the frame is sent whole instead.
+ * </p>
+ * <p>
+ * Markers are ASCII characters. Cells outside the board are ignored, as
+ * the shots one row or column past it that {@link Game} accepts. A renderer
+ * is not thread-safe.
+ * </p>
+ *
+ * @see Game#printValidShots(PrintStream)
+ * @see Game#printFleet(PrintStream)
+ */
+public final class BoardRenderer {
+
+    private static final byte EMPTY = '.';
+
+    private static final byte ESC = 0x1B;
+
+    private static final byte[] LINE_SEPARATOR = System.lineSeparator().getBytes(StandardCharsets.US_ASCII);
+
+    /** Moves the cursor to the top left corner and clears the screen. */
+    private static final byte[] CLEAR_SCREEN = {ESC, '[', 'H', ESC, '[', '2', 'J'};
+
+    /** The longest sequence moving the cursor: ESC, '[', a row, ';', a column and 'H'. */
+    private static final int MAX_MOVE_LENGTH = 2 + 10 + 1 + 10 + 1;
+
+    /** The largest array the virtual machine allocates. */
+    private static final long MAX_ARRAY_LENGTH = Integer.MAX_VALUE - 8;
+
+    private final int boardSize;
+
+    /** The frame being drawn, row by row. */
+    private final byte[] cells;
+
+    /** The frame last sent by {@link #renderChanges}, or {@code null} if none was. */
+    private byte[] shown;
+
+    /** The cells of {@link #cells} marked since the last clear, which may not be empty. */
+    private final Spans marked;
+
+    /** The cells of {@link #cells} changed since the last incremental redraw. */
+    private final Spans changed;
+
+    /** The bytes being sent; large enough for a whole frame after clearing the screen. */
+    private final byte[] output;
+    private int length;
+
+    /**
+     * Creates a renderer for a square board, cleared.
+     *
+     * @param boardSize the number of rows and columns of the board
+     * @throws IllegalArgumentException if the size is not positive, or a frame would not fit in an array
+     */
+    public BoardRenderer(int boardSize) {
+        if (boardSize <= 0
+                || CLEAR_SCREEN.length + (long) boardSize * (boardSize + LINE_SEPARATOR.length) > MAX_ARRAY_LENGTH)
+            throw new IllegalArgumentException("ERROR! invalid board size");
+
+        this.boardSize = boardSize;
+        this.cells = new byte[boardSize * boardSize];
+        this.output = new byte[CLEAR_SCREEN.length + boardSize * (boardSize + LINE_SEPARATOR.length)];
+        this.marked = new Spans(boardSize);
+        this.changed = new Spans(boardSize);
+        Arrays.fill(cells, EMPTY);
+    }
+
+    /**
+     * @return the number of rows and columns of the board
+     */
+    public int getBoardSize() {
+        return boardSize;
+    }
+
+    /**
+     * Clears every cell of the frame being drawn.
+     */
+    public void clear() {
+        for (int i = 0; i < marked.count; i++) {
+            int row = marked.rows[i];
+            int base = row * boardSize;
+            Arrays.fill(cells, base + marked.from[row], base + marked.to[row], EMPTY);
+            changed.add(row, marked.from[row], marked.to[row]);
+        }
+        marked.reset();
+    }
+
+    /**
+     * Marks a cell of the frame being drawn.
+     *
+     * @param row    the row of the cell
+     * @param column the column of the cell
+     * @param marker the character to draw, ASCII
+     */
+    public void mark(int row, int column, char marker) {
+        assert marker < 0x80;
+
+        if (row < 0 || row >= boardSize || column < 0 || column >= boardSize)
+            return;
+        int cell = row * boardSize + column;
+        if (cells[cell] == (byte) marker)
+            return;
+        cells[cell] = (byte) marker;
+        changed.add(row, column, column + 1);
+        if (marker != EMPTY)
+            marked.add(row, column, column + 1);
+    }
+
+    /**
+     * Marks a list of positions.
+     *
+     * @param positions the positions to mark
+     * @param marker    the character to draw, ASCII
+     */
+    public void mark(List<IPosition> positions, char marker) {
+        for (int i = 0; i < positions.size(); i++) {
+            IPosition pos = positions.get(i);
+            mark(pos.getRow(), pos.getColumn(), marker);
+        }
+    }
+
+    /**
+     * Marks the cells set in a bitboard.
+     *
+     * @param board  the cells to mark
+     * @param marker the character to draw, ASCII
+     */
+    public void mark(IBitBoard board, char marker) {
+        int rows = Math.min(boardSize, board.getRows());
+        int columns = Math.min(boardSize, board.getColumns());
+        for (int row = 0; row < rows; row++)
+            for (int col = 0; col < columns; col++)
+                if (board.get(row, col))
+                    mark(row, col, marker);
+    }
+
+    /**
+     * Marks the positions of the ships of a fleet.
+     *
+     * @param fleet  the fleet to draw
+     * @param marker the character to draw, ASCII
+     */
+    public void markFleet(IFleet fleet, char marker) {
+        List<IShip> ships = fleet.getShips();
+        for (int i = 0; i < ships.size(); i++)
+            mark(ships.get(i).getPositions(), marker);
+    }
+
+    /**
+     * Sends the whole frame, one line per row, in a single write.
+     *
+     * @param out the stream to write to
+     */
+    public void render(PrintStream out) {
+        length = 0;
+        for (int row = 0; row < boardSize; row++) {
+            append(cells, row * boardSize, boardSize);
+            append(LINE_SEPARATOR, 0, LINE_SEPARATOR.length);
+        }
+        out.write(output, 0, length);
+    }
+
+    /**
+     * Sends the cells that changed since the frame last sent by this method,
+     * as ANSI escape sequences, in a single write. The first frame, the
+     * first after {@link #invalidate()} and any whose sequences would be
+     * longer than the frame itself clear the screen and are sent whole; the
+     * board is drawn from the top left corner of the terminal. Nothing is
+     * written if no cell changed.
+     *
+     * @param out the stream to write to
+     * @return the number of cells sent
+     */
+    public int renderChanges(PrintStream out) {
+        int sent = shown == null ? -1 : sendChanges();
+        if (sent < 0) {
+            // first frame, or changes costlier than the frame itself
+            if (shown == null)
+                shown = new byte[cells.length];
+            length = 0;
+            append(CLEAR_SCREEN, 0, CLEAR_SCREEN.length);
+            for (int row = 0; row < boardSize; row++) {
+                append(cells, row * boardSize, boardSize);
+                append(LINE_SEPARATOR, 0, LINE_SEPARATOR.length);
+            }
+            System.arraycopy(cells, 0, shown, 0, cells.length);
+            sent = cells.length;
+        }
+        changed.reset();
+        if (length > 0)
+            out.write(output, 0, length);
+        return sent;
+    }
+
+    /**
+     * Appends the sequences rewriting the cells changed since the frame last
+     * sent, top to bottom, and copies them to that frame.
+     *
+     * @return the number of cells appended, or -1 if the sequences would
+     *         take more room than the whole frame, which is then left to send
+     */
+    private int sendChanges() {
+        length = 0;
+        int sent = 0;
+        Arrays.sort(changed.rows, 0, changed.count);
+        for (int i = 0; i < changed.count; i++) {
+            int row = changed.rows[i];
+            int base = row * boardSize;
+            int col = changed.from[row];
+            int end = changed.to[row];
+            while (col < end) {
+                if (cells[base + col] == shown[base + col]) {
+                    col++;
+                    continue;
+                }
+                // a run of changed cells takes one cursor move
+                int start = col;
+                while (col < end && cells[base + col] != shown[base + col])
+                    col++;
+                if (length + MAX_MOVE_LENGTH + (col - start) + MAX_MOVE_LENGTH > output.length)
+                    return -1;
+                moveCursor(row, start);
+                append(cells, base + start, col - start);
+                System.arraycopy(cells, base + start, shown, base + start, col - start);
+                sent += col - start;
+            }
+        }
+        if (sent > 0)
+            moveCursor(boardSize, 0);
+        return sent;
+    }
+
+    /**
+     * Forgets the frame last sent by {@link #renderChanges(PrintStream)}, so
+     * that the next one is sent whole, as when the screen was cleared.
+     */
+    public void invalidate() {
+        shown = null;
+    }
+
+    /**
+     * Appends the sequence moving the cursor to a cell, counted from 1 by terminals.
+     */
+    private void moveCursor(int row, int column) {
+        output[length++] = ESC;
+        output[length++] = '[';
+        appendNumber(row + 1);
+        output[length++] = ';';
+        appendNumber(column + 1);
+        output[length++] = 'H';
+    }
+
+    private void appendNumber(int n) {
+        int digits = 1;
+        for (int p = n; p >= 10; p /= 10)
+            digits++;
+        for (int i = length + digits - 1; i >= length; i--) {
+            output[i] = (byte) ('0' + n % 10);
+            n /= 10;
+        }
+        length += digits;
+    }
+
+    private void append(byte[] bytes, int offset, int count) {
+        System.arraycopy(bytes, offset, output, length, count);
+        length += count;
+    }
+
+    /**
+     * For each row, a span of columns {@code from} to {@code to - 1}, empty if
+     * {@code from == to}, and the list of the rows whose span is not empty.
+     */
+    private static final class Spans {
+        final int[] from;
+        final int[] to;
+        final int[] rows;
+        int count;
+
+        Spans(int boardSize) {
+            from = new int[boardSize];
+            to = new int[boardSize];
+            rows = new int[boardSize];
+        }
+
+        /**
+         * Widens the span of a row to cover some columns.
+         */
+        void add(int row, int first, int end) {
+            if (from[row] == to[row]) {
+                rows[count++] = row;
+                from[row] = first;
+                to[row] = end;
+            } else {
+                from[row] = Math.min(from[row], first);
+                to[row] = Math.max(to[row], end);
+            }
+        }
+
+        /**
+         * Empties every span.
+         */
+        void reset() {
+            for (int i = 0; i < count; i++)
+                from[rows[i]] = to[rows[i]] = 0;
+            count = 0;
+        }
+    }
+}
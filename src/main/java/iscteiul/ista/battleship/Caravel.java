@@ -27,14 +27,25 @@ public class Caravel extends Ship {
     private static final Integer SIZE = 2;
 
     /** The name identifier of the Caravel ship. */
-    private static final String NAME = "Caravela";
+    private static final String NAME = ShipCategory.CARAVELA.getName();
+
+    /**
+     * The shape of the caravel for each bearing, as {row, column} offsets from
+     * its reference position: vertical for NORTH/SOUTH, horizontal for
+     * EAST/WEST.
+     */
+    private static final ShipTemplate[] TEMPLATES = ShipTemplate.byBearing(
+            new int[][]{{0, 0}, {1, 0}},
+            new int[][]{{0, 0}, {1, 0}},
+            new int[][]{{0, 0}, {0, 1}},
+            new int[][]{{0, 0}, {0, 1}});
 
     /**
      * Constructs a Caravel with a given bearing and starting position.
      *
      * <p>
-     * The ship positions are automatically calculated and stored
-     * according to the provided bearing.
+     * The ship positions are laid out from the precomputed template
+     * of the provided bearing.
      * </p>
      *
      * @param bearing the direction in which the Caravel is oriented
@@ -46,27 +57,35 @@ public class Caravel extends Ship {
     public Caravel(Compass bearing, IPosition pos)
             throws NullPointerException, IllegalArgumentException {
 
-        super(Caravel.NAME, bearing, pos);
+        super(Caravel.NAME, bearing, pos, shape(bearing));
+    }
 
+    /**
+     * Returns the precomputed shape of a Caravel for a bearing, checking the bearing.
+     *
+     * @param bearing the orientation of the caravel
+     * @return the template for that bearing
+     * @throws NullPointerException if the bearing is {@code null}
+     * @throws IllegalArgumentException if the bearing is invalid
+     */
+    private static ShipTemplate shape(Compass bearing) {
         if (bearing == null)
             throw new NullPointerException("ERROR! invalid bearing for the caravel");
 
-        switch (bearing) {
-            case NORTH:
-            case SOUTH:
-                for (int r = 0; r < SIZE; r++)
-                    getPositions().add(new Position(pos.getRow() + r, pos.getColumn()));
-                break;
-
-            case EAST:
-            case WEST:
-                for (int c = 0; c < SIZE; c++)
-                    getPositions().add(new Position(pos.getRow(), pos.getColumn() + c));
-                break;
+        ShipTemplate template = template(bearing);
+        if (template == null)
+            throw new IllegalArgumentException("ERROR! invalid bearing for the caravel");
+        return template;
+    }
 
-            default:
-                throw new IllegalArgumentException("ERROR! invalid bearing for the caravel");
-        }
+    /**
+     * Returns the precomputed shape of a Caravel.
+     *
+     * @param bearing the orientation of the caravel
+     * @return the template for that bearing, or {@code null} if the bearing is invalid
+     */
+    static ShipTemplate template(Compass bearing) {
+        return ShipTemplate.forBearing(TEMPLATES, bearing);
     }
 
     /**
@@ -27,14 +27,25 @@ public class Carrack extends Ship {
     private static final Integer SIZE = 3;
 
     /** The name identifier of the Carrack ship. */
-    private static final String NAME = "Nau";
+    private static final String NAME = ShipCategory.NAU.getName();
+
+    /**
+     * The shape of the carrack for each bearing, as {row, column} offsets from
+     * its reference position: vertical for NORTH/SOUTH, horizontal for
+     * EAST/WEST.
+     */
+    private static final ShipTemplate[] TEMPLATES = ShipTemplate.byBearing(
+            new int[][]{{0, 0}, {1, 0}, {2, 0}},
+            new int[][]{{0, 0}, {1, 0}, {2, 0}},
+            new int[][]{{0, 0}, {0, 1}, {0, 2}},
+            new int[][]{{0, 0}, {0, 1}, {0, 2}});
 
     /**
      * Constructs a Carrack with a given bearing and starting position.
      *
      * <p>
-     * The ship positions are automatically calculated and stored
-     * according to the provided bearing.
+     * The ship positions are laid out from the precomputed template
+     * of the provided bearing.
      * </p>
      *
      * @param bearing the direction in which the Carrack is oriented
@@ -43,24 +54,31 @@ public class Carrack extends Ship {
      * @throws IllegalArgumentException if the bearing is invalid
      */
     public Carrack(Compass bearing, IPosition pos) throws IllegalArgumentException {
-        super(Carrack.NAME, bearing, pos);
-
-        switch (bearing) {
-            case NORTH:
-            case SOUTH:
-                for (int r = 0; r < SIZE; r++)
-                    getPositions().add(new Position(pos.getRow() + r, pos.getColumn()));
-                break;
+        super(Carrack.NAME, bearing, pos, shape(bearing));
+    }
 
-            case EAST:
-            case WEST:
-                for (int c = 0; c < SIZE; c++)
-                    getPositions().add(new Position(pos.getRow(), pos.getColumn() + c));
-                break;
+    /**
+     * Returns the precomputed shape of a Carrack for a bearing, checking the bearing.
+     *
+     * @param bearing the orientation of the carrack
+     * @return the template for that bearing
+     * @throws IllegalArgumentException if the bearing is invalid
+     */
+    private static ShipTemplate shape(Compass bearing) {
+        ShipTemplate template = template(bearing);
+        if (template == null)
+            throw new IllegalArgumentException("ERROR! invalid bearing for the carrack");
+        return template;
+    }
 
-            default:
-                throw new IllegalArgumentException("ERROR! invalid bearing for the carrack");
-        }
+    /**
+     * Returns the precomputed shape of a Carrack.
+     *
+     * @param bearing the orientation of the carrack
+     * @return the template for that bearing, or {@code null} if the bearing is invalid
+     */
+    static ShipTemplate template(Compass bearing) {
+        return ShipTemplate.forBearing(TEMPLATES, bearing);
     }
 
     /**
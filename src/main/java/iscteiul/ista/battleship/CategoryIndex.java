@@ -0,0 +1,89 @@
+package iscteiul.ista.battleship;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * The ships of a fleet grouped by {@link ShipCategory}, with the number of
+ * ships of each category still afloat.
+ * <p>
+ * The fleet adds every ship it accepts and reports every ship sunk, so the
+ * ships of a category are a read-only view of a list kept up to date, and
+ * their count afloat a counter; neither query goes through the fleet.
+ * Counters are atomic, as ships may sink on different threads. Ships of no
+ * known category are left out.
+ * </p>
+ *
+ * @see Fleet
+ * @see BitboardFleet
+ */
+final class CategoryIndex {
+
+    private static final int CATEGORIES = ShipCategory.values().length;
+
+    /** The ships of each category, in the order they were added. */
+    private final Map<ShipCategory, List<IShip>> ships = new EnumMap<>(ShipCategory.class);
+
+    /** Read-only views of the lists of ships. */
+    private final Map<ShipCategory, List<IShip>> views = new EnumMap<>(ShipCategory.class);
+
+    /** The number of ships of each category still afloat, by ordinal. */
+    private final AtomicIntegerArray floating = new AtomicIntegerArray(CATEGORIES);
+
+    CategoryIndex() {
+        for (ShipCategory c : ShipCategory.values()) {
+            List<IShip> list = new ArrayList<>();
+            ships.put(c, list);
+            views.put(c, Collections.unmodifiableList(list));
+        }
+    }
+
+    /**
+     * Adds a ship just accepted by the fleet.
+     *
+     * @param s the ship
+     */
+    void add(IShip s) {
+        ShipCategory c = categoryOf(s);
+        if (c == null)
+            return;
+        ships.get(c).add(s);
+        if (s.stillFloating())
+            floating.incrementAndGet(c.ordinal());
+    }
+
+    /**
+     * Counts a ship of the fleet as sunk.
+     *
+     * @param s the ship
+     */
+    void sunk(IShip s) {
+        ShipCategory c = categoryOf(s);
+        if (c != null)
+            floating.decrementAndGet(c.ordinal());
+    }
+
+    /**
+     * @param category a category
+     * @return a read-only view of the ships of that category
+     */
+    List<IShip> ships(ShipCategory category) {
+        return views.get(category);
+    }
+
+    /**
+     * @param category a category
+     * @return the number of ships of that category still afloat
+     */
+    int floating(ShipCategory category) {
+        return floating.get(category.ordinal());
+    }
+
+    private static ShipCategory categoryOf(IShip s) {
+        return s instanceof Ship ? ((Ship) s).getShipCategory() : ShipCategory.ofName(s.getCategory());
+    }
+}
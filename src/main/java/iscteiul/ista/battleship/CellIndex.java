@@ -0,0 +1,40 @@
+package iscteiul.ista.battleship;
+
+/**
+ * Maps the cells of a board to the ships occupying them.
+ * <p>
+ * Ships are identified by their index in the fleet plus one, so that zero
+ * means an empty cell.
+ * </p>
+ *
+ * @see DenseCellIndex
+ * @see SparseCellIndex
+ */
+interface CellIndex {
+
+    /**
+     * Creates an empty index, dense for small boards and sparse for large ones.
+     *
+     * @param boardSize the width and height of the board
+     * @return the new index
+     */
+    static CellIndex create(int boardSize) {
+        if ((long) boardSize * boardSize <= IBitBoard.DENSE_LIMIT)
+            return new DenseCellIndex(boardSize);
+        return new SparseCellIndex();
+    }
+
+    /**
+     * @param row    the row of a cell inside the board
+     * @param column the column of a cell inside the board
+     * @return the id of the ship at that cell, or zero if it is empty
+     */
+    int get(int row, int column);
+
+    /**
+     * @param row    the row of a cell inside the board
+     * @param column the column of a cell inside the board
+     * @param id     the id of the ship occupying it
+     */
+    void put(int row, int column, int id);
+}
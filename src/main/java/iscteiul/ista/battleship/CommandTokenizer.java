@@ -0,0 +1,285 @@
+package iscteiul.ista.battleship;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.InputMismatchException;
+import java.util.NoSuchElementException;
+
+/**
+ * Splits the commands of the game into whitespace-separated tokens, working
+ * on bytes rather than through {@link java.util.Scanner}.
+ * <p>
+ * The grammar of {@link Tasks} is made of command words, ship kinds,
+ * integers and bearing characters. The tokenizer reads them straight from
+ * a {@link ByteBuffer}, or from an {@link InputStream} through its own
+ * buffer: the words of the grammar are returned as shared constants and
+ * integers and characters are decoded in place, so that none of them
+ * creates a string. Only words outside the grammar are decoded, as UTF-8.
+ * </p>
+ * <p>
+ * Errors are reported as the tasks have always seen them from a
+ * {@code Scanner}: {@link NoSuchElementException} at the end of the input and
+ * {@link InputMismatchException}, leaving the token unread, when an integer
+ * is expected but not found. As with a {@code Scanner}, a failure of the
+ * underlying stream ends the input and is kept in {@link #ioException()}.
+ * </p>
+ *
+ * @see Tasks
+ */
+public final class CommandTokenizer {
+
+    /** Default size of the buffer of a stream; it grows to hold longer tokens. */
+    static final int DEFAULT_BUFFER_SIZE = 8192;
+
+    /** The words of the grammar, returned without decoding. */
+    private static final String[] WORDS;
+
+    private static final byte[][] WORD_BYTES;
+
+    static {
+        String[] commands = {Tasks.NOVAFROTA, Tasks.DESISTIR, Tasks.RAJADA, Tasks.VERTIROS, Tasks.BATOTA, Tasks.STATUS};
+        ShipCategory[] categories = ShipCategory.values();
+        WORDS = Arrays.copyOf(commands, commands.length + categories.length);
+        for (int i = 0; i < categories.length; i++)
+            WORDS[commands.length + i] = categories[i].getKind();
+        WORD_BYTES = new byte[WORDS.length][];
+        for (int i = 0; i < WORDS.length; i++)
+            WORD_BYTES[i] = WORDS[i].getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /** The stream the input is read from, or {@code null} if it is all in the buffer. */
+    private final InputStream source;
+
+    /** The input read but not yet consumed, between the position and the limit. */
+    private ByteBuffer buffer;
+
+    private boolean endOfInput;
+    private IOException ioException;
+
+    /**
+     * Creates a tokenizer over the remaining bytes of a buffer, which it
+     * consumes by advancing its position.
+     *
+     * @param input the input
+     */
+    public CommandTokenizer(ByteBuffer input) {
+        assert input != null;
+
+        this.source = null;
+        this.buffer = input;
+        this.endOfInput = true;
+    }
+
+    /**
+     * Creates a tokenizer over a stream.
+     *
+     * @param source the stream to read from
+     */
+    public CommandTokenizer(InputStream source) {
+        this(source, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Creates a tokenizer over a stream, with a buffer of the given initial size.
+     *
+     * @param source     the stream to read from
+     * @param bufferSize the initial size of the buffer, in bytes
+     * @throws IllegalArgumentException if the size is not positive
+     */
+    public CommandTokenizer(InputStream source, int bufferSize) {
+        if (bufferSize <= 0)
+            throw new IllegalArgumentException("ERROR! invalid buffer size");
+        assert source != null;
+
+        this.source = source;
+        this.buffer = ByteBuffer.allocate(bufferSize);
+        this.buffer.limit(0);
+    }
+
+    /**
+     * @return {@code true} if there is another token in the input
+     */
+    public boolean hasNext() {
+        return skipWhitespace();
+    }
+
+    /**
+     * Reads the next token.
+     *
+     * @return the token; the words of the grammar are always the same instances
+     * @throws NoSuchElementException if the input is exhausted
+     */
+    public String next() {
+        int end = tokenEnd();
+        int start = buffer.position();
+        buffer.position(end);
+        return word(start, end);
+    }
+
+    /**
+     * Reads the next token as an integer, without creating a string.
+     *
+     * @return the integer read
+     * @throws InputMismatchException if the next token is not an integer, or is out of range; it is left unread
+     * @throws NoSuchElementException if the input is exhausted
+     */
+    public int nextInt() {
+        int end = tokenEnd();
+        int start = buffer.position();
+
+        int i = start;
+        byte first = buffer.get(i);
+        boolean negative = first == '-';
+        if (negative || first == '+')
+            i++;
+        if (i == end)
+            throw new InputMismatchException(word(start, end));
+
+        long value = 0;
+        for (; i < end; i++) {
+            int digit = buffer.get(i) - '0';
+            if (digit < 0 || digit > 9)
+                throw new InputMismatchException(word(start, end));
+            value = value * 10 + digit;
+            if (value > (long) Integer.MAX_VALUE + 1)
+                throw new InputMismatchException(word(start, end));
+        }
+        if (negative)
+            value = -value;
+        if (value > Integer.MAX_VALUE)
+            throw new InputMismatchException(word(start, end));
+
+        buffer.position(end);
+        return (int) value;
+    }
+
+    /**
+     * Reads the next token and returns its first character, as the tasks
+     * read bearings.
+     *
+     * @return the first character of the token
+     * @throws NoSuchElementException if the input is exhausted
+     */
+    public char nextChar() {
+        int end = tokenEnd();
+        int start = buffer.position();
+        byte first = buffer.get(start);
+        char c = first >= 0 ? (char) first : word(start, end).charAt(0);
+        buffer.position(end);
+        return c;
+    }
+
+    /**
+     * @return the exception last thrown by the underlying stream, or {@code null} if there was none
+     */
+    public IOException ioException() {
+        return ioException;
+    }
+
+    /**
+     * Skips whitespace, reading more input as needed.
+     *
+     * @return {@code true} if a token follows, {@code false} at the end of the input
+     */
+    private boolean skipWhitespace() {
+        while (true) {
+            int i = buffer.position();
+            int limit = buffer.limit();
+            while (i < limit && isWhitespace(buffer.get(i)))
+                i++;
+            buffer.position(i);
+            if (i < limit)
+                return true;
+            if (!fill())
+                return false;
+        }
+    }
+
+    /**
+     * Skips to the next token and finds its end, reading more input as
+     * needed; a token ends with whitespace or the input. The token then
+     * starts at the position of the buffer, which reading may have moved.
+     *
+     * @return the index in the buffer just past the token
+     * @throws NoSuchElementException if the input is exhausted
+     */
+    private int tokenEnd() {
+        if (!skipWhitespace())
+            throw new NoSuchElementException();
+        int length = 0;
+        while (true) {
+            int i = buffer.position() + length;
+            int limit = buffer.limit();
+            while (i < limit && !isWhitespace(buffer.get(i)))
+                i++;
+            if (i < limit)
+                return i;
+            length = i - buffer.position();
+            if (!fill())
+                return buffer.limit();
+        }
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b >= 0 && b <= ' ';
+    }
+
+    /**
+     * Reads more of the stream after the unconsumed input, moving that input
+     * to the front of the buffer and growing the buffer if it is full.
+     *
+     * @return {@code false} if no more input could be read
+     */
+    private boolean fill() {
+        if (endOfInput)
+            return false;
+
+        buffer.compact();
+        if (!buffer.hasRemaining()) {
+            ByteBuffer larger = ByteBuffer.allocate(buffer.capacity() * 2);
+            buffer.flip();
+            larger.put(buffer);
+            buffer = larger;
+        }
+        int read;
+        try {
+            do {
+                read = source.read(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+            } while (read == 0);
+        } catch (IOException e) {
+            ioException = e;
+            read = -1;
+        }
+        if (read < 0)
+            endOfInput = true;
+        else
+            buffer.position(buffer.position() + read);
+        buffer.flip();
+        return read > 0;
+    }
+
+    /**
+     * @return the token between two indexes of the buffer, as a shared constant if it is a word of the grammar
+     */
+    private String word(int start, int end) {
+        int length = end - start;
+        for (int w = 0; w < WORD_BYTES.length; w++) {
+            byte[] bytes = WORD_BYTES[w];
+            if (bytes.length != length)
+                continue;
+            int i = 0;
+            while (i < length && buffer.get(start + i) == bytes[i])
+                i++;
+            if (i == length)
+                return WORDS[w];
+        }
+
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++)
+            bytes[i] = buffer.get(start + i);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,253 @@
+package iscteiul.ista.battleship;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A Battleship game that several players or bots may fire at from different
+ * threads at the same time.
+ * <p>
+ * A shot is claimed with a compare-and-set on an {@link AtomicBitBoard}, so
+ * that of several threads firing at the same cell exactly one fires a new
+ * shot and all the others fire a repeated one. Only the thread that claimed
+ * the cell then shoots the ship there; the ship is locked while it is shot,
+ * so that exactly one thread sees it sink, but there is no lock on the game
+ * as a whole. The statistics are kept in {@link LongAdder}s, which threads
+ * update without contending on a single counter.
+ * </p>
+ * <p>
+ * Shots are counted exactly as in {@link Game}, including the shots at row
+ * or column equal to the board size, which are valid and miss. The fleet
+ * should be complete before the game starts, and should not be shared with
+ * another game.
+ * </p>
+ *
+ * @see Game
+ * @see AtomicBitBoard
+ */
+public class ConcurrentGame implements IGame {
+
+    /** The fleet participating in the game. */
+    private final IFleet fleet;
+
+    /** Valid shots, on a board one row and one column larger than the fleet's (see {@link Game}). */
+    private final AtomicBitBoard shotBoard;
+
+    /** Valid shots, in the order their cells were claimed. */
+    private final Queue<IPosition> shots;
+
+    private final LongAdder countInvalidShots = new LongAdder();
+    private final LongAdder countRepeatedShots = new LongAdder();
+    private final LongAdder countHits = new LongAdder();
+    private final LongAdder countSinks = new LongAdder();
+
+    /**
+     * Creates a new game with a given fleet.
+     *
+     * @param fleet the fleet to be used in the game
+     */
+    public ConcurrentGame(IFleet fleet) {
+        assert fleet != null;
+
+        this.fleet = fleet;
+        this.shotBoard = new AtomicBitBoard(fleet.getBoardSize() + 1, fleet.getBoardSize() + 1);
+        this.shots = new ConcurrentLinkedQueue<>();
+    }
+
+    /**
+     * Fires a shot at the given position. May be called from any thread.
+     *
+     * @param pos the position being targeted
+     * @return the sunk ship if the shot caused a ship to sink; {@code null} otherwise
+     */
+    @Override
+    public IShip fire(IPosition pos) {
+        int result = fire(pos.getRow(), pos.getColumn(), pos);
+        if (IGame.outcomeOf(result) == SUNK)
+            return fleet.getShips().get(IGame.shipIndexOf(result));
+        return null;
+    }
+
+    /**
+     * Fires a shot at the given coordinates. May be called from any thread.
+     *
+     * @param row    the row being targeted
+     * @param column the column being targeted
+     * @return the outcome of the shot and the ship hit or sunk, to be read with
+     *         {@link IGame#outcomeOf(int)} and {@link IGame#shipIndexOf(int)}
+     */
+    @Override
+    public int fire(int row, int column) {
+        return fire(row, column, null);
+    }
+
+    /**
+     * Fires a shot without counting it, leaving the statistics to the caller.
+     */
+    private int shoot(int row, int column, IPosition pos) {
+        if (!shotBoard.contains(row, column))
+            return INVALID;
+        if (shotBoard.testAndSet(row, column))
+            return REPEATED;
+        if (pos == null)
+            pos = Coordinate.of(row, column);
+        shots.add(pos);
+
+        int index = fleet.shipIndexAt(row, column);
+        if (index < 0)
+            return MISS;
+        IShip s = fleet.getShips().get(index);
+        boolean floating;
+        synchronized (s) {
+            s.shoot(pos);
+            floating = s.stillFloating();
+        }
+        return (floating ? HIT : SUNK) | (index + 1) << 8;
+    }
+
+    private int fire(int row, int column, IPosition pos) {
+        int result = shoot(row, column, pos);
+        switch (IGame.outcomeOf(result)) {
+            case INVALID:
+                countInvalidShots.increment();
+                break;
+            case REPEATED:
+                countRepeatedShots.increment();
+                break;
+            case SUNK:
+                countSinks.increment();
+                countHits.increment();
+                break;
+            case HIT:
+                countHits.increment();
+                break;
+            default:
+                break;
+        }
+        return result;
+    }
+
+    /**
+     * Fires a salvo of shots given as primitive coordinates. May be called
+     * from any thread; the shots of concurrent salvoes interleave, each one
+     * being claimed on its own. The statistics of the salvo are added once
+     * at the end.
+     *
+     * @param rows     the rows of the shots
+     * @param columns  the columns of the shots
+     * @param count    the number of shots of the salvo
+     * @param outcomes the buffer receiving the outcome of each shot
+     * @return the number of ships sunk by the salvo
+     * @throws IllegalArgumentException if a buffer holds fewer than {@code count} elements
+     */
+    @Override
+    public int fireBatch(int[] rows, int[] columns, int count, byte[] outcomes) {
+        if (count < 0 || rows.length < count || columns.length < count || outcomes.length < count)
+            throw new IllegalArgumentException("ERROR! salvo buffers shorter than the salvo");
+
+        int invalid = 0, repeated = 0, hits = 0, sinks = 0;
+        for (int i = 0; i < count; i++) {
+            byte outcome = IGame.outcomeOf(shoot(rows[i], columns[i], null));
+            switch (outcome) {
+                case INVALID:
+                    invalid++;
+                    break;
+                case REPEATED:
+                    repeated++;
+                    break;
+                case SUNK:
+                    sinks++;
+                    hits++;
+                    break;
+                case HIT:
+                    hits++;
+                    break;
+                default:
+                    break;
+            }
+            outcomes[i] = outcome;
+        }
+
+        countInvalidShots.add(invalid);
+        countRepeatedShots.add(repeated);
+        countHits.add(hits);
+        countSinks.add(sinks);
+        return sinks;
+    }
+
+    /**
+     * Returns a snapshot of the valid shots fired so far. Shots being fired
+     * concurrently may or may not be included.
+     *
+     * @return a new list of fired shot positions
+     */
+    @Override
+    public List<IPosition> getShots() {
+        return new ArrayList<>(shots);
+    }
+
+    @Override
+    public int getRepeatedShots() {
+        return countRepeatedShots.intValue();
+    }
+
+    @Override
+    public int getInvalidShots() {
+        return countInvalidShots.intValue();
+    }
+
+    @Override
+    public int getHits() {
+        return countHits.intValue();
+    }
+
+    @Override
+    public int getSunkShips() {
+        return countSinks.intValue();
+    }
+
+    @Override
+    public int getRemainingShips() {
+        return fleet.getFloatingShipCount();
+    }
+
+    /**
+     * Prints a board marking the cells set in the given bitboard, with a
+     * renderer of its own, as boards may be printed while other threads shoot.
+     *
+     * @param board  the cells to mark
+     * @param marker character used to represent those cells
+     * @param out    the stream to print to
+     */
+    private void printBoard(IBitBoard board, char marker, PrintStream out) {
+        BoardRenderer renderer = new BoardRenderer(fleet.getBoardSize());
+        renderer.mark(board, marker);
+        renderer.render(out);
+    }
+
+    @Override
+    public void printValidShots() {
+        printValidShots(System.out);
+    }
+
+    @Override
+    public void printValidShots(PrintStream out) {
+        printBoard(shotBoard, 'X', out);
+    }
+
+    @Override
+    public void printFleet() {
+        printFleet(System.out);
+    }
+
+    @Override
+    public void printFleet(PrintStream out) {
+        BoardRenderer renderer = new BoardRenderer(fleet.getBoardSize());
+        renderer.markFleet(fleet, '#');
+        renderer.render(out);
+    }
+}
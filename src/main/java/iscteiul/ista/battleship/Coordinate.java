@@ -0,0 +1,111 @@
+package iscteiul.ista.battleship;
+
+/**
+ * An immutable board coordinate.
+ * <p>
+ * Unlike {@link Position}, a Coordinate carries no hit or occupancy state:
+ * ships keep their hits in a mask of their own, read through
+ * {@link IShip#isHit(IPosition)}, and fleets their occupancy. Coordinates are
+ * the cells of ships, the entries of the lists of shots and lookup keys.
+ * Their {@link #hashCode()} is consistent with {@link #equals(Object)}, and
+ * with those of {@link Position}, so coordinates can be used as keys of
+ * hash-based collections.
+ * </p>
+ * <p>
+ * Coordinates of the standard board (including row and column
+ * {@code BOARD_SIZE}, which {@link Game} accepts as valid shots) are
+ * preallocated, so {@link #of(int, int)} returns a shared instance for them
+ * and only allocates for coordinates off the board.
+ * </p>
+ *
+ * @see IPosition
+ * @see Position
+ */
+public final class Coordinate implements IPosition {
+
+    /** Width and height of the table of shared instances. */
+    static final int TABLE_SIZE = IFleet.BOARD_SIZE + 1;
+
+    /** Shared instances, indexed by {@code row * TABLE_SIZE + column}. */
+    private static final Coordinate[] TABLE = new Coordinate[TABLE_SIZE * TABLE_SIZE];
+
+    static {
+        for (int row = 0; row < TABLE_SIZE; row++)
+            for (int column = 0; column < TABLE_SIZE; column++)
+                TABLE[row * TABLE_SIZE + column] = new Coordinate(row, column);
+    }
+
+    private final int row;
+    private final int column;
+
+    private Coordinate(int row, int column) {
+        this.row = row;
+        this.column = column;
+    }
+
+    /**
+     * Returns the coordinate with the given row and column.
+     *
+     * @param row    the row
+     * @param column the column
+     * @return a shared instance if the coordinate lies on the standard board, a new one otherwise
+     */
+    public static Coordinate of(int row, int column) {
+        if (row >= 0 && row < TABLE_SIZE && column >= 0 && column < TABLE_SIZE)
+            return TABLE[row * TABLE_SIZE + column];
+        return new Coordinate(row, column);
+    }
+
+    /**
+     * Returns the coordinate of a position.
+     *
+     * @param pos the position
+     * @return the coordinate with the same row and column as {@code pos}
+     */
+    public static Coordinate of(IPosition pos) {
+        if (pos instanceof Coordinate)
+            return (Coordinate) pos;
+        return of(pos.getRow(), pos.getColumn());
+    }
+
+    @Override
+    public int getRow() {
+        return row;
+    }
+
+    @Override
+    public int getColumn() {
+        return column;
+    }
+
+    /**
+     * Uses the same formula as {@link Position#hashCode()}, so that equal
+     * positions of either class hash alike.
+     */
+    @Override
+    public int hashCode() {
+        return 31 * row + column;
+    }
+
+    @Override
+    public boolean equals(Object otherPosition) {
+        if (this == otherPosition)
+            return true;
+        if (otherPosition instanceof IPosition) {
+            IPosition other = (IPosition) otherPosition;
+            return (row == other.getRow() && column == other.getColumn());
+        } else {
+            return false;
+        }
+    }
+
+    @Override
+    public boolean isAdjacentTo(IPosition other) {
+        return (Math.abs(row - other.getRow()) <= 1 && Math.abs(column - other.getColumn()) <= 1);
+    }
+
+    @Override
+    public String toString() {
+        return ("Linha = " + row + " Coluna = " + column);
+    }
+}
@@ -0,0 +1,29 @@
+package iscteiul.ista.battleship;
+
+/**
+ * A cell index holding one entry per cell, indexed by
+ * {@code row * boardSize + column}, for boards small enough to be allocated
+ * whole. A lookup is a single array load.
+ *
+ * @see CellIndex
+ */
+class DenseCellIndex implements CellIndex {
+
+    private final int boardSize;
+    private final int[] ids;
+
+    DenseCellIndex(int boardSize) {
+        this.boardSize = boardSize;
+        this.ids = new int[boardSize * boardSize];
+    }
+
+    @Override
+    public int get(int row, int column) {
+        return ids[row * boardSize + column];
+    }
+
+    @Override
+    public void put(int row, int column, int id) {
+        ids[row * boardSize + column] = id;
+    }
+}
@@ -0,0 +1,798 @@
+package iscteiul.ista.battleship;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Finds the shot minimising the expected number of shots left, when only a
+ * few ships are still afloat.
+ * <p>
+ * The solver lists the configurations of the ships afloat consistent with
+ * what is known (see {@link ShotHistory}), all equally likely, and searches
+ * the game tree: a shot splits them by outcome (a miss, a hit, or the
+ * sinking of a ship at a given placement, which is what {@link IGame#fire}
+ * reveals), and the value of a set of configurations is one shot plus the
+ * values of its parts, weighted by their sizes. Cells hit in every
+ * configuration are shot first, as they must be shot anyway; the other
+ * cells are tried most likely first, and a cell is abandoned as soon as a
+ * lower bound shows it cannot beat the best one found.
+ * </p>
+ * <p>
+ * The bounds rest on the shots following the same cells whatever the
+ * configuration, until the next hit: {@code j} shots then hit at most the
+ * configurations covering the {@code j} most covered cells, which bounds
+ * the expected time of that hit, and each cell left to hit costs a shot
+ * more. The same holds of each ship searched alone, were the others
+ * revealed. A shot can tell more than a hit or a miss, as a sinking reveals
+ * the placement of the ship, so counting the sequences of hits and misses
+ * does not bound the search.
+ * </p>
+ * <p>
+ * Configurations and hits are 128-bit masks over the cells of the standard
+ * board. A set of configurations is keyed by the sum of the hashes of its
+ * configurations and the hashes of the cells hit, in a bounded transposition
+ * table keeping exact values apart from lower bounds, which stays valid from
+ * one shot to the next and from one game to another. When there are too many
+ * configurations, or the search grows beyond its node limit, the solver
+ * falls back to the cell covered by the most configurations.
+ * </p>
+ * <p>
+ * Most endgames are solved in well under a millisecond, but not all: over
+ * 500 two-ship endgames of random games, with the default limits and a warm
+ * solver, the median was 0.05 ms, the 90th percentile 70 ms, the 99th 7 s
+ * and the worst about 30 s. The hardest leave a barge and a caravel among
+ * a few dozen cells never shot: many first shots are then exactly as good,
+ * which no bound can tell apart before they are all searched, and a few
+ * hundred configurations are enough to reach the node limit. A node costs
+ * some 30 microseconds, so a smaller node limit bounds the time of a shot,
+ * at the price of more shots chosen by the heuristic.
+ * </p>
+ *
+ * @see ShotHistory
+ * @see FleetEnumerator
+ */
+public class EndgameSolver {
+
+    private static final int CELLS = PlacementIndex.CELLS;
+    private static final int BOARD = PlacementIndex.BOARD;
+
+    /** Default limit on the number of configurations solved exactly. */
+    public static final int DEFAULT_MAX_CONFIGURATIONS = 2048;
+
+    /** Default number of entries of the transposition table, as a power of two. */
+    public static final int DEFAULT_TABLE_BITS = 18;
+
+    /** Values closer than this are taken as equal, so that ties between shots are cut off. */
+    private static final double EPSILON = 1e-9;
+
+    /** Default limit on the number of sets of configurations searched per shot. */
+    public static final long DEFAULT_NODE_LIMIT = 2_000_000;
+
+    /** Hash of a hit at each cell, and of a ship at each placement. */
+    private static final long[] HIT_KEYS = new long[CELLS];
+    private static final long[] PLACEMENT_KEYS = new long[PlacementIndex.size()];
+
+    static {
+        SplittableRandom random = new SplittableRandom(0x5EA_BA77L);
+        for (int cell = 0; cell < CELLS; cell++)
+            HIT_KEYS[cell] = random.nextLong();
+        for (int p = 0; p < PLACEMENT_KEYS.length; p++)
+            PLACEMENT_KEYS[p] = random.nextLong();
+    }
+
+    private final int maxConfigurations;
+    private final long nodeLimit;
+
+    /** The transposition table: the value of the set of configurations of each key. */
+    private final long[] tableKeys;
+    private final double[] tableValues;
+    private final boolean[] tableExact;
+
+    /*
+     * The configurations of the current search: configuration i places its
+     * ships at placements[i * ships] to placements[i * ships + ships - 1].
+     */
+    private int ships;
+    private int[] placements = new int[0];
+    private int configurations;
+
+    /** The hash of each configuration of the current search. */
+    private long[] configurationKeys = new long[0];
+
+    /**
+     * For each ship and configuration, the group of the configurations
+     * placing all the other ships alike, numbered from 0.
+     */
+    private int[][] groupOf = new int[0][];
+
+    /**
+     * Scratch buffers of each level of the search, allocated on first use
+     * and kept: a level shoots one more cell than the one above it, so there
+     * are at most {@code CELLS + 1}.
+     */
+    private final Scratch[] scratch = new Scratch[CELLS + 1];
+
+    /** Number of sets of configurations searched for the current shot. */
+    private long nodes;
+
+    /** Expected number of shots left after the last call to {@link #nextShot(ShotHistory)}, or NaN. */
+    private double expectedShots = Double.NaN;
+
+    /**
+     * Creates a solver with the default limits.
+     */
+    public EndgameSolver() {
+        this(DEFAULT_MAX_CONFIGURATIONS, DEFAULT_TABLE_BITS, DEFAULT_NODE_LIMIT);
+    }
+
+    /**
+     * @param maxConfigurations the number of configurations beyond which the heuristic is used
+     * @param tableBits         the size of the transposition table, as a power of two
+     * @param nodeLimit         the number of sets of configurations searched per shot beyond which the heuristic is used
+     * @throws IllegalArgumentException if a limit is not positive or the table size is out of range
+     */
+    public EndgameSolver(int maxConfigurations, int tableBits, long nodeLimit) {
+        if (maxConfigurations <= 0 || nodeLimit <= 0 || tableBits < 1 || tableBits > 28)
+            throw new IllegalArgumentException("ERROR! invalid solver limits");
+
+        this.maxConfigurations = maxConfigurations;
+        this.nodeLimit = nodeLimit;
+        tableKeys = new long[1 << tableBits];
+        tableValues = new double[1 << tableBits];
+        tableExact = new boolean[1 << tableBits];
+    }
+
+    /**
+     * Chooses the next shot of a game on the standard board.
+     *
+     * @param game the game
+     * @return the position to shoot
+     * @throws IllegalArgumentException if the board of the game is not the standard one
+     * @throws IllegalStateException    if every ship has already sunk
+     */
+    public IPosition nextShot(Game game) {
+        int cell = nextShot(ShotHistory.of(game));
+        return Coordinate.of(cell / BOARD, cell % BOARD);
+    }
+
+    /**
+     * Chooses the next shot.
+     *
+     * @param history what is known about the board
+     * @return the cell to shoot, as {@code row * BOARD_SIZE + column}
+     * @throws IllegalStateException if every ship has already sunk, or the history allows no configuration
+     */
+    public int nextShot(ShotHistory history) {
+        int[] kinds = history.afloatKinds();
+        if (kinds.length == 0)
+            throw new IllegalStateException("ERROR! no ships afloat");
+
+        long openLow = history.openLow(), openHigh = history.openHigh();
+        long shotLow = history.missLow() | history.hitLow();
+        long shotHigh = history.missHigh() | history.hitHigh();
+        boolean exact = list(kinds, history.blockedLow(), history.blockedHigh(), openLow, openHigh);
+        if (configurations == 0)
+            throw new IllegalStateException("ERROR! no configuration matches the history");
+
+        int[] all = new int[configurations];
+        for (int i = 0; i < all.length; i++)
+            all[i] = i;
+        expectedShots = Double.NaN;
+        if (exact) {
+            nodes = 0;
+            int[] best = new int[1];
+            double value = solve(all, all.length, openLow, openHigh, shotLow, shotHigh, 0, best,
+                    Double.POSITIVE_INFINITY);
+            if (!Double.isNaN(value)) {
+                expectedShots = value;
+                return best[0];
+            }
+        }
+        return mostCovered(all, all.length, shotLow, shotHigh);
+    }
+
+    /**
+     * @return the expected number of shots left to sink every ship, as of the
+     *         last call to {@link #nextShot(ShotHistory)}, or NaN if it fell back to the heuristic
+     */
+    public double getExpectedShots() {
+        return expectedShots;
+    }
+
+    /**
+     * Lists the configurations of the ships afloat, up to one more than the limit.
+     *
+     * @return true if there are no more than the limit
+     */
+    private boolean list(int[] kinds, long blockedLow, long blockedHigh, long openLow, long openHigh) {
+        ships = kinds.length;
+        configurations = 0;
+        if (placements.length < (maxConfigurations + 1) * ships)
+            placements = new int[(maxConfigurations + 1) * ships];
+        int[] stack = new int[ships];
+        list(kinds, stack, 0, ~blockedLow, ~blockedHigh, openLow, openHigh, PlacementIndex.firstOf(kinds[0]));
+        if (configurationKeys.length < configurations)
+            configurationKeys = new long[maxConfigurations + 1];
+        for (int i = 0; i < configurations; i++) {
+            long key = 0;
+            for (int s = 0; s < ships; s++)
+                key ^= PLACEMENT_KEYS[placements[i * ships + s]];
+            configurationKeys[i] = mix(key);
+        }
+        if (configurations <= maxConfigurations)
+            group();
+        return configurations <= maxConfigurations;
+    }
+
+    private void list(int[] kinds, int[] stack, int depth, long freeLow, long freeHigh, long openLow, long openHigh,
+                      int first) {
+        if (depth == kinds.length) {
+            if ((openLow | openHigh) == 0 && configurations <= maxConfigurations)
+                System.arraycopy(stack, 0, placements, configurations++ * ships, ships);
+            return;
+        }
+        for (int p = first, end = PlacementIndex.endOf(kinds[depth]); p < end; p++) {
+            if (configurations > maxConfigurations)
+                return;
+            if (!PlacementIndex.fits(p, freeLow, freeHigh, openLow, openHigh))
+                continue;
+            stack[depth] = p;
+            int next = depth + 1 == kinds.length ? 0
+                    : kinds[depth + 1] == kinds[depth] ? p + 1 : PlacementIndex.firstOf(kinds[depth + 1]);
+            list(kinds, stack, depth + 1, freeLow & ~FleetGenerator.haloLow(p), freeHigh & ~FleetGenerator.haloHigh(p),
+                    openLow & ~FleetGenerator.cellsLow(p), openHigh & ~FleetGenerator.cellsHigh(p), next);
+        }
+    }
+
+    /**
+     * Numbers the groups of configurations placing all ships but one alike, for each ship.
+     */
+    private void group() {
+        groupOf = new int[ships][configurations];
+        Integer[] order = new Integer[configurations];
+        for (int ship = 0; ship < ships; ship++) {
+            int skipped = ship;
+            for (int i = 0; i < configurations; i++)
+                order[i] = i;
+            Arrays.sort(order, (a, b) -> compareOthers(a, b, skipped));
+            int g = 0;
+            for (int i = 0; i < configurations; i++) {
+                if (i > 0 && compareOthers(order[i - 1], order[i], ship) != 0)
+                    g++;
+                groupOf[ship][order[i]] = g;
+            }
+        }
+    }
+
+    /**
+     * Compares two configurations by the placements of all their ships but one.
+     */
+    private int compareOthers(int a, int b, int skipped) {
+        for (int s = 0; s < ships; s++)
+            if (s != skipped && placements[a * ships + s] != placements[b * ships + s])
+                return Integer.compare(placements[a * ships + s], placements[b * ships + s]);
+        return 0;
+    }
+
+    /**
+     * Computes the expected number of shots needed to sink every ship, over
+     * a set of equally likely configurations, unless it is at least a cutoff.
+     *
+     * @param set      the configurations, in its first {@code size} elements
+     * @param size     the number of configurations
+     * @param hitLow   the cells 0 to 63 hit on the ships afloat
+     * @param hitHigh  the cells from 64 on hit on the ships afloat
+     * @param shotLow  the cells 0 to 63 shot
+     * @param shotHigh the cells from 64 on shot
+     * @param depth    the level of the search, 0 for the current shot
+     * @param best     receives the best cell to shoot, if not {@code null}
+     * @param cutoff   the value beyond which the exact value is not needed
+     * @return the expected number of shots if below the cutoff, a lower bound
+     *         of it at least the cutoff otherwise, or NaN if the node limit was reached
+     */
+    private double solve(int[] set, int size, long hitLow, long hitHigh, long shotLow, long shotHigh, int depth,
+                         int[] best, double cutoff) {
+        int left = cellsOf(set[0]) - Long.bitCount(hitLow) - Long.bitCount(hitHigh);
+        if (left == 0)
+            return 0;
+        if (left == 1 && best == null)
+            return (size + 1) / 2.0; // the configurations differ by their last cell only, shot one by one
+        long key = keyOf(set, size, hitLow, hitHigh);
+        int slot = (int) key & (tableKeys.length - 1);
+        if (best == null && tableKeys[slot] == key && (tableExact[slot] || fails(tableValues[slot], cutoff)))
+            return tableValues[slot];
+        if (++nodes > nodeLimit)
+            return Double.NaN;
+
+        Scratch buffers = scratch(depth);
+        int[] coverage = buffers.coverage;
+        long[] order = buffers.order;
+        int candidates = candidates(set, size, shotLow, shotHigh, coverage, order);
+        int[] values = buffers.values;
+        for (int c = 0; c < candidates; c++)
+            values[c] = coverage[(int) order[candidates - 1 - c]];
+        double lowest = lowerBound(set, size, left, shotLow, shotHigh, firstHit(values, candidates, size), buffers);
+        if (best == null && fails(lowest, cutoff))
+            return lowest;
+
+        double bestValue = Double.POSITIVE_INFINITY;
+        double floor = Double.POSITIVE_INFINITY; // the least lower bound of the cells that failed
+        int bestCell = -1;
+        for (int c = 0; c < candidates; c++) {
+            double limit = Math.min(bestValue, cutoff);
+            if (fails(lowest, limit))
+                break;
+            int cell = (int) order[c];
+            int covered = coverage[cell];
+            // a hit can take off at most one of the cells left to hit
+            double bound = 1 + left - (double) covered / size;
+            if (fails(bound, limit)) {
+                floor = Math.min(floor, bound);
+                break;
+            }
+            double value = shoot(set, size, cell, left, hitLow, hitHigh, shotLow, shotHigh, depth, limit);
+            if (Double.isNaN(value))
+                return value;
+            if (fails(value, limit)) {
+                floor = Math.min(floor, value);
+            } else {
+                bestValue = value;
+                bestCell = cell;
+            }
+            if (covered == size)
+                break; // a certain hit must be shot anyway, so nothing beats it
+        }
+
+        if (best != null)
+            best[0] = bestCell;
+        boolean exact = !fails(bestValue, cutoff);
+        double value = exact ? bestValue : Math.max(lowest, floor);
+        tableKeys[slot] = key;
+        tableValues[slot] = value;
+        tableExact[slot] = exact;
+        return value;
+    }
+
+    /**
+     * Computes the expected number of shots of shooting a cell first, unless it is at least a cutoff.
+     *
+     * @return the expected number of shots if below the cutoff, a lower bound
+     *         of it at least the cutoff otherwise, or NaN if the node limit was reached
+     */
+    private double shoot(int[] set, int size, int cell, int left, long hitLow, long hitHigh, long shotLow,
+                         long shotHigh, int depth, double cutoff) {
+        long cellLow = cell < 64 ? 1L << cell : 0;
+        long cellHigh = cell < 64 ? 0 : 1L << cell;
+        long newHitLow = hitLow | cellLow, newHitHigh = hitHigh | cellHigh;
+
+        // split the set: misses first, then hits, then sinkings sorted by placement
+        Scratch buffers = scratch(depth);
+        int[] misses = buffers.misses;
+        int[] hits = buffers.hits;
+        long[] sinkings = buffers.sinkings;
+        int missCount = 0, hitCount = 0, sunkCount = 0;
+        for (int i = 0; i < size; i++) {
+            int config = set[i];
+            int ship = shipAt(config, cell);
+            if (ship < 0) {
+                misses[missCount++] = config;
+                continue;
+            }
+            if ((FleetGenerator.cellsLow(ship) & ~newHitLow) == 0 && (FleetGenerator.cellsHigh(ship) & ~newHitHigh) == 0)
+                sinkings[sunkCount++] = ((long) ship << 32) | config;
+            else
+                hits[hitCount++] = config;
+        }
+
+        long newShotLow = shotLow | cellLow, newShotHigh = shotHigh | cellHigh;
+        Arrays.sort(sinkings, 0, sunkCount);
+        int[] part = buffers.part;
+        int parts = 0;
+        double[] partBound = buffers.partBound;
+
+        // start from the lower bounds of the parts, and replace them by their values one by one
+        double value = 1;
+        if (missCount > 0) {
+            partBound[parts++] = bound(misses, missCount, left, newShotLow, newShotHigh, buffers);
+            value += missCount * partBound[0] / size;
+        }
+        if (hitCount > 0) {
+            partBound[parts] = bound(hits, hitCount, left - 1, newShotLow, newShotHigh, buffers);
+            value += hitCount * partBound[parts++] / size;
+        }
+        for (int from = 0; from < sunkCount; ) {
+            int to = groupEnd(sinkings, from, sunkCount);
+            for (int i = from; i < to; i++)
+                part[i] = (int) sinkings[i];
+            partBound[parts] = bound(part, from, to, left - 1, newShotLow, newShotHigh, buffers);
+            value += (to - from) * partBound[parts++] / size;
+            from = to;
+        }
+        if (fails(value, cutoff))
+            return value;
+
+        int p = 0;
+        if (missCount > 0) {
+            value = refine(value, misses, missCount, size, partBound[p++], hitLow, hitHigh, newShotLow, newShotHigh,
+                    depth, cutoff);
+            if (Double.isNaN(value) || fails(value, cutoff))
+                return value;
+        }
+        if (hitCount > 0) {
+            value = refine(value, hits, hitCount, size, partBound[p++], newHitLow, newHitHigh, newShotLow, newShotHigh,
+                    depth, cutoff);
+            if (Double.isNaN(value) || fails(value, cutoff))
+                return value;
+        }
+        for (int from = 0; from < sunkCount; p++) {
+            int to = groupEnd(sinkings, from, sunkCount);
+            int[] group = buffers.subset;
+            System.arraycopy(part, from, group, 0, to - from);
+            value = refine(value, group, to - from, size, partBound[p], newHitLow, newHitHigh, newShotLow, newShotHigh,
+                    depth, cutoff);
+            if (Double.isNaN(value) || fails(value, cutoff))
+                return value;
+            from = to;
+        }
+        return value;
+    }
+
+    /**
+     * Replaces the lower bound of a part by its value, in the value of a shot.
+     *
+     * @param value the value of the shot, with the lower bound of the part
+     * @param part  the configurations of the part
+     * @param count their number
+     * @param size  the number of configurations before the shot
+     * @param bound the lower bound of the part
+     * @return the value of the shot, at least the cutoff if it cannot beat it, or NaN
+     */
+    private double refine(double value, int[] part, int count, int size, double bound, long hitLow, long hitHigh,
+                          long shotLow, long shotHigh, int depth, double cutoff) {
+        // the part may cost as much more than its bound as the shot is below the cutoff
+        double partCutoff = bound + (cutoff - value) * size / count;
+        double partValue = solve(part, count, hitLow, hitHigh, shotLow, shotHigh, depth + 1, null, partCutoff);
+        if (Double.isNaN(partValue))
+            return partValue;
+        return value + count * (partValue - bound) / size;
+    }
+
+    /**
+     * @return true if a value, exact or a lower bound, cannot beat a cutoff by more than rounding errors
+     */
+    private static boolean fails(double value, double cutoff) {
+        return value >= cutoff - EPSILON;
+    }
+
+    /**
+     * @return the end of the run of sinkings of the same ship starting at {@code from}
+     */
+    private static int groupEnd(long[] sinkings, int from, int count) {
+        int to = from + 1;
+        while (to < count && (sinkings[to] >>> 32) == (sinkings[from] >>> 32))
+            to++;
+        return to;
+    }
+
+    /**
+     * @return a lower bound on the expected number of shots to finish a part of a set split by a shot
+     */
+    private double bound(int[] part, int count, int left, long shotLow, long shotHigh, Scratch buffers) {
+        return bound(part, 0, count, left, shotLow, shotHigh, buffers);
+    }
+
+    /**
+     * @return a lower bound on the expected number of shots to finish the
+     *         configurations {@code part[from]} to {@code part[to - 1]}
+     */
+    private double bound(int[] part, int from, int to, int left, long shotLow, long shotHigh, Scratch buffers) {
+        if (left <= 1)
+            return left == 0 ? 0 : (to - from + 1) / 2.0;
+        int[] set = buffers.subset;
+        int size = to - from;
+        System.arraycopy(part, from, set, 0, size);
+        int[] coverage = cover(set, size, buffers.boundCoverage);
+        int[] values = buffers.values;
+        int cells = 0;
+        for (int cell = 0; cell < CELLS; cell++)
+            if (coverage[cell] > 0 && !isSet(shotLow, shotHigh, cell))
+                values[cells++] = coverage[cell];
+        Arrays.sort(values, 0, cells);
+        return lowerBound(set, size, left, shotLow, shotHigh, firstHit(values, cells, size), buffers);
+    }
+
+    /**
+     * Lists the cells not yet shot covered by some configuration of a set, most often covered first.
+     *
+     * @param coverage receives the number of configurations covering each cell
+     * @param order    receives the cells, in its first elements, with the
+     *                 number of configurations missing them in the high word
+     * @return the number of cells listed
+     */
+    private int candidates(int[] set, int size, long shotLow, long shotHigh, int[] coverage, long[] order) {
+        cover(set, size, coverage);
+        int candidates = 0;
+        for (int cell = 0; cell < CELLS; cell++)
+            if (coverage[cell] > 0 && !isSet(shotLow, shotHigh, cell))
+                order[candidates++] = ((long) (size - coverage[cell]) << 32) | cell;
+        Arrays.sort(order, 0, candidates);
+        return candidates;
+    }
+
+    /**
+     * A lower bound on the expected number of shots to finish a set of configurations.
+     * <p>
+     * Once the first of the cells left to hit is hit, each of the others
+     * still takes a shot, so the bound is {@code left - 1} more than a lower
+     * bound on the expected time of that first hit. Until the first hit, the
+     * shots follow the same cells whatever the configuration, and {@code j}
+     * of them hit at most the configurations covering the {@code j} most
+     * covered cells. The same holds of each ship alone, were the others
+     * revealed: the configurations sharing the other ships then make a
+     * search for that ship, bounded likewise, and the bound of the set is
+     * the highest of these. For a barge, whose placements are single cells,
+     * the bound of a search is exact.
+     * </p>
+     *
+     * @param firstHit a lower bound on the expected time of the first hit, from {@link #firstHit(int[], int, int)}
+     * @return the lower bound
+     */
+    private double lowerBound(int[] set, int size, int left, long shotLow, long shotHigh, double firstHit,
+                              Scratch buffers) {
+        double bound = firstHit + left - 1;
+        double sum = 0;
+        long unionLow = 0, unionHigh = 0;
+        int regions = 0;
+        for (int s = 0; s < ships; s++) {
+            double ship = shipBound(set, size, s, shotLow, shotHigh, buffers);
+            if (ship == 0)
+                continue;
+            bound = Math.max(bound, ship + left - buffers.shipLeft);
+            sum += ship;
+            regions += Long.bitCount(buffers.regionLow) + Long.bitCount(buffers.regionHigh);
+            unionLow |= buffers.regionLow;
+            unionHigh |= buffers.regionHigh;
+        }
+        // a cell shot counts for every ship that may cover it
+        int shared = regions - Long.bitCount(unionLow) - Long.bitCount(unionHigh);
+        return Math.max(bound, sum - shared);
+    }
+
+    /**
+     * @param values the number of configurations covering each cell not yet shot, in increasing order
+     * @param cells  the number of cells
+     * @param size   the number of configurations
+     * @return a lower bound on the expected time of the first hit, shooting the most covered cells first
+     */
+    private static double firstHit(int[] values, int cells, int size) {
+        double firstHit = 0;
+        long covered = 0;
+        for (int j = cells; covered < size; j--) {
+            firstHit += 1 - (double) covered / size;
+            if (j == 0)
+                break;
+            covered += values[j - 1];
+        }
+        return firstHit;
+    }
+
+    /**
+     * Bounds the expected number of shots sinking one ship, were the other
+     * ships revealed: the time of its next hit, and a shot for each other cell
+     * of it left to hit. Leaves in {@code buffers} the expected number of
+     * cells of the ship left to hit, and the cells not yet shot it may cover.
+     *
+     * @param ship the index of the ship in the configurations
+     * @return the lower bound, 0 if the ship has sunk
+     */
+    private double shipBound(int[] set, int size, int ship, long shotLow, long shotHigh, Scratch buffers) {
+        buffers.shipLeft = 0;
+        buffers.regionLow = buffers.regionHigh = 0;
+        if (allSet(shotLow, shotHigh, placements[set[0] * ships + ship]))
+            return 0; // sunk during the search, so in every configuration of the set
+
+        // chain the configurations of each group sharing the other ships
+        int[] group = groupOf[ship];
+        int[] first = buffers.groupFirst;
+        int[] next = buffers.groupNext;
+        int[] heads = buffers.groupHeads;
+        int groups = 0;
+        for (int k = size - 1; k >= 0; k--) {
+            int g = group[set[k]];
+            if (first[g] < 0)
+                heads[groups++] = g;
+            next[k] = first[g];
+            first[g] = k;
+        }
+
+        int[] coverage = buffers.shipCoverage;
+        int[] touched = buffers.touched;
+        int[] values = buffers.values;
+        boolean single = PlacementIndex.cellsOf(placements[set[0] * ships + ship]).length == 1;
+        double total = 0;
+        long shipLeft = 0;
+        long regionLow = 0, regionHigh = 0;
+        for (int h = 0; h < groups; h++) {
+            int g = heads[h];
+            if (single) {
+                // single cells shot one by one: the search takes half of them, plus one half, on average
+                int count = 0;
+                for (int k = first[g]; k >= 0; k = next[k]) {
+                    int p = placements[set[k] * ships + ship];
+                    count++;
+                    regionLow |= FleetGenerator.cellsLow(p);
+                    regionHigh |= FleetGenerator.cellsHigh(p);
+                }
+                first[g] = -1;
+                total += count * (count + 1) / 2.0;
+                shipLeft += count;
+                continue;
+            }
+            int count = 0, cells = 0;
+            int left = 0;
+            for (int k = first[g]; k >= 0; k = next[k]) {
+                int p = placements[set[k] * ships + ship];
+                count++;
+                regionLow |= FleetGenerator.cellsLow(p) & ~shotLow;
+                regionHigh |= FleetGenerator.cellsHigh(p) & ~shotHigh;
+                left = 0;
+                for (int cell : PlacementIndex.cellsOf(p))
+                    if (!isSet(shotLow, shotHigh, cell)) {
+                        left++;
+                        if (coverage[cell]++ == 0)
+                            touched[cells++] = cell;
+                    }
+            }
+            first[g] = -1;
+            for (int c = 0; c < cells; c++) {
+                values[c] = coverage[touched[c]];
+                coverage[touched[c]] = 0;
+            }
+            Arrays.sort(values, 0, cells);
+            // the placements of a group cover the same hits, so leave as many cells to hit
+            total += count * (firstHit(values, cells, count) + left - 1);
+            shipLeft += (long) count * left;
+        }
+        buffers.shipLeft = (double) shipLeft / size;
+        buffers.regionLow = regionLow;
+        buffers.regionHigh = regionHigh;
+        return total / size;
+    }
+
+    /**
+     * @return the cell not yet shot covered by the most configurations
+     */
+    private int mostCovered(int[] set, int size, long shotLow, long shotHigh) {
+        int[] coverage = cover(set, size, new int[CELLS]);
+        int best = -1;
+        for (int cell = 0; cell < CELLS; cell++)
+            if (!isSet(shotLow, shotHigh, cell) && (best < 0 || coverage[cell] > coverage[best]))
+                best = cell;
+        return best;
+    }
+
+    /**
+     * Counts the configurations of a set covering each cell.
+     *
+     * @param coverage receives the counts, by cell
+     * @return {@code coverage}
+     */
+    private int[] cover(int[] set, int size, int[] coverage) {
+        Arrays.fill(coverage, 0);
+        for (int i = 0; i < size; i++)
+            for (int s = 0; s < ships; s++)
+                for (int cell : PlacementIndex.cellsOf(placements[set[i] * ships + s]))
+                    coverage[cell]++;
+        return coverage;
+    }
+
+    /**
+     * @return the scratch buffers of a level of the search, large enough for the configuration limit
+     */
+    private Scratch scratch(int depth) {
+        Scratch buffers = scratch[depth];
+        if (buffers == null)
+            scratch[depth] = buffers = new Scratch(maxConfigurations + 1);
+        return buffers;
+    }
+
+    /**
+     * @return the placement of the ship of a configuration covering a cell, or -1
+     */
+    private int shipAt(int config, int cell) {
+        for (int s = 0; s < ships; s++) {
+            int p = placements[config * ships + s];
+            if (PlacementIndex.covers(p, cell))
+                return p;
+        }
+        return -1;
+    }
+
+    /**
+     * @return the number of cells of the ships of a configuration
+     */
+    private int cellsOf(int config) {
+        int cells = 0;
+        for (int s = 0; s < ships; s++)
+            cells += PlacementIndex.cellsOf(placements[config * ships + s]).length;
+        return cells;
+    }
+
+    /**
+     * @return the hash of a set of configurations and of the cells hit on them
+     */
+    private long keyOf(int[] set, int size, long hitLow, long hitHigh) {
+        long key = 0;
+        for (int i = 0; i < size; i++)
+            key += configurationKeys[set[i]];
+        for (long bits = hitLow; bits != 0; bits &= bits - 1)
+            key ^= HIT_KEYS[Long.numberOfTrailingZeros(bits)];
+        for (long bits = hitHigh; bits != 0; bits &= bits - 1)
+            key ^= HIT_KEYS[64 + Long.numberOfTrailingZeros(bits)];
+        return key;
+    }
+
+    /**
+     * @return the bits of a hash mixed, so that sums of mixed hashes do not cancel out
+     */
+    private static long mix(long key) {
+        key = (key ^ (key >>> 30)) * 0xBF58476D1CE4E5B9L;
+        key = (key ^ (key >>> 27)) * 0x94D049BB133111EBL;
+        return key ^ (key >>> 31);
+    }
+
+    /**
+     * @return true if every cell of the placement is set
+     */
+    private static boolean allSet(long low, long high, int placement) {
+        return (FleetGenerator.cellsLow(placement) & ~low) == 0 && (FleetGenerator.cellsHigh(placement) & ~high) == 0;
+    }
+
+    private static boolean isSet(long low, long high, int cell) {
+        return cell < 64 ? (low & (1L << cell)) != 0 : (high & (1L << cell)) != 0;
+    }
+
+    /**
+     * The buffers of one level of the search. The parts a shot splits a set
+     * into are searched one level down, so they stay intact while they are.
+     */
+    private static final class Scratch {
+        /** Number of configurations covering each cell. */
+        final int[] coverage = new int[CELLS];
+        /** The candidate cells, in the order they are tried. */
+        final long[] order = new long[CELLS];
+        /** The same, for the bounds of the parts of a set. */
+        final int[] boundCoverage = new int[CELLS];
+        /** The parts of a set split by a shot, and their lower bounds. */
+        final int[] misses;
+        final int[] hits;
+        final long[] sinkings;
+        final int[] part;
+        final int[] subset;
+        final double[] partBound;
+        /** The groups of configurations sharing all ships but one, chained. */
+        final int[] groupFirst;
+        final int[] groupNext;
+        final int[] groupHeads;
+        /** The coverage of the cells by the placements of a ship in a group. */
+        final int[] shipCoverage = new int[CELLS];
+        final int[] touched = new int[CELLS];
+        final int[] values = new int[CELLS];
+        /** What {@link #shipBound} leaves: the cells of the ship left to hit, and those it may cover. */
+        double shipLeft;
+        long regionLow, regionHigh;
+
+        Scratch(int configurations) {
+            misses = new int[configurations];
+            hits = new int[configurations];
+            sinkings = new long[configurations];
+            part = new int[configurations];
+            subset = new int[configurations];
+            partBound = new double[configurations + 2];
+            groupFirst = new int[configurations];
+            Arrays.fill(groupFirst, -1);
+            groupNext = new int[configurations];
+            groupHeads = new int[configurations];
+        }
+    }
+}
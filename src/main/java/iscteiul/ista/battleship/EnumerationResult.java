@@ -0,0 +1,85 @@
+package iscteiul.ista.battleship;
+
+/**
+ * The fleet configurations consistent with a {@link ShotHistory}.
+ * <p>
+ * Besides the number of configurations of the ships still afloat, it holds,
+ * for each cell, in how many of them a ship covers the cell, in total and
+ * for each category of ships. Sunk ships are not counted.
+ * </p>
+ *
+ * @see FleetEnumerator
+ */
+public class EnumerationResult {
+
+    private static final int BOARD = PlacementIndex.BOARD;
+
+    private final long configurations;
+
+    /** For each kind and cell, the number of configurations in which a ship of that kind covers the cell. */
+    private final long[][] counts;
+
+    private final boolean complete;
+
+    EnumerationResult(long configurations, long[][] counts, boolean complete) {
+        this.configurations = configurations;
+        this.counts = counts;
+        this.complete = complete;
+    }
+
+    /**
+     * @return the number of configurations of the ships afloat
+     */
+    public long getConfigurations() {
+        return configurations;
+    }
+
+    /**
+     * @return {@code false} if the search was stopped at its node limit, so that the counts are partial
+     */
+    public boolean isComplete() {
+        return complete;
+    }
+
+    /**
+     * @param row    the row of a cell
+     * @param column the column of a cell
+     * @return the number of configurations in which a ship afloat covers the cell
+     */
+    public long getCount(int row, int column) {
+        int cell = cell(row, column);
+        long total = 0;
+        for (long[] kindCounts : counts)
+            total += kindCounts[cell];
+        return total;
+    }
+
+    /**
+     * @param category a category of ships, as given by {@link IShip#getCategory()}
+     * @param row      the row of a cell
+     * @param column   the column of a cell
+     * @return the number of configurations in which a ship of that category covers the cell
+     * @throws IllegalArgumentException if the category is unknown
+     */
+    public long getCount(String category, int row, int column) {
+        int kind = PlacementIndex.kindOfCategory(category);
+        if (kind < 0)
+            throw new IllegalArgumentException("ERROR! unknown category of ship");
+        return counts[kind][cell(row, column)];
+    }
+
+    /**
+     * @param row    the row of a cell
+     * @param column the column of a cell
+     * @return the fraction of the configurations in which a ship afloat covers the cell
+     */
+    public double getProbability(int row, int column) {
+        return configurations == 0 ? 0 : (double) getCount(row, column) / configurations;
+    }
+
+    private static int cell(int row, int column) {
+        if (row < 0 || row >= BOARD || column < 0 || column >= BOARD)
+            throw new IllegalArgumentException("ERROR! cell off the board");
+        return row * BOARD + column;
+    }
+}
@@ -3,18 +3,31 @@
  */
 package iscteiul.ista.battleship;
 
+import java.io.PrintStream;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
-public class Fleet implements IFleet {
+public class Fleet implements IFleet, SinkListener {
     /**
      * This operation prints all the given ships
      *
      * @param ships The list of ships
      */
     static void printShips(List<IShip> ships) {
+        printShips(ships, System.out);
+    }
+
+    /**
+     * This operation prints all the given ships to a stream
+     *
+     * @param ships The list of ships
+     * @param out   The stream to print to
+     */
+    static void printShips(List<IShip> ships, PrintStream out) {
         for (IShip ship : ships)
-            System.out.println(ship);
+            out.println(ship);
     }
 
     // -----------------------------------------------------
@@ -22,8 +35,63 @@ public class Fleet implements IFleet {
 
     private List<IShip> ships;
 
+    /** Width and height of the board. */
+    private final int boardSize;
+
+    /** Limit on the number of ships, checked as {@link IFleet#FLEET_SIZE} is. */
+    private final int fleetSize;
+
+    /**
+     * For each cell of the board, the index of the ship occupying it plus one,
+     * or zero if the cell is empty.
+     */
+    private final CellIndex cellIndex;
+
+    /**
+     * The forbidden halo: cells occupied by some ship together with their
+     * eight neighbours. A new ship may not cover any of them.
+     */
+    private final IBitBoard halo;
+
+    /** Bounding box of the ship being added. */
+    private int footTop, footLeft, footHeight, footWidth;
+
+    /** Cells of the ship being added, one mask per row of its bounding box. */
+    private long[] footRows = new long[8];
+
+    /** Number of ships of the fleet still afloat, updated atomically as ships may sink on different threads. */
+    private final AtomicInteger floatingShips = new AtomicInteger();
+
+    /** The ships of each category, and how many of them are still afloat. */
+    private final CategoryIndex categories = new CategoryIndex();
+
+    /**
+     * Creates an empty fleet for the standard board.
+     */
     public Fleet() {
+        this(BOARD_SIZE, FLEET_SIZE);
+    }
+
+    /**
+     * Creates an empty fleet for a board of the given size.
+     * <p>
+     * Large boards get a sparse cell index, so that memory grows with the
+     * number of ships rather than with the board area.
+     * </p>
+     *
+     * @param boardSize the width and height of the board
+     * @param fleetSize the limit on the number of ships, with the same meaning as {@link IFleet#FLEET_SIZE}
+     * @throws IllegalArgumentException if the board size is not positive or the fleet size is negative
+     */
+    public Fleet(int boardSize, int fleetSize) {
+        if (boardSize <= 0 || fleetSize < 0)
+            throw new IllegalArgumentException("ERROR! invalid board or fleet size");
+
+        this.boardSize = boardSize;
+        this.fleetSize = fleetSize;
         ships = new ArrayList<>();
+        cellIndex = CellIndex.create(boardSize);
+        halo = IBitBoard.create(boardSize, boardSize);
     }
 
     @Override
@@ -31,6 +99,11 @@ public class Fleet implements IFleet {
         return ships;
     }
 
+    @Override
+    public int getBoardSize() {
+        return boardSize;
+    }
+
     /*
      * (non-Javadoc)
      *
@@ -38,12 +111,19 @@ public class Fleet implements IFleet {
      */
     @Override
     public boolean addShip(IShip s) {
-        boolean result = false;
-        if ((ships.size() <= FLEET_SIZE) && (isInsideBoard(s)) && (!colisionRisk(s))) {
-            ships.add(s);
-            result = true;
-        }
-        return result;
+        if (ships.size() > fleetSize)
+            return false;
+
+        loadFootprint(s);
+        if (!isInsideBoard() || colisionRisk())
+            return false;
+
+        ships.add(s);
+        indexShip(s, ships.size());
+        extendHalo();
+        categories.add(s);
+        track(s);
+        return true;
     }
 
     /*
@@ -53,12 +133,28 @@ public class Fleet implements IFleet {
      */
     @Override
     public List<IShip> getShipsLike(String category) {
-        List<IShip> shipsLike = new ArrayList<>();
-        for (IShip s : ships)
-            if (s.getCategory().equals(category))
-                shipsLike.add(s);
+        ShipCategory c = ShipCategory.ofName(category);
+        return c == null ? Collections.emptyList() : categories.ships(c);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see battleship.IFleet#getShips(battleship.ShipCategory)
+     */
+    @Override
+    public List<IShip> getShips(ShipCategory category) {
+        return categories.ships(category);
+    }
 
-        return shipsLike;
+    /*
+     * (non-Javadoc)
+     *
+     * @see battleship.IFleet#getFloatingShipCount(battleship.ShipCategory)
+     */
+    @Override
+    public int getFloatingShipCount(ShipCategory category) {
+        return categories.floating(category);
     }
 
     /*
@@ -76,6 +172,27 @@ public class Fleet implements IFleet {
         return floatingShips;
     }
 
+    /*
+     * (non-Javadoc)
+     *
+     * @see battleship.IFleet#getFloatingShipCount()
+     */
+    @Override
+    public int getFloatingShipCount() {
+        return floatingShips.get();
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see battleship.SinkListener#shipSunk(battleship.IShip)
+     */
+    @Override
+    public void shipSunk(IShip ship) {
+        floatingShips.decrementAndGet();
+        categories.sunk(ship);
+    }
+
     /*
      * (non-Javadoc)
      *
@@ -83,37 +200,168 @@ public class Fleet implements IFleet {
      */
     @Override
     public IShip shipAt(IPosition pos) {
-        for (int i = 0; i < ships.size(); i++)
-            if (ships.get(i).occupies(pos))
-                return ships.get(i);
-        return null;
+        int index = shipIndexAt(pos.getRow(), pos.getColumn());
+        return index < 0 ? null : ships.get(index);
     }
 
-    private boolean isInsideBoard(IShip s) {
-        return (s.getLeftMostPos() >= 0 && s.getRightMostPos() <= BOARD_SIZE - 1 && s.getTopMostPos() >= 0
-                && s.getBottomMostPos() <= BOARD_SIZE - 1);
+    /*
+     * (non-Javadoc)
+     *
+     * @see battleship.IFleet#shipIndexAt(int, int)
+     */
+    @Override
+    public int shipIndexAt(int row, int column) {
+        if (row < 0 || row >= boardSize || column < 0 || column >= boardSize)
+            return -1;
+        return cellIndex.get(row, column) - 1;
     }
 
-    private boolean colisionRisk(IShip s) {
-        for (int i = 0; i < ships.size(); i++) {
-            if (ships.get(i).tooCloseTo(s))
-                return true;
+    /**
+     * Records the cells of a newly added ship in the cell index
+     *
+     * @param s  The ship that has just been added
+     * @param id The index of the ship in the fleet plus one
+     */
+    private void indexShip(IShip s, int id) {
+        for (IPosition p : s.getPositions())
+            cellIndex.put(p.getRow(), p.getColumn(), id);
+    }
+
+    /**
+     * Starts following the sinking of a newly added ship
+     *
+     * @param s The ship that has just been added
+     */
+    private void track(IShip s) {
+        if (s.stillFloating())
+            floatingShips.incrementAndGet();
+        if (s instanceof Ship)
+            ((Ship) s).setSinkListener(this);
+    }
+
+    /**
+     * Loads the bounding box and row masks of a ship about to be added into the footprint fields
+     *
+     * @param s The ship
+     * @throws IllegalArgumentException if the ship, with its halo, is more than 64 columns wide
+     */
+    private void loadFootprint(IShip s) {
+        if (s instanceof Ship && ((Ship) s).getTemplate() != null) {
+            loadFootprint(((Ship) s).getTemplate(), s.getPosition().getRow(), s.getPosition().getColumn());
+            return;
+        }
+
+        List<IPosition> positions = s.getPositions();
+        int top = Integer.MAX_VALUE, bottom = Integer.MIN_VALUE;
+        int left = Integer.MAX_VALUE, right = Integer.MIN_VALUE;
+        for (int i = 0; i < positions.size(); i++) {
+            IPosition p = positions.get(i);
+            top = Math.min(top, p.getRow());
+            bottom = Math.max(bottom, p.getRow());
+            left = Math.min(left, p.getColumn());
+            right = Math.max(right, p.getColumn());
         }
+        if ((long) right - left >= 62)
+            throw new IllegalArgumentException("ERROR! ship too wide for the fleet");
+
+        footTop = top;
+        footLeft = left;
+        footHeight = bottom - top + 1;
+        footWidth = right - left + 1;
+        if (footRows.length < footHeight)
+            footRows = new long[footHeight];
+        for (int r = 0; r < footHeight; r++)
+            footRows[r] = 0;
+        for (int i = 0; i < positions.size(); i++) {
+            IPosition p = positions.get(i);
+            footRows[p.getRow() - top] |= 1L << (p.getColumn() - left);
+        }
+    }
+
+    /**
+     * Loads the footprint of a ship from its precomputed shape into the footprint fields
+     *
+     * @param template The shape of the ship
+     * @param row      The row of the reference position of the ship
+     * @param column   The column of the reference position of the ship
+     */
+    private void loadFootprint(ShipTemplate template, int row, int column) {
+        footTop = row + template.top();
+        footLeft = column + template.left();
+        footHeight = template.height();
+        footWidth = template.width();
+        if (footRows.length < footHeight)
+            footRows = new long[footHeight];
+        for (int r = 0; r < footHeight; r++)
+            footRows[r] = template.rowMask(r);
+    }
+
+    /**
+     * Checks whether a ship of the given shape would be accepted by
+     * {@link #addShip(IShip)} at a reference position, without building it
+     *
+     * @param template The shape of the ship
+     * @param row      The row of the reference position of the ship
+     * @param column   The column of the reference position of the ship
+     * @return true if such a ship could be added
+     */
+    boolean canPlace(ShipTemplate template, int row, int column) {
+        if (ships.size() > fleetSize)
+            return false;
+
+        loadFootprint(template, row, column);
+        return isInsideBoard() && !colisionRisk();
+    }
+
+    private boolean isInsideBoard() {
+        return (footLeft >= 0 && footLeft + footWidth <= boardSize && footTop >= 0
+                && footTop + footHeight <= boardSize);
+    }
+
+    /**
+     * A ship is at risk of colliding when it covers a cell of the halo. The
+     * ship must be inside the board.
+     */
+    private boolean colisionRisk() {
+        for (int r = 0; r < footHeight; r++)
+            if ((halo.getBits(footTop + r, footLeft, footWidth) & footRows[r]) != 0)
+                return true;
         return false;
     }
 
+    /**
+     * Adds the cells of the ship just added, and their neighbours, to the halo
+     */
+    private void extendHalo() {
+        int width = footWidth + 2;
+        for (int r = 0; r < footHeight; r++) {
+            long row = footRows[r] << 1;
+            long dilated = row | (row << 1) | (row >>> 1);
+            for (int dr = -1; dr <= 1; dr++)
+                halo.orBits(footTop + r + dr, footLeft - 1, width, dilated);
+        }
+    }
 
     /**
      * This operation shows the state of a fleet
      */
     public void printStatus() {
-        printAllShips();
-        printFloatingShips();
-        printShipsByCategory("Galeao");
-        printShipsByCategory("Fragata");
-        printShipsByCategory("Nau");
-        printShipsByCategory("Caravela");
-        printShipsByCategory("Barca");
+        printStatus(System.out);
+    }
+
+    /**
+     * This operation shows the state of a fleet on the given stream
+     *
+     * @param out The stream to print to
+     */
+    @Override
+    public void printStatus(PrintStream out) {
+        assert out != null;
+
+        printShips(ships, out);
+        printShips(getFloatingShips(), out);
+        for (ShipCategory c : ShipCategory.values())
+            printShips(categories.ships(c), out);
     }
 
     /**
@@ -0,0 +1,264 @@
+package iscteiul.ista.battleship;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts the configurations of the ships afloat that are consistent with a
+ * {@link ShotHistory}.
+ * <p>
+ * A configuration places every ship of the standard fleet not yet sunk so
+ * that no ship covers a miss, no two ships touch, as {@link Ship#tooCloseTo(IShip)}
+ * forbids, no ship touches a sunk ship, every hit outside the sunk ships is
+ * covered, and no ship lies on hits alone, as it would have sunk. Ships of
+ * the same kind are interchangeable, so each set of placements is counted
+ * once.
+ * </p>
+ * <p>
+ * The search places the ships largest first over the placement table of
+ * {@link FleetGenerator}, as 128-bit masks of free cells and uncovered hits.
+ * Its first levels are split into one {@link RecursiveTask} per placement,
+ * until there are a few dozen tasks per worker; below that each task
+ * searches sequentially. Every placement adds the number of configurations
+ * found below it to the counts of its cells, in an accumulator of the worker
+ * thread, and the accumulators are summed at the end. The search gives up
+ * after a number of nodes, and then reports partial counts.
+ * </p>
+ *
+ * @see ShotHistory
+ * @see EnumerationResult
+ */
+public class FleetEnumerator {
+
+    private static final int CELLS = PlacementIndex.CELLS;
+
+    /** Default limit on the number of placements tried. */
+    public static final long DEFAULT_NODE_LIMIT = 2_000_000_000L;
+
+    /** Number of tasks wanted per worker of the pool. */
+    private static final int TASKS_PER_WORKER = 64;
+
+    /** Nodes searched by a worker between two updates of the shared node count. */
+    private static final int NODE_BATCH = 1 << 12;
+
+    private final ForkJoinPool pool;
+    private final long nodeLimit;
+
+    /**
+     * Creates an enumerator running on the common pool.
+     */
+    public FleetEnumerator() {
+        this(ForkJoinPool.commonPool(), DEFAULT_NODE_LIMIT);
+    }
+
+    /**
+     * @param pool      the pool running the search
+     * @param nodeLimit the number of placements tried after which the search gives up
+     * @throws IllegalArgumentException if the node limit is not positive
+     */
+    public FleetEnumerator(ForkJoinPool pool, long nodeLimit) {
+        if (nodeLimit <= 0)
+            throw new IllegalArgumentException("ERROR! invalid node limit");
+        assert pool != null;
+
+        this.pool = pool;
+        this.nodeLimit = nodeLimit;
+    }
+
+    /**
+     * Counts the configurations consistent with a history.
+     *
+     * @param history what is known about the board
+     * @return the number of configurations, and how often each cell is covered
+     * @throws IllegalArgumentException if the history holds more sunk ships of a kind than the fleet has
+     */
+    public EnumerationResult enumerate(ShotHistory history) {
+        Search search = new Search(history, nodeLimit);
+        long configurations = pool.invoke(search.root(pool.getParallelism() * TASKS_PER_WORKER));
+        long[][] counts = new long[PlacementIndex.kindCount()][CELLS];
+        for (Accumulator acc : search.accumulators)
+            for (int k = 0; k < counts.length; k++)
+                for (int cell = 0; cell < CELLS; cell++)
+                    counts[k][cell] += acc.counts[k][cell];
+        return new EnumerationResult(configurations, counts, !search.aborted);
+    }
+
+    /**
+     * The counts of one worker thread.
+     */
+    private static final class Accumulator {
+        final long[][] counts = new long[PlacementIndex.kindCount()][CELLS];
+        int nodes;
+
+        void add(int placement, long configurations) {
+            long[] kindCounts = counts[PlacementIndex.kindOf(placement)];
+            for (int cell : PlacementIndex.cellsOf(placement))
+                kindCounts[cell] += configurations;
+        }
+    }
+
+    /**
+     * The state shared by the tasks of one enumeration.
+     */
+    private static final class Search {
+
+        /** The kind of each ship to place, largest first. */
+        final int[] kinds;
+
+        /** For each depth, the number of cells of the ships still to place. */
+        final int[] cellsLeft;
+
+        /** Cells no ship may cover at the start: misses and the halos of the sunk ships. */
+        final long blockedLow, blockedHigh;
+
+        /** Hits outside the sunk ships. */
+        final long openLow, openHigh;
+
+        final long nodeLimit;
+        final AtomicLong nodes = new AtomicLong();
+        volatile boolean aborted;
+
+        final ConcurrentLinkedQueue<Accumulator> accumulators = new ConcurrentLinkedQueue<>();
+        final ThreadLocal<Accumulator> local = ThreadLocal.withInitial(() -> {
+            Accumulator acc = new Accumulator();
+            accumulators.add(acc);
+            return acc;
+        });
+
+        Search(ShotHistory history, long nodeLimit) {
+            this.nodeLimit = nodeLimit;
+            this.blockedLow = history.blockedLow();
+            this.blockedHigh = history.blockedHigh();
+            this.openLow = history.openLow();
+            this.openHigh = history.openHigh();
+            this.kinds = history.afloatKinds();
+            cellsLeft = new int[kinds.length + 1];
+            for (int i = kinds.length - 1; i >= 0; i--)
+                cellsLeft[i] = cellsLeft[i + 1] + PlacementIndex.cellsOf(PlacementIndex.firstOf(kinds[i])).length;
+        }
+
+        PlacementTask root(int tasks) {
+            return new PlacementTask(this, 0, ~blockedLow, ~blockedHigh, openLow, openHigh,
+                    kinds.length == 0 ? 0 : PlacementIndex.firstOf(kinds[0]), tasks);
+        }
+
+        /**
+         * @return the first placement to try for the ship after {@code depth},
+         *         past {@code placement} if both ships are of the same kind
+         */
+        int nextFirst(int depth, int placement) {
+            if (depth + 1 == kinds.length)
+                return 0;
+            int next = kinds[depth + 1];
+            return next == kinds[depth] ? placement + 1 : PlacementIndex.firstOf(next);
+        }
+
+        /**
+         * Searches the configurations below a node, on the current thread.
+         *
+         * @return the number of configurations found
+         */
+        long search(Accumulator acc, int depth, long freeLow, long freeHigh, long openLow, long openHigh, int first) {
+            if (depth == kinds.length)
+                return (openLow | openHigh) == 0 ? 1 : 0;
+            if (Long.bitCount(openLow) + Long.bitCount(openHigh) > cellsLeft[depth] || aborted)
+                return 0;
+
+            long total = 0;
+            for (int p = first, end = PlacementIndex.endOf(kinds[depth]); p < end; p++) {
+                if (!PlacementIndex.fits(p, freeLow, freeHigh, openLow, openHigh))
+                    continue;
+                if (++acc.nodes == NODE_BATCH && countNodes(acc))
+                    return total;
+                long found = search(acc, depth + 1,
+                        freeLow & ~FleetGenerator.haloLow(p), freeHigh & ~FleetGenerator.haloHigh(p),
+                        openLow & ~FleetGenerator.cellsLow(p), openHigh & ~FleetGenerator.cellsHigh(p),
+                        nextFirst(depth, p));
+                if (found != 0) {
+                    total += found;
+                    acc.add(p, found);
+                }
+            }
+            return total;
+        }
+
+        /**
+         * Adds the nodes of a worker to the shared count.
+         *
+         * @return true if the node limit has been reached
+         */
+        boolean countNodes(Accumulator acc) {
+            if (nodes.addAndGet(acc.nodes) > nodeLimit)
+                aborted = true;
+            acc.nodes = 0;
+            return aborted;
+        }
+    }
+
+    /**
+     * Counts the configurations below a node of the search, splitting it
+     * into one task per placement of its ship while the task budget allows.
+     */
+    private static final class PlacementTask extends RecursiveTask<Long> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Search search;
+        private final int depth;
+        private final long freeLow, freeHigh;
+        private final long openLow, openHigh;
+        private final int first;
+
+        /** Number of tasks this one may be split into. */
+        private final int tasks;
+
+        PlacementTask(Search search, int depth, long freeLow, long freeHigh, long openLow, long openHigh, int first,
+                      int tasks) {
+            this.search = search;
+            this.depth = depth;
+            this.freeLow = freeLow;
+            this.freeHigh = freeHigh;
+            this.openLow = openLow;
+            this.openHigh = openHigh;
+            this.first = first;
+            this.tasks = tasks;
+        }
+
+        @Override
+        protected Long compute() {
+            if (tasks <= 1 || depth == search.kinds.length)
+                return search.search(search.local.get(), depth, freeLow, freeHigh, openLow, openHigh, first);
+
+            List<Integer> placements = new ArrayList<>();
+            for (int p = first, end = PlacementIndex.endOf(search.kinds[depth]); p < end; p++)
+                if (PlacementIndex.fits(p, freeLow, freeHigh, openLow, openHigh))
+                    placements.add(p);
+            if (placements.isEmpty())
+                return 0L;
+
+            int childTasks = Math.max(1, tasks / placements.size());
+            List<PlacementTask> children = new ArrayList<>(placements.size());
+            for (int p : placements)
+                children.add(new PlacementTask(search, depth + 1,
+                        freeLow & ~FleetGenerator.haloLow(p), freeHigh & ~FleetGenerator.haloHigh(p),
+                        openLow & ~FleetGenerator.cellsLow(p), openHigh & ~FleetGenerator.cellsHigh(p),
+                        search.nextFirst(depth, p), childTasks));
+            invokeAll(children);
+
+            long total = 0;
+            Accumulator acc = search.local.get();
+            for (int i = 0; i < children.size(); i++) {
+                long found = children.get(i).join();
+                if (found != 0) {
+                    total += found;
+                    acc.add(placements.get(i), found);
+                }
+            }
+            return total;
+        }
+    }
+}
@@ -0,0 +1,641 @@
+package iscteiul.ista.battleship;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Generates random legal standard fleets, uniformly over all legal fleets.
+ * <p>
+ * The cells of the standard board are numbered {@code row * BOARD_SIZE + column}
+ * and sets of cells are kept as pairs of longs, the low word holding cells 0
+ * to 63 and the high word the others. Every distinct shape of every kind of
+ * ship (the four bearings of the galleon, two for the straight ships, one for
+ * the barge) is precomputed as the list of shifts that bring each of its
+ * cells onto the top-left corner of its bounding box, together with the set
+ * of corners that keep it inside the board. The corners where a shape fits on
+ * the free cells of the board are then found for all corners at once, by
+ * and-ing the free set shifted by each of those amounts.
+ * </p>
+ * <p>
+ * A fleet is drawn ship by ship, largest first, removing each placement, with
+ * its eight-neighbour halo, from the free cells. The first two ships are drawn
+ * together from a table of all their legal pairs, each weighted by the number
+ * of placements left to the third ship times a bound on those left to the
+ * fourth. Every later ship draws one of a fixed number of slots, a bound on
+ * its placements whatever the ships before it, and the whole fleet is drawn
+ * again when the slot drawn holds no placement. Every legal fleet is then
+ * drawn with the same probability, the product of the inverses of the bounds.
+ * Drawing each ship uniformly among its placements left, without rejection,
+ * would favour the fleets whose first ships leave little room to the others,
+ * and put the galleon on an edge of the board in about 44% of the fleets
+ * against 62.5% of all legal fleets.
+ * </p>
+ * <p>
+ * About one fleet in 370 drawn is kept, so {@link #next(int[])} produces
+ * several thousand fleets per second per core; building {@link Fleet} objects
+ * with {@link #toFleet(int[])} costs little more. The tables of the draws are
+ * built on the first draw, in a fraction of a second. A generator is not
+ * thread safe: use one per thread. Two generators built with the same seed
+ * produce the same fleets.
+ * </p>
+ *
+ * @see MonteCarloSimulator
+ */
+public class FleetGenerator {
+
+    /** Width and height of the board. */
+    private static final int BOARD = IFleet.BOARD_SIZE;
+
+    /** Number of cells of the board. */
+    private static final int CELLS = BOARD * BOARD;
+
+    /**
+     * The ships of a standard fleet, as kinds accepted by {@link Ship#buildShip},
+     * largest first: {@link IFleet#FLEET_SIZE} + 1 ships, as {@link Tasks} builds them.
+     */
+    static final String[] STANDARD_FLEET = {"galeao", "fragata", "nau", "nau", "caravela", "caravela", "caravela",
+            "barca", "barca", "barca", "barca"};
+
+    /** The ships of a generated fleet, largest first. */
+    private static final String[] KINDS = STANDARD_FLEET;
+
+    private static final Compass[] BEARINGS = {Compass.NORTH, Compass.SOUTH, Compass.EAST, Compass.WEST};
+
+    /** Number of ships of a generated fleet. */
+    public static final int FLEET_SHIPS = KINDS.length;
+
+    /** The cells of the board. */
+    private static final long BOARD_LOW = CELLS >= 64 ? -1L : (1L << CELLS) - 1;
+    private static final long BOARD_HIGH = CELLS <= 64 ? 0 : CELLS == 128 ? -1L : (1L << (CELLS - 64)) - 1;
+
+    /*
+     * The shapes: shape s has the cells shapeShifts[s][i] away from the
+     * top-left corner of its bounding box, and fits inside the board when
+     * that corner is one of shapeCornersLow[s] / shapeCornersHigh[s]. The
+     * shapes of ship i of the fleet, shared with the other ships of its kind,
+     * are shapeFirst[i] to shapeEnd[i] - 1.
+     */
+    private static final int[][] shapeShifts;
+    private static final long[] shapeCornersLow;
+    private static final long[] shapeCornersHigh;
+    private static final int[] shapeFirst;
+    private static final int[] shapeEnd;
+
+    /*
+     * The placements: placementOf[s * CELLS + corner] is the placement of
+     * shape s at that corner, or -1 if it does not fit. Placement p covers
+     * cellsLow[p] / cellsHigh[p] and forbids haloLow[p] / haloHigh[p].
+     */
+    private static final int[] placementOf;
+    private static final long[] cellsLow;
+    private static final long[] cellsHigh;
+    private static final long[] haloLow;
+    private static final long[] haloHigh;
+    private static final String[] kindOf;
+    private static final Compass[] bearingOf;
+    private static final byte[] rowOf;
+    private static final byte[] columnOf;
+
+    static {
+        assert CELLS <= 128;
+
+        List<ShipTemplate> shapes = new ArrayList<>();
+        List<Compass> shapeBearings = new ArrayList<>();
+        List<String> shapeKinds = new ArrayList<>();
+        int[] first = new int[KINDS.length];
+        int[] end = new int[KINDS.length];
+        for (int i = 0; i < KINDS.length; i++) {
+            if (i > 0 && KINDS[i].equals(KINDS[i - 1])) {
+                first[i] = first[i - 1];
+                end[i] = end[i - 1];
+                continue;
+            }
+            first[i] = shapes.size();
+            for (Compass bearing : BEARINGS) {
+                ShipTemplate template = Ship.templateOf(KINDS[i], bearing);
+                if (!sameShape(shapes, first[i], template)) {
+                    shapes.add(template);
+                    shapeBearings.add(bearing);
+                    shapeKinds.add(KINDS[i]);
+                }
+            }
+            end[i] = shapes.size();
+        }
+        shapeFirst = first;
+        shapeEnd = end;
+
+        int n = shapes.size();
+        shapeShifts = new int[n][];
+        shapeCornersLow = new long[n];
+        shapeCornersHigh = new long[n];
+        placementOf = new int[n * CELLS];
+        List<long[]> masks = new ArrayList<>();
+        List<Integer> origins = new ArrayList<>();
+        for (int s = 0; s < n; s++) {
+            ShipTemplate template = shapes.get(s);
+            int[] shifts = new int[template.size()];
+            for (int i = 0; i < shifts.length; i++)
+                shifts[i] = (template.rowOffset(i) - template.top()) * BOARD + template.columnOffset(i) - template.left();
+            assert Arrays.stream(shifts).allMatch(shift -> shift < 64);
+            shapeShifts[s] = shifts;
+
+            for (int corner = 0; corner < CELLS; corner++) {
+                int row = corner / BOARD - template.top();
+                int column = corner % BOARD - template.left();
+                long[] mask = placementMasks(template, row, column);
+                if (mask == null) {
+                    placementOf[s * CELLS + corner] = -1;
+                    continue;
+                }
+                if (corner < 64)
+                    shapeCornersLow[s] |= 1L << corner;
+                else
+                    shapeCornersHigh[s] |= 1L << corner;
+                placementOf[s * CELLS + corner] = masks.size();
+                masks.add(mask);
+                origins.add(s * CELLS + corner);
+            }
+        }
+
+        int placements = masks.size();
+        cellsLow = new long[placements];
+        cellsHigh = new long[placements];
+        haloLow = new long[placements];
+        haloHigh = new long[placements];
+        kindOf = new String[placements];
+        bearingOf = new Compass[placements];
+        rowOf = new byte[placements];
+        columnOf = new byte[placements];
+        for (int p = 0; p < placements; p++) {
+            long[] mask = masks.get(p);
+            cellsLow[p] = mask[0];
+            cellsHigh[p] = mask[1];
+            haloLow[p] = mask[2];
+            haloHigh[p] = mask[3];
+            int s = origins.get(p) / CELLS;
+            int corner = origins.get(p) % CELLS;
+            kindOf[p] = shapeKinds.get(s);
+            bearingOf[p] = shapeBearings.get(s);
+            rowOf[p] = (byte) (corner / BOARD - shapes.get(s).top());
+            columnOf[p] = (byte) (corner % BOARD - shapes.get(s).left());
+        }
+    }
+
+    /**
+     * The tables of the draws, built on the first draw.
+     */
+    private static final class Draws {
+
+        /**
+         * The slots: from the fifth ship on, ship i draws one of SLOTS[i]
+         * slots, the first ones holding its placements on the cells left free
+         * by the ships before it and the others none. No ship ever has more
+         * placements than slots, see {@link FleetGenerator#slots()}.
+         */
+        private static final int[] SLOTS;
+
+        /*
+         * The first four ships: pair k puts the first two ships at placements
+         * firstOf[k] and secondOf[k], leaving thirdCount[k] placements to
+         * the third ship, after which the fourth has at most fourthSlots[k]
+         * placements. Pairs are drawn with weight thirdCount[k] *
+         * fourthSlots[k], pairWeights[k] being the total weight of pairs 0 to k.
+         */
+        private static final int[] firstOf;
+        private static final int[] secondOf;
+        private static final int[] thirdCount;
+        private static final int[] fourthSlots;
+        private static final long[] pairWeights;
+
+        static {
+            SLOTS = slots();
+
+            List<int[]> pairs = pairs();
+            firstOf = new int[pairs.size()];
+            secondOf = new int[pairs.size()];
+            thirdCount = new int[pairs.size()];
+            fourthSlots = new int[pairs.size()];
+            pairWeights = new long[pairs.size()];
+            long weight = 0;
+            for (int k = 0; k < pairs.size(); k++) {
+                int[] pair = pairs.get(k);
+                firstOf[k] = pair[0];
+                secondOf[k] = pair[1];
+                thirdCount[k] = pair[2];
+                fourthSlots[k] = pair[3];
+                weight += (long) pair[2] * pair[3];
+                pairWeights[k] = weight;
+            }
+        }
+    }
+
+    private final SplittableRandom random;
+
+    /**
+     * @param seed the seed of the sequence of fleets
+     */
+    public FleetGenerator(long seed) {
+        this.random = new SplittableRandom(seed);
+    }
+
+    /**
+     * Draws a random fleet.
+     *
+     * @param placements receives the placement of each ship of the fleet, largest first
+     * @throws IllegalArgumentException if the buffer holds fewer than {@link #FLEET_SHIPS} elements
+     */
+    public void next(int[] placements) {
+        next(placements, random);
+    }
+
+    /**
+     * Draws a random fleet with the given source of randomness.
+     */
+    void next(int[] placements, SplittableRandom random) {
+        if (placements.length < FLEET_SHIPS)
+            throw new IllegalArgumentException("ERROR! placement buffer shorter than the fleet");
+
+        long total = Draws.pairWeights[Draws.pairWeights.length - 1];
+        while (true) {
+            // the first two ships, weighted by the placements they leave to the next two
+            int k = Arrays.binarySearch(Draws.pairWeights, random.nextLong(total) + 1);
+            if (k < 0)
+                k = -k - 1;
+            placements[0] = Draws.firstOf[k];
+            placements[1] = Draws.secondOf[k];
+            long low = BOARD_LOW & ~haloLow[Draws.firstOf[k]] & ~haloLow[Draws.secondOf[k]];
+            long high = BOARD_HIGH & ~haloHigh[Draws.firstOf[k]] & ~haloHigh[Draws.secondOf[k]];
+
+            int ship = 2;
+            while (ship < FLEET_SHIPS) {
+                int slots = ship == 2 ? Draws.thirdCount[k] : ship == 3 ? Draws.fourthSlots[k] : Draws.SLOTS[ship];
+                assert fittingCount(ship, low, high) <= slots : "ship " + ship + " has more placements than slots";
+                int p = fitting(ship, low, high, random.nextInt(slots));
+                if (p < 0)
+                    break;
+                placements[ship++] = p;
+                low &= ~haloLow[p];
+                high &= ~haloHigh[p];
+            }
+            if (ship == FLEET_SHIPS)
+                return;
+            // the slot drawn holds no placement: the whole fleet is drawn again
+        }
+    }
+
+    /**
+     * @return a new random fleet
+     */
+    public Fleet nextFleet() {
+        return nextFleet(random);
+    }
+
+    /**
+     * @return a new random fleet, drawn with the given source of randomness
+     */
+    Fleet nextFleet(SplittableRandom random) {
+        int[] placements = new int[FLEET_SHIPS];
+        next(placements, random);
+        return toFleet(placements);
+    }
+
+    /**
+     * Builds the fleet described by a list of placements.
+     *
+     * @param placements the placements of the ships, as given by {@link #next(int[])}
+     * @return a fleet holding those ships
+     * @throws IllegalArgumentException if the placements do not make a legal fleet
+     */
+    public static Fleet toFleet(int[] placements) {
+        Fleet fleet = new Fleet();
+        for (int p : placements)
+            if (!fleet.addShip(Ship.buildShip(kindOf[p], bearingOf[p], Coordinate.of(rowOf[p], columnOf[p]))))
+                throw new IllegalArgumentException("ERROR! placements do not make a legal fleet");
+        return fleet;
+    }
+
+    /**
+     * @return the number of placements of all kinds of ships
+     */
+    public static int placementCount() {
+        return cellsLow.length;
+    }
+
+    /**
+     * @param placement a placement
+     * @return the kind of the ship, as accepted by {@link Ship#buildShip}
+     */
+    public static String kindOf(int placement) {
+        return kindOf[placement];
+    }
+
+    public static Compass bearingOf(int placement) {
+        return bearingOf[placement];
+    }
+
+    public static int rowOf(int placement) {
+        return rowOf[placement];
+    }
+
+    public static int columnOf(int placement) {
+        return columnOf[placement];
+    }
+
+    /**
+     * @param placement a placement
+     * @return the cells 0 to 63 covered by the ship, bit {@code row * BOARD_SIZE + column} standing for a cell
+     */
+    public static long cellsLow(int placement) {
+        return cellsLow[placement];
+    }
+
+    /**
+     * @param placement a placement
+     * @return the cells from 64 on covered by the ship, bit {@code row * BOARD_SIZE + column - 64} standing for a cell
+     */
+    public static long cellsHigh(int placement) {
+        return cellsHigh[placement];
+    }
+
+    /**
+     * @param placement a placement
+     * @return the cells 0 to 63 covered by the ship or next to it
+     */
+    static long haloLow(int placement) {
+        return haloLow[placement];
+    }
+
+    /**
+     * @param placement a placement
+     * @return the cells from 64 on covered by the ship or next to it
+     */
+    static long haloHigh(int placement) {
+        return haloHigh[placement];
+    }
+
+    /**
+     * Finds a placement of a ship on free cells.
+     *
+     * @param ship the ship
+     * @param low  the free cells 0 to 63
+     * @param high the free cells from 64 on
+     * @param k    the rank of the placement among those on free cells
+     * @return the placement, or -1 if fewer than {@code k + 1} placements lie on free cells
+     */
+    private static int fitting(int ship, long low, long high, int k) {
+        for (int s = shapeFirst[ship]; s < shapeEnd[ship]; s++) {
+            long cornersLow = fittingLow(s, low, high);
+            int inLow = Long.bitCount(cornersLow);
+            if (k < inLow)
+                return placementOf[s * CELLS + Long.numberOfTrailingZeros(selectBit(cornersLow, k))];
+            k -= inLow;
+            long cornersHigh = fittingHigh(s, high);
+            int inHigh = Long.bitCount(cornersHigh);
+            if (k < inHigh)
+                return placementOf[s * CELLS + 64 + Long.numberOfTrailingZeros(selectBit(cornersHigh, k))];
+            k -= inHigh;
+        }
+        return -1;
+    }
+
+    /**
+     * @return the number of placements of a ship on free cells
+     */
+    private static int fittingCount(int ship, long low, long high) {
+        int count = 0;
+        for (int s = shapeFirst[ship]; s < shapeEnd[ship]; s++)
+            count += Long.bitCount(fittingLow(s, low, high)) + Long.bitCount(fittingHigh(s, high));
+        return count;
+    }
+
+    /**
+     * @return the corners 0 to 63 where shape {@code s} lies on free cells
+     */
+    private static long fittingLow(int s, long low, long high) {
+        long corners = shapeCornersLow[s];
+        for (int shift : shapeShifts[s]) {
+            // the corners c such that cell c + shift is free; shifting in two
+            // steps carries nothing from the high word when the shift is 0
+            corners &= (low >>> shift) | ((high << 1) << (63 - shift));
+        }
+        return corners;
+    }
+
+    /**
+     * @return the corners from 64 on where shape {@code s} lies on free cells
+     */
+    private static long fittingHigh(int s, long high) {
+        long corners = shapeCornersHigh[s];
+        for (int shift : shapeShifts[s])
+            corners &= high >>> shift;
+        return corners;
+    }
+
+    /**
+     * Lists the placements of the first two ships that leave room for the
+     * next two.
+     *
+     * @return for each pair, the placements of the first and second ships,
+     * the number of placements of the third ship and the most placements
+     * left to the fourth once the third is placed
+     */
+    private static List<int[]> pairs() {
+        assert FLEET_SHIPS > 4;
+        List<int[]> pairs = new ArrayList<>();
+        for (int first : fittingPlacements(0, BOARD_LOW, BOARD_HIGH)) {
+            long low = BOARD_LOW & ~haloLow[first];
+            long high = BOARD_HIGH & ~haloHigh[first];
+            for (int second : fittingPlacements(1, low, high)) {
+                long pairLow = low & ~haloLow[second];
+                long pairHigh = high & ~haloHigh[second];
+                int[] thirds = fittingPlacements(2, pairLow, pairHigh);
+                int fourths = 0;
+                for (int third : thirds)
+                    fourths = Math.max(fourths, fittingCount(3, pairLow & ~haloLow[third], pairHigh & ~haloHigh[third]));
+                if (fourths > 0)
+                    pairs.add(new int[]{first, second, thirds.length, fourths});
+            }
+        }
+        return pairs;
+    }
+
+    /**
+     * Bounds the number of placements of each ship on the cells left free by
+     * the ships before it, whatever their placements.
+     * <p>
+     * Two ships do not touch if and only if their blocks, the cells they
+     * cover widened by one row down and one column right, do not overlap,
+     * and a ship lies on the board if and only if its block lies on the board
+     * widened likewise. The ships before ship i thus leave free an area of
+     * the wider board of the same size for every fleet, and every placement
+     * of ship i puts one of its blocks inside that area, with any rectangle
+     * the block holds. Rectangles {@code a} wide and {@code b} high set at
+     * corners spread over {@code r} rows and {@code c} columns cover at
+     * least {@code (a - 1) * r + (b - 1) * (c + a - 1)} cells more than
+     * there are corners, which bounds the corners that the area holds.
+     * </p>
+     *
+     * @return the number of slots of each ship
+     */
+    private static int[] slots() {
+        int[] slots = new int[FLEET_SHIPS];
+        int area = (BOARD + 1) * (BOARD + 1);
+        for (int ship = 0; ship < FLEET_SHIPS; ship++) {
+            int bound = 0;
+            for (int s = shapeFirst[ship]; s < shapeEnd[ship]; s++) {
+                int corners = Long.bitCount(shapeCornersLow[s]) + Long.bitCount(shapeCornersHigh[s]);
+                bound += Math.min(corners, blockBound(s, area));
+            }
+            assert bound > 0;
+            slots[ship] = bound;
+            area -= blockSize(shapeFirst[ship]);
+        }
+        return slots;
+    }
+
+    /**
+     * @return the most corners where the block of shape {@code s} lies inside a free area of the given size
+     */
+    private static int blockBound(int s, int area) {
+        boolean[][] block = block(s);
+        int bound = Integer.MAX_VALUE;
+        for (int top = 0; top < block.length; top++)
+            for (int left = 0; left < block[0].length; left++)
+                for (int bottom = top; bottom < block.length; bottom++)
+                    for (int right = left; right < block[0].length; right++)
+                        if (covers(block, top, left, bottom, right))
+                            bound = Math.min(bound, rectangleBound(right - left + 1, bottom - top + 1, area));
+        return bound;
+    }
+
+    /**
+     * @return the most corners where an {@code a} wide and {@code b} high rectangle lies inside a free area of the
+     * given size of the wider board
+     */
+    private static int rectangleBound(int a, int b, int area) {
+        int side = BOARD + 1;
+        int bound = 0;
+        for (int rows = 1; rows <= side - b + 1; rows++)
+            for (int columns = 1; columns <= side - a + 1; columns++)
+                bound = Math.max(bound, Math.min(rows * columns, area - (a - 1) * rows - (b - 1) * (columns + a - 1)));
+        return bound;
+    }
+
+    /**
+     * @return the cells of the block of shape {@code s}, over the bounding box of the block
+     */
+    private static boolean[][] block(int s) {
+        int height = 0;
+        int width = 0;
+        for (int shift : shapeShifts[s]) {
+            height = Math.max(height, shift / BOARD + 2);
+            width = Math.max(width, shift % BOARD + 2);
+        }
+        boolean[][] block = new boolean[height][width];
+        for (int shift : shapeShifts[s])
+            for (int row = shift / BOARD; row <= shift / BOARD + 1; row++)
+                for (int column = shift % BOARD; column <= shift % BOARD + 1; column++)
+                    block[row][column] = true;
+        return block;
+    }
+
+    /**
+     * @return the number of cells of the block of shape {@code s}
+     */
+    private static int blockSize(int s) {
+        int size = 0;
+        for (boolean[] row : block(s))
+            for (boolean cell : row)
+                if (cell)
+                    size++;
+        return size;
+    }
+
+    /**
+     * @return true if the block holds every cell of the rectangle
+     */
+    private static boolean covers(boolean[][] block, int top, int left, int bottom, int right) {
+        for (int row = top; row <= bottom; row++)
+            for (int column = left; column <= right; column++)
+                if (!block[row][column])
+                    return false;
+        return true;
+    }
+
+    /**
+     * @return the placements of a ship on free cells
+     */
+    private static int[] fittingPlacements(int ship, long low, long high) {
+        int[] placements = new int[fittingCount(ship, low, high)];
+        int k = 0;
+        for (int s = shapeFirst[ship]; s < shapeEnd[ship]; s++) {
+            for (long corners = fittingLow(s, low, high); corners != 0; corners &= corners - 1)
+                placements[k++] = placementOf[s * CELLS + Long.numberOfTrailingZeros(corners)];
+            for (long corners = fittingHigh(s, high); corners != 0; corners &= corners - 1)
+                placements[k++] = placementOf[s * CELLS + 64 + Long.numberOfTrailingZeros(corners)];
+        }
+        return placements;
+    }
+
+    /**
+     * @return the {@code k}-th lowest set bit of {@code bits}, alone
+     */
+    private static long selectBit(long bits, int k) {
+        // narrow down to the byte holding the bit by halving, then clear the bits below it
+        int shift = 0;
+        for (int width = 32; width >= 8; width >>>= 1) {
+            int below = Long.bitCount((bits >>> shift) & ((1L << width) - 1));
+            if (k >= below) {
+                k -= below;
+                shift += width;
+            }
+        }
+        long rest = bits & (-1L << shift);
+        for (; k > 0; k--)
+            rest &= rest - 1;
+        return Long.lowestOneBit(rest);
+    }
+
+    /**
+     * @return the masks {cells low, cells high, halo low, halo high} of a
+     * placement, or {@code null} if the ship does not fit on the board
+     */
+    private static long[] placementMasks(ShipTemplate template, int row, int column) {
+        int top = row + template.top();
+        int left = column + template.left();
+        if (top < 0 || left < 0 || top + template.height() > BOARD || left + template.width() > BOARD)
+            return null;
+
+        long[] mask = new long[4];
+        for (int i = 0; i < template.size(); i++) {
+            int r = row + template.rowOffset(i);
+            int c = column + template.columnOffset(i);
+            setBit(mask, 0, r * BOARD + c);
+            for (int hr = Math.max(r - 1, 0); hr <= Math.min(r + 1, BOARD - 1); hr++)
+                for (int hc = Math.max(c - 1, 0); hc <= Math.min(c + 1, BOARD - 1); hc++)
+                    setBit(mask, 2, hr * BOARD + hc);
+        }
+        return mask;
+    }
+
+    private static void setBit(long[] mask, int offset, int cell) {
+        mask[offset + (cell >>> 6)] |= 1L << cell;
+    }
+
+    /**
+     * @return true if one of the templates from {@code from} on covers the same cells as {@code template}, up to a translation
+     */
+    private static boolean sameShape(List<ShipTemplate> templates, int from, ShipTemplate template) {
+        for (int t = from; t < templates.size(); t++) {
+            ShipTemplate other = templates.get(t);
+            boolean same = other.height() == template.height() && other.width() == template.width();
+            for (int r = 0; same && r < template.height(); r++)
+                same = other.rowMask(r) == template.rowMask(r);
+            if (same)
+                return true;
+        }
+        return false;
+    }
+}
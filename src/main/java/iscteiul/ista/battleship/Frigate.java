@@ -19,7 +19,18 @@ public class Frigate extends Ship {
     /**
      * The name of the ship.
      */
-    private static final String NAME = "Fragata";
+    private static final String NAME = ShipCategory.FRAGATA.getName();
+
+    /**
+     * The shape of the frigate for each bearing, as {row, column} offsets
+     * from its reference position: vertical for NORTH/SOUTH, horizontal for
+     * EAST/WEST.
+     */
+    private static final ShipTemplate[] TEMPLATES = ShipTemplate.byBearing(
+            new int[][]{{0, 0}, {1, 0}, {2, 0}, {3, 0}},
+            new int[][]{{0, 0}, {1, 0}, {2, 0}, {3, 0}},
+            new int[][]{{0, 0}, {0, 1}, {0, 2}, {0, 3}},
+            new int[][]{{0, 0}, {0, 1}, {0, 2}, {0, 3}});
 
     /**
      * Creates a Frigate with a given bearing and starting position.
@@ -36,32 +47,31 @@ public class Frigate extends Ship {
      * @throws IllegalArgumentException if the bearing is invalid
      */
     public Frigate(Compass bearing, IPosition pos) throws IllegalArgumentException {
-        super(Frigate.NAME, bearing, pos);
-
-        switch (bearing) {
-            case NORTH:
-            case SOUTH:
-                for (int r = 0; r < SIZE; r++) {
-                    getPositions().add(
-                            new Position(pos.getRow() + r, pos.getColumn())
-                    );
-                }
-                break;
+        super(Frigate.NAME, bearing, pos, shape(bearing));
+    }
 
-            case EAST:
-            case WEST:
-                for (int c = 0; c < SIZE; c++) {
-                    getPositions().add(
-                            new Position(pos.getRow(), pos.getColumn() + c)
-                    );
-                }
-                break;
+    /**
+     * Returns the precomputed shape of a Frigate for a bearing, checking the bearing.
+     *
+     * @param bearing the orientation of the frigate
+     * @return the template for that bearing
+     * @throws IllegalArgumentException if the bearing is invalid
+     */
+    private static ShipTemplate shape(Compass bearing) {
+        ShipTemplate template = template(bearing);
+        if (template == null)
+            throw new IllegalArgumentException("ERROR! Invalid bearing for the frigate");
+        return template;
+    }
 
-            default:
-                throw new IllegalArgumentException(
-                        "ERROR! Invalid bearing for the frigate"
-                );
-        }
+    /**
+     * Returns the precomputed shape of a Frigate.
+     *
+     * @param bearing the orientation of the frigate
+     * @return the template for that bearing, or {@code null} if the bearing is invalid
+     */
+    static ShipTemplate template(Compass bearing) {
+        return ShipTemplate.forBearing(TEMPLATES, bearing);
     }
 
     /**
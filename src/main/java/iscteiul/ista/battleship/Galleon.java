@@ -23,12 +23,22 @@ public class Galleon extends Ship {
     /**
      * The name of the ship.
      */
-    private static final String NAME = "Galeao";
+    private static final String NAME = ShipCategory.GALEAO.getName();
+
+    /**
+     * The shape of the galleon for each bearing, as {row, column} offsets
+     * from its reference position.
+     */
+    private static final ShipTemplate[] TEMPLATES = ShipTemplate.byBearing(
+            new int[][]{{0, 0}, {0, 1}, {0, 2}, {1, 1}, {2, 1}},
+            new int[][]{{0, 0}, {1, 0}, {2, -1}, {2, 0}, {2, 1}},
+            new int[][]{{0, 0}, {1, -2}, {1, -1}, {1, 0}, {2, 0}},
+            new int[][]{{0, 0}, {1, 0}, {1, 1}, {1, 2}, {2, 0}});
 
     /**
      * Creates a Galleon with a given bearing and starting position.
      * <p>
-     * The ship's shape is filled according to its bearing:
+     * The ship's shape is taken from the precomputed template of its bearing:
      * NORTH, SOUTH, EAST or WEST.
      * </p>
      *
@@ -38,89 +48,44 @@ public class Galleon extends Ship {
      * @throws NullPointerException if the bearing is {@code null}
      */
     public Galleon(Compass bearing, IPosition pos) throws IllegalArgumentException {
-        super(Galleon.NAME, bearing, pos);
-
-        if (bearing == null)
-            throw new NullPointerException("ERROR! invalid bearing for the galleon");
-
-        switch (bearing) {
-            case NORTH:
-                fillNorth(pos);
-                break;
-            case EAST:
-                fillEast(pos);
-                break;
-            case SOUTH:
-                fillSouth(pos);
-                break;
-            case WEST:
-                fillWest(pos);
-                break;
-            default:
-                throw new IllegalArgumentException("ERROR! invalid bearing for the galleon");
-        }
-    }
-
-    /**
-     * Returns the size of the Galleon.
-     *
-     * @return the number of positions occupied by the Galleon
-     */
-    @Override
-    public Integer getSize() {
-        return Galleon.SIZE;
+        super(Galleon.NAME, bearing, pos, shape(bearing));
     }
 
     /**
-     * Fills the positions occupied by the Galleon when facing NORTH.
+     * Returns the precomputed shape of a Galleon for a bearing, checking the bearing.
      *
-     * @param pos the reference starting position
+     * @param bearing the orientation of the galleon
+     * @return the template for that bearing
+     * @throws NullPointerException if the bearing is {@code null}
+     * @throws IllegalArgumentException if the bearing is invalid
      */
-    private void fillNorth(IPosition pos) {
-        for (int i = 0; i < 3; i++) {
-            getPositions().add(new Position(pos.getRow(), pos.getColumn() + i));
-        }
-        getPositions().add(new Position(pos.getRow() + 1, pos.getColumn() + 1));
-        getPositions().add(new Position(pos.getRow() + 2, pos.getColumn() + 1));
-    }
+    private static ShipTemplate shape(Compass bearing) {
+        if (bearing == null)
+            throw new NullPointerException("ERROR! invalid bearing for the galleon");
 
-    /**
-     * Fills the positions occupied by the Galleon when facing SOUTH.
-     *
-     * @param pos the reference starting position
-     */
-    private void fillSouth(IPosition pos) {
-        for (int i = 0; i < 2; i++) {
-            getPositions().add(new Position(pos.getRow() + i, pos.getColumn()));
-        }
-        for (int j = 2; j < 5; j++) {
-            getPositions().add(new Position(pos.getRow() + 2, pos.getColumn() + j - 3));
-        }
+        ShipTemplate template = template(bearing);
+        if (template == null)
+            throw new IllegalArgumentException("ERROR! invalid bearing for the galleon");
+        return template;
     }
 
     /**
-     * Fills the positions occupied by the Galleon when facing EAST.
+     * Returns the precomputed shape of a Galleon.
      *
-     * @param pos the reference starting position
+     * @param bearing the orientation of the galleon
+     * @return the template for that bearing, or {@code null} if the bearing is invalid
      */
-    private void fillEast(IPosition pos) {
-        getPositions().add(new Position(pos.getRow(), pos.getColumn()));
-        for (int i = 1; i < 4; i++) {
-            getPositions().add(new Position(pos.getRow() + 1, pos.getColumn() + i - 3));
-        }
-        getPositions().add(new Position(pos.getRow() + 2, pos.getColumn()));
+    static ShipTemplate template(Compass bearing) {
+        return ShipTemplate.forBearing(TEMPLATES, bearing);
     }
 
     /**
-     * Fills the positions occupied by the Galleon when facing WEST.
+     * Returns the size of the Galleon.
      *
-     * @param pos the reference starting position
+     * @return the number of positions occupied by the Galleon
      */
-    private void fillWest(IPosition pos) {
-        getPositions().add(new Position(pos.getRow(), pos.getColumn()));
-        for (int i = 1; i < 4; i++) {
-            getPositions().add(new Position(pos.getRow() + 1, pos.getColumn() + i - 1));
-        }
-        getPositions().add(new Position(pos.getRow() + 2, pos.getColumn()));
+    @Override
+    public Integer getSize() {
+        return Galleon.SIZE;
     }
-}
\ No newline at end of file
+}
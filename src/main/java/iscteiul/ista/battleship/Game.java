@@ -1,5 +1,6 @@
 package iscteiul.ista.battleship;
 
+import java.io.PrintStream;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -30,17 +31,32 @@ public class Game implements IGame {
     /** List of valid shots fired during the game. */
     private List<IPosition> shots;
 
+    /**
+     * Cells of the valid shots, for constant-time detection of repeated shots.
+     * It is one row and one column larger than the board, as {@link #validShot} accepts them.
+     */
+    private IBitBoard shotBoard;
+
     /** Counter for invalid shots (outside board boundaries). */
-    private Integer countInvalidShots;
+    private int countInvalidShots;
 
     /** Counter for repeated shots. */
-    private Integer countRepeatedShots;
+    private int countRepeatedShots;
 
     /** Counter for successful hits. */
-    private Integer countHits;
+    private int countHits;
 
     /** Counter for sunk ships. */
-    private Integer countSinks;
+    private int countSinks;
+
+    /** The sink told of the events of the game, or {@code null} if there is none. */
+    private IGameEventSink eventSink;
+
+    /** The event reused for every event told to the sink. */
+    private GameEvent event;
+
+    /** The renderer reused for every board printed, made when first needed. */
+    private BoardRenderer renderer;
 
     /**
      * Creates a new Game with a given fleet.
@@ -50,13 +66,26 @@ public class Game implements IGame {
 
     public Game(IFleet fleet) {
         shots = new ArrayList<>();
-        countInvalidShots = 0;
-        countRepeatedShots = 0;
-        countHits = 0;
-        countSinks = 0;
+        shotBoard = IBitBoard.create(fleet.getBoardSize() + 1, fleet.getBoardSize() + 1);
         this.fleet = fleet;
     }
 
+    /**
+     * Creates a new Game with a given fleet, telling a sink of its start and
+     * then of every shot, valid or not, and of every ship sunk.
+     *
+     * @param fleet the fleet to be used in the game, complete
+     * @param eventSink the sink to tell of the events of the game, such as a {@link GameEventLog}
+     */
+    public Game(IFleet fleet, IGameEventSink eventSink) {
+        this(fleet);
+        assert eventSink != null;
+
+        this.eventSink = eventSink;
+        this.event = new GameEvent();
+        eventSink.onEvent(event.gameStarted(fleet));
+    }
+
     /**
      * Fires a shot at the given position.
      * <p>
@@ -76,25 +105,140 @@ public class Game implements IGame {
      */
 
     public IShip fire(IPosition pos) {
-        if (!validShot(pos))
-            countInvalidShots++;
-        else {
-            if (repeatedShot(pos))
+        int result = fire(pos.getRow(), pos.getColumn(), pos);
+        if (IGame.outcomeOf(result) == SUNK)
+            return fleet.getShips().get(IGame.shipIndexOf(result));
+        return null;
+    }
+
+    /**
+     * Fires a shot at the given coordinates.
+     * <p>
+     * The shot is validated and counted as by {@link #fire(IPosition)}, but
+     * its outcome is returned as a primitive code, with the index of the ship
+     * hit or sunk, so that nothing is allocated for shots on the standard board.
+     * </p>
+     *
+     * @param row    the row being targeted
+     * @param column the column being targeted
+     * @return the outcome of the shot and the ship hit or sunk, to be read with
+     *         {@link IGame#outcomeOf(int)} and {@link IGame#shipIndexOf(int)}
+     */
+    @Override
+    public int fire(int row, int column) {
+        return fire(row, column, null);
+    }
+
+    /**
+     * Fires a shot, recording the given position, or an interned coordinate
+     * if none is given, in the list of shots.
+     */
+    private int fire(int row, int column, IPosition pos) {
+        int result = shoot(row, column, pos);
+        switch (IGame.outcomeOf(result)) {
+            case INVALID:
+                countInvalidShots++;
+                break;
+            case REPEATED:
                 countRepeatedShots++;
-            else {
-                shots.add(pos);
-                IShip s = fleet.shipAt(pos);
-                if (s != null) {
-                    s.shoot(pos);
-                    countHits++;
-                    if (!s.stillFloating()) {
-                        countSinks++;
-                        return s;
-                    }
-                }
+                break;
+            case SUNK:
+                countSinks++;
+                countHits++;
+                break;
+            case HIT:
+                countHits++;
+                break;
+            default:
+                break;
+        }
+        if (eventSink != null)
+            shotFired(row, column, IGame.outcomeOf(result), IGame.shipIndexOf(result));
+        return result;
+    }
+
+    /**
+     * Tells the sink of a shot, and of the ship it sank if it did.
+     */
+    private void shotFired(int row, int column, byte outcome, int index) {
+        eventSink.onEvent(event.shotFired(row, column, outcome, index));
+        if (outcome == SUNK)
+            eventSink.onEvent(event.shipSunk(fleet.getShips().get(index), index));
+    }
+
+    /**
+     * Fires a shot without counting it, leaving the statistics to the caller.
+     */
+    private int shoot(int row, int column, IPosition pos) {
+        if (!validShot(row, column))
+            return INVALID;
+        if (shotBoard.testAndSet(row, column))
+            return REPEATED;
+        if (pos == null)
+            pos = Coordinate.of(row, column);
+        shots.add(pos);
+
+        int index = fleet.shipIndexAt(row, column);
+        if (index < 0)
+            return MISS;
+        IShip s = fleet.getShips().get(index);
+        s.shoot(pos);
+        return (s.stillFloating() ? HIT : SUNK) | (index + 1) << 8;
+    }
+
+    /**
+     * Fires a salvo of shots given as primitive coordinates.
+     * <p>
+     * Each shot is fired as by {@link #fire(int, int)}, and told to the sink
+     * as it is, but the buffers are checked once for the whole salvo and the
+     * statistics are accumulated locally and stored once at the end. Apart
+     * from the growth of the list of shots, nothing is allocated for shots on
+     * the standard board.
+     * </p>
+     *
+     * @param rows     the rows of the shots
+     * @param columns  the columns of the shots
+     * @param count    the number of shots of the salvo
+     * @param outcomes the buffer receiving the outcome of each shot
+     * @return the number of ships sunk by the salvo
+     * @throws IllegalArgumentException if a buffer holds fewer than {@code count} elements
+     */
+    @Override
+    public int fireBatch(int[] rows, int[] columns, int count, byte[] outcomes) {
+        if (count < 0 || rows.length < count || columns.length < count || outcomes.length < count)
+            throw new IllegalArgumentException("ERROR! salvo buffers shorter than the salvo");
+
+        int invalid = 0, repeated = 0, hits = 0, sinks = 0;
+        for (int i = 0; i < count; i++) {
+            int result = shoot(rows[i], columns[i], null);
+            byte outcome = IGame.outcomeOf(result);
+            switch (outcome) {
+                case INVALID:
+                    invalid++;
+                    break;
+                case REPEATED:
+                    repeated++;
+                    break;
+                case SUNK:
+                    sinks++;
+                    hits++;
+                    break;
+                case HIT:
+                    hits++;
+                    break;
+                default:
+                    break;
             }
+            outcomes[i] = outcome;
+            if (eventSink != null)
+                shotFired(rows[i], columns[i], outcome, IGame.shipIndexOf(result));
         }
-        return null;
+
+        countInvalidShots += invalid;
+        countRepeatedShots += repeated;
+        countHits += hits;
+        countSinks += sinks;
+        return sinks;
     }
 
     /**
@@ -150,37 +294,66 @@ public class Game implements IGame {
 
     /**
      * Returns the number of ships still afloat.
+     * <p>
+     * The count is kept up to date by the fleet as its ships sink, so no
+     * ship is rescanned.
+     * </p>
      *
      * @return number of remaining ships
      */
 
     public int getRemainingShips() {
-        List<IShip> floatingShips = fleet.getFloatingShips();
-        return floatingShips.size();
+        return fleet.getFloatingShipCount();
     }
 
     /**
-     * Checks whether a shot is within board boundaries.
+     * Returns the fleet participating in the game.
      *
-     * @param pos the position to validate
-     * @return {@code true} if the shot is inside the board; {@code false} otherwise
+     * @return the fleet
      */
-    private boolean validShot(IPosition pos) {
-        return (pos.getRow() >= 0 && pos.getRow() <= Fleet.BOARD_SIZE
-                && pos.getColumn() >= 0 && pos.getColumn() <= Fleet.BOARD_SIZE);
+    IFleet getFleet() {
+        return fleet;
     }
 
     /**
-     * Checks whether a shot was already fired previously.
+     * Records a valid shot restored from a snapshot. The fleet is not shot,
+     * as its ships are restored with their hits.
      *
-     * @param pos the position to check
-     * @return {@code true} if the shot was already fired; {@code false} otherwise
+     * @param row    the row of the shot
+     * @param column the column of the shot
      */
-    private boolean repeatedShot(IPosition pos) {
-        for (int i = 0; i < shots.size(); i++)
-            if (shots.get(i).equals(pos))
-                return true;
-        return false;
+    void restoreShot(int row, int column) {
+        assert validShot(row, column);
+
+        shotBoard.set(row, column);
+        shots.add(Coordinate.of(row, column));
+        if (fleet.shipIndexAt(row, column) >= 0)
+            countHits++;
+    }
+
+    /**
+     * Restores the counters of a snapshot that are not implied by its shots
+     * and its fleet; the ships already sunk count as sunk by the game.
+     *
+     * @param invalidShots  the number of invalid shots
+     * @param repeatedShots the number of repeated shots
+     */
+    void restoreCounters(int invalidShots, int repeatedShots) {
+        countInvalidShots = invalidShots;
+        countRepeatedShots = repeatedShots;
+        countSinks = fleet.getShips().size() - fleet.getFloatingShipCount();
+    }
+
+    /**
+     * Checks whether a shot is within the boundaries of the fleet's board.
+     *
+     * @param row    the row of the shot
+     * @param column the column of the shot
+     * @return {@code true} if the shot is inside the board; {@code false} otherwise
+     */
+    private boolean validShot(int row, int column) {
+        int boardSize = fleet.getBoardSize();
+        return (row >= 0 && row <= boardSize && column >= 0 && column <= boardSize);
     }
 
     /**
@@ -190,20 +363,25 @@ public class Game implements IGame {
      * @param marker character used to represent those positions
      */
     public void printBoard(List<IPosition> positions, Character marker) {
-        char[][] map = new char[Fleet.BOARD_SIZE][Fleet.BOARD_SIZE];
-
-        for (int r = 0; r < Fleet.BOARD_SIZE; r++)
-            for (int c = 0; c < Fleet.BOARD_SIZE; c++)
-                map[r][c] = '.';
+        printBoard(positions, marker, System.out);
+    }
 
-        for (IPosition pos : positions)
-            map[pos.getRow()][pos.getColumn()] = marker;
+    /**
+     * Prints a board representation marking given positions with a specific
+     * character to the given stream. The board is drawn by a {@link BoardRenderer}
+     * and written at once; positions outside it are not drawn.
+     *
+     * @param positions list of positions to mark
+     * @param marker character used to represent those positions
+     * @param out the stream to print to
+     */
+    public void printBoard(List<IPosition> positions, Character marker, PrintStream out) {
+        assert out != null;
 
-        for (int row = 0; row < Fleet.BOARD_SIZE; row++) {
-            for (int col = 0; col < Fleet.BOARD_SIZE; col++)
-                System.out.print(map[row][col]);
-            System.out.println();
-        }
+        BoardRenderer r = renderer();
+        r.clear();
+        r.mark(positions, marker);
+        r.render(out);
     }
 
     /**
@@ -211,7 +389,12 @@ public class Game implements IGame {
      * Valid shots are represented with the character 'X'.
      */
     public void printValidShots() {
-        printBoard(getShots(), 'X');
+        printValidShots(System.out);
+    }
+
+    @Override
+    public void printValidShots(PrintStream out) {
+        printBoard(getShots(), 'X', out);
     }
 
     /**
@@ -220,11 +403,22 @@ public class Game implements IGame {
      */
 
     public void printFleet() {
-        List<IPosition> shipPositions = new ArrayList<IPosition>();
+        printFleet(System.out);
+    }
 
-        for (IShip s : fleet.getShips())
-            shipPositions.addAll(s.getPositions());
+    @Override
+    public void printFleet(PrintStream out) {
+        assert out != null;
+
+        BoardRenderer r = renderer();
+        r.clear();
+        r.markFleet(fleet, '#');
+        r.render(out);
+    }
 
-        printBoard(shipPositions, '#');
+    private BoardRenderer renderer() {
+        if (renderer == null)
+            renderer = new BoardRenderer(fleet.getBoardSize());
+        return renderer;
     }
 }
\ No newline at end of file
@@ -0,0 +1,205 @@
+package iscteiul.ista.battleship;
+
+/**
+ * Something that happened while building a fleet or playing a game, as told
+ * to an {@link IGameEventSink}.
+ * <p>
+ * Events are mutable and reused: each emitter fills the same instance again
+ * for every event, so that emitting allocates nothing and formats nothing.
+ * An event is only valid during the call to {@link IGameEventSink#onEvent};
+ * a sink that keeps anything must copy it. Only the fields of the event's
+ * {@link Type} are meaningful; the others are left at their defaults.
+ * </p>
+ *
+ * @see IGameEventSink
+ */
+public final class GameEvent {
+
+    /**
+     * The kinds of events, with the fields each one sets.
+     */
+    public enum Type {
+        /** A fleet has been built: {@link #getFleet()} and {@link #getShipCount()}, the ships added. */
+        FLEET_BUILT,
+        /** A ship could not be added to a fleet: {@link #getShip()}, or {@code null} for an unknown kind. */
+        SHIP_REJECTED,
+        /** A game has started on a complete fleet: {@link #getFleet()}. */
+        GAME_STARTED,
+        /** A shot has been fired: the row, column, outcome and ship index. */
+        SHOT_FIRED,
+        /** A shot has sunk a ship: {@link #getShip()} and {@link #getShipIndex()}. */
+        SHIP_SUNK,
+        /** A round of shots has been fired: the statistics of the game. */
+        ROUND_FIRED,
+        /** The last ship of a game has been sunk: the statistics of the game. */
+        GAME_OVER,
+        /** The fleet, its status or the shots of a game have been shown: no fields. */
+        BOARD_SHOWN,
+        /** A command was not understood: no fields. */
+        UNKNOWN_COMMAND,
+        /** The player has given up: no fields. */
+        QUIT
+    }
+
+    private Type type;
+    private IFleet fleet;
+    private IShip ship;
+    private int row;
+    private int column;
+    private byte outcome;
+    private int shipIndex;
+    private int shipCount;
+    private int hits;
+    private int invalidShots;
+    private int repeatedShots;
+
+    /**
+     * @return the kind of the event
+     */
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * @return the fleet built, or played on
+     */
+    public IFleet getFleet() {
+        return fleet;
+    }
+
+    /**
+     * @return the ship rejected or sunk
+     */
+    public IShip getShip() {
+        return ship;
+    }
+
+    /**
+     * @return the row of the shot
+     */
+    public int getRow() {
+        return row;
+    }
+
+    /**
+     * @return the column of the shot
+     */
+    public int getColumn() {
+        return column;
+    }
+
+    /**
+     * @return the outcome of the shot, as {@link IGame#outcomeOf(int)} gives it
+     */
+    public byte getOutcome() {
+        return outcome;
+    }
+
+    /**
+     * @return the index in its fleet of the ship hit or sunk, or -1 if none was
+     */
+    public int getShipIndex() {
+        return shipIndex;
+    }
+
+    /**
+     * @return the number of ships added to the fleet built, or of ships still floating
+     */
+    public int getShipCount() {
+        return shipCount;
+    }
+
+    /**
+     * @return the number of hits of the game
+     */
+    public int getHits() {
+        return hits;
+    }
+
+    /**
+     * @return the number of invalid shots of the game
+     */
+    public int getInvalidShots() {
+        return invalidShots;
+    }
+
+    /**
+     * @return the number of repeated shots of the game
+     */
+    public int getRepeatedShots() {
+        return repeatedShots;
+    }
+
+    GameEvent fleetBuilt(IFleet fleet, int ships) {
+        reset(Type.FLEET_BUILT);
+        this.fleet = fleet;
+        this.shipCount = ships;
+        return this;
+    }
+
+    GameEvent shipRejected(IShip ship) {
+        reset(Type.SHIP_REJECTED);
+        this.ship = ship;
+        return this;
+    }
+
+    GameEvent gameStarted(IFleet fleet) {
+        reset(Type.GAME_STARTED);
+        this.fleet = fleet;
+        return this;
+    }
+
+    GameEvent shotFired(int row, int column, byte outcome, int shipIndex) {
+        reset(Type.SHOT_FIRED);
+        this.row = row;
+        this.column = column;
+        this.outcome = outcome;
+        this.shipIndex = shipIndex;
+        return this;
+    }
+
+    GameEvent shipSunk(IShip ship, int shipIndex) {
+        reset(Type.SHIP_SUNK);
+        this.ship = ship;
+        this.shipIndex = shipIndex;
+        return this;
+    }
+
+    /**
+     * Fills a {@link Type#ROUND_FIRED} or {@link Type#GAME_OVER} event with the statistics of a game.
+     */
+    GameEvent gameStatus(Type type, IGame game) {
+        assert type == Type.ROUND_FIRED || type == Type.GAME_OVER;
+
+        reset(type);
+        this.hits = game.getHits();
+        this.invalidShots = game.getInvalidShots();
+        this.repeatedShots = game.getRepeatedShots();
+        this.shipCount = game.getRemainingShips();
+        return this;
+    }
+
+    /**
+     * Fills a {@link Type#BOARD_SHOWN}, {@link Type#UNKNOWN_COMMAND} or {@link Type#QUIT} event.
+     */
+    GameEvent command(Type type) {
+        assert type == Type.BOARD_SHOWN || type == Type.UNKNOWN_COMMAND || type == Type.QUIT;
+
+        reset(type);
+        return this;
+    }
+
+    private void reset(Type type) {
+        this.type = type;
+        fleet = null;
+        ship = null;
+        row = 0;
+        column = 0;
+        outcome = 0;
+        shipIndex = -1;
+        shipCount = 0;
+        hits = 0;
+        invalidShots = 0;
+        repeatedShots = 0;
+    }
+}
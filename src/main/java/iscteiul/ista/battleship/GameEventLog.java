@@ -0,0 +1,228 @@
+package iscteiul.ista.battleship;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * An append-only binary log of games, written through a memory-mapped file.
+ * <p>
+ * Every event is a record of {@value #RECORD_SIZE} bytes, so the log can be
+ * appended to without encoding text and read back at any event without
+ * parsing what comes before it. A game is logged as a {@link #GAME} record
+ * holding the board size and the time it started, followed by one
+ * {@link #SHIP} record per ship of its fleet and one {@link #SHOT} record
+ * per shot fired, whatever its outcome:
+ * </p>
+ * <pre>
+ *  offset  GAME              SHIP              SHOT
+ *       0  type              type              type
+ *       1  -                 kind              outcome
+ *       2  -                 bearing           -
+ *       4  board size        row               row
+ *       8  start time (ms)   column            column
+ *      12                    -                 ship index, or -1
+ * </pre>
+ * <p>
+ * Kinds are numbered as in {@link PlacementIndex} and bearings by
+ * {@link Compass#ordinal()}; integers are big-endian. The file grows by
+ * mappings of {@value #CHUNK_RECORDS} records, whose unused tail is left
+ * zeroed: the log ends at the first record of type 0, so a log reopened
+ * after a crash resumes after its last complete record. A log has a single
+ * writer; {@link GameReplayer} reads it back.
+ * </p>
+ * <p>
+ * As an {@link IGameEventSink}, the log records the starts of games and the
+ * shots; the other events are implied by them and are not recorded.
+ * </p>
+ *
+ * @see Game#Game(IFleet, IGameEventSink)
+ * @see GameReplayer
+ */
+public class GameEventLog implements IGameEventSink, Closeable {
+
+    /** Size of a record, in bytes. */
+    public static final int RECORD_SIZE = 16;
+
+    /** Number of records mapped at a time. */
+    static final int CHUNK_RECORDS = 1 << 16;
+
+    /** Size of a mapping, in bytes. */
+    static final long CHUNK_SIZE = (long) RECORD_SIZE * CHUNK_RECORDS;
+
+    /** Type of the record starting a game. */
+    static final byte GAME = 1;
+
+    /** Type of the record of a ship of the fleet of the current game. */
+    static final byte SHIP = 2;
+
+    /** Type of the record of a shot of the current game. */
+    static final byte SHOT = 3;
+
+    private final FileChannel channel;
+
+    /** The mapping being appended to, and its index. */
+    private MappedByteBuffer chunk;
+    private long chunkIndex = -1;
+
+    /** Number of records in the log. */
+    private long records;
+
+    /**
+     * Opens a log for appending, creating the file if it does not exist.
+     *
+     * @param file the file of the log
+     * @throws IOException if the file cannot be opened or read
+     */
+    public GameEventLog(Path file) throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        records = countRecords(channel);
+    }
+
+    /**
+     * Finds the end of a log: records are written one after the other, so
+     * the records in use are followed only by records of type 0.
+     *
+     * @param channel the file of the log
+     * @return the number of records in the log
+     * @throws IOException if the file cannot be read
+     */
+    static long countRecords(FileChannel channel) throws IOException {
+        ByteBuffer type = ByteBuffer.allocate(1);
+        long low = 0, high = channel.size() / RECORD_SIZE;
+        while (low < high) {
+            long middle = (low + high) >>> 1;
+            type.clear();
+            channel.read(type, middle * RECORD_SIZE);
+            if (type.get(0) != 0)
+                low = middle + 1;
+            else
+                high = middle;
+        }
+        return low;
+    }
+
+    /**
+     * @return the number of records in the log
+     */
+    public long size() {
+        return records;
+    }
+
+    /**
+     * Records the events that define a game: its start and its shots.
+     *
+     * @param event the event
+     * @throws UncheckedIOException if the log cannot grow
+     */
+    @Override
+    public void onEvent(GameEvent event) {
+        switch (event.getType()) {
+            case GAME_STARTED:
+                gameStarted(event.getFleet());
+                break;
+            case SHOT_FIRED:
+                shotFired(event.getRow(), event.getColumn(), event.getOutcome(), event.getShipIndex());
+                break;
+            default:
+                // implied by the shots
+        }
+    }
+
+    /**
+     * Logs the start of a game and the ships of its fleet.
+     *
+     * @param fleet the fleet of the game
+     * @throws IllegalArgumentException if a ship is not of a known kind
+     * @throws UncheckedIOException if the log cannot grow
+     */
+    public void gameStarted(IFleet fleet) {
+        List<IShip> ships = fleet.getShips();
+        // checked before anything is appended, so that no game is left without its ships
+        for (IShip s : ships)
+            if (PlacementIndex.kindOfCategory(s.getCategory()) < 0)
+                throw new IllegalArgumentException("ERROR! ship of unknown kind " + s.getCategory());
+
+        int offset = append();
+        chunk.putInt(offset + 4, fleet.getBoardSize());
+        chunk.putLong(offset + 8, System.currentTimeMillis());
+        chunk.put(offset, GAME);
+
+        for (IShip s : ships) {
+            int kind = PlacementIndex.kindOfCategory(s.getCategory());
+            offset = append();
+            chunk.put(offset + 1, (byte) kind);
+            chunk.put(offset + 2, (byte) s.getBearing().ordinal());
+            chunk.putInt(offset + 4, s.getPosition().getRow());
+            chunk.putInt(offset + 8, s.getPosition().getColumn());
+            chunk.put(offset, SHIP);
+        }
+    }
+
+    /**
+     * Logs a shot of the current game.
+     *
+     * @param row       the row of the shot
+     * @param column    the column of the shot
+     * @param outcome   the outcome of the shot, as in {@link IGame}
+     * @param shipIndex the index in the fleet of the ship hit or sunk, or -1
+     * @throws UncheckedIOException if the log cannot grow
+     */
+    public void shotFired(int row, int column, byte outcome, int shipIndex) {
+        int offset = append();
+        chunk.put(offset + 1, outcome);
+        chunk.putInt(offset + 4, row);
+        chunk.putInt(offset + 8, column);
+        chunk.putInt(offset + 12, shipIndex);
+        chunk.put(offset, SHOT);
+    }
+
+    /**
+     * Reserves the next record, mapping more of the file if needed. Its type
+     * is written last, so that a record becomes part of the log only once complete.
+     *
+     * @return the offset of the record in {@link #chunk}
+     */
+    private int append() {
+        long index = records / CHUNK_RECORDS;
+        if (index != chunkIndex) {
+            force();
+            try {
+                chunk = channel.map(FileChannel.MapMode.READ_WRITE, index * CHUNK_SIZE, CHUNK_SIZE);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            chunkIndex = index;
+        }
+        int offset = (int) (records % CHUNK_RECORDS) * RECORD_SIZE;
+        records++;
+        return offset;
+    }
+
+    /**
+     * Writes the records appended so far to the storage device.
+     */
+    public void force() {
+        if (chunk != null)
+            chunk.force();
+    }
+
+    /**
+     * Flushes the log and closes its file.
+     *
+     * @throws IOException if the file cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        force();
+        chunk = null;
+        channel.close();
+    }
+}
@@ -0,0 +1,169 @@
+package iscteiul.ista.battleship;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Rebuilds games from a {@link GameEventLog}.
+ * <p>
+ * The log is mapped read-only, one mapping of
+ * {@value GameEventLog#CHUNK_RECORDS} records at a time, and any of its
+ * events can be located directly from its index. A game is rebuilt by
+ * placing the ships of its fleet and firing its shots again through
+ * {@link Game#fire(int, int)}, which neither parses nor allocates for shots
+ * on the standard board, so events are replayed at millions per second.
+ * Every replayed shot is checked against the recorded outcome, so a replay
+ * also audits the log.
+ * </p>
+ *
+ * @see GameEventLog
+ */
+public class GameReplayer implements Closeable {
+
+    private static final Compass[] BEARINGS = Compass.values();
+
+    private final FileChannel channel;
+
+    /** The mappings of the log, made as they are first needed. */
+    private final MappedByteBuffer[] chunks;
+
+    /** Number of records in the log. */
+    private final long records;
+
+    /**
+     * Opens a log for replay. Records appended after it was opened are not seen.
+     *
+     * @param file the file of the log
+     * @throws IOException if the file cannot be opened or read
+     */
+    public GameReplayer(Path file) throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.READ);
+        records = GameEventLog.countRecords(channel);
+        chunks = new MappedByteBuffer[(int) ((records + GameEventLog.CHUNK_RECORDS - 1) / GameEventLog.CHUNK_RECORDS)];
+    }
+
+    /**
+     * @return the number of records in the log
+     */
+    public long size() {
+        return records;
+    }
+
+    /**
+     * Rebuilds the game being played at a point of the log: the last game
+     * started before that point, with the shots logged up to that point.
+     *
+     * @param events the number of records of the log to take into account, from 1 to {@link #size()}
+     * @return the game as it stood after those records
+     * @throws IllegalArgumentException if no game was started within those records
+     * @throws IllegalStateException    if the log does not agree with the replayed game
+     * @throws IOException              if the log cannot be read
+     */
+    public Game replay(long events) throws IOException {
+        if (events <= 0 || events > records)
+            throw new IllegalArgumentException("ERROR! invalid number of events " + events);
+
+        long start = events - 1;
+        while (start >= 0 && typeOf(start) != GameEventLog.GAME)
+            start--;
+        if (start < 0)
+            throw new IllegalArgumentException("ERROR! no game started within " + events + " events");
+        return replay(start, events);
+    }
+
+    /**
+     * Replays every game of the log, checking every shot.
+     *
+     * @return the number of games in the log
+     * @throws IllegalStateException if the log does not agree with the replayed games
+     * @throws IOException           if the log cannot be read
+     */
+    public long verify() throws IOException {
+        long games = 0;
+        long start = 0;
+        while (start < records) {
+            long end = start + 1;
+            while (end < records && typeOf(end) != GameEventLog.GAME)
+                end++;
+            if (typeOf(start) == GameEventLog.GAME) {
+                replay(start, end);
+                games++;
+            }
+            start = end;
+        }
+        return games;
+    }
+
+    /**
+     * Rebuilds a game from its records.
+     *
+     * @param start the index of the record starting the game
+     * @param end   the index of the first record not to replay
+     */
+    private Game replay(long start, long end) throws IOException {
+        MappedByteBuffer chunk = chunkOf(start);
+        int offset = offsetOf(start);
+        int boardSize = chunk.getInt(offset + 4);
+
+        long event = start + 1;
+        long shipsEnd = event;
+        while (shipsEnd < end && typeOf(shipsEnd) == GameEventLog.SHIP)
+            shipsEnd++;
+
+        Fleet fleet = new Fleet(boardSize, (int) (shipsEnd - event));
+        for (; event < shipsEnd; event++) {
+            chunk = chunkOf(event);
+            offset = offsetOf(event);
+            String kind = PlacementIndex.kindName(chunk.get(offset + 1));
+            Compass bearing = BEARINGS[chunk.get(offset + 2)];
+            IPosition pos = Coordinate.of(chunk.getInt(offset + 4), chunk.getInt(offset + 8));
+            if (!fleet.addShip(Ship.buildShip(kind, bearing, pos)))
+                throw new IllegalStateException("ERROR! logged ship rejected at event " + event);
+        }
+
+        Game game = new Game(fleet);
+        for (; event < end; event++) {
+            chunk = chunkOf(event);
+            offset = offsetOf(event);
+            if (chunk.get(offset) != GameEventLog.SHOT)
+                throw new IllegalStateException("ERROR! unexpected record at event " + event);
+            int result = game.fire(chunk.getInt(offset + 4), chunk.getInt(offset + 8));
+            if (IGame.outcomeOf(result) != chunk.get(offset + 1)
+                    || IGame.shipIndexOf(result) != chunk.getInt(offset + 12))
+                throw new IllegalStateException("ERROR! replayed shot differs from the log at event " + event);
+        }
+        return game;
+    }
+
+    private byte typeOf(long event) throws IOException {
+        return chunkOf(event).get(offsetOf(event));
+    }
+
+    private static int offsetOf(long event) {
+        return (int) (event % GameEventLog.CHUNK_RECORDS) * GameEventLog.RECORD_SIZE;
+    }
+
+    /**
+     * @return the mapping holding a record, mapped if it was not yet
+     */
+    private MappedByteBuffer chunkOf(long event) throws IOException {
+        int index = (int) (event / GameEventLog.CHUNK_RECORDS);
+        MappedByteBuffer chunk = chunks[index];
+        if (chunk == null) {
+            long position = index * GameEventLog.CHUNK_SIZE;
+            long length = Math.min(GameEventLog.CHUNK_SIZE, channel.size() - position);
+            chunk = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+            chunks[index] = chunk;
+        }
+        return chunk;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
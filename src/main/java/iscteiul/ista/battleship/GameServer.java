@@ -0,0 +1,260 @@
+package iscteiul.ista.battleship;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * A TCP server playing one {@link GameSession} per connection.
+ * <p>
+ * Every connection speaks the line protocol of {@link Tasks#taskD()} and gets
+ * its own fleet and game; answers, boards included, go back through its own
+ * connection. Sessions spend nearly all their time waiting for the player's
+ * next command, so they do not get a thread each: the thread calling
+ * {@link #serve()} waits on a {@link Selector} for input on any connection,
+ * hands it to the session, which plays the commands complete so far (see
+ * {@link GameSession#offer}), and writes the answers back without blocking.
+ * A session then costs no more than its buffers and its game, which lets a
+ * single process hold tens of thousands of them.
+ * </p>
+ * <p>
+ * A connection is not read from while answers it has not taken are waiting,
+ * so that a player who does not read cannot make them pile up.
+ * </p>
+ *
+ * @see GameSession
+ */
+public class GameServer implements Closeable {
+    private static final Logger LOGGER = LogManager.getLogger(GameServer.class);
+
+    /** Port used when none is given. */
+    public static final int DEFAULT_PORT = 9000;
+
+    /** Pending connections queued by the operating system while the server accepts. */
+    private static final int BACKLOG = 1024;
+
+    /** Initial size of the input buffer of a session, enough for a whole fleet. */
+    private static final int INPUT_BUFFER = 512;
+
+    /** Initial size of the output buffer of a session, written once per read. */
+    private static final int OUTPUT_BUFFER = 2048;
+
+    private final ServerSocketChannel serverChannel;
+    private final Selector selector;
+
+    /** The connections open, closed with the server. */
+    private final Set<SocketChannel> connections = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Creates a server listening on the given port.
+     *
+     * @param port the port to listen on, or 0 for any free port
+     * @throws IOException if the port cannot be bound
+     */
+    public GameServer(int port) throws IOException {
+        if (port < 0 || port > 0xFFFF)
+            throw new IllegalArgumentException("ERROR! invalid port " + port);
+
+        selector = Selector.open();
+        serverChannel = ServerSocketChannel.open();
+        try {
+            serverChannel.bind(new InetSocketAddress(port), BACKLOG);
+            serverChannel.configureBlocking(false);
+            serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+        } catch (IOException e) {
+            serverChannel.close();
+            selector.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @return the port the server listens on
+     */
+    public int getPort() {
+        return serverChannel.socket().getLocalPort();
+    }
+
+    /**
+     * @return the number of sessions currently being played
+     */
+    public int getActiveSessions() {
+        return connections.size();
+    }
+
+    /**
+     * Accepts connections and plays their sessions, until the server is closed.
+     *
+     * @throws IOException if waiting for connections fails for a reason other than the server being closed
+     */
+    public void serve() throws IOException {
+        LOGGER.info("A aguardar jogadores na porta {}", getPort());
+        try {
+            while (selector.isOpen()) {
+                selector.select();
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (!key.isValid())
+                        continue;
+                    if (key.isAcceptable())
+                        accept();
+                    else
+                        ((Connection) key.attachment()).ready(key);
+                }
+            }
+        } catch (ClosedSelectorException e) {
+            // the server was closed while waiting
+        }
+    }
+
+    /**
+     * Accepts a connection, if one is pending, and starts its session.
+     */
+    private void accept() throws IOException {
+        SocketChannel channel;
+        try {
+            channel = serverChannel.accept();
+        } catch (ClosedChannelException e) {
+            return; // the server is being closed
+        }
+        if (channel == null)
+            return;
+        connections.add(channel);
+        if (!serverChannel.isOpen()) {
+            // closed since it accepted: the connection may have been added too late to be closed with it
+            close(channel);
+            return;
+        }
+        try {
+            channel.configureBlocking(false);
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            channel.register(selector, SelectionKey.OP_READ, new Connection(channel));
+        } catch (IOException e) {
+            LOGGER.warn("Sessao de {} terminada: {}", channel.socket().getRemoteSocketAddress(), e.toString());
+            close(channel);
+        }
+    }
+
+    /**
+     * Stops accepting connections and closes those open, ending their sessions.
+     *
+     * @throws IOException if a channel cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        serverChannel.close();
+        IOException failure = null;
+        for (SocketChannel channel : connections) {
+            try {
+                close(channel);
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+        selector.close();
+        if (failure != null)
+            throw failure;
+    }
+
+    private void close(SocketChannel channel) throws IOException {
+        connections.remove(channel);
+        channel.close();
+    }
+
+    /**
+     * A connection and its session: the input received but not yet played,
+     * and the answers not yet written.
+     */
+    private final class Connection {
+        private final SocketChannel channel;
+        private final Output output = new Output();
+        private final GameSession session =
+                new GameSession(new PrintStream(output, false, StandardCharsets.UTF_8));
+        private ByteBuffer input = ByteBuffer.allocate(INPUT_BUFFER);
+        private boolean ended;
+
+        Connection(SocketChannel channel) {
+            this.channel = channel;
+        }
+
+        /**
+         * Reads what arrived, plays it, and writes the answers, as far as the
+         * connection takes them; closes the connection once the session has
+         * ended and its answers are written.
+         */
+        void ready(SelectionKey key) {
+            try {
+                if (key.isReadable()) {
+                    if (!input.hasRemaining()) {
+                        // a command longer than the buffer
+                        ByteBuffer larger = ByteBuffer.allocate(input.capacity() * 2);
+                        input.flip();
+                        input = larger.put(input);
+                    }
+                    int read = channel.read(input);
+                    input.flip();
+                    ended = !session.offer(input, read < 0);
+                    input.compact();
+                }
+                if (!output.writeTo(channel))
+                    key.interestOps(SelectionKey.OP_WRITE);
+                else if (ended)
+                    close(channel);
+                else
+                    key.interestOps(SelectionKey.OP_READ);
+            } catch (IOException | RuntimeException e) {
+                LOGGER.warn("Sessao de {} terminada: {}", channel.socket().getRemoteSocketAddress(), e.toString());
+                try {
+                    close(channel);
+                } catch (IOException ignored) {
+                    // closing is all that is left to do
+                }
+            }
+        }
+    }
+
+    /**
+     * The answers of a session, kept until the connection takes them.
+     */
+    private static final class Output extends ByteArrayOutputStream {
+        private int written;
+
+        Output() {
+            super(OUTPUT_BUFFER);
+        }
+
+        /**
+         * Writes the answers not yet written, as far as the channel takes them.
+         *
+         * @return true if they have all been written
+         */
+        boolean writeTo(SocketChannel channel) throws IOException {
+            if (written < count)
+                written += channel.write(ByteBuffer.wrap(buf, written, count - written));
+            if (written < count)
+                return false;
+            reset();
+            written = 0;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package iscteiul.ista.battleship;
+
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.util.NoSuchElementException;
+
+/**
+ * One player's game, driven by the command protocol of {@link Tasks#taskD()}.
+ * <p>
+ * The session plays {@link Tasks#taskD(CommandTokenizer, PrintStream, IGameEventSink)}
+ * over its own input and writes every answer, boards, fleet status and the
+ * messages of the game included, to its own output instead of the standard
+ * output and the log, so that many sessions can run side by side in one
+ * process (see {@link GameServer}). Each session holds its own {@link Fleet}
+ * and {@link Game}; nothing is shared between sessions.
+ * </p>
+ * <p>
+ * A session either reads its commands itself, blocking until they arrive,
+ * or is handed its input as it arrives, through {@link #offer}, and plays
+ * the commands complete so far. The output is flushed once per command. The
+ * session ends on {@code desisto}, at the end of the input or on malformed
+ * input.
+ * </p>
+ *
+ * @see Tasks#taskD()
+ * @see GameServer
+ */
+public class GameSession implements Runnable {
+
+    private final CommandTokenizer in;
+    private final PrintStream out;
+    private final Tasks.Play play;
+
+    /**
+     * Creates a session reading its commands from a tokenizer, through {@link #run()}.
+     *
+     * @param in  the tokenizer to read the commands from
+     * @param out the stream to write the answers to
+     */
+    public GameSession(CommandTokenizer in, PrintStream out) {
+        assert in != null;
+        assert out != null;
+
+        this.in = in;
+        this.out = out;
+        this.play = null;
+    }
+
+    /**
+     * Creates a session handed its input as it arrives, through {@link #offer}.
+     *
+     * @param out the stream to write the answers to
+     */
+    public GameSession(PrintStream out) {
+        assert out != null;
+
+        this.in = null;
+        this.out = out;
+        this.play = new Tasks.Play(out, new PrintStreamEventSink(out));
+    }
+
+    /**
+     * Plays the session until the player gives up or the input ends.
+     */
+    @Override
+    public void run() {
+        assert in != null;
+
+        try {
+            Tasks.taskD(in, out, new PrintStreamEventSink(out));
+        } catch (NoSuchElementException e) {
+            // the input ended within a command, or a number was malformed: the player has left
+        } finally {
+            out.flush();
+        }
+    }
+
+    /**
+     * Plays the commands of the input received so far whose arguments have
+     * all arrived, leaving the rest for when more input arrives.
+     *
+     * @param input      the input not yet played, between its position and
+     *                   its limit; the position is moved past the commands played
+     * @param endOfInput whether the input is complete
+     * @return false once the session has ended
+     */
+    public boolean offer(ByteBuffer input, boolean endOfInput) {
+        assert play != null;
+
+        // the last token may be cut short, unless the input is complete
+        int end = input.limit();
+        if (!endOfInput)
+            while (end > input.position() && !isWhitespace(input.get(end - 1)))
+                end--;
+        ByteBuffer tokens = input.duplicate();
+        tokens.limit(end);
+        CommandTokenizer commands = new CommandTokenizer(tokens);
+        try {
+            while (true) {
+                if (!commands.hasNext()) {
+                    input.position(tokens.position());
+                    return !endOfInput;
+                }
+                int start = tokens.position();
+                String command = commands.next();
+                if (!endOfInput && !play.isComplete(command, new CommandTokenizer(tokens.duplicate()))) {
+                    input.position(start);
+                    return true;
+                }
+                if (!play.command(command, commands))
+                    return false;
+            }
+        } catch (NoSuchElementException e) {
+            return false; // the input ended within a command, or a number was malformed: the player has left
+        } finally {
+            out.flush();
+        }
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b >= 0 && b <= ' ';
+    }
+}
@@ -0,0 +1,197 @@
+package iscteiul.ista.battleship;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * Encodes fleets and games as compact binary snapshots, to pause games and
+ * resume them later.
+ * <p>
+ * A ship is encoded as three bytes: its kind (numbered as in
+ * {@link PlacementIndex}) and bearing, its reference position with the row
+ * and the column in a nibble each, and the mask of its positions already
+ * hit. A game adds to its fleet the numbers of invalid and repeated shots
+ * and the cells shot, as a bitset over a board one row and one column larger
+ * than the fleet's, as {@link Game} accepts those shots. A standard game
+ * thus takes {@value #STANDARD_GAME_SIZE} bytes:
+ * </p>
+ * <pre>
+ *  byte       board size
+ *  byte       number of ships
+ *  3 bytes    per ship: kind &lt;&lt; 3 | bearing, row &lt;&lt; 4 | column, hit mask
+ *  int        invalid shots        (games only)
+ *  int        repeated shots       (games only)
+ *  bytes      bitset of the cells shot, row by row (games only)
+ * </pre>
+ * <p>
+ * Snapshots are written to and read from a {@link ByteBuffer} at its
+ * position, which they advance, without any intermediate copy. Only the
+ * set of cells shot is kept, not the order of the shots: a restored game
+ * lists its shots row by row. Boards of up to 15 rows and columns are
+ * supported.
+ * </p>
+ *
+ * @see Fleet
+ * @see Game
+ */
+public final class GameSnapshotCodec {
+
+    /** The largest board size supported. */
+    public static final int MAX_BOARD_SIZE = 15;
+
+    /** Size of the snapshot of a game on the standard board with the standard fleet. */
+    public static final int STANDARD_GAME_SIZE = 2 + 3 * 11 + 4 + 4 + (11 * 11 + 7) / 8;
+
+    private static final Compass[] BEARINGS = Compass.values();
+
+    private GameSnapshotCodec() {
+    }
+
+    /**
+     * @param boardSize the size of the board of a fleet
+     * @param ships     the number of ships of the fleet
+     * @return the size in bytes of the snapshot of a game with such a fleet
+     */
+    public static int gameSize(int boardSize, int ships) {
+        return fleetSize(ships) + 8 + ((boardSize + 1) * (boardSize + 1) + 7) / 8;
+    }
+
+    /**
+     * @param ships the number of ships of a fleet
+     * @return the size in bytes of the snapshot of the fleet
+     */
+    public static int fleetSize(int ships) {
+        return 2 + 3 * ships;
+    }
+
+    /**
+     * Writes the snapshot of a fleet.
+     *
+     * @param fleet  the fleet to encode
+     * @param buffer the buffer to write to, from its position
+     * @throws IllegalArgumentException if the board is too large or a ship is not of a known kind
+     * @throws BufferOverflowException if the buffer has not enough room left
+     */
+    public static void encodeFleet(IFleet fleet, ByteBuffer buffer) {
+        int boardSize = fleet.getBoardSize();
+        List<IShip> ships = fleet.getShips();
+        if (boardSize > MAX_BOARD_SIZE || ships.size() > 0xFF)
+            throw new IllegalArgumentException("ERROR! fleet too large to encode");
+
+        buffer.put((byte) boardSize);
+        buffer.put((byte) ships.size());
+        for (IShip s : ships) {
+            int kind = PlacementIndex.kindOfCategory(s.getCategory());
+            if (kind < 0)
+                throw new IllegalArgumentException("ERROR! ship of unknown kind " + s.getCategory());
+            IPosition pos = s.getPosition();
+            if (pos.getRow() < 0 || pos.getRow() > 0xF || pos.getColumn() < 0 || pos.getColumn() > 0xF)
+                throw new IllegalArgumentException("ERROR! ship position outside the board");
+            List<IPosition> positions = s.getPositions();
+            int hits = 0;
+            for (int i = 0; i < positions.size(); i++)
+                if (s.isHit(positions.get(i)))
+                    hits |= 1 << i;
+
+            buffer.put((byte) (kind << 3 | s.getBearing().ordinal()));
+            buffer.put((byte) (pos.getRow() << 4 | pos.getColumn()));
+            buffer.put((byte) hits);
+        }
+    }
+
+    /**
+     * Reads the snapshot of a fleet, rebuilding its ships with their hits.
+     *
+     * @param buffer the buffer to read from, from its position
+     * @return the fleet
+     * @throws IllegalArgumentException if the snapshot does not describe a legal fleet
+     * @throws java.nio.BufferUnderflowException if the buffer ends within the snapshot
+     */
+    public static Fleet decodeFleet(ByteBuffer buffer) {
+        int boardSize = buffer.get();
+        int count = buffer.get() & 0xFF;
+        if (boardSize <= 0 || boardSize > MAX_BOARD_SIZE)
+            throw new IllegalArgumentException("ERROR! invalid board size in snapshot");
+
+        Fleet fleet = new Fleet(boardSize, Math.max(IFleet.FLEET_SIZE, count - 1));
+        for (int i = 0; i < count; i++) {
+            int shape = buffer.get();
+            int anchor = buffer.get();
+            int hits = buffer.get();
+            int kind = shape >>> 3 & 0x1F;
+            int bearing = shape & 0x7;
+            if (kind >= PlacementIndex.kindCount() || bearing >= BEARINGS.length)
+                throw new IllegalArgumentException("ERROR! invalid ship in snapshot");
+
+            IPosition pos = Coordinate.of(anchor >>> 4 & 0xF, anchor & 0xF);
+            Ship s = Ship.buildShip(PlacementIndex.kindName(kind), BEARINGS[bearing], pos);
+            if (!fleet.addShip(s))
+                throw new IllegalArgumentException("ERROR! illegal fleet in snapshot");
+            List<IPosition> positions = s.getPositions();
+            for (int p = 0; p < positions.size(); p++)
+                if ((hits & 1 << p) != 0)
+                    s.shoot(positions.get(p));
+        }
+        return fleet;
+    }
+
+    /**
+     * Writes the snapshot of a game.
+     *
+     * @param game   the game to encode
+     * @param buffer the buffer to write to, from its position
+     * @throws IllegalArgumentException if the board is too large or a ship is not of a known kind
+     * @throws BufferOverflowException if the buffer has not enough room left
+     */
+    public static void encode(Game game, ByteBuffer buffer) {
+        IFleet fleet = game.getFleet();
+        encodeFleet(fleet, buffer);
+        buffer.putInt(game.getInvalidShots());
+        buffer.putInt(game.getRepeatedShots());
+
+        int side = fleet.getBoardSize() + 1;
+        int start = buffer.position();
+        int bytes = (side * side + 7) / 8;
+        if (buffer.remaining() < bytes)
+            throw new BufferOverflowException();
+        for (int i = 0; i < bytes; i++)
+            buffer.put(start + i, (byte) 0);
+        for (IPosition shot : game.getShots()) {
+            int cell = shot.getRow() * side + shot.getColumn();
+            int at = start + (cell >>> 3);
+            buffer.put(at, (byte) (buffer.get(at) | 1 << (cell & 7)));
+        }
+        buffer.position(start + bytes);
+    }
+
+    /**
+     * Reads the snapshot of a game.
+     *
+     * @param buffer the buffer to read from, from its position
+     * @return the game, with its shots listed row by row
+     * @throws IllegalArgumentException if the snapshot does not describe a legal game
+     * @throws java.nio.BufferUnderflowException if the buffer ends within the snapshot
+     */
+    public static Game decode(ByteBuffer buffer) {
+        Fleet fleet = decodeFleet(buffer);
+        int invalidShots = buffer.getInt();
+        int repeatedShots = buffer.getInt();
+
+        Game game = new Game(fleet);
+        int side = fleet.getBoardSize() + 1;
+        int bytes = (side * side + 7) / 8;
+        for (int i = 0; i < bytes; i++) {
+            int bits = buffer.get() & 0xFF;
+            while (bits != 0) {
+                int cell = i * 8 + Integer.numberOfTrailingZeros(bits);
+                if (cell >= side * side)
+                    throw new IllegalArgumentException("ERROR! invalid shot in snapshot");
+                game.restoreShot(cell / side, cell % side);
+                bits &= bits - 1;
+            }
+        }
+        game.restoreCounters(invalidShots, repeatedShots);
+        return game;
+    }
+}
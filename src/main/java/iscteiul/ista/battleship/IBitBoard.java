@@ -0,0 +1,69 @@
+package iscteiul.ista.battleship;
+
+/**
+ * A two-dimensional set of cells, as used by the bitboard engine.
+ *
+ * @see BitBoard
+ * @see SparseBitBoard
+ */
+public interface IBitBoard {
+
+    /**
+     * Boards with more cells than this are created sparse by {@link #create(int, int)}.
+     */
+    long DENSE_LIMIT = 1L << 16;
+
+    /**
+     * Creates an empty board, dense for small boards and sparse for large ones,
+     * so that memory grows with the number of cells set rather than with the
+     * board area.
+     *
+     * @param rows    the number of rows
+     * @param columns the number of columns
+     * @return the new board
+     */
+    static IBitBoard create(int rows, int columns) {
+        if ((long) rows * columns <= DENSE_LIMIT)
+            return new BitBoard(rows, columns);
+        return new SparseBitBoard(rows, columns);
+    }
+
+    int getRows();
+
+    int getColumns();
+
+    boolean contains(int row, int column);
+
+    boolean get(int row, int column);
+
+    void set(int row, int column);
+
+    void clear(int row, int column);
+
+    boolean testAndSet(int row, int column);
+
+    /**
+     * Reads a horizontal run of cells as a bit mask.
+     *
+     * @param row    the row of the run, inside the board
+     * @param column the column of the first cell of the run, inside the board
+     * @param width  the number of cells of the run, between 1 and 64, ending inside the board
+     * @return the cells of the run, bit {@code i} standing for column {@code column + i}
+     */
+    long getBits(int row, int column, int width);
+
+    /**
+     * Sets the cells of a horizontal run given as a bit mask. Cells falling
+     * outside the board are ignored.
+     *
+     * @param row    the row of the run
+     * @param column the column of the first cell of the run
+     * @param width  the number of cells of the run, between 1 and 64
+     * @param bits   the cells to set, bit {@code i} standing for column {@code column + i}
+     */
+    void orBits(int row, int column, int width, long bits);
+
+    void clear();
+
+    int cardinality();
+}
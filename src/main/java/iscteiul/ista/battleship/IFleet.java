@@ -3,6 +3,7 @@
  */
 package iscteiul.ista.battleship;
 
+import java.io.PrintStream;
 import java.util.List;
 
 public interface IFleet {
@@ -11,13 +12,44 @@ public interface IFleet {
 
     List<IShip> getShips();
 
+    int getBoardSize();
+
     boolean addShip(IShip s);
 
     List<IShip> getShipsLike(String category);
 
+    /**
+     * @param category a category of ships
+     * @return a read-only view of the ships of that category, in the order they were added
+     */
+    List<IShip> getShips(ShipCategory category);
+
+    /**
+     * @param category a category of ships
+     * @return the number of ships of that category still afloat
+     */
+    int getFloatingShipCount(ShipCategory category);
+
     List<IShip> getFloatingShips();
 
+    int getFloatingShipCount();
+
     IShip shipAt(IPosition pos);
 
+    /**
+     * @param row    the row of a cell
+     * @param column the column of a cell
+     * @return the index in {@link #getShips()} of the ship at that cell, or -1 if there is none
+     */
+    int shipIndexAt(int row, int column);
+
     void printStatus();
+
+    /**
+     * Prints the state of the fleet to the given stream instead of the
+     * standard output, e.g. to the connection of a network session.
+     *
+     * @param out the stream to print to
+     */
+    void printStatus(PrintStream out);
 }
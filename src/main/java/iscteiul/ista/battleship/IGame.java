@@ -3,11 +3,68 @@
  */
 package iscteiul.ista.battleship;
 
+import java.io.PrintStream;
 import java.util.List;
 
 public interface IGame {
+    /** Outcome of a shot that hit no ship. */
+    byte MISS = 0;
+
+    /** Outcome of a shot that hit a ship without sinking it. */
+    byte HIT = 1;
+
+    /** Outcome of a shot that sank a ship. */
+    byte SUNK = 2;
+
+    /** Outcome of a shot at a position already shot. */
+    byte REPEATED = 3;
+
+    /** Outcome of a shot outside the board. */
+    byte INVALID = 4;
+
     IShip fire(IPosition pos);
 
+    /**
+     * Fires a shot given as primitive coordinates, without allocating.
+     *
+     * @param row    the row being targeted
+     * @param column the column being targeted
+     * @return the outcome of the shot, together with the ship hit or sunk;
+     *         see {@link #outcomeOf(int)} and {@link #shipIndexOf(int)}
+     */
+    int fire(int row, int column);
+
+    /**
+     * @param result a result of {@link #fire(int, int)}
+     * @return the outcome of the shot: {@link #MISS}, {@link #HIT}, {@link #SUNK},
+     *         {@link #REPEATED} or {@link #INVALID}
+     */
+    static byte outcomeOf(int result) {
+        return (byte) result;
+    }
+
+    /**
+     * @param result a result of {@link #fire(int, int)}
+     * @return the index in the fleet of the ship hit or sunk by the shot, or -1 if no ship was hit
+     */
+    static int shipIndexOf(int result) {
+        return (result >>> 8) - 1;
+    }
+
+    /**
+     * Fires a salvo of shots, given as parallel arrays of rows and columns,
+     * writing the outcome of each shot ({@link #MISS}, {@link #HIT},
+     * {@link #SUNK}, {@link #REPEATED} or {@link #INVALID}) to a buffer.
+     * Shots are counted exactly as if fired one by one with {@link #fire(IPosition)}.
+     *
+     * @param rows     the rows of the shots
+     * @param columns  the columns of the shots
+     * @param count    the number of shots of the salvo
+     * @param outcomes the buffer receiving the outcome of each shot
+     * @return the number of ships sunk by the salvo
+     */
+    int fireBatch(int[] rows, int[] columns, int count, byte[] outcomes);
+
     List<IPosition> getShots();
 
     int getRepeatedShots();
@@ -23,4 +80,20 @@ public interface IGame {
     void printValidShots();
 
     void printFleet();
+
+    /**
+     * Prints the board of valid shots to the given stream instead of the
+     * standard output, e.g. to the connection of a network session.
+     *
+     * @param out the stream to print to
+     */
+    void printValidShots(PrintStream out);
+
+    /**
+     * Prints the board of the fleet to the given stream instead of the
+     * standard output.
+     *
+     * @param out the stream to print to
+     */
+    void printFleet(PrintStream out);
 }
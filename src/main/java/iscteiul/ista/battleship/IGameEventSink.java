@@ -0,0 +1,29 @@
+package iscteiul.ista.battleship;
+
+/**
+ * Receives the events of fleets being built and games being played.
+ * <p>
+ * {@link Tasks} and {@link Game} tell a sink what happens instead of
+ * formatting messages themselves, so the cost of turning an event into text
+ * or bytes is only paid by the sinks that need it. The events are reused
+ * instances: see {@link GameEvent}. The implementations are
+ * {@link #DISCARD}, {@link LoggingEventSink}, which writes the messages of
+ * the tasks to a log4j logger, {@link PrintStreamEventSink}, which writes
+ * them to a stream, and {@link GameEventLog}, which records games in a
+ * binary file.
+ * </p>
+ *
+ * @see GameEvent
+ */
+public interface IGameEventSink {
+
+    /** A sink that ignores every event, for runs where nobody is watching. */
+    IGameEventSink DISCARD = event -> { };
+
+    /**
+     * Receives an event.
+     *
+     * @param event the event, valid only for the duration of the call
+     */
+    void onEvent(GameEvent event);
+}
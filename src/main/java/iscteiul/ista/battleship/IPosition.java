@@ -4,6 +4,14 @@
 package iscteiul.ista.battleship;
 
 /**
+ * A cell of the board, given by its row and column.
+ * <p>
+ * A position only names a cell: whether a ship occupies it or a shot hit it
+ * is asked from the fleet ({@link IFleet#shipAt(IPosition)}) and the ship
+ * ({@link IShip#isHit(IPosition)}). The positions handed out by the engine,
+ * the cells of ships and the shots of games, are shared {@link Coordinate}s.
+ * </p>
+ *
  * @author fba
  */
 public interface IPosition {
@@ -14,12 +22,4 @@ public interface IPosition {
     boolean equals(Object other);
 
     boolean isAdjacentTo(IPosition other);
-
-    void occupy();
-
-    void shoot();
-
-    boolean isOccupied();
-
-    boolean isHit();
 }
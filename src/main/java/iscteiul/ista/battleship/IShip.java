@@ -33,4 +33,6 @@ public interface IShip {
     boolean tooCloseTo(IPosition pos);
 
     void shoot(IPosition pos);
+
+    boolean isHit(IPosition pos);
 }
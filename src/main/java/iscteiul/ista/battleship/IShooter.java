@@ -0,0 +1,43 @@
+package iscteiul.ista.battleship;
+
+import java.util.SplittableRandom;
+
+/**
+ * A targeting strategy, used to play games without a human player.
+ * <p>
+ * A shooter chooses the cells to shoot and is told the outcome of every
+ * shot. Cells are given as primitive indexes, {@code row * boardSize + column},
+ * so that millions of games can be played without allocating positions.
+ * A shooter plays one game at a time; simulations running games in parallel
+ * use one shooter per thread.
+ * </p>
+ *
+ * @see MonteCarloSimulator
+ * @see RandomShooter
+ */
+public interface IShooter {
+
+    /**
+     * Prepares the shooter for a new game.
+     *
+     * @param boardSize the width and height of the board
+     * @param random    the source of randomness for this game, so that games can be replayed from their seed
+     */
+    void newGame(int boardSize, SplittableRandom random);
+
+    /**
+     * @return the cell to shoot next, as {@code row * boardSize + column}
+     */
+    int nextShot();
+
+    /**
+     * Tells the shooter the outcome of its last shot.
+     *
+     * @param row     the row of the shot
+     * @param column  the column of the shot
+     * @param outcome the outcome of the shot: {@link IGame#MISS}, {@link IGame#HIT},
+     *                {@link IGame#SUNK}, {@link IGame#REPEATED} or {@link IGame#INVALID}
+     * @param sunk    the ship sunk by the shot, or {@code null} if none was
+     */
+    void shotResult(int row, int column, byte outcome, IShip sunk);
+}
@@ -0,0 +1,77 @@
+package iscteiul.ista.battleship;
+
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Writes events as the messages the tasks have always logged, at the
+ * {@code INFO} level.
+ * <p>
+ * Nothing is formatted, and no number boxed, when the logger does not log
+ * at that level. Shots, starts of games and boards shown have no message
+ * of their own.
+ * </p>
+ *
+ * @see Tasks
+ */
+public class LoggingEventSink implements IGameEventSink {
+
+    /*
+     * The messages, with {} standing for their arguments; shared with PrintStreamEventSink.
+     */
+    static final String FLEET_BUILT = "{} navios adicionados com sucesso!";
+    static final String UNKNOWN_SHIP = "Navio desconhecido!";
+    static final String SHIP_REJECTED = "Falha na criacao de {} {} {}";
+    static final String SHIP_SUNK = "Mas... mas... {}s nao sao a prova de bala? :-(";
+    static final String ROUND_FIRED = "Hits: {} Inv: {} Rep: {} Restam {} navios.";
+    static final String GAME_OVER = "Maldito sejas, Java Sparrow, eu voltarei, glub glub glub...";
+    static final String UNKNOWN_COMMAND = "Que comando é esse??? Repete ...";
+    static final String QUIT = "Bons ventos!";
+
+    private final Logger logger;
+
+    /**
+     * @param logger the logger to write to
+     */
+    public LoggingEventSink(Logger logger) {
+        assert logger != null;
+
+        this.logger = logger;
+    }
+
+    @Override
+    public void onEvent(GameEvent event) {
+        if (!logger.isInfoEnabled())
+            return;
+
+        switch (event.getType()) {
+            case FLEET_BUILT:
+                logger.info(FLEET_BUILT, event.getShipCount());
+                break;
+            case SHIP_REJECTED:
+                IShip s = event.getShip();
+                if (s == null)
+                    logger.info(UNKNOWN_SHIP);
+                else
+                    logger.info(SHIP_REJECTED, s.getCategory(), s.getBearing(), s.getPosition());
+                break;
+            case SHIP_SUNK:
+                logger.info(SHIP_SUNK, event.getShip().getCategory());
+                break;
+            case ROUND_FIRED:
+                logger.info(ROUND_FIRED, event.getHits(), event.getInvalidShots(), event.getRepeatedShots(),
+                        event.getShipCount());
+                break;
+            case GAME_OVER:
+                logger.info(GAME_OVER);
+                break;
+            case UNKNOWN_COMMAND:
+                logger.info(UNKNOWN_COMMAND);
+                break;
+            case QUIT:
+                logger.info(QUIT);
+                break;
+            default:
+                // no message
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package iscteiul.ista.battleship;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.function.Supplier;
+import java.util.stream.LongStream;
+
+/**
+ * Plays many complete games without a human player, to evaluate targeting
+ * strategies.
+ * <p>
+ * Each game gets a random legal standard fleet, drawn by a
+ * {@link FleetGenerator} and built through {@link Fleet#addShip(IShip)}, and is played by an {@link IShooter} through
+ * {@link IGame#fire(int, int)} until the fleet has sunk or the shot limit is
+ * reached. Games are spread over all cores with a parallel stream, each
+ * worker thread reusing its own shooter. Game {@code i} of a run draws all
+ * its randomness from a generator derived from the seed and {@code i}, so a
+ * run is reproducible whatever the number of cores.
+ * </p>
+ *
+ * @see IShooter
+ * @see SimulationResult
+ */
+public class MonteCarloSimulator {
+
+    private static final Compass[] BEARINGS = {Compass.NORTH, Compass.SOUTH, Compass.EAST, Compass.WEST};
+
+    /** Random placements tried for one ship before starting the fleet over. */
+    private static final int PLACEMENT_ATTEMPTS = 1000;
+
+    /** Default limit on the number of shots of a game. */
+    public static final int DEFAULT_MAX_SHOTS = 1000;
+
+    private final Supplier<? extends IShooter> shooters;
+    private final int maxShots;
+
+    /**
+     * @param shooters creates the shooters, one per worker thread
+     */
+    public MonteCarloSimulator(Supplier<? extends IShooter> shooters) {
+        this(shooters, DEFAULT_MAX_SHOTS);
+    }
+
+    /**
+     * @param shooters creates the shooters, one per worker thread
+     * @param maxShots the number of shots after which a game is given up as unfinished
+     * @throws IllegalArgumentException if the shot limit is not positive
+     */
+    public MonteCarloSimulator(Supplier<? extends IShooter> shooters, int maxShots) {
+        if (maxShots <= 0)
+            throw new IllegalArgumentException("ERROR! invalid shot limit");
+        assert shooters != null;
+
+        this.shooters = shooters;
+        this.maxShots = maxShots;
+    }
+
+    /**
+     * Plays a number of games in parallel.
+     *
+     * @param games the number of games to play
+     * @param seed  the seed of the run
+     * @return the shots-to-win histogram and the throughput of the run
+     * @throws IllegalArgumentException if the number of games is negative
+     */
+    public SimulationResult run(long games, long seed) {
+        if (games < 0)
+            throw new IllegalArgumentException("ERROR! invalid number of games");
+
+        ThreadLocal<IShooter> shooter = ThreadLocal.withInitial(shooters);
+        ThreadLocal<FleetGenerator> generator = ThreadLocal.withInitial(() -> new FleetGenerator(seed));
+        long start = System.nanoTime();
+        // the last bin counts the unfinished games
+        long[] histogram = LongStream.range(0, games).parallel().collect(
+                () -> new long[maxShots + 2],
+                (bins, game) -> {
+                    int shots = play(shooter.get(), generator.get(), gameRandom(seed, game));
+                    bins[shots < 0 ? maxShots + 1 : shots]++;
+                },
+                (bins, other) -> {
+                    for (int i = 0; i < bins.length; i++)
+                        bins[i] += other[i];
+                });
+        return SimulationResult.of(histogram, System.nanoTime() - start);
+    }
+
+    /**
+     * Plays one game over a random fleet.
+     *
+     * @param shooter   the shooter playing the game
+     * @param generator the generator of the fleet
+     * @param random    the source of randomness of the game, for the fleet and the shooter
+     * @return the number of shots fired to sink the whole fleet, or -1 if the shot limit was reached first
+     */
+    int play(IShooter shooter, FleetGenerator generator, SplittableRandom random) {
+        return play(shooter, generator, random, null);
+    }
+
+    /**
+     * Plays one game over a random fleet, noting when each kind of ship was
+     * wiped out.
+     *
+     * @param shooter   the shooter playing the game
+     * @param generator the generator of the fleet
+     * @param random    the source of randomness of the game, for the fleet and the shooter
+     * @param clearedAt if not {@code null}, receives for each kind of {@link PlacementIndex} the number
+     *                  of shots after which all its ships were sunk, or -1 if some ship of that kind was left
+     * @return the number of shots fired to sink the whole fleet, or -1 if the shot limit was reached first
+     */
+    int play(IShooter shooter, FleetGenerator generator, SplittableRandom random, int[] clearedAt) {
+        int[] afloat = null;
+        if (clearedAt != null) {
+            Arrays.fill(clearedAt, -1);
+            afloat = new int[PlacementIndex.kindCount()];
+            for (int kind = 0; kind < afloat.length; kind++)
+                afloat[kind] = PlacementIndex.shipsOf(kind);
+        }
+
+        Fleet fleet = generator.nextFleet(random);
+        IGame game = new Game(fleet);
+        int boardSize = fleet.getBoardSize();
+        shooter.newGame(boardSize, random);
+
+        int shots = 0;
+        while (game.getRemainingShips() > 0) {
+            if (shots == maxShots)
+                return -1;
+            int cell = shooter.nextShot();
+            int row = Math.floorDiv(cell, boardSize);
+            int column = Math.floorMod(cell, boardSize);
+            int result = game.fire(row, column);
+            shots++;
+
+            byte outcome = IGame.outcomeOf(result);
+            IShip sunk = outcome == IGame.SUNK ? fleet.getShips().get(IGame.shipIndexOf(result)) : null;
+            shooter.shotResult(row, column, outcome, sunk);
+            if (sunk != null && afloat != null) {
+                int kind = PlacementIndex.kindOfCategory(sunk.getCategory());
+                if (--afloat[kind] == 0)
+                    clearedAt[kind] = shots;
+            }
+        }
+        return shots;
+    }
+
+    /**
+     * Builds a random legal standard fleet by rejection sampling: each ship
+     * is given random bearings and positions until {@link Fleet} accepts
+     * it, and the fleet is started over if some ship does not fit. This is
+     * much slower than {@link FleetGenerator}, and kept as its reference.
+     *
+     * @param random the source of randomness
+     * @return a fleet holding the ships of {@link FleetGenerator#STANDARD_FLEET}
+     */
+    static Fleet randomFleet(SplittableRandom random) {
+        while (true) {
+            Fleet fleet = new Fleet();
+            if (fillFleet(fleet, random))
+                return fleet;
+        }
+    }
+
+    private static boolean fillFleet(Fleet fleet, SplittableRandom random) {
+        int boardSize = fleet.getBoardSize();
+        for (String kind : FleetGenerator.STANDARD_FLEET) {
+            boolean placed = false;
+            for (int attempt = 0; attempt < PLACEMENT_ATTEMPTS && !placed; attempt++) {
+                Compass bearing = BEARINGS[random.nextInt(BEARINGS.length)];
+                int row = random.nextInt(boardSize);
+                int column = random.nextInt(boardSize);
+                // test the shape first, so that rejected placements build no ship
+                if (fleet.canPlace(Ship.templateOf(kind, bearing), row, column))
+                    placed = fleet.addShip(Ship.buildShip(kind, bearing, Coordinate.of(row, column)));
+            }
+            if (!placed)
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * @return the generator of game {@code game} of a run, well apart from those of the other games
+     */
+    static SplittableRandom gameRandom(long seed, long game) {
+        return new SplittableRandom(new SplittableRandom(seed + game).nextLong());
+    }
+}
@@ -0,0 +1,246 @@
+package iscteiul.ista.battleship;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The placements of {@link FleetGenerator}, grouped by kind of ship and
+ * indexed by cell.
+ * <p>
+ * For every cell of the standard board, the index lists the placements
+ * covering it, so that the placements affected by a shot, or by the halo of
+ * a sunk ship, are found without going through the whole table. Kinds are
+ * numbered in the order they appear in the standard fleet, largest first.
+ * </p>
+ *
+ * @see FleetGenerator
+ * @see ProbabilityShooter
+ */
+final class PlacementIndex {
+
+    /** Width and height of the board. */
+    static final int BOARD = IFleet.BOARD_SIZE;
+
+    /** Number of cells of the board, numbered {@code row * BOARD + column}. */
+    static final int CELLS = BOARD * BOARD;
+
+    /** The distinct kinds of the standard fleet, and how many ships of each it holds. */
+    private static final String[] KINDS;
+    private static final int[] SHIPS;
+
+    /** The category of the ships of each kind, as given by {@link IShip#getCategory()}. */
+    private static final String[] CATEGORIES;
+
+    /** The placements of kind {@code k} are {@code KIND_FIRST[k]} to {@code KIND_END[k] - 1}. */
+    private static final int[] KIND_FIRST;
+    private static final int[] KIND_END;
+
+    /** For each placement, the index of its kind and the cells it covers. */
+    private static final byte[] kindIndex;
+    private static final int[][] cells;
+
+    /** For each cell, the placements covering it. */
+    private static final int[][] covering;
+
+    static {
+        List<String> kinds = new ArrayList<>();
+        List<Integer> ships = new ArrayList<>();
+        for (String kind : FleetGenerator.STANDARD_FLEET) {
+            int k = kinds.indexOf(kind);
+            if (k < 0) {
+                kinds.add(kind);
+                ships.add(1);
+            } else {
+                ships.set(k, ships.get(k) + 1);
+            }
+        }
+        KINDS = kinds.toArray(new String[0]);
+        SHIPS = new int[KINDS.length];
+        for (int k = 0; k < SHIPS.length; k++)
+            SHIPS[k] = ships.get(k);
+
+        CATEGORIES = new String[KINDS.length];
+        for (int k = 0; k < KINDS.length; k++)
+            CATEGORIES[k] = ShipCategory.ofKind(KINDS[k]).getName();
+
+        int n = FleetGenerator.placementCount();
+        KIND_FIRST = new int[KINDS.length];
+        KIND_END = new int[KINDS.length];
+        kindIndex = new byte[n];
+        cells = new int[n][];
+        int[] coveringCount = new int[CELLS];
+        for (int p = 0; p < n; p++) {
+            int kind = kinds.indexOf(FleetGenerator.kindOf(p));
+            // the placements of a kind are contiguous
+            assert p == 0 || kind == kindIndex[p - 1] || KIND_END[kind] == 0;
+            kindIndex[p] = (byte) kind;
+            if (KIND_END[kind] == 0)
+                KIND_FIRST[kind] = p;
+            KIND_END[kind] = p + 1;
+            long low = FleetGenerator.cellsLow(p);
+            long high = FleetGenerator.cellsHigh(p);
+            int[] list = new int[Long.bitCount(low) + Long.bitCount(high)];
+            int i = 0;
+            for (long bits = low; bits != 0; bits &= bits - 1)
+                list[i++] = Long.numberOfTrailingZeros(bits);
+            for (long bits = high; bits != 0; bits &= bits - 1)
+                list[i++] = 64 + Long.numberOfTrailingZeros(bits);
+            cells[p] = list;
+            for (int cell : list)
+                coveringCount[cell]++;
+        }
+        covering = new int[CELLS][];
+        for (int cell = 0; cell < CELLS; cell++)
+            covering[cell] = new int[coveringCount[cell]];
+        int[] filled = new int[CELLS];
+        for (int p = 0; p < n; p++)
+            for (int cell : cells[p])
+                covering[cell][filled[cell]++] = p;
+    }
+
+    private PlacementIndex() {
+    }
+
+    /**
+     * @return the number of placements
+     */
+    static int size() {
+        return kindIndex.length;
+    }
+
+    /**
+     * @return the number of distinct kinds of ships of the standard fleet
+     */
+    static int kindCount() {
+        return KINDS.length;
+    }
+
+    /**
+     * @param kind the index of a kind
+     * @return its name, as accepted by {@link Ship#buildShip}
+     */
+    static String kindName(int kind) {
+        return KINDS[kind];
+    }
+
+    /**
+     * @param kind the index of a kind
+     * @return the number of ships of that kind in the standard fleet
+     */
+    static int shipsOf(int kind) {
+        return SHIPS[kind];
+    }
+
+    /**
+     * @param kind the index of a kind
+     * @return the category of the ships of that kind, as given by {@link IShip#getCategory()}
+     */
+    static String kindCategory(int kind) {
+        return CATEGORIES[kind];
+    }
+
+    /**
+     * @param category a category of ships, as given by {@link IShip#getCategory()}
+     * @return the index of the kind of that category, or -1 if there is none
+     */
+    static int kindOfCategory(String category) {
+        for (int k = 0; k < CATEGORIES.length; k++)
+            if (CATEGORIES[k].equals(category))
+                return k;
+        return -1;
+    }
+
+    /**
+     * @param kind the index of a kind
+     * @return the first placement of that kind
+     */
+    static int firstOf(int kind) {
+        return KIND_FIRST[kind];
+    }
+
+    /**
+     * @param kind the index of a kind
+     * @return the placement after the last one of that kind
+     */
+    static int endOf(int kind) {
+        return KIND_END[kind];
+    }
+
+    /**
+     * @param placement a placement
+     * @return the index of its kind
+     */
+    static int kindOf(int placement) {
+        return kindIndex[placement];
+    }
+
+    /**
+     * @param placement a placement
+     * @return the cells it covers; the array must not be modified
+     */
+    static int[] cellsOf(int placement) {
+        return cells[placement];
+    }
+
+    /**
+     * @param cell a cell
+     * @return the placements covering it; the array must not be modified
+     */
+    static int[] covering(int cell) {
+        return covering[cell];
+    }
+
+    /**
+     * @return true if the placement covers the cell
+     */
+    static boolean covers(int placement, int cell) {
+        return cell < 64 ? (FleetGenerator.cellsLow(placement) & (1L << cell)) != 0
+                : (FleetGenerator.cellsHigh(placement) & (1L << cell)) != 0;
+    }
+
+    /**
+     * Checks whether a ship afloat may take a placement: it must lie on free
+     * cells, not all of them hit, as it would then have sunk, and, by the
+     * no-touch rule, not be next to a hit it does not cover.
+     *
+     * @param placement a placement
+     * @param freeLow   the free cells 0 to 63
+     * @param freeHigh  the free cells from 64 on
+     * @param openLow   the hits 0 to 63 not yet covered by a ship
+     * @param openHigh  the hits from 64 on not yet covered by a ship
+     * @return true if the placement is possible
+     */
+    static boolean fits(int placement, long freeLow, long freeHigh, long openLow, long openHigh) {
+        long cellsLow = FleetGenerator.cellsLow(placement), cellsHigh = FleetGenerator.cellsHigh(placement);
+        if (((cellsLow & ~freeLow) | (cellsHigh & ~freeHigh)) != 0
+                || ((cellsLow & ~openLow) | (cellsHigh & ~openHigh)) == 0)
+            return false;
+        return ((FleetGenerator.haloLow(placement) & ~cellsLow & openLow)
+                | (FleetGenerator.haloHigh(placement) & ~cellsHigh & openHigh)) == 0;
+    }
+
+    /**
+     * Finds the placement of a ship of the standard board.
+     *
+     * @param ship the ship
+     * @return the placement covering exactly the cells of the ship, or -1 if there is none
+     */
+    static int placementOf(IShip ship) {
+        long low = 0, high = 0;
+        for (IPosition p : ship.getPositions()) {
+            int row = p.getRow(), column = p.getColumn();
+            if (row < 0 || row >= BOARD || column < 0 || column >= BOARD)
+                return -1;
+            int cell = row * BOARD + column;
+            if (cell < 64)
+                low |= 1L << cell;
+            else
+                high |= 1L << cell;
+        }
+        IPosition first = ship.getPositions().get(0);
+        for (int p : covering[first.getRow() * BOARD + first.getColumn()])
+            if (FleetGenerator.cellsLow(p) == low && FleetGenerator.cellsHigh(p) == high)
+                return p;
+        return -1;
+    }
+}
@@ -3,8 +3,13 @@
  */
 package iscteiul.ista.battleship;
 
-import java.util.Objects;
-
+/**
+ * A position with occupied and hit flags of its own, set by whoever holds
+ * it. Ships and games do not mark positions: they keep that state
+ * themselves (see {@link IPosition}).
+ *
+ * @see Coordinate
+ */
 public class Position implements IPosition {
     private int row;
     private int column;
@@ -42,9 +47,14 @@ public class Position implements IPosition {
     }
 
 
+    /**
+     * Only the coordinates take part in the hash, as in {@link #equals(Object)},
+     * so that positions can be used as keys of hash-based collections. The
+     * formula is shared with {@link Coordinate#hashCode()}.
+     */
     @Override
     public int hashCode() {
-        return Objects.hash(column, isHit, isOccupied, row);
+        return 31 * row + column;
     }
 
     /*
@@ -74,42 +84,30 @@ public class Position implements IPosition {
         return (Math.abs(this.getRow() - other.getRow()) <= 1 && Math.abs(this.getColumn() - other.getColumn()) <= 1);
     }
 
-    /*
-     * (non-Javadoc)
-     *
-     * @see battleship.IPosition#occupy()
+    /**
+     * Marks the position as occupied.
      */
-    @Override
     public void occupy() {
         isOccupied = true;
     }
 
-    /*
-     * (non-Javadoc)
-     *
-     * @see battleship.IPosition#shoot()
+    /**
+     * Marks the position as hit.
      */
-    @Override
     public void shoot() {
         isHit = true;
     }
 
-    /*
-     * (non-Javadoc)
-     *
-     * @see battleship.IPosition#isOccupied()
+    /**
+     * @return {@code true} if the position has been marked as occupied
      */
-    @Override
     public boolean isOccupied() {
         return isOccupied;
     }
 
-    /*
-     * (non-Javadoc)
-     *
-     * @see battleship.IPosition#isHit()
+    /**
+     * @return {@code true} if the position has been marked as hit
      */
-    @Override
     public boolean isHit() {
         return isHit;
     }
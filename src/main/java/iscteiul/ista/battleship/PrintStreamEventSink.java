@@ -0,0 +1,79 @@
+package iscteiul.ista.battleship;
+
+import java.io.PrintStream;
+
+/**
+ * Writes events as the messages of {@link LoggingEventSink}, one per line,
+ * to a stream of its own instead of the log.
+ * <p>
+ * This is how a {@link GameSession} answers its player: the messages of the
+ * game go back through the connection, with the boards. The stream is not
+ * flushed; {@link Tasks#taskD(CommandTokenizer, PrintStream, IGameEventSink)}
+ * flushes it after every command.
+ * </p>
+ *
+ * @see LoggingEventSink
+ * @see GameSession
+ */
+public class PrintStreamEventSink implements IGameEventSink {
+
+    private final PrintStream out;
+
+    /**
+     * @param out the stream to write to
+     */
+    public PrintStreamEventSink(PrintStream out) {
+        assert out != null;
+
+        this.out = out;
+    }
+
+    @Override
+    public void onEvent(GameEvent event) {
+        switch (event.getType()) {
+            case FLEET_BUILT:
+                print(LoggingEventSink.FLEET_BUILT, event.getShipCount());
+                break;
+            case SHIP_REJECTED:
+                IShip s = event.getShip();
+                if (s == null)
+                    out.println(LoggingEventSink.UNKNOWN_SHIP);
+                else
+                    print(LoggingEventSink.SHIP_REJECTED, s.getCategory(), s.getBearing(), s.getPosition());
+                break;
+            case SHIP_SUNK:
+                print(LoggingEventSink.SHIP_SUNK, event.getShip().getCategory());
+                break;
+            case ROUND_FIRED:
+                print(LoggingEventSink.ROUND_FIRED, event.getHits(), event.getInvalidShots(), event.getRepeatedShots(),
+                        event.getShipCount());
+                break;
+            case GAME_OVER:
+                out.println(LoggingEventSink.GAME_OVER);
+                break;
+            case UNKNOWN_COMMAND:
+                out.println(LoggingEventSink.UNKNOWN_COMMAND);
+                break;
+            case QUIT:
+                out.println(LoggingEventSink.QUIT);
+                break;
+            default:
+                // no message
+        }
+    }
+
+    /**
+     * Prints a message, each {@code {}} of its pattern replaced by the next argument.
+     */
+    private void print(String pattern, Object... arguments) {
+        StringBuilder sb = new StringBuilder(pattern.length() + 16 * arguments.length);
+        int from = 0;
+        for (Object argument : arguments) {
+            int at = pattern.indexOf("{}", from);
+            assert at >= 0;
+            sb.append(pattern, from, at).append(argument);
+            from = at + 2;
+        }
+        out.println(sb.append(pattern, from, pattern.length()));
+    }
+}
@@ -0,0 +1,230 @@
+package iscteiul.ista.battleship;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * A hunt and target shooter driven by placement density.
+ * <p>
+ * The shooter tracks every placement, of every kind of ship, in every
+ * bearing, that is still consistent with the outcomes seen so far, and for
+ * each kind and each cell the number of those placements covering the cell.
+ * While no ship is known to be damaged it hunts: it shoots the cell covered
+ * by the most placements, weighted by the number of ships of their kind
+ * still afloat. Once a ship has been hit it targets: it shoots the cell most
+ * often covered by the placements through the hits of ships not yet sunk.
+ * </p>
+ * <p>
+ * The counts are kept up to date incrementally through the inverted index
+ * of {@link PlacementIndex}: a miss discards the placements covering the
+ * cell, a hit those touching the cell without covering it (the no-touch
+ * rule), and a sinking those meeting the sunk ship or its halo. Each outcome
+ * thus costs a few dozen placements rather than a new pass over the board.
+ * Only the standard board and fleet are supported.
+ * </p>
+ *
+ * @see IShooter
+ * @see PlacementIndex
+ */
+public class ProbabilityShooter implements IShooter {
+
+    private static final int CELLS = PlacementIndex.CELLS;
+    private static final int BOARD = PlacementIndex.BOARD;
+
+    /** Whether each placement is still possible. */
+    private final boolean[] alive = new boolean[PlacementIndex.size()];
+
+    /** For each kind and cell, the number of possible placements of that kind covering the cell. */
+    private final int[][] coverage = new int[PlacementIndex.kindCount()][CELLS];
+
+    /** For each cell, the sum over the kinds of their coverage times their ships afloat. */
+    private final int[] density = new int[CELLS];
+
+    /** For each kind, the number of its ships not yet sunk. */
+    private final int[] afloat = new int[PlacementIndex.kindCount()];
+
+    /** Scores of the cells while targeting. */
+    private final int[] score = new int[CELLS];
+
+    /** Cells already shot, and those hit on ships not yet sunk. */
+    private long shotLow, shotHigh;
+    private long openHitsLow, openHitsHigh;
+
+    private SplittableRandom random;
+
+    /**
+     * @throws IllegalArgumentException if the board is not the standard one
+     */
+    @Override
+    public void newGame(int boardSize, SplittableRandom random) {
+        if (boardSize != BOARD)
+            throw new IllegalArgumentException("ERROR! only the standard board is supported");
+
+        this.random = random;
+        shotLow = shotHigh = openHitsLow = openHitsHigh = 0;
+        Arrays.fill(alive, true);
+        for (int k = 0; k < afloat.length; k++) {
+            afloat[k] = PlacementIndex.shipsOf(k);
+            Arrays.fill(coverage[k], 0);
+        }
+        for (int p = 0; p < alive.length; p++)
+            for (int cell : PlacementIndex.cellsOf(p))
+                coverage[PlacementIndex.kindOf(p)][cell]++;
+        computeDensity();
+    }
+
+    @Override
+    public int nextShot() {
+        if (openHitsLow != 0 || openHitsHigh != 0)
+            return bestCell(targetScores());
+        return bestCell(density);
+    }
+
+    @Override
+    public void shotResult(int row, int column, byte outcome, IShip sunk) {
+        if (row < 0 || row >= BOARD || column < 0 || column >= BOARD)
+            return;
+        int cell = row * BOARD + column;
+        if (cell < 64)
+            shotLow |= 1L << cell;
+        else
+            shotHigh |= 1L << cell;
+
+        switch (outcome) {
+            case IGame.MISS:
+                for (int p : PlacementIndex.covering(cell))
+                    discard(p);
+                break;
+            case IGame.HIT:
+                hit(cell);
+                break;
+            case IGame.SUNK:
+                hit(cell);
+                sink(sunk);
+                break;
+            default:
+                // repeated and invalid shots teach nothing
+        }
+    }
+
+    /**
+     * @param cell a cell of the board
+     * @return the number of possible placements covering the cell, each
+     *         weighted by the ships of its kind afloat, as hunted by
+     */
+    int densityAt(int cell) {
+        return density[cell];
+    }
+
+    /**
+     * A hit cell belongs to a ship that no other ship may touch: the
+     * placements next to the cell but not covering it are discarded.
+     */
+    private void hit(int cell) {
+        if (cell < 64)
+            openHitsLow |= 1L << cell;
+        else
+            openHitsHigh |= 1L << cell;
+
+        int row = cell / BOARD, column = cell % BOARD;
+        for (int r = Math.max(row - 1, 0); r <= Math.min(row + 1, BOARD - 1); r++)
+            for (int c = Math.max(column - 1, 0); c <= Math.min(column + 1, BOARD - 1); c++)
+                if (r != row || c != column)
+                    for (int p : PlacementIndex.covering(r * BOARD + c))
+                        if (!PlacementIndex.covers(p, cell))
+                            discard(p);
+    }
+
+    /**
+     * No remaining ship may meet a sunk ship or its halo.
+     */
+    private void sink(IShip sunk) {
+        int placement = sunk == null ? -1 : PlacementIndex.placementOf(sunk);
+        if (placement < 0)
+            return;
+
+        openHitsLow &= ~FleetGenerator.cellsLow(placement);
+        openHitsHigh &= ~FleetGenerator.cellsHigh(placement);
+        for (long bits = FleetGenerator.haloLow(placement); bits != 0; bits &= bits - 1)
+            for (int p : PlacementIndex.covering(Long.numberOfTrailingZeros(bits)))
+                discard(p);
+        for (long bits = FleetGenerator.haloHigh(placement); bits != 0; bits &= bits - 1)
+            for (int p : PlacementIndex.covering(64 + Long.numberOfTrailingZeros(bits)))
+                discard(p);
+
+        int kind = PlacementIndex.kindOf(placement);
+        if (afloat[kind] > 0)
+            afloat[kind]--;
+        computeDensity();
+    }
+
+    private void discard(int placement) {
+        if (!alive[placement])
+            return;
+        alive[placement] = false;
+        int kind = PlacementIndex.kindOf(placement);
+        int[] kindCoverage = coverage[kind];
+        int weight = afloat[kind];
+        for (int cell : PlacementIndex.cellsOf(placement)) {
+            kindCoverage[cell]--;
+            density[cell] -= weight;
+        }
+    }
+
+    private void computeDensity() {
+        Arrays.fill(density, 0);
+        for (int k = 0; k < afloat.length; k++)
+            if (afloat[k] > 0)
+                for (int cell = 0; cell < CELLS; cell++)
+                    density[cell] += afloat[k] * coverage[k][cell];
+    }
+
+    /**
+     * Scores the cells by the possible placements through the open hits,
+     * a placement counting once per open hit it covers.
+     */
+    private int[] targetScores() {
+        Arrays.fill(score, 0);
+        for (long bits = openHitsLow; bits != 0; bits &= bits - 1)
+            addTargetScores(Long.numberOfTrailingZeros(bits));
+        for (long bits = openHitsHigh; bits != 0; bits &= bits - 1)
+            addTargetScores(64 + Long.numberOfTrailingZeros(bits));
+        return score;
+    }
+
+    private void addTargetScores(int hit) {
+        for (int p : PlacementIndex.covering(hit)) {
+            if (!alive[p])
+                continue;
+            int weight = afloat[PlacementIndex.kindOf(p)];
+            for (int cell : PlacementIndex.cellsOf(p))
+                score[cell] += weight;
+        }
+    }
+
+    /**
+     * @return the cell not yet shot with the highest score, ties broken at random
+     */
+    private int bestCell(int[] scores) {
+        int best = -1, bestScore = Integer.MIN_VALUE, ties = 0;
+        for (int cell = 0; cell < CELLS; cell++) {
+            if (isShot(cell))
+                continue;
+            int s = scores[cell];
+            if (s > bestScore) {
+                best = cell;
+                bestScore = s;
+                ties = 1;
+            } else if (s == bestScore && random.nextInt(++ties) == 0) {
+                best = cell;
+            }
+        }
+        if (best < 0)
+            throw new IllegalStateException("ERROR! no cells left to shoot");
+        return best;
+    }
+
+    private boolean isShot(int cell) {
+        return cell < 64 ? (shotLow & (1L << cell)) != 0 : (shotHigh & (1L << cell)) != 0;
+    }
+}
@@ -0,0 +1,56 @@
+package iscteiul.ista.battleship;
+
+import java.util.SplittableRandom;
+
+/**
+ * A shooter firing at uniformly random cells, never twice at the same one.
+ * <p>
+ * It ignores the outcome of its shots, so it gives the baseline against
+ * which smarter strategies are measured.
+ * </p>
+ *
+ * @see IShooter
+ */
+public class RandomShooter implements IShooter {
+
+    /** The cells of the board; those from {@link #remaining} on have been shot. */
+    private int[] cells = new int[0];
+
+    /** Number of cells not yet shot. */
+    private int remaining;
+
+    private SplittableRandom random;
+
+    @Override
+    public void newGame(int boardSize, SplittableRandom random) {
+        int area = boardSize * boardSize;
+        if (cells.length != area)
+            cells = new int[area];
+        for (int i = 0; i < area; i++)
+            cells[i] = i;
+        this.remaining = area;
+        this.random = random;
+    }
+
+    /**
+     * Draws a cell among those not yet shot, as one step of a Fisher-Yates shuffle.
+     *
+     * @throws IllegalStateException if every cell has already been shot
+     */
+    @Override
+    public int nextShot() {
+        if (remaining == 0)
+            throw new IllegalStateException("ERROR! no cells left to shoot");
+
+        int j = random.nextInt(remaining);
+        int cell = cells[j];
+        cells[j] = cells[--remaining];
+        cells[remaining] = cell;
+        return cell;
+    }
+
+    @Override
+    public void shotResult(int row, int column, byte outcome, IShip sunk) {
+        // outcomes do not change the next random shot
+    }
+}
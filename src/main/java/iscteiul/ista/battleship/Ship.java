@@ -9,21 +9,19 @@ import java.util.List;
 
 public abstract class Ship implements IShip {
 
-    private static final String GALEAO = "galeao";
-    private static final String FRAGATA = "fragata";
-    private static final String NAU = "nau";
-    private static final String CARAVELA = "caravela";
-    private static final String BARCA = "barca";
-
     /**
-     * @param shipKind
+     * @param shipKind the kind of ship, as given by {@link ShipCategory#getKind()}
      * @param bearing
      * @param pos
-     * @return
+     * @return the ship, or {@code null} if the kind is unknown
      */
-    static Ship buildShip(String shipKind, Compass bearing, Position pos) {
+    static Ship buildShip(String shipKind, Compass bearing, IPosition pos) {
+        ShipCategory category = ShipCategory.ofKind(shipKind);
+        if (category == null)
+            return null;
+
         Ship s;
-        switch (shipKind) {
+        switch (category) {
             case BARCA:
                 s = new Barge(bearing, pos);
                 break;
@@ -40,17 +38,59 @@ public abstract class Ship implements IShip {
                 s = new Galleon(bearing, pos);
                 break;
             default:
-                s = null;
+                throw new AssertionError(category);
         }
         return s;
     }
 
+    /**
+     * Returns the precomputed shape of a kind of ship, without building one
+     *
+     * @param shipKind the kind of ship, as accepted by {@link #buildShip}
+     * @param bearing  the bearing of the ship
+     * @return the template of that kind for that bearing, or {@code null} if the kind or the bearing is invalid
+     */
+    static ShipTemplate templateOf(String shipKind, Compass bearing) {
+        ShipCategory category = ShipCategory.ofKind(shipKind);
+        if (category == null)
+            return null;
+
+        switch (category) {
+            case BARCA:
+                return Barge.template(bearing);
+            case CARAVELA:
+                return Caravel.template(bearing);
+            case NAU:
+                return Carrack.template(bearing);
+            case FRAGATA:
+                return Frigate.template(bearing);
+            case GALEAO:
+                return Galleon.template(bearing);
+            default:
+                return null;
+        }
+    }
+
 
     private String category;
+    private ShipCategory shipCategory;
     private Compass bearing;
     private IPosition pos;
+    /** The cells of the ship; a read-only list shared with the ships of the same shape and place, if it has a template. */
     protected List<IPosition> positions;
 
+    /**
+     * Bit {@code i} is set once the {@code i}-th position of the ship has
+     * been hit; the only record of the hits, as positions are not marked.
+     */
+    private int hitMask;
+
+    /** Notified when the ship sinks; usually the fleet holding it. */
+    private SinkListener sinkListener;
+
+    /** The precomputed shape of the ship, or {@code null} if its positions were filled by hand. */
+    private ShipTemplate template;
+
 
     /**
      * @param category
@@ -62,11 +102,33 @@ public abstract class Ship implements IShip {
         assert pos != null;
 
         this.category = category;
+        this.shipCategory = ShipCategory.ofName(category);
         this.bearing = bearing;
         this.pos = pos;
         positions = new ArrayList<>();
     }
 
+    /**
+     * Creates a ship laid out from its reference position following a
+     * precomputed shape; its cells are the template's shared list, so
+     * nothing but the ship is allocated
+     *
+     * @param category the name of the category of the ship
+     * @param bearing  the bearing of the ship
+     * @param pos      the reference position of the ship
+     * @param template the shape of the ship for its bearing
+     */
+    Ship(String category, Compass bearing, IPosition pos, ShipTemplate template) {
+        assert bearing != null;
+        assert pos != null;
+
+        this.category = category;
+        this.shipCategory = ShipCategory.ofName(category);
+        this.bearing = bearing;
+        this.pos = pos;
+        place(template);
+    }
+
     /*
      * (non-Javadoc)
      *
@@ -77,6 +139,13 @@ public abstract class Ship implements IShip {
         return category;
     }
 
+    /**
+     * @return the category of the ship, or {@code null} if its name is not one of {@link ShipCategory}
+     */
+    public ShipCategory getShipCategory() {
+        return shipCategory;
+    }
+
     /**
      * @return the positions
      */
@@ -111,10 +180,7 @@ public abstract class Ship implements IShip {
      */
     @Override
     public boolean stillFloating() {
-        for (int i = 0; i < getSize(); i++)
-            if (!getPositions().get(i).isHit())
-                return true;
-        return false;
+        return Integer.bitCount(hitMask) < getSize();
     }
 
     /*
@@ -124,6 +190,8 @@ public abstract class Ship implements IShip {
      */
     @Override
     public int getTopMostPos() {
+        if (template != null)
+            return pos.getRow() + template.top();
         int top = getPositions().get(0).getRow();
         for (int i = 1; i < getSize(); i++)
             if (getPositions().get(i).getRow() < top)
@@ -138,6 +206,8 @@ public abstract class Ship implements IShip {
      */
     @Override
     public int getBottomMostPos() {
+        if (template != null)
+            return pos.getRow() + template.top() + template.height() - 1;
         int bottom = getPositions().get(0).getRow();
         for (int i = 1; i < getSize(); i++)
             if (getPositions().get(i).getRow() > bottom)
@@ -152,6 +222,8 @@ public abstract class Ship implements IShip {
      */
     @Override
     public int getLeftMostPos() {
+        if (template != null)
+            return pos.getColumn() + template.left();
         int left = getPositions().get(0).getColumn();
         for (int i = 1; i < getSize(); i++)
             if (getPositions().get(i).getColumn() < left)
@@ -166,6 +238,8 @@ public abstract class Ship implements IShip {
      */
     @Override
     public int getRightMostPos() {
+        if (template != null)
+            return pos.getColumn() + template.left() + template.width() - 1;
         int right = getPositions().get(0).getColumn();
         for (int i = 1; i < getSize(); i++)
             if (getPositions().get(i).getColumn() > right)
@@ -182,6 +256,8 @@ public abstract class Ship implements IShip {
     public boolean occupies(IPosition pos) {
         assert pos != null;
 
+        if (template != null)
+            return indexOf(pos) >= 0;
         for (int i = 0; i < getSize(); i++)
             if (getPositions().get(i).equals(pos))
                 return true;
@@ -212,6 +288,8 @@ public abstract class Ship implements IShip {
      */
     @Override
     public boolean tooCloseTo(IPosition pos) {
+        if (template != null)
+            return template.touches(pos.getRow() - this.pos.getRow(), pos.getColumn() - this.pos.getColumn());
         for (int i = 0; i < this.getSize(); i++)
             if (getPositions().get(i).isAdjacentTo(pos))
                 return true;
@@ -228,12 +306,68 @@ public abstract class Ship implements IShip {
     public void shoot(IPosition pos) {
         assert pos != null;
 
-        for (IPosition position : getPositions()) {
-            if (position.equals(pos))
-                position.shoot();
+        int i = indexOf(pos);
+        if (i >= 0 && (hitMask & (1 << i)) == 0) {
+            hitMask |= 1 << i;
+            if (Integer.bitCount(hitMask) == getSize() && sinkListener != null)
+                sinkListener.shipSunk(this);
         }
     }
 
+    /*
+     * (non-Javadoc)
+     *
+     * @see battleship.IShip#isHit(battleship.IPosition)
+     */
+    @Override
+    public boolean isHit(IPosition pos) {
+        int i = indexOf(pos);
+        return i >= 0 && (hitMask & (1 << i)) != 0;
+    }
+
+    /**
+     * @param pos the position to look for
+     * @return the index of {@code pos} among the positions of the ship, or -1 if the ship does not occupy it
+     */
+    private int indexOf(IPosition pos) {
+        if (template != null)
+            return template.indexOf(pos.getRow() - this.pos.getRow(), pos.getColumn() - this.pos.getColumn());
+        for (int i = 0; i < getSize(); i++)
+            if (getPositions().get(i).equals(pos))
+                return i;
+        return -1;
+    }
+
+    /**
+     * Lays the ship out from its reference position following a precomputed
+     * shape, which then also answers the bounding box, occupancy and
+     * adjacency queries
+     *
+     * @param template the shape of the ship for its bearing
+     */
+    void place(ShipTemplate template) {
+        assert template != null && template.size() == getSize();
+
+        this.template = template;
+        positions = template.cells(pos.getRow(), pos.getColumn());
+    }
+
+    /**
+     * @return the precomputed shape of the ship, or {@code null} if it has none
+     */
+    ShipTemplate getTemplate() {
+        return template;
+    }
+
+    /**
+     * Registers the listener to be told when this ship sinks
+     *
+     * @param sinkListener the listener, or {@code null} to remove it
+     */
+    void setSinkListener(SinkListener sinkListener) {
+        this.sinkListener = sinkListener;
+    }
+
 
     @Override
     public String toString() {
@@ -0,0 +1,101 @@
+package iscteiul.ista.battleship;
+
+/**
+ * The categories of ships of the game, largest first.
+ *
+ * <p>
+ * Each category has two names:
+ * </p>
+ * <ul>
+ *   <li>its kind, in lower case, as the player types it and as accepted by {@link Ship#buildShip}</li>
+ *   <li>its name, as given by {@link IShip#getCategory()}</li>
+ * </ul>
+ *
+ * <p>
+ * Fleets index their ships by category (see {@link IFleet#getShips(ShipCategory)}),
+ * so that the ships of a category are found without comparing strings.
+ * </p>
+ */
+public enum ShipCategory {
+
+    GALEAO("galeao", "Galeao"),
+    FRAGATA("fragata", "Fragata"),
+    NAU("nau", "Nau"),
+    CARAVELA("caravela", "Caravela"),
+    BARCA("barca", "Barca");
+
+    private static final ShipCategory[] VALUES = values();
+
+    /**
+     * The name of the kind, as typed by the player.
+     */
+    private final String kind;
+
+    /**
+     * The name of the category, as given by the ships.
+     */
+    private final String name;
+
+    /**
+     * @param kind the name of the kind, in lower case
+     * @param name the name of the category
+     */
+    ShipCategory(String kind, String name) {
+        this.kind = kind;
+        this.name = name;
+    }
+
+    /**
+     * Returns the name of the kind, as accepted by {@link Ship#buildShip}.
+     *
+     * @return the kind, in lower case
+     */
+    public String getKind() {
+        return kind;
+    }
+
+    /**
+     * Returns the name of the category, as given by {@link IShip#getCategory()}.
+     *
+     * @return the name of the category
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns the name of the category.
+     *
+     * @return the name of the category
+     */
+    @Override
+    public String toString() {
+        return name;
+    }
+
+    /**
+     * Converts the name of a kind into its category.
+     *
+     * @param kind the kind, in lower case, as typed by the player
+     * @return the corresponding category, or {@code null} if there is none
+     */
+    public static ShipCategory ofKind(String kind) {
+        for (ShipCategory c : VALUES)
+            if (c.kind.equals(kind))
+                return c;
+        return null;
+    }
+
+    /**
+     * Converts the name of a category into the category.
+     *
+     * @param name the name, as given by {@link IShip#getCategory()}
+     * @return the corresponding category, or {@code null} if there is none
+     */
+    public static ShipCategory ofName(String name) {
+        for (ShipCategory c : VALUES)
+            if (c.name.equals(name))
+                return c;
+        return null;
+    }
+}
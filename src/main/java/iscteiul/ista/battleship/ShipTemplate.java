@@ -0,0 +1,209 @@
+package iscteiul.ista.battleship;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The shape of a ship class for one bearing, computed once.
+ * <p>
+ * A template holds the offsets of the cells of the ship relative to its
+ * reference position (in the order the ship lists its positions), the
+ * bounding box of those offsets and, for each row of the bounding box, a
+ * mask of the covered columns shifted so that bit 0 is the leftmost column.
+ * Ships can then be laid out, kept inside the board and tested for occupancy
+ * or adjacency without allocating or looping over their positions.
+ * </p>
+ * <p>
+ * The lists of cells of the ship laid out from every coordinate shared by
+ * {@link Coordinate#of(int, int)} are built with the template, read-only
+ * and made of shared coordinates, so that placing a ship there only hands
+ * out one of them.
+ * </p>
+ *
+ * @see Ship
+ * @see Compass
+ */
+final class ShipTemplate {
+
+    private final int[] rowOffsets;
+    private final int[] columnOffsets;
+
+    /** Offsets of the bounding box, relative to the reference position. */
+    private final int top;
+    private final int left;
+    private final int height;
+    private final int width;
+
+    /** Covered columns of each row of the bounding box, bit 0 being column {@code left}. */
+    private final long[] rowMasks;
+
+    /** For each cell of the bounding box, the index of the ship position there, or -1. */
+    private final byte[] cellOrder;
+
+    /** The cells of the ship laid out from each shared coordinate, indexed as {@link Coordinate}'s table. */
+    private final List<List<IPosition>> layouts;
+
+    /**
+     * @param cells the offsets {@code {row, column}} of the cells of the ship
+     */
+    ShipTemplate(int[][] cells) {
+        assert cells.length > 0 && cells.length < 32;
+
+        rowOffsets = new int[cells.length];
+        columnOffsets = new int[cells.length];
+        int minRow = Integer.MAX_VALUE, maxRow = Integer.MIN_VALUE;
+        int minColumn = Integer.MAX_VALUE, maxColumn = Integer.MIN_VALUE;
+        for (int i = 0; i < cells.length; i++) {
+            rowOffsets[i] = cells[i][0];
+            columnOffsets[i] = cells[i][1];
+            minRow = Math.min(minRow, cells[i][0]);
+            maxRow = Math.max(maxRow, cells[i][0]);
+            minColumn = Math.min(minColumn, cells[i][1]);
+            maxColumn = Math.max(maxColumn, cells[i][1]);
+        }
+        top = minRow;
+        left = minColumn;
+        height = maxRow - minRow + 1;
+        width = maxColumn - minColumn + 1;
+        assert width <= 62;
+
+        rowMasks = new long[height];
+        cellOrder = new byte[height * width];
+        Arrays.fill(cellOrder, (byte) -1);
+        for (int i = 0; i < cells.length; i++) {
+            int r = rowOffsets[i] - top;
+            int c = columnOffsets[i] - left;
+            rowMasks[r] |= 1L << c;
+            cellOrder[r * width + c] = (byte) i;
+        }
+
+        layouts = new ArrayList<>(Coordinate.TABLE_SIZE * Coordinate.TABLE_SIZE);
+        for (int row = 0; row < Coordinate.TABLE_SIZE; row++)
+            for (int column = 0; column < Coordinate.TABLE_SIZE; column++)
+                layouts.add(layOut(row, column));
+    }
+
+    /**
+     * Builds the templates of a ship class, one per bearing.
+     *
+     * @param north the cells of the ship facing north
+     * @param south the cells of the ship facing south
+     * @param east  the cells of the ship facing east
+     * @param west  the cells of the ship facing west
+     * @return the templates, indexed by {@link Compass#ordinal()}; none for {@link Compass#UNKNOWN}
+     */
+    static ShipTemplate[] byBearing(int[][] north, int[][] south, int[][] east, int[][] west) {
+        ShipTemplate[] templates = new ShipTemplate[Compass.values().length];
+        templates[Compass.NORTH.ordinal()] = new ShipTemplate(north);
+        templates[Compass.SOUTH.ordinal()] = new ShipTemplate(south);
+        templates[Compass.EAST.ordinal()] = new ShipTemplate(east);
+        templates[Compass.WEST.ordinal()] = new ShipTemplate(west);
+        return templates;
+    }
+
+    /**
+     * @param templates the templates of a ship class, as built by {@link #byBearing}
+     * @param bearing   a bearing, possibly {@code null}
+     * @return the template for that bearing, or {@code null} if the class has none
+     */
+    static ShipTemplate forBearing(ShipTemplate[] templates, Compass bearing) {
+        return bearing == null ? null : templates[bearing.ordinal()];
+    }
+
+    /**
+     * Returns the cells of the ship laid out from a reference position.
+     *
+     * @param row    the row of the reference position
+     * @param column the column of the reference position
+     * @return the cells, in order, as a read-only list of {@link Coordinate}s;
+     *         shared if the reference position is a shared coordinate
+     */
+    List<IPosition> cells(int row, int column) {
+        if (row >= 0 && row < Coordinate.TABLE_SIZE && column >= 0 && column < Coordinate.TABLE_SIZE)
+            return layouts.get(row * Coordinate.TABLE_SIZE + column);
+        return layOut(row, column);
+    }
+
+    private List<IPosition> layOut(int row, int column) {
+        IPosition[] cells = new IPosition[rowOffsets.length];
+        for (int i = 0; i < cells.length; i++)
+            cells[i] = Coordinate.of(row + rowOffsets[i], column + columnOffsets[i]);
+        return List.of(cells);
+    }
+
+    /**
+     * @return the number of cells of the ship
+     */
+    int size() {
+        return rowOffsets.length;
+    }
+
+    int rowOffset(int i) {
+        return rowOffsets[i];
+    }
+
+    int columnOffset(int i) {
+        return columnOffsets[i];
+    }
+
+    /**
+     * @return the row offset of the top of the bounding box
+     */
+    int top() {
+        return top;
+    }
+
+    /**
+     * @return the column offset of the left of the bounding box
+     */
+    int left() {
+        return left;
+    }
+
+    int height() {
+        return height;
+    }
+
+    int width() {
+        return width;
+    }
+
+    /**
+     * @param r a row of the bounding box, from 0 to {@link #height()} - 1
+     * @return the covered columns of that row, bit 0 being the leftmost column of the box
+     */
+    long rowMask(int r) {
+        return rowMasks[r];
+    }
+
+    /**
+     * @param rowOffset    a row offset from the reference position
+     * @param columnOffset a column offset from the reference position
+     * @return the index of the ship cell at that offset, or -1 if the ship does not cover it
+     */
+    int indexOf(int rowOffset, int columnOffset) {
+        int r = rowOffset - top;
+        int c = columnOffset - left;
+        if (r < 0 || r >= height || c < 0 || c >= width)
+            return -1;
+        return cellOrder[r * width + c];
+    }
+
+    /**
+     * @param rowOffset    a row offset from the reference position
+     * @param columnOffset a column offset from the reference position
+     * @return {@code true} if the ship covers that cell or one of its eight neighbours
+     */
+    boolean touches(int rowOffset, int columnOffset) {
+        int r = rowOffset - top;
+        int c = columnOffset - left;
+        if (c < -1 || c > width)
+            return false;
+        for (int rr = Math.max(r - 1, 0); rr <= Math.min(r + 1, height - 1); rr++)
+            for (int cc = Math.max(c - 1, 0); cc <= Math.min(c + 1, width - 1); cc++)
+                if ((rowMasks[rr] & (1L << cc)) != 0)
+                    return true;
+        return false;
+    }
+}
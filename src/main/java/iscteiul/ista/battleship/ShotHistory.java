@@ -0,0 +1,214 @@
+package iscteiul.ista.battleship;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * What a player knows about the standard board of an opponent: the cells
+ * shot and missed, the cells hit, and the ships sunk.
+ * <p>
+ * Cells are kept as pairs of 64-bit masks over {@code row * BOARD_SIZE + column},
+ * and sunk ships as placements of {@link FleetGenerator}. A history is
+ * filled shot by shot, as the outcomes of {@link IGame#fire(int, int)}
+ * arrive, or read at once from a {@link Game}.
+ * </p>
+ *
+ * @see FleetEnumerator
+ */
+public class ShotHistory {
+
+    private static final int BOARD = PlacementIndex.BOARD;
+
+    private long missLow, missHigh;
+    private long hitLow, hitHigh;
+
+    /** The placements of the sunk ships. */
+    private final List<Integer> sunk = new ArrayList<>();
+
+    /**
+     * Reads the history of a game on the standard board: its valid shots,
+     * whether they hit a ship, and the ships sunk.
+     *
+     * @param game the game
+     * @return the history of the game
+     * @throws IllegalArgumentException if the board of the game is not the standard one
+     */
+    public static ShotHistory of(Game game) {
+        IFleet fleet = game.getFleet();
+        if (fleet.getBoardSize() != BOARD)
+            throw new IllegalArgumentException("ERROR! only the standard board is supported");
+
+        ShotHistory history = new ShotHistory();
+        for (IPosition shot : game.getShots()) {
+            int row = shot.getRow(), column = shot.getColumn();
+            if (row >= BOARD || column >= BOARD)
+                continue;
+            if (fleet.shipIndexAt(row, column) < 0)
+                history.miss(row, column);
+            else
+                history.hit(row, column);
+        }
+        for (IShip ship : fleet.getShips())
+            if (!ship.stillFloating())
+                history.sunk(ship);
+        return history;
+    }
+
+    /**
+     * Records the outcome of a shot, as given to {@link IShooter#shotResult}.
+     *
+     * @param row     the row of the shot
+     * @param column  the column of the shot
+     * @param outcome the outcome of the shot
+     * @param sunk    the ship sunk by the shot, or {@code null}
+     */
+    public void record(int row, int column, byte outcome, IShip sunk) {
+        switch (outcome) {
+            case IGame.MISS:
+                if (row < BOARD && column < BOARD)
+                    miss(row, column);
+                break;
+            case IGame.HIT:
+                hit(row, column);
+                break;
+            case IGame.SUNK:
+                hit(row, column);
+                sunk(sunk);
+                break;
+            default:
+                // repeated and invalid shots add nothing
+        }
+    }
+
+    /**
+     * @throws IllegalArgumentException if the cell is off the board
+     */
+    public void miss(int row, int column) {
+        int cell = cell(row, column);
+        if (cell < 64)
+            missLow |= 1L << cell;
+        else
+            missHigh |= 1L << cell;
+    }
+
+    /**
+     * @throws IllegalArgumentException if the cell is off the board
+     */
+    public void hit(int row, int column) {
+        int cell = cell(row, column);
+        if (cell < 64)
+            hitLow |= 1L << cell;
+        else
+            hitHigh |= 1L << cell;
+    }
+
+    /**
+     * Records a sunk ship, and its cells as hits.
+     *
+     * @param ship the sunk ship
+     * @throws IllegalArgumentException if the ship does not lie on the standard board
+     */
+    public void sunk(IShip ship) {
+        int placement = PlacementIndex.placementOf(ship);
+        if (placement < 0)
+            throw new IllegalArgumentException("ERROR! ship off the standard board");
+        if (sunk.contains(placement))
+            return;
+        sunk.add(placement);
+        hitLow |= FleetGenerator.cellsLow(placement);
+        hitHigh |= FleetGenerator.cellsHigh(placement);
+    }
+
+    long missLow() {
+        return missLow;
+    }
+
+    long missHigh() {
+        return missHigh;
+    }
+
+    long hitLow() {
+        return hitLow;
+    }
+
+    long hitHigh() {
+        return hitHigh;
+    }
+
+    /**
+     * @return the placements of the sunk ships
+     */
+    List<Integer> sunkPlacements() {
+        return sunk;
+    }
+
+    /**
+     * @return the cells 0 to 63 no ship afloat may cover: the misses and the sunk ships with their halos
+     */
+    long blockedLow() {
+        long blocked = missLow;
+        for (int p : sunk)
+            blocked |= FleetGenerator.haloLow(p);
+        return blocked;
+    }
+
+    /**
+     * @return the cells from 64 on no ship afloat may cover
+     */
+    long blockedHigh() {
+        long blocked = missHigh;
+        for (int p : sunk)
+            blocked |= FleetGenerator.haloHigh(p);
+        return blocked;
+    }
+
+    /**
+     * @return the cells 0 to 63 hit on ships afloat, which some ship afloat must cover
+     */
+    long openLow() {
+        long open = hitLow;
+        for (int p : sunk)
+            open &= ~FleetGenerator.cellsLow(p);
+        return open;
+    }
+
+    /**
+     * @return the cells from 64 on hit on ships afloat
+     */
+    long openHigh() {
+        long open = hitHigh;
+        for (int p : sunk)
+            open &= ~FleetGenerator.cellsHigh(p);
+        return open;
+    }
+
+    /**
+     * @return the kinds of the ships of the standard fleet not yet sunk, one entry per ship, largest first
+     * @throws IllegalArgumentException if the history holds more sunk ships of a kind than the fleet has
+     */
+    int[] afloatKinds() {
+        int[] afloat = new int[PlacementIndex.kindCount()];
+        int ships = 0;
+        for (int k = 0; k < afloat.length; k++) {
+            afloat[k] = PlacementIndex.shipsOf(k);
+            ships += afloat[k];
+        }
+        for (int p : sunk) {
+            if (--afloat[PlacementIndex.kindOf(p)] < 0)
+                throw new IllegalArgumentException("ERROR! more sunk ships than the fleet holds");
+            ships--;
+        }
+        int[] kinds = new int[ships];
+        int i = 0;
+        for (int k = 0; k < afloat.length; k++)
+            for (int n = 0; n < afloat[k]; n++)
+                kinds[i++] = k;
+        return kinds;
+    }
+
+    private static int cell(int row, int column) {
+        if (row < 0 || row >= BOARD || column < 0 || column >= BOARD)
+            throw new IllegalArgumentException("ERROR! cell off the board");
+        return row * BOARD + column;
+    }
+}
@@ -0,0 +1,197 @@
+package iscteiul.ista.battleship;
+
+import java.io.PrintStream;
+import java.util.Arrays;
+
+/**
+ * The outcome of a batch of simulated games.
+ * <p>
+ * It holds the histogram of the number of shots each game needed to sink
+ * the whole fleet, the number of games that did not finish within the
+ * shot limit, and the wall-clock time of the batch.
+ * </p>
+ *
+ * @see MonteCarloSimulator
+ */
+public class SimulationResult {
+
+    /** The standard normal quantile of a two-sided 95% confidence interval. */
+    static final double Z_95 = 1.959964;
+
+    /** Number of games won with each number of shots. */
+    private final long[] histogram;
+
+    private final long unfinishedGames;
+    private final long games;
+    private final long elapsedNanos;
+
+    /**
+     * @param histogram       the number of games won with each number of shots
+     * @param unfinishedGames the number of games not won within the shot limit
+     * @param elapsedNanos    the time taken to play all the games
+     */
+    SimulationResult(long[] histogram, long unfinishedGames, long elapsedNanos) {
+        this.histogram = histogram;
+        this.unfinishedGames = unfinishedGames;
+        this.elapsedNanos = elapsedNanos;
+        long won = 0;
+        for (long count : histogram)
+            won += count;
+        this.games = won + unfinishedGames;
+    }
+
+    /**
+     * @param bins         the number of games won with each number of shots, followed by the number of unfinished games
+     * @param elapsedNanos the time taken to play all the games
+     * @return the result of those games
+     */
+    static SimulationResult of(long[] bins, long elapsedNanos) {
+        return new SimulationResult(Arrays.copyOf(bins, bins.length - 1), bins[bins.length - 1], elapsedNanos);
+    }
+
+    /**
+     * @return the number of games played
+     */
+    public long getGames() {
+        return games;
+    }
+
+    /**
+     * @return the number of games not won within the shot limit
+     */
+    public long getUnfinishedGames() {
+        return unfinishedGames;
+    }
+
+    /**
+     * @param shots a number of shots
+     * @return the number of games won with exactly that many shots
+     */
+    public long getGamesWonIn(int shots) {
+        return shots >= 0 && shots < histogram.length ? histogram[shots] : 0;
+    }
+
+    /**
+     * @return the largest number of shots a won game may have taken
+     */
+    public int getMaxShots() {
+        return histogram.length - 1;
+    }
+
+    /**
+     * @return the average number of shots of the won games, or {@code NaN} if no game was won
+     */
+    public double getMeanShots() {
+        long won = 0, shots = 0;
+        for (int i = 0; i < histogram.length; i++) {
+            won += histogram[i];
+            shots += i * histogram[i];
+        }
+        return won == 0 ? Double.NaN : (double) shots / won;
+    }
+
+    /**
+     * @return the sample standard deviation of the number of shots of the won games,
+     *         or {@code NaN} if fewer than two games were won
+     */
+    public double getStandardDeviation() {
+        long won = games - unfinishedGames;
+        if (won < 2)
+            return Double.NaN;
+        double mean = getMeanShots();
+        double squares = 0;
+        for (int i = 0; i < histogram.length; i++)
+            squares += histogram[i] * (i - mean) * (i - mean);
+        return Math.sqrt(squares / (won - 1));
+    }
+
+    /**
+     * @return the half-width of the 95% confidence interval of the mean number of shots,
+     *         from the normal approximation, or {@code NaN} if fewer than two games were won
+     */
+    public double getMeanMargin() {
+        return Z_95 * getStandardDeviation() / Math.sqrt(games - unfinishedGames);
+    }
+
+    /**
+     * @param fraction a fraction of the won games, between 0 and 1
+     * @return the smallest number of shots within which that fraction of the won games ended, or -1 if no game was won
+     */
+    public int getPercentile(double fraction) {
+        long won = games - unfinishedGames;
+        if (won == 0)
+            return -1;
+        return shotsOfRank(Math.max(1, (long) Math.ceil(fraction * won)));
+    }
+
+    /**
+     * Returns a 95% confidence interval of a percentile. It is distribution
+     * free: its bounds are the won games whose ranks lie 1.96 binomial
+     * standard deviations below and above the rank of the percentile.
+     *
+     * @param fraction a fraction of the won games, between 0 and 1
+     * @return the lower and upper bounds of the interval, or {@code {-1, -1}} if no game was won
+     */
+    public int[] getPercentileInterval(double fraction) {
+        long won = games - unfinishedGames;
+        if (won == 0)
+            return new int[]{-1, -1};
+        double rank = fraction * won;
+        double spread = Z_95 * Math.sqrt(won * fraction * (1 - fraction));
+        long lower = Math.max(1, (long) Math.floor(rank - spread));
+        long upper = Math.min(won, (long) Math.ceil(rank + spread) + 1);
+        return new int[]{shotsOfRank(lower), shotsOfRank(upper)};
+    }
+
+    /**
+     * @param rank a rank among the won games sorted by number of shots, from 1 to their number
+     * @return the number of shots of the won game of that rank
+     */
+    private int shotsOfRank(long rank) {
+        long seen = 0;
+        for (int i = 0; i < histogram.length; i++) {
+            seen += histogram[i];
+            if (seen >= rank)
+                return i;
+        }
+        return histogram.length - 1;
+    }
+
+    /**
+     * @return the time taken to play all the games, in nanoseconds
+     */
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * @return the number of games played per second of wall-clock time
+     */
+    public double getGamesPerSecond() {
+        return elapsedNanos == 0 ? 0 : games * 1e9 / elapsedNanos;
+    }
+
+    /**
+     * This operation prints the summary of the simulation and the
+     * non-empty bins of its histogram
+     */
+    public void printHistogram() {
+        printHistogram(System.out);
+    }
+
+    /**
+     * This operation prints the summary of the simulation and the
+     * non-empty bins of its histogram to the given stream
+     *
+     * @param out The stream to print to
+     */
+    public void printHistogram(PrintStream out) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%d jogos, %.0f jogos/s, media %.2f tiros, mediana %d, p90 %d, %d por acabar%n",
+                games, getGamesPerSecond(), getMeanShots(), getPercentile(0.5), getPercentile(0.9), unfinishedGames));
+        for (int i = 0; i < histogram.length; i++)
+            if (histogram[i] != 0)
+                sb.append(String.format("%4d %d%n", i, histogram[i]));
+        out.print(sb);
+    }
+}
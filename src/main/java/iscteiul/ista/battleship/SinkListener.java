@@ -0,0 +1,20 @@
+package iscteiul.ista.battleship;
+
+/**
+ * Receives a notification when a ship goes down.
+ * <p>
+ * Fleets register themselves with the ships they hold, so that they can keep
+ * a live count of the ships still afloat instead of rescanning them.
+ * </p>
+ *
+ * @see Ship#shoot(IPosition)
+ */
+interface SinkListener {
+
+    /**
+     * Called once, by the shot that hits the last intact cell of a ship.
+     *
+     * @param ship the ship that has just been sunk
+     */
+    void shipSunk(IShip ship);
+}
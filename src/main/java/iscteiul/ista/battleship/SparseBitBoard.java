@@ -0,0 +1,175 @@
+package iscteiul.ista.battleship;
+
+/**
+ * A two-dimensional set of cells for very large boards.
+ * <p>
+ * The board is split into tiles of {@value #TILE} by {@value #TILE} cells,
+ * each packed into a {@code long[]} with one word per row. Only the tiles
+ * that hold at least one set cell are allocated, so memory grows with the
+ * number of ships and shots rather than with the board area.
+ * </p>
+ *
+ * @see IBitBoard
+ * @see BitBoard
+ */
+public class SparseBitBoard implements IBitBoard {
+
+    /** Width and height of a tile. */
+    static final int TILE = 64;
+
+    private static final int SHIFT = 6;
+
+    private final int rows;
+    private final int columns;
+
+    /** The allocated tiles, by tile row and column. */
+    private final TileMap<long[]> tiles;
+
+    /**
+     * Creates an empty board with the given dimensions.
+     *
+     * @param rows    the number of rows
+     * @param columns the number of columns
+     * @throws IllegalArgumentException if a dimension is not positive
+     */
+    public SparseBitBoard(int rows, int columns) {
+        if (rows <= 0 || columns <= 0)
+            throw new IllegalArgumentException("ERROR! invalid bitboard dimensions");
+
+        this.rows = rows;
+        this.columns = columns;
+        this.tiles = new TileMap<>();
+    }
+
+    @Override
+    public int getRows() {
+        return rows;
+    }
+
+    @Override
+    public int getColumns() {
+        return columns;
+    }
+
+    @Override
+    public boolean contains(int row, int column) {
+        return row >= 0 && row < rows && column >= 0 && column < columns;
+    }
+
+    @Override
+    public boolean get(int row, int column) {
+        if (!contains(row, column))
+            return false;
+        long[] tile = tiles.get(TileMap.key(row >>> SHIFT, column >>> SHIFT));
+        return tile != null && (tile[row & (TILE - 1)] & (1L << column)) != 0;
+    }
+
+    @Override
+    public void set(int row, int column) {
+        assert contains(row, column);
+
+        tileFor(row, column)[row & (TILE - 1)] |= 1L << column;
+    }
+
+    @Override
+    public void clear(int row, int column) {
+        assert contains(row, column);
+
+        long[] tile = tiles.get(TileMap.key(row >>> SHIFT, column >>> SHIFT));
+        if (tile != null)
+            tile[row & (TILE - 1)] &= ~(1L << column);
+    }
+
+    @Override
+    public boolean testAndSet(int row, int column) {
+        assert contains(row, column);
+
+        long[] tile = tileFor(row, column);
+        long mask = 1L << column;
+        boolean wasSet = (tile[row & (TILE - 1)] & mask) != 0;
+        tile[row & (TILE - 1)] |= mask;
+        return wasSet;
+    }
+
+    @Override
+    public long getBits(int row, int column, int width) {
+        assert contains(row, column) && column + width <= columns && width > 0 && width <= 64;
+
+        int tileColumn = column >>> SHIFT;
+        int offset = column & (TILE - 1);
+        long bits = word(row, tileColumn) >>> offset;
+        if (offset + width > TILE)
+            bits |= word(row, tileColumn + 1) << (TILE - offset);
+        return bits & BitBoard.lowBits(width);
+    }
+
+    @Override
+    public void orBits(int row, int column, int width, long bits) {
+        assert width > 0 && width <= 64;
+
+        if (row < 0 || row >= rows)
+            return;
+        if (column < 0) {
+            if (column <= -width)
+                return;
+            bits >>>= -column;
+            width += column;
+            column = 0;
+        }
+        if (column + width > columns)
+            width = columns - column;
+        if (width <= 0)
+            return;
+        bits &= BitBoard.lowBits(width);
+        if (bits == 0)
+            return;
+
+        int offset = column & (TILE - 1);
+        long low = bits << offset;
+        if (low != 0)
+            tileFor(row, column)[row & (TILE - 1)] |= low;
+        if (offset + width > TILE) {
+            long high = bits >>> (TILE - offset);
+            if (high != 0)
+                tileFor(row, column + TILE)[row & (TILE - 1)] |= high;
+        }
+    }
+
+    @Override
+    public void clear() {
+        tiles.clear();
+    }
+
+    @Override
+    public int cardinality() {
+        int count = 0;
+        for (int i = 0; i < tiles.capacity(); i++) {
+            long[] tile = tiles.tileAt(i);
+            if (tile != null)
+                for (long word : tile)
+                    count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    /**
+     * @return the word holding a row of a tile, or zero if the tile has not been allocated
+     */
+    private long word(int row, int tileColumn) {
+        long[] tile = tiles.get(TileMap.key(row >>> SHIFT, tileColumn));
+        return tile == null ? 0 : tile[row & (TILE - 1)];
+    }
+
+    /**
+     * @return the tile holding a cell, allocating it if needed
+     */
+    private long[] tileFor(int row, int column) {
+        long key = TileMap.key(row >>> SHIFT, column >>> SHIFT);
+        long[] tile = tiles.get(key);
+        if (tile == null) {
+            tile = new long[TILE];
+            tiles.put(key, tile);
+        }
+        return tile;
+    }
+}
@@ -0,0 +1,38 @@
+package iscteiul.ista.battleship;
+
+/**
+ * A cell index for very large boards.
+ * <p>
+ * The board is split into tiles of {@value #TILE} by {@value #TILE} cells and
+ * only the tiles holding some ship are allocated, so memory grows with the
+ * number of ships rather than with the board area.
+ * </p>
+ *
+ * @see CellIndex
+ */
+class SparseCellIndex implements CellIndex {
+
+    /** Width and height of a tile. */
+    static final int TILE = 16;
+
+    private static final int SHIFT = 4;
+
+    private final TileMap<int[]> tiles = new TileMap<>();
+
+    @Override
+    public int get(int row, int column) {
+        int[] tile = tiles.get(TileMap.key(row >>> SHIFT, column >>> SHIFT));
+        return tile == null ? 0 : tile[(row & (TILE - 1)) * TILE + (column & (TILE - 1))];
+    }
+
+    @Override
+    public void put(int row, int column, int id) {
+        long key = TileMap.key(row >>> SHIFT, column >>> SHIFT);
+        int[] tile = tiles.get(key);
+        if (tile == null) {
+            tile = new int[TILE * TILE];
+            tiles.put(key, tile);
+        }
+        tile[(row & (TILE - 1)) * TILE + (column & (TILE - 1))] = id;
+    }
+}
@@ -3,9 +3,15 @@
  */
 package iscteiul.ista.battleship;
 
-import java.util.Scanner;
 
 
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.InputMismatchException;
+import java.util.List;
+import java.util.NoSuchElementException;
+
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
@@ -19,13 +25,29 @@ public class Tasks {
     /**
      * Strings to be used by the user
      */
-    private static final String NOVAFROTA = "nova";
-    private static final String DESISTIR = "desisto";
-    private static final String RAJADA = "rajada";
-    private static final String VERTIROS = "ver";
-    private static final String BATOTA = "mapa";
-    private static final String STATUS = "estado";
+    static final String NOVAFROTA = "nova";
+    static final String DESISTIR = "desisto";
+    static final String RAJADA = "rajada";
+    static final String VERTIROS = "ver";
+    static final String BATOTA = "mapa";
+    static final String STATUS = "estado";
 
+    /**
+     * Where fleets being built and games being played are reported; by default, to the log
+     */
+    private static IGameEventSink eventSink = new LoggingEventSink(LOGGER);
+
+    /**
+     * Sets where the tasks report fleets being built and games being played,
+     * such as {@link IGameEventSink#DISCARD} for scripted runs
+     *
+     * @param sink The sink to report to
+     */
+    public static void setEventSink(IGameEventSink sink) {
+        assert sink != null;
+
+        eventSink = sink;
+    }
 
     /////////////////////////////////////////////////////////////////////////////
     // hereafter one may find some code that can be converted to automatic tests,
@@ -39,12 +61,12 @@ public class Tasks {
      * indicates whether the ship occupies each one of such positions or not
      */
     public static void taskA() {
-        Scanner in = new Scanner(System.in);
+        CommandTokenizer in = new CommandTokenizer(System.in);
         while (in.hasNext()) {
             Ship s = readShip(in);
             if (s != null)
                 for (int i = 0; i < NUMBER_SHOTS; i++) {
-                    Position p = readPosition(in);
+                    IPosition p = readPosition(in);
                     LOGGER.info("{} {}", p, s.occupies(p));
                 }
         }
@@ -54,7 +76,7 @@ public class Tasks {
      * This task tests the building up of fleets
      */
     public static void taskB() {
-        Scanner in = new Scanner(System.in);
+        CommandTokenizer in = new CommandTokenizer(System.in);
         IFleet fleet = null;
         String command = in.next();
         while (!command.equals(DESISTIR)) {
@@ -80,7 +102,7 @@ public class Tasks {
      * possibility of cheating
      */
     public static void taskC() {
-        Scanner in = new Scanner(System.in);
+        CommandTokenizer in = new CommandTokenizer(System.in);
         IFleet fleet = null;
         String command = in.next();
         while (!command.equals(DESISTIR)) {
@@ -108,85 +130,299 @@ public class Tasks {
      * This task also tests the fighting element of a round of three shots
      */
     public static void taskD() {
+        taskD(new CommandTokenizer(System.in), System.out, eventSink);
+    }
 
-        Scanner in = new Scanner(System.in);
-        IFleet fleet = null;
-        IGame game = null;
-        String command = in.next();
-        while (!command.equals(DESISTIR)) {
+    /**
+     * Plays the game of {@link #taskD()} over the given input and output, as
+     * game sessions and batch runs do: boards and fleet status are printed to
+     * the stream, flushed after every command, and everything else is
+     * reported to the sink. The game ends on {@code desisto} or at the end of
+     * the input.
+     *
+     * @param in   The tokenizer to read the commands from
+     * @param out  The stream to print boards and fleet status to
+     * @param sink The sink to report to
+     * @throws NoSuchElementException if the input ends, or a number is malformed, within a command
+     */
+    public static void taskD(CommandTokenizer in, PrintStream out, IGameEventSink sink) {
+        assert in != null;
+
+        Play play = new Play(out, sink);
+        while (in.hasNext())
+            if (!play.command(in.next(), in))
+                break;
+        out.flush();
+    }
+
+    /**
+     * The game of {@link #taskD()}, played one command at a time by whoever
+     * reads the commands, so that a session need not block waiting for the
+     * next one (see {@link GameServer}). Each command is first parsed into
+     * the compact form of {@link Commands}, then played; a batch run parses
+     * a whole script ahead of playing it.
+     */
+    static final class Play {
+        private final PrintStream out;
+        private final IGameEventSink sink;
+        private final GameEvent event = new GameEvent();
+        private final Commands pending;
+        private IFleet fleet;
+        private IGame game;
+
+        /**
+         * @param out  The stream to print boards and fleet status to
+         * @param sink The sink to report to
+         */
+        Play(PrintStream out, IGameEventSink sink) {
+            assert out != null;
+            assert sink != null;
+
+            this.out = out;
+            this.sink = sink;
+            this.pending = new Commands(sink);
+        }
+
+        /**
+         * Plays a command, reading its arguments, and flushes the output.
+         *
+         * @param command The command read
+         * @param in      The tokenizer to read its arguments from
+         * @return false if the player gave up
+         * @throws NoSuchElementException if the input ends, or a number is malformed, within the command
+         */
+        boolean command(String command, CommandTokenizer in) {
+            pending.clear();
+            pending.parse(command, in);
+            return play(pending);
+        }
+
+        /**
+         * Plays parsed commands, flushing the output after each one.
+         *
+         * @param commands The commands to play
+         * @return false if the player gave up
+         */
+        boolean play(Commands commands) {
+            int[] codes = commands.codes;
+            int fleets = 0;
+            for (int i = 0; i < commands.length; ) {
+                switch (codes[i++]) {
+                    case Commands.QUIT:
+                        sink.onEvent(event.command(GameEvent.Type.QUIT));
+                        return false;
+                    case Commands.FLEET:
+                        fleet = commands.fleets.get(fleets++);
+                        game = new Game(fleet, sink);
+                        break;
+                    case Commands.SHOW_STATUS:
+                        if (fleet != null) {
+                            fleet.printStatus(out);
+                            sink.onEvent(event.command(GameEvent.Type.BOARD_SHOWN));
+                        }
+                        break;
+                    case Commands.SHOW_FLEET:
+                        if (fleet != null) {
+                            game.printFleet(out);
+                            sink.onEvent(event.command(GameEvent.Type.BOARD_SHOWN));
+                        }
+                        break;
+                    case Commands.ROUND:
+                        for (int shot = 0; shot < NUMBER_SHOTS; shot++, i += 2)
+                            game.fire(Coordinate.of(codes[i], codes[i + 1]));
+
+                        sink.onEvent(event.gameStatus(GameEvent.Type.ROUND_FIRED, game));
+                        if (game.getRemainingShips() == 0)
+                            sink.onEvent(event.gameStatus(GameEvent.Type.GAME_OVER, game));
+                        break;
+                    case Commands.SHOW_SHOTS:
+                        if (game != null) {
+                            game.printValidShots(out);
+                            sink.onEvent(event.command(GameEvent.Type.BOARD_SHOWN));
+                        }
+                        break;
+                    default:
+                        sink.onEvent(event.command(GameEvent.Type.UNKNOWN_COMMAND));
+                }
+                out.flush();
+            }
+            return true;
+        }
+
+        /**
+         * Checks, without playing it, whether the input holds all the
+         * arguments of a command; it reads them, so it is given a copy.
+         *
+         * @param command The command read
+         * @param in      The tokenizer to read its arguments from
+         * @return false if the input ends before the arguments do
+         */
+        boolean isComplete(String command, CommandTokenizer in) {
+            try {
+                if (command.equals(NOVAFROTA))
+                    buildFleet(in, IGameEventSink.DISCARD);
+                else if (command.equals(RAJADA) && game != null)
+                    for (int i = 0; i < NUMBER_SHOTS; i++)
+                        readPosition(in);
+                return true;
+            } catch (InputMismatchException e) {
+                return true; // malformed rather than cut short: playing it ends the session
+            } catch (NoSuchElementException e) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Commands of {@link #taskD()} read but not yet played, in a compact form:
+     * a code per command, each round followed by the coordinates of its
+     * shots, and the fleets built by {@code nova}, which has to build them to
+     * know how many ships it reads. A {@code rajada} has arguments only once a
+     * fleet exists, and is left out before.
+     */
+    static final class Commands {
+        static final int QUIT = 0;
+        static final int FLEET = 1;
+        static final int SHOW_STATUS = 2;
+        static final int SHOW_FLEET = 3;
+        static final int ROUND = 4;
+        static final int SHOW_SHOTS = 5;
+        static final int UNKNOWN = 6;
+
+        private final IGameEventSink sink;
+        private final List<Fleet> fleets = new ArrayList<>(1);
+        private int[] codes = new int[1 + 2 * NUMBER_SHOTS];
+        private int length;
+        /** Whether a fleet has been built, by these commands or by those parsed before. */
+        private boolean fleetBuilt;
+
+        /**
+         * @param sink The sink to report the ships rejected and the fleets built to
+         */
+        Commands(IGameEventSink sink) {
+            assert sink != null;
+
+            this.sink = sink;
+        }
+
+        /**
+         * Parses the commands of an input up to {@code desisto}, or to its end.
+         *
+         * @param in   The tokenizer to read the commands from
+         * @param sink The sink to report the ships rejected and the fleets built to
+         * @return The commands parsed
+         * @throws NoSuchElementException if the input ends, or a number is malformed, within a command
+         */
+        static Commands parseAll(CommandTokenizer in, IGameEventSink sink) {
+            Commands commands = new Commands(sink);
+            while (in.hasNext())
+                if (!commands.parse(in.next(), in))
+                    break;
+            return commands;
+        }
+
+        /**
+         * Parses a command, reading its arguments, and appends it.
+         *
+         * @param command The command read
+         * @param in      The tokenizer to read its arguments from
+         * @return false if the player gives up
+         * @throws NoSuchElementException if the input ends, or a number is malformed, within the command
+         */
+        boolean parse(String command, CommandTokenizer in) {
+            if (length + 1 + 2 * NUMBER_SHOTS > codes.length)
+                codes = Arrays.copyOf(codes, codes.length * 2);
             switch (command) {
+                case DESISTIR:
+                    codes[length++] = QUIT;
+                    return false;
                 case NOVAFROTA:
-                    fleet = buildFleet(in);
-                    game = new Game(fleet);
+                    fleets.add(buildFleet(in, sink));
+                    fleetBuilt = true;
+                    codes[length++] = FLEET;
                     break;
                 case STATUS:
-                    if (fleet != null)
-                        fleet.printStatus();
+                    codes[length++] = SHOW_STATUS;
                     break;
                 case BATOTA:
-                    if (fleet != null)
-                        game.printFleet();
+                    codes[length++] = SHOW_FLEET;
                     break;
                 case RAJADA:
-                    if (game != null) {
-                        firingRound(in, game);
-
-                        LOGGER.info("Hits: {} Inv: {} Rep: {} Restam {} navios.", game.getHits(), game.getInvalidShots(),
-                                game.getRepeatedShots(), game.getRemainingShips());
-                        if (game.getRemainingShips() == 0)
-                            LOGGER.info("Maldito sejas, Java Sparrow, eu voltarei, glub glub glub...");
+                    if (fleetBuilt) {
+                        int start = length;
+                        for (int i = 0; i < NUMBER_SHOTS; i++) {
+                            codes[start + 1 + 2 * i] = in.nextInt();
+                            codes[start + 2 + 2 * i] = in.nextInt();
+                        }
+                        codes[start] = ROUND;
+                        length += 1 + 2 * NUMBER_SHOTS;
                     }
                     break;
                 case VERTIROS:
-                    if (game != null)
-                        game.printValidShots();
+                    codes[length++] = SHOW_SHOTS;
                     break;
                 default:
-                    LOGGER.info("Que comando é esse??? Repete ...");
+                    codes[length++] = UNKNOWN;
             }
-            command = in.next();
+            return true;
+        }
+
+        /**
+         * Drops the commands parsed, remembering whether a fleet has been built.
+         */
+        void clear() {
+            length = 0;
+            fleets.clear();
         }
-        LOGGER.info(GOODBYE_MESSAGE);
     }
 
     /**
      * This operation allows the build up of a fleet, given user data
      *
-     * @param in The scanner to read from
+     * @param in The tokenizer to read from
      * @return The fleet that has been built
      */
-    static Fleet buildFleet(Scanner in) {
+    static Fleet buildFleet(CommandTokenizer in) {
+        return buildFleet(in, eventSink);
+    }
+
+    /**
+     * This operation allows the build up of a fleet, given user data, reporting
+     * the ships rejected and the fleet built to a sink
+     *
+     * @param in   The tokenizer to read from
+     * @param sink The sink to report to
+     * @return The fleet that has been built
+     */
+    static Fleet buildFleet(CommandTokenizer in, IGameEventSink sink) {
         assert in != null;
+        assert sink != null;
 
         Fleet fleet = new Fleet();
+        GameEvent event = new GameEvent();
         int i = 0;
 
         while (i <= Fleet.FLEET_SIZE) {
             IShip s = readShip(in);
-            if (s != null) {
-                boolean success = fleet.addShip(s);
-                if (success)
-                    i++;
-                else
-                    LOGGER.info("Falha na criacao de {} {} {}", s.getCategory(), s.getBearing(), s.getPosition());
-            } else {
-                LOGGER.info("Navio desconhecido!");
-            }
+            if (s != null && fleet.addShip(s))
+                i++;
+            else
+                sink.onEvent(event.shipRejected(s));
         }
-        LOGGER.info("{} navios adicionados com sucesso!", i);
+        sink.onEvent(event.fleetBuilt(fleet, i));
         return fleet;
     }
 
     /**
      * This operation reads data about a ship, build it and returns it
      *
-     * @param in The scanner to read from
+     * @param in The tokenizer to read from
      * @return The created ship based on the data that has been read
      */
-    static Ship readShip(Scanner in) {
+    static Ship readShip(CommandTokenizer in) {
         String shipKind = in.next();
-        Position pos = readPosition(in);
-        char c = in.next().charAt(0);
+        IPosition pos = readPosition(in);
+        char c = in.nextChar();
         Compass bearing = Compass.charToCompass(c);
         return Ship.buildShip(shipKind, bearing, pos);
     }
@@ -194,28 +430,24 @@ public class Tasks {
     /**
      * This operation allows reading a position in the map
      *
-     * @param in The scanner to read from
+     * @param in The tokenizer to read from
      * @return The position that has been read
      */
-    static Position readPosition(Scanner in) {
+    static IPosition readPosition(CommandTokenizer in) {
         int row = in.nextInt();
         int column = in.nextInt();
-        return new Position(row, column);
+        return Coordinate.of(row, column);
     }
 
     /**
      * This operation allows firing a round of shots (three) over a fleet, in the
-     * context of a game
+     * context of a game; the ships sunk are reported by the game to its sink
      *
-     * @param in   The scanner to read from
+     * @param in   The tokenizer to read from
      * @param game The context game while fleet is being attacked
      */
-    static void firingRound(Scanner in, IGame game) {
-        for (int i = 0; i < NUMBER_SHOTS; i++) {
-            IPosition pos = readPosition(in);
-            IShip sh = game.fire(pos);
-            if (sh != null)
-                LOGGER.info("Mas... mas... {}s nao sao a prova de bala? :-(", sh.getCategory());
-        }
+    static void firingRound(CommandTokenizer in, IGame game) {
+        for (int i = 0; i < NUMBER_SHOTS; i++)
+            game.fire(readPosition(in));
     }
 }
\ No newline at end of file
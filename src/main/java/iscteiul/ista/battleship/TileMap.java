@@ -0,0 +1,120 @@
+package iscteiul.ista.battleship;
+
+/**
+ * An open-addressing hash map from {@code long} keys to tiles.
+ * <p>
+ * Sparse boards split the plane into fixed-size tiles and only allocate the
+ * tiles that hold something. This map finds the tile of a cell without boxing
+ * its key, so looking up a sparse board does not allocate.
+ * </p>
+ *
+ * @param <T> the type of the tiles
+ * @see SparseBitBoard
+ * @see SparseCellIndex
+ */
+class TileMap<T> {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private long[] keys;
+    private Object[] tiles;
+    private int size;
+
+    TileMap() {
+        keys = new long[INITIAL_CAPACITY];
+        tiles = new Object[INITIAL_CAPACITY];
+    }
+
+    /**
+     * @param tileRow    the row of the tile
+     * @param tileColumn the column of the tile
+     * @return the key of the tile
+     */
+    static long key(int tileRow, int tileColumn) {
+        return ((long) tileRow << 32) | (tileColumn & 0xFFFFFFFFL);
+    }
+
+    /**
+     * @param key the key of the tile
+     * @return the tile, or {@code null} if it has not been allocated
+     */
+    @SuppressWarnings("unchecked")
+    T get(long key) {
+        int mask = keys.length - 1;
+        for (int i = slot(key, mask); tiles[i] != null; i = (i + 1) & mask)
+            if (keys[i] == key)
+                return (T) tiles[i];
+        return null;
+    }
+
+    /**
+     * Stores a tile, which must not already be present.
+     *
+     * @param key  the key of the tile
+     * @param tile the tile
+     */
+    void put(long key, T tile) {
+        assert tile != null;
+
+        if (2 * (size + 1) > keys.length)
+            grow();
+        insert(key, tile);
+        size++;
+    }
+
+    /**
+     * @return the number of tiles
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * @param i a slot of the table, between 0 and {@link #capacity()}
+     * @return the tile stored in that slot, or {@code null}
+     */
+    @SuppressWarnings("unchecked")
+    T tileAt(int i) {
+        return (T) tiles[i];
+    }
+
+    /**
+     * @return the number of slots of the table
+     */
+    int capacity() {
+        return tiles.length;
+    }
+
+    /**
+     * Removes every tile.
+     */
+    void clear() {
+        keys = new long[INITIAL_CAPACITY];
+        tiles = new Object[INITIAL_CAPACITY];
+        size = 0;
+    }
+
+    private void insert(long key, Object tile) {
+        int mask = keys.length - 1;
+        int i = slot(key, mask);
+        while (tiles[i] != null)
+            i = (i + 1) & mask;
+        keys[i] = key;
+        tiles[i] = tile;
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        Object[] oldTiles = tiles;
+        keys = new long[oldKeys.length * 2];
+        tiles = new Object[oldTiles.length * 2];
+        for (int i = 0; i < oldTiles.length; i++)
+            if (oldTiles[i] != null)
+                insert(oldKeys[i], oldTiles[i]);
+    }
+
+    private static int slot(long key, int mask) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+}
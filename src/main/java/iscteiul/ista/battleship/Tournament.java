@@ -0,0 +1,130 @@
+package iscteiul.ista.battleship;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.ServiceLoader;
+import java.util.function.Supplier;
+import java.util.stream.LongStream;
+
+/**
+ * Plays several targeting strategies against the same fleets and compares
+ * them.
+ * <p>
+ * Strategies are {@link IShooter}s, given by name or discovered with
+ * {@link ServiceLoader}: any jar on the class path may contribute shooters
+ * by listing them in {@code META-INF/services/iscteiul.ista.battleship.IShooter}.
+ * Every strategy plays the same games: game {@code i} of a tournament
+ * draws its fleet from a generator derived from the seed and {@code i}, as
+ * in {@link MonteCarloSimulator}, so strategies are compared fleet for fleet
+ * and a tournament is reproducible whatever the number of cores. The games
+ * of each strategy are spread over all cores with a parallel stream.
+ * </p>
+ * <p>
+ * For every strategy, the tournament keeps the histogram of the shots
+ * needed to sink the whole fleet and, for each category of ships, the
+ * histogram of the shots needed to sink every ship of that category.
+ * Histograms are small and merged once per worker, so tens of millions of
+ * games cost no more memory than a few.
+ * </p>
+ *
+ * @see TournamentResult
+ * @see MonteCarloSimulator
+ */
+public class Tournament {
+
+    /** The strategies taking part, by name, in the order they play. */
+    private final Map<String, Supplier<? extends IShooter>> strategies;
+
+    private final int maxShots;
+
+    /**
+     * @param strategies the strategies taking part, by name; each supplier creates one shooter per worker thread
+     */
+    public Tournament(Map<String, Supplier<? extends IShooter>> strategies) {
+        this(strategies, MonteCarloSimulator.DEFAULT_MAX_SHOTS);
+    }
+
+    /**
+     * @param strategies the strategies taking part, by name; each supplier creates one shooter per worker thread
+     * @param maxShots   the number of shots after which a game is given up as unfinished
+     * @throws IllegalArgumentException if there is no strategy or the shot limit is not positive
+     */
+    public Tournament(Map<String, Supplier<? extends IShooter>> strategies, int maxShots) {
+        if (strategies.isEmpty())
+            throw new IllegalArgumentException("ERROR! tournament without strategies");
+        if (maxShots <= 0)
+            throw new IllegalArgumentException("ERROR! invalid shot limit");
+
+        this.strategies = new LinkedHashMap<>(strategies);
+        this.maxShots = maxShots;
+    }
+
+    /**
+     * Creates a tournament between the shooters registered as services on
+     * the class path, each named after its class.
+     *
+     * @return the tournament
+     * @throws IllegalArgumentException if no shooter is registered
+     */
+    public static Tournament ofInstalledStrategies() {
+        Map<String, Supplier<? extends IShooter>> strategies = new LinkedHashMap<>();
+        for (ServiceLoader.Provider<IShooter> provider : ServiceLoader.load(IShooter.class).stream().toList())
+            strategies.put(provider.type().getSimpleName(), provider::get);
+        return new Tournament(strategies);
+    }
+
+    /**
+     * Plays a number of games with every strategy.
+     *
+     * @param games the number of games each strategy plays
+     * @param seed  the seed of the tournament
+     * @return the results of the strategies, in the order they played
+     * @throws IllegalArgumentException if the number of games is negative
+     */
+    public List<TournamentResult> run(long games, long seed) {
+        if (games < 0)
+            throw new IllegalArgumentException("ERROR! invalid number of games");
+
+        List<TournamentResult> results = new ArrayList<>(strategies.size());
+        for (Map.Entry<String, Supplier<? extends IShooter>> strategy : strategies.entrySet())
+            results.add(play(strategy.getKey(), strategy.getValue(), games, seed));
+        return results;
+    }
+
+    /**
+     * Plays the games of one strategy in parallel.
+     */
+    private TournamentResult play(String name, Supplier<? extends IShooter> shooters, long games, long seed) {
+        int kinds = PlacementIndex.kindCount();
+        MonteCarloSimulator simulator = new MonteCarloSimulator(shooters, maxShots);
+        ThreadLocal<IShooter> shooter = ThreadLocal.withInitial(shooters);
+        ThreadLocal<FleetGenerator> generator = ThreadLocal.withInitial(() -> new FleetGenerator(seed));
+        ThreadLocal<int[]> clearedAt = ThreadLocal.withInitial(() -> new int[kinds]);
+
+        long start = System.nanoTime();
+        // one histogram per kind, then the whole fleet's; the last bin counts the unfinished games
+        long[][] histograms = LongStream.range(0, games).parallel().collect(
+                () -> new long[kinds + 1][maxShots + 2],
+                (bins, game) -> {
+                    int[] cleared = clearedAt.get();
+                    int shots = simulator.play(shooter.get(), generator.get(),
+                            MonteCarloSimulator.gameRandom(seed, game), cleared);
+                    bins[kinds][shots < 0 ? maxShots + 1 : shots]++;
+                    for (int kind = 0; kind < kinds; kind++)
+                        bins[kind][cleared[kind] < 0 ? maxShots + 1 : cleared[kind]]++;
+                },
+                (bins, other) -> {
+                    for (int h = 0; h < bins.length; h++)
+                        for (int i = 0; i < bins[h].length; i++)
+                            bins[h][i] += other[h][i];
+                });
+        long elapsed = System.nanoTime() - start;
+
+        Map<String, SimulationResult> byCategory = new LinkedHashMap<>();
+        for (int kind = 0; kind < kinds; kind++)
+            byCategory.put(PlacementIndex.kindCategory(kind), SimulationResult.of(histograms[kind], elapsed));
+        return new TournamentResult(name, SimulationResult.of(histograms[kinds], elapsed), byCategory);
+    }
+}
@@ -0,0 +1,87 @@
+package iscteiul.ista.battleship;
+
+import java.io.PrintStream;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * The outcome of one strategy in a {@link Tournament}.
+ * <p>
+ * It holds the shots-to-win statistics of the strategy and, for each
+ * category of ships, the statistics of the shots needed to sink every ship
+ * of that category; a game counts as unfinished for a category if it ended
+ * with some ship of the category afloat.
+ * </p>
+ *
+ * @see Tournament
+ * @see SimulationResult
+ */
+public class TournamentResult {
+
+    private final String strategy;
+    private final SimulationResult result;
+    private final Map<String, SimulationResult> byCategory;
+
+    /**
+     * @param strategy   the name of the strategy
+     * @param result     the shots needed to sink the whole fleet
+     * @param byCategory the shots needed to sink every ship of each category, by category
+     */
+    TournamentResult(String strategy, SimulationResult result, Map<String, SimulationResult> byCategory) {
+        this.strategy = strategy;
+        this.result = result;
+        this.byCategory = Collections.unmodifiableMap(byCategory);
+    }
+
+    /**
+     * @return the name of the strategy
+     */
+    public String getStrategy() {
+        return strategy;
+    }
+
+    /**
+     * @return the statistics of the shots needed to sink the whole fleet
+     */
+    public SimulationResult getResult() {
+        return result;
+    }
+
+    /**
+     * @return the statistics of the shots needed to sink every ship of each category, by category
+     */
+    public Map<String, SimulationResult> getCategoryResults() {
+        return byCategory;
+    }
+
+    /**
+     * This operation prints the summary of the strategy, with 95% confidence
+     * intervals, followed by one line per category of ships
+     */
+    public void printReport() {
+        printReport(System.out);
+    }
+
+    /**
+     * This operation prints the summary of the strategy to the given stream
+     *
+     * @param out The stream to print to
+     */
+    public void printReport(PrintStream out) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%s: %d jogos, %.0f jogos/s, %d por acabar%n", strategy, result.getGames(),
+                result.getGamesPerSecond(), result.getUnfinishedGames()));
+        appendSummary(sb, "Frota", result);
+        for (Map.Entry<String, SimulationResult> category : byCategory.entrySet())
+            appendSummary(sb, category.getKey(), category.getValue());
+        out.print(sb);
+    }
+
+    private static void appendSummary(StringBuilder sb, String label, SimulationResult r) {
+        int[] median = r.getPercentileInterval(0.5);
+        int[] p90 = r.getPercentileInterval(0.9);
+        sb.append(String.format("  %-9s media %.2f ± %.2f tiros, mediana %d [%d, %d], p90 %d [%d, %d]%n", label,
+                r.getMeanShots(), r.getMeanMargin(), r.getPercentile(0.5), median[0], median[1],
+                r.getPercentile(0.9), p90[0], p90[1]));
+    }
+}
@@ -1,38 +1,39 @@
 package iscteiul.ista;
 
-import junit.framework.Test;
-import junit.framework.TestCase;
-import junit.framework.TestSuite;
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
 
 /**
  * Unit test for simple App.
  */
 public class AppTest
-    extends TestCase
 {
     /**
-     * Create the test case
-     *
-     * @param testName name of the test case
+     * Rigourous Test :-)
      */
-    public AppTest( String testName )
+    @Test
+    public void testApp()
     {
-        super( testName );
+        assertTrue( true );
     }
 
-    /**
-     * @return the suite of tests being tested
-     */
-    public static Test suite()
+    @Test
+    public void tournamentArgumentsAreParsedOrRejected()
     {
-        return new TestSuite( AppTest.class );
-    }
+        assertEquals(250, App.parseGames("250"));
+        assertEquals(0, App.parseGames("0"));
+        assertEquals(-1, App.parseGames("-3"));
+        assertEquals(-1, App.parseGames("muitos"));
+        assertEquals(-1, App.parseGames("99999999999999999999"));
+        assertEquals(-7, App.parseSeed("-7"));
+        assertNull(App.parseSeed("7x"));
 
-    /**
-     * Rigourous Test :-)
-     */
-    public void testApp()
-    {
-        assertTrue( true );
+        // rejected with a message instead of a stack trace
+        assertDoesNotThrow(() -> App.main(new String[] {"torneio", "muitos"}));
+        assertDoesNotThrow(() -> App.main(new String[] {"torneio", "10", "semente"}));
     }
 }
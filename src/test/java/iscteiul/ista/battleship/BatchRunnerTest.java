@@ -0,0 +1,120 @@
+package iscteiul.ista.battleship;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Plays small corpora of scripts with a {@link BatchRunner}.
+ */
+public class BatchRunnerTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void newlineAfterTheLastScriptAddsNoScript() throws IOException {
+        String fleet = fleetCommand(new FleetGenerator(1).nextFleet());
+        List<String> lines = run(fleet + "rajada 0 0 0 1 0 2\ndesisto\n" + "ver\ndesisto\n\n  \n", 2);
+        assertEquals(2, lines.size());
+        assertEquals("0 #0 ", lines.get(0).substring(0, 5));
+        assertEquals("1 #1 sem frota consultas 0 desconhecidos 0", lines.get(1));
+    }
+
+    @Test
+    public void tokensAfterTheLastScriptArePlayed() throws IOException {
+        List<String> lines = run("desisto\nxpto\n", 2);
+        assertEquals(List.of("0 #0 sem frota consultas 0 desconhecidos 0",
+                "1 #1 sem frota consultas 0 desconhecidos 1"), lines);
+    }
+
+    @Test
+    public void gamesAreSummarisedAsPlayed() throws IOException {
+        Fleet fleet = new FleetGenerator(2).nextFleet();
+        Game game = new Game(new FleetGenerator(2).nextFleet());
+        StringBuilder script = new StringBuilder(fleetCommand(fleet));
+        int[][] rounds = {{0, 0, 0, 1, 0, 2}, {5, 5, 5, 5, -1, 3}, {9, 9, 10, 10, 4, 4}};
+        for (int[] round : rounds) {
+            script.append("rajada");
+            for (int i = 0; i < round.length; i += 2) {
+                script.append(' ').append(round[i]).append(' ').append(round[i + 1]);
+                game.fire(round[i], round[i + 1]);
+            }
+            script.append('\n');
+        }
+        script.append("ver\nmapa\nestado\nquem\ndesisto\n");
+
+        String expected = "0 #0 frotas 1 rajadas 3 tiros " + game.getShots().size() + " hits " + game.getHits()
+                + " afundados " + game.getSunkShips() + " inv " + game.getInvalidShots() + " rep "
+                + game.getRepeatedShots() + " restam " + game.getRemainingShips() + " consultas 3 desconhecidos 1";
+        assertEquals(List.of(expected), run(script.toString(), 1));
+    }
+
+    @Test
+    public void roundsBeforeAnyFleetAreParsedAsTaskDReadsThem() throws IOException {
+        // without a fleet, rajada reads no coordinates: they are read as commands of their own
+        List<String> lines = run("rajada 1 2 3 4 5 6\nver\ndesisto\n", 1);
+        assertEquals(List.of("0 #0 sem frota consultas 0 desconhecidos 6"), lines);
+    }
+
+    @Test
+    public void malformedScriptGivesAnErrorLine() throws IOException {
+        List<String> lines = run("nova galeao 1 x n\ndesisto\n", 1);
+        assertEquals(List.of("0 #0 ERRO script incompleto ou mal formado"), lines);
+    }
+
+    @Test
+    public void scriptsOfADirectoryAreNamedByFile() throws IOException {
+        Files.writeString(directory.resolve("a.txt"), "ver\n");
+        Files.writeString(directory.resolve("b.txt"), "desisto\n");
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        long played = new BatchRunner(2, 4).run(directory, new PrintStream(bytes, true, StandardCharsets.UTF_8));
+
+        assertEquals(2, played);
+        assertEquals(List.of("0 a.txt sem frota consultas 0 desconhecidos 0",
+                "1 b.txt sem frota consultas 0 desconhecidos 0"), sorted(bytes));
+    }
+
+    /**
+     * Plays a stream of scripts with two workers and small queues.
+     *
+     * @return the result lines, in the order of the scripts
+     */
+    private static List<String> run(String scripts, int expected) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        long played = new BatchRunner(2, 4).run(new ByteArrayInputStream(scripts.getBytes(StandardCharsets.UTF_8)),
+                new PrintStream(bytes, true, StandardCharsets.UTF_8));
+        assertEquals(expected, played);
+        return sorted(bytes);
+    }
+
+    private static List<String> sorted(ByteArrayOutputStream bytes) {
+        String[] lines = bytes.toString(StandardCharsets.UTF_8).split(System.lineSeparator());
+        Arrays.sort(lines);
+        return List.of(lines);
+    }
+
+    /**
+     * @return the {@code nova} command building a fleet
+     */
+    private static String fleetCommand(IFleet fleet) {
+        StringBuilder sb = new StringBuilder("nova");
+        for (IShip s : fleet.getShips())
+            sb.append(' ').append(ShipCategory.ofName(s.getCategory()).getKind())
+                    .append(' ').append(s.getPosition().getRow())
+                    .append(' ').append(s.getPosition().getColumn())
+                    .append(' ').append(s.getBearing().getDirection());
+        return sb.append('\n').toString();
+    }
+}
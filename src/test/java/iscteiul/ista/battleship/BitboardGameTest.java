@@ -0,0 +1,152 @@
+package iscteiul.ista.battleship;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Plays the same ships and shots on a {@link Game} over a {@link Fleet} and
+ * on a {@link BitboardGame} over a {@link BitboardFleet}.
+ */
+public class BitboardGameTest {
+
+    private static final String[] KINDS = {"galeao", "fragata", "nau", "caravela", "barca"};
+    private static final Compass[] BEARINGS = {Compass.NORTH, Compass.SOUTH, Compass.EAST, Compass.WEST};
+
+    @Test
+    public void standardBoardPlaysAsGame() {
+        SplittableRandom random = new SplittableRandom(1);
+        for (int trial = 0; trial < 300; trial++)
+            playBoth(random, IFleet.BOARD_SIZE, IFleet.FLEET_SIZE);
+    }
+
+    @Test
+    public void largerBoardsPlayAsGame() {
+        SplittableRandom random = new SplittableRandom(2);
+        for (int trial = 0; trial < 40; trial++)
+            playBoth(random, 11 + random.nextInt(80), 40);
+    }
+
+    @Test
+    public void generatedFleetsSinkAsInGame() {
+        for (int seed = 0; seed < 50; seed++) {
+            Fleet fleet = new FleetGenerator(seed).nextFleet();
+            BitboardFleet bitboardFleet = new BitboardFleet();
+            for (IShip s : fleet.getShips())
+                assertEquals(true, bitboardFleet.addShip(copy(s)));
+            Game game = new Game(fleet);
+            BitboardGame bitboardGame = new BitboardGame(bitboardFleet);
+
+            // every cell, the row and column past the board included, in order
+            for (int row = 0; row <= IFleet.BOARD_SIZE; row++)
+                for (int column = 0; column <= IFleet.BOARD_SIZE; column++)
+                    assertEquals(game.fire(row, column), bitboardGame.fire(row, column));
+            assertSameState(game, bitboardGame, bitboardFleet);
+            assertEquals(0, bitboardGame.getRemainingShips());
+        }
+    }
+
+    /**
+     * Builds the same random ships into both fleets, checking that they accept
+     * the same ones, then fires the same random shots, one by one or in salvos.
+     */
+    private static void playBoth(SplittableRandom random, int boardSize, int fleetSize) {
+        Fleet fleet = new Fleet(boardSize, fleetSize);
+        BitboardFleet bitboardFleet = new BitboardFleet(boardSize, fleetSize);
+        int attempts = random.nextInt(4 * fleetSize);
+        for (int i = 0; i < attempts; i++) {
+            Ship s = randomShip(random, boardSize);
+            assertEquals(fleet.addShip(s), bitboardFleet.addShip(copy(s)), s.toString());
+        }
+
+        Game game = new Game(fleet);
+        BitboardGame bitboardGame = new BitboardGame(bitboardFleet);
+        int shots = random.nextInt(3 * (boardSize + 2) * (boardSize + 2));
+        int[] rows = new int[8];
+        int[] columns = new int[8];
+        byte[] outcomes = new byte[8];
+        byte[] bitboardOutcomes = new byte[8];
+        for (int i = 0; i < shots; ) {
+            switch (random.nextInt(3)) {
+                case 0:
+                    int row = coordinate(random, boardSize);
+                    int column = coordinate(random, boardSize);
+                    assertEquals(game.fire(row, column), bitboardGame.fire(row, column));
+                    i++;
+                    break;
+                case 1:
+                    IPosition pos = Coordinate.of(coordinate(random, boardSize), coordinate(random, boardSize));
+                    assertEquals(String.valueOf(game.fire(pos)), String.valueOf(bitboardGame.fire(pos)));
+                    i++;
+                    break;
+                default:
+                    int count = random.nextInt(rows.length + 1);
+                    for (int k = 0; k < count; k++) {
+                        rows[k] = coordinate(random, boardSize);
+                        columns[k] = coordinate(random, boardSize);
+                    }
+                    assertEquals(game.fireBatch(rows, columns, count, outcomes),
+                            bitboardGame.fireBatch(rows, columns, count, bitboardOutcomes));
+                    assertArrayEquals(outcomes, bitboardOutcomes);
+                    i += count;
+            }
+            assertSameCounters(game, bitboardGame);
+        }
+        assertSameState(game, bitboardGame, bitboardFleet);
+    }
+
+    /**
+     * @return a row or column, mostly on the board but also just off it on either side
+     */
+    private static int coordinate(SplittableRandom random, int boardSize) {
+        return random.nextInt(4) == 0 ? random.nextInt(-2, boardSize + 3) : random.nextInt(boardSize);
+    }
+
+    private static Ship randomShip(SplittableRandom random, int boardSize) {
+        return Ship.buildShip(KINDS[random.nextInt(KINDS.length)], BEARINGS[random.nextInt(BEARINGS.length)],
+                Coordinate.of(random.nextInt(-1, boardSize + 1), random.nextInt(-1, boardSize + 1)));
+    }
+
+    private static Ship copy(IShip s) {
+        return Ship.buildShip(ShipCategory.ofName(s.getCategory()).getKind(), s.getBearing(), s.getPosition());
+    }
+
+    private static void assertSameCounters(IGame expected, IGame actual) {
+        assertEquals(expected.getHits(), actual.getHits(), "hits");
+        assertEquals(expected.getSunkShips(), actual.getSunkShips(), "sunk ships");
+        assertEquals(expected.getRemainingShips(), actual.getRemainingShips(), "remaining ships");
+        assertEquals(expected.getInvalidShots(), actual.getInvalidShots(), "invalid shots");
+        assertEquals(expected.getRepeatedShots(), actual.getRepeatedShots(), "repeated shots");
+    }
+
+    private static void assertSameState(Game expected, BitboardGame actual, BitboardFleet actualFleet) {
+        assertSameCounters(expected, actual);
+        assertEquals(expected.getShots(), actual.getShots());
+        assertEquals(describe(expected.getFleet()), describe(actualFleet));
+    }
+
+    /**
+     * @return the ships of a fleet, with the cells hit and whether they float
+     */
+    private static List<String> describe(IFleet fleet) {
+        List<String> ships = new ArrayList<>();
+        for (IShip s : fleet.getShips())
+            ships.add(describe(s));
+        return ships;
+    }
+
+    /**
+     * @return the ship, with the cells hit and whether it floats
+     */
+    private static String describe(IShip s) {
+        StringBuilder sb = new StringBuilder(s.toString()).append(' ');
+        for (IPosition p : s.getPositions())
+            sb.append(s.isHit(p) ? 'X' : '.');
+        return sb.append(' ').append(s.stillFloating()).toString();
+    }
+}
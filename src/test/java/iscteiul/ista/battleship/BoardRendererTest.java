@@ -0,0 +1,114 @@
+package iscteiul.ista.battleship;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Draws frames with a {@link BoardRenderer} and replays its incremental
+ * redraws on an emulated terminal.
+ */
+public class BoardRendererTest {
+
+    @Test
+    public void sizesWhoseFrameOverflowsAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new BoardRenderer(0));
+        assertThrows(IllegalArgumentException.class, () -> new BoardRenderer(46341));
+    }
+
+    @Test
+    public void renderWritesOneLinePerRow() {
+        BoardRenderer renderer = new BoardRenderer(3);
+        renderer.mark(0, 0, 'X');
+        renderer.mark(2, 1, '#');
+        renderer.mark(3, 0, 'X'); // off the board
+        String nl = System.lineSeparator();
+        assertEquals("X.." + nl + "..." + nl + ".#." + nl, render(renderer, false));
+    }
+
+    @Test
+    public void incrementalRedrawsReproduceEveryFrame() {
+        Random random = new Random(2);
+        for (int size : new int[] {1, 10, 37}) {
+            BoardRenderer renderer = new BoardRenderer(size);
+            char[][] terminal = new char[size + 1][size];
+            for (int frame = 0; frame < 200; frame++) {
+                if (frame % 3 == 0)
+                    renderer.clear();
+                int marks = random.nextInt(2 * size);
+                for (int i = 0; i < marks; i++)
+                    renderer.mark(random.nextInt(size + 2) - 1, random.nextInt(size + 2) - 1, "X#o.".charAt(random.nextInt(4)));
+                if (frame == 100)
+                    renderer.invalidate();
+
+                play(render(renderer, true), terminal);
+                String[] lines = render(renderer, false).split(System.lineSeparator());
+                for (int row = 0; row < size; row++)
+                    assertEquals(lines[row], new String(terminal[row]), "size " + size + " frame " + frame + " row " + row);
+            }
+        }
+    }
+
+    @Test
+    public void nothingIsSentWhenNothingChanged() {
+        BoardRenderer renderer = new BoardRenderer(10);
+        renderer.mark(4, 4, 'X');
+        render(renderer, true);
+        renderer.clear();
+        renderer.mark(4, 4, 'X');
+        assertEquals("", render(renderer, true));
+    }
+
+    private static String render(BoardRenderer renderer, boolean changes) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        PrintStream out = new PrintStream(bytes, true, StandardCharsets.US_ASCII);
+        if (changes)
+            renderer.renderChanges(out);
+        else
+            renderer.render(out);
+        return bytes.toString(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Applies the output of the renderer to a terminal: cursor moves, screen clears, line breaks and cells.
+     */
+    private static void play(String output, char[][] terminal) {
+        int row = 0, column = 0;
+        for (int i = 0; i < output.length(); ) {
+            char c = output.charAt(i);
+            if (c == 0x1B) {
+                int end = i + 2;
+                while (output.charAt(end) != 'H' && output.charAt(end) != 'J')
+                    end++;
+                String argument = output.substring(i + 2, end);
+                if (output.charAt(end) == 'J') {
+                    for (char[] line : terminal)
+                        Arrays.fill(line, ' ');
+                } else if (argument.isEmpty()) {
+                    row = column = 0;
+                } else {
+                    String[] numbers = argument.split(";");
+                    row = Integer.parseInt(numbers[0]) - 1;
+                    column = Integer.parseInt(numbers[1]) - 1;
+                }
+                i = end + 1;
+            } else if (c == '\n') {
+                row++;
+                column = 0;
+                i++;
+            } else if (c == '\r') {
+                i++;
+            } else {
+                terminal[row][column++] = c;
+                i++;
+            }
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package iscteiul.ista.battleship;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.io.ByteArrayInputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.InputMismatchException;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.Scanner;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Compares {@link CommandTokenizer} with the {@link Scanner} it replaces.
+ */
+public class CommandTokenizerTest {
+
+    /** Pieces of input: words of the grammar and not, integers in and out of range, separators. */
+    private static final String[] PIECES = {"nova", "rajada", "12", "-3", "+7", "x", "2147483647", "2147483648",
+            "-2147483648", "ção", "n", "galeao", "9999999999", "-", "abc1", " ", "\n", "\t", "  \r\n"};
+
+    private static final int NEXT = 0;
+    private static final int NEXT_INT = 1;
+    private static final int NEXT_CHAR = 2;
+
+    /** The operations of the tasks, on either reader. */
+    private interface Reader {
+        String next();
+
+        int nextInt();
+
+        char nextChar();
+
+        boolean hasNext();
+    }
+
+    @Test
+    public void readsAsAScannerDoes() {
+        Random random = new Random(1);
+        for (int trial = 0; trial < 5000; trial++) {
+            StringBuilder sb = new StringBuilder();
+            int pieces = random.nextInt(30);
+            for (int i = 0; i < pieces; i++) {
+                sb.append(PIECES[random.nextInt(PIECES.length)]);
+                if (random.nextBoolean())
+                    sb.append(' ');
+            }
+            byte[] input = sb.toString().getBytes(StandardCharsets.UTF_8);
+            int[] ops = new int[random.nextInt(40)];
+            for (int i = 0; i < ops.length; i++)
+                ops[i] = random.nextInt(4);
+
+            String expected = run(scanner(input), ops);
+            // a tiny buffer makes tokens span reads
+            assertEquals(expected, run(tokenizer(new CommandTokenizer(new ByteArrayInputStream(input),
+                    1 + random.nextInt(8))), ops), sb.toString());
+            assertEquals(expected, run(tokenizer(new CommandTokenizer(ByteBuffer.wrap(input))), ops), sb.toString());
+        }
+    }
+
+    @Test
+    public void wordsOfTheGrammarAreShared() {
+        CommandTokenizer in = new CommandTokenizer(ByteBuffer.wrap("desisto caravela".getBytes(StandardCharsets.US_ASCII)));
+        assertSame(Tasks.DESISTIR, in.next());
+        assertSame(ShipCategory.CARAVELA.getKind(), in.next());
+    }
+
+    /**
+     * @return the values read, or the exceptions thrown, by each operation; any other operation is hasNext
+     */
+    private static String run(Reader reader, int[] ops) {
+        StringBuilder sb = new StringBuilder();
+        for (int op : ops) {
+            try {
+                switch (op) {
+                    case NEXT:
+                        sb.append(reader.next());
+                        break;
+                    case NEXT_INT:
+                        sb.append(reader.nextInt());
+                        break;
+                    case NEXT_CHAR:
+                        sb.append(reader.nextChar());
+                        break;
+                    default:
+                        sb.append(reader.hasNext());
+                }
+            } catch (InputMismatchException e) {
+                sb.append("mismatch");
+            } catch (NoSuchElementException e) {
+                sb.append("end");
+            }
+            sb.append('|');
+        }
+        return sb.toString();
+    }
+
+    private static Reader scanner(byte[] input) {
+        Scanner in = new Scanner(new ByteArrayInputStream(input), StandardCharsets.UTF_8);
+        return new Reader() {
+            public String next() {
+                return in.next();
+            }
+
+            public int nextInt() {
+                return in.nextInt();
+            }
+
+            public char nextChar() {
+                return in.next().charAt(0);
+            }
+
+            public boolean hasNext() {
+                return in.hasNext();
+            }
+        };
+    }
+
+    private static Reader tokenizer(CommandTokenizer in) {
+        return new Reader() {
+            public String next() {
+                return in.next();
+            }
+
+            public int nextInt() {
+                return in.nextInt();
+            }
+
+            public char nextChar() {
+                return in.nextChar();
+            }
+
+            public boolean hasNext() {
+                return in.hasNext();
+            }
+        };
+    }
+}
@@ -0,0 +1,68 @@
+package iscteiul.ista.battleship;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Fires at a {@link ConcurrentGame} from several threads at once.
+ */
+public class ConcurrentGameTest {
+
+    private static final int THREADS = 4;
+    private static final int TRIALS = 50;
+
+    @Test
+    public void everyShipSinksExactlyOnce() throws Exception {
+        for (int trial = 0; trial < TRIALS; trial++) {
+            Fleet fleet = new FleetGenerator(trial).nextFleet();
+            int cells = 0;
+            for (IShip s : fleet.getShips())
+                cells += s.getPositions().size();
+            int side = fleet.getBoardSize() + 1;
+            ConcurrentGame game = new ConcurrentGame(fleet);
+            AtomicInteger sunk = new AtomicInteger();
+            CyclicBarrier start = new CyclicBarrier(THREADS);
+            List<Throwable> failures = Collections.synchronizedList(new ArrayList<>());
+
+            Thread[] threads = new Thread[THREADS];
+            for (int t = 0; t < THREADS; t++) {
+                Random random = new Random(trial * THREADS + t);
+                threads[t] = new Thread(() -> {
+                    try {
+                        // every thread fires at every cell, in its own order
+                        List<Integer> order = new ArrayList<>();
+                        for (int cell = 0; cell < side * side; cell++)
+                            order.add(cell);
+                        Collections.shuffle(order, random);
+                        start.await();
+                        for (int cell : order)
+                            if (IGame.outcomeOf(game.fire(cell / side, cell % side)) == IGame.SUNK)
+                                sunk.incrementAndGet();
+                    } catch (Throwable e) {
+                        failures.add(e);
+                    }
+                });
+                threads[t].start();
+            }
+            for (Thread t : threads)
+                t.join();
+
+            assertEquals(List.of(), failures);
+            assertEquals(fleet.getShips().size(), sunk.get(), "sinking shots");
+            assertEquals(fleet.getShips().size(), game.getSunkShips());
+            assertEquals(0, game.getRemainingShips());
+            assertEquals(0, fleet.getFloatingShipCount());
+            assertEquals(cells, game.getHits());
+            assertEquals(side * side, game.getShots().size());
+            assertEquals((THREADS - 1) * side * side, game.getRepeatedShots());
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package iscteiul.ista.battleship;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks the interning of {@link Coordinate}s and that ships keep their hits apart from their cells.
+ */
+public class CoordinateTest {
+
+    @Test
+    public void boardCoordinatesAreShared() {
+        for (int row = 0; row <= IFleet.BOARD_SIZE; row++)
+            for (int column = 0; column <= IFleet.BOARD_SIZE; column++) {
+                Coordinate c = Coordinate.of(row, column);
+                assertSame(c, Coordinate.of(row, column));
+                assertSame(c, Coordinate.of(new Position(row, column)));
+                assertEquals(row, c.getRow());
+                assertEquals(column, c.getColumn());
+            }
+        assertNotSame(Coordinate.of(-1, 3), Coordinate.of(-1, 3));
+        assertEquals(Coordinate.of(-1, 3), Coordinate.of(-1, 3));
+    }
+
+    @Test
+    public void coordinatesAndPositionsHashAlike() {
+        Set<IPosition> set = new HashSet<>();
+        Position marked = new Position(4, 7);
+        marked.occupy();
+        marked.shoot();
+        set.add(marked);
+        assertTrue(set.contains(Coordinate.of(4, 7)));
+        assertTrue(set.contains(new Position(4, 7)));
+        assertEquals(Coordinate.of(4, 7), marked);
+        assertEquals(marked, Coordinate.of(4, 7));
+        assertEquals(marked.hashCode(), Coordinate.of(4, 7).hashCode());
+        assertFalse(set.contains(Coordinate.of(7, 4)));
+    }
+
+    @Test
+    public void shipsAreLaidOnSharedCoordinatesAndKeepTheirHits() {
+        Ship first = new Frigate(Compass.EAST, Coordinate.of(2, 3));
+        Ship second = new Frigate(Compass.EAST, Coordinate.of(2, 3));
+        for (int i = 0; i < first.getSize(); i++) {
+            IPosition cell = first.getPositions().get(i);
+            assertSame(Coordinate.of(cell.getRow(), cell.getColumn()), cell);
+            assertSame(cell, second.getPositions().get(i));
+        }
+
+        IPosition cell = first.getPositions().get(1);
+        first.shoot(new Position(cell.getRow(), cell.getColumn()));
+        assertTrue(first.isHit(cell));
+        assertFalse(second.isHit(cell));
+        assertTrue(first.stillFloating());
+
+        for (IPosition p : first.getPositions())
+            first.shoot(p);
+        assertFalse(first.stillFloating());
+        assertTrue(second.stillFloating());
+    }
+}
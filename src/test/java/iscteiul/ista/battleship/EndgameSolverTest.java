@@ -0,0 +1,249 @@
+package iscteiul.ista.battleship;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.TreeSet;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that {@link EndgameSolver} shoots optimally, against endgames small
+ * enough to be solved by hand or by trying every order of shots.
+ */
+public class EndgameSolverTest {
+
+    private static final Compass[] BEARINGS = {Compass.NORTH, Compass.SOUTH, Compass.EAST, Compass.WEST};
+
+    @Test
+    public void lastBargeTakesHalfItsCellsOnAverage() {
+        for (int cells = 1; cells <= 8; cells++) {
+            Fleet fleet = new FleetGenerator(cells).nextFleet();
+            IShip barge = fleet.getShips().get(7);
+            ShotHistory history = new ShotHistory();
+            List<IShip> sunk = new ArrayList<>();
+            for (IShip s : fleet.getShips())
+                if (s != barge) {
+                    history.sunk(s);
+                    sunk.add(s);
+                }
+            Set<Integer> free = freeCells(fleet, sunk, barge, cells - 1, new SplittableRandom(cells));
+            missAllBut(history, fleet, free);
+
+            // each shot at a cell left finds the barge there, or rules the cell out
+            EndgameSolver solver = new EndgameSolver();
+            int cell = solver.nextShot(history);
+            assertTrue(free.contains(cell));
+            assertEquals((free.size() + 1) / 2.0, solver.getExpectedShots(), 1e-9);
+        }
+    }
+
+    @Test
+    public void shotsAreOptimalOnSmallEndgames() {
+        List<Ship> barges = placements("barca");
+        List<Ship> caravels = placements("caravela");
+        EndgameSolver solver = new EndgameSolver();
+        for (int seed = 0; seed < 20; seed++) {
+            SplittableRandom random = new SplittableRandom(seed);
+            Fleet fleet = new FleetGenerator(seed).nextFleet();
+            IShip caravel = fleet.getShips().get(4);
+            IShip barge = fleet.getShips().get(7);
+            ShotHistory history = new ShotHistory();
+            List<IShip> sunk = new ArrayList<>();
+            for (IShip s : fleet.getShips())
+                if (s != caravel && s != barge) {
+                    history.sunk(s);
+                    sunk.add(s);
+                }
+            Set<Integer> free = freeCells(fleet, sunk, caravel, 6, random);
+            for (IPosition p : barge.getPositions())
+                free.add(cellOf(p));
+            missAllBut(history, fleet, free);
+            Set<Integer> hits = new HashSet<>();
+            if (seed % 2 == 1) {
+                IPosition hit = caravel.getPositions().get(random.nextInt(caravel.getSize()));
+                history.hit(hit.getRow(), hit.getColumn());
+                hits.add(cellOf(hit));
+            }
+
+            List<int[][]> configurations = new ArrayList<>();
+            for (Ship b : barges)
+                for (Ship c : caravels)
+                    if (possible(b, free, hits) && possible(c, free, hits) && !b.tooCloseTo(c)
+                            && covered(hits, b, c))
+                        configurations.add(new int[][] {cellsOf(b), cellsOf(c)});
+            List<Integer> all = new ArrayList<>();
+            for (int i = 0; i < configurations.size(); i++)
+                all.add(i);
+            Search search = new Search(configurations);
+            double optimal = search.value(all, hits, hits);
+
+            int cell = solver.nextShot(history);
+            assertEquals(optimal, solver.getExpectedShots(), 1e-9, "seed " + seed);
+            assertEquals(optimal, search.shoot(all, hits, hits, cell), 1e-9, "seed " + seed);
+        }
+    }
+
+    @Test
+    public void tooManyConfigurationsFallBackToTheMostCoveredCell() {
+        Fleet fleet = new FleetGenerator(3).nextFleet();
+        ShotHistory history = new ShotHistory();
+        for (int s = 0; s < 6; s++)
+            history.sunk(fleet.getShips().get(s));
+        EndgameSolver solver = new EndgameSolver(16, 10, 1000);
+        int cell = solver.nextShot(history);
+        assertTrue(cell >= 0 && cell < IFleet.BOARD_SIZE * IFleet.BOARD_SIZE);
+        assertTrue(Double.isNaN(solver.getExpectedShots()));
+        assertThrows(IllegalArgumentException.class, () -> new EndgameSolver(0, 10, 1000));
+    }
+
+    /**
+     * The optimal expected number of shots left, by trying every cell at every
+     * turn; a shot reveals a miss, a hit, or the cells of the ship it sinks.
+     */
+    private static final class Search {
+        private final List<int[][]> configurations;
+        private final Map<String, Double> values = new HashMap<>();
+
+        Search(List<int[][]> configurations) {
+            this.configurations = configurations;
+        }
+
+        double value(List<Integer> set, Set<Integer> shots, Set<Integer> hits) {
+            int[][] first = configurations.get(set.get(0));
+            if (hits.size() == first[0].length + first[1].length)
+                return 0;
+            String key = set + " " + new TreeSet<>(shots);
+            Double known = values.get(key);
+            if (known != null)
+                return known;
+            double best = Double.POSITIVE_INFINITY;
+            for (int cell = 0; cell < IFleet.BOARD_SIZE * IFleet.BOARD_SIZE; cell++)
+                if (!shots.contains(cell) && coveredBy(set, cell))
+                    best = Math.min(best, shoot(set, shots, hits, cell));
+            values.put(key, best);
+            return best;
+        }
+
+        double shoot(List<Integer> set, Set<Integer> shots, Set<Integer> hits, int cell) {
+            Map<String, List<Integer>> parts = new HashMap<>();
+            for (int i : set)
+                parts.computeIfAbsent(outcome(configurations.get(i), hits, cell), k -> new ArrayList<>()).add(i);
+            Set<Integer> nextShots = new HashSet<>(shots);
+            nextShots.add(cell);
+            double value = 1;
+            for (Map.Entry<String, List<Integer>> part : parts.entrySet()) {
+                Set<Integer> nextHits = new HashSet<>(hits);
+                if (!part.getKey().equals("miss"))
+                    nextHits.add(cell);
+                value += part.getValue().size() * value(part.getValue(), nextShots, nextHits) / set.size();
+            }
+            return value;
+        }
+
+        private boolean coveredBy(List<Integer> set, int cell) {
+            for (int i : set)
+                for (int[] ship : configurations.get(i))
+                    for (int c : ship)
+                        if (c == cell)
+                            return true;
+            return false;
+        }
+
+        private static String outcome(int[][] configuration, Set<Integer> hits, int cell) {
+            for (int[] ship : configuration)
+                if (Arrays.stream(ship).anyMatch(c -> c == cell))
+                    return Arrays.stream(ship).allMatch(c -> c == cell || hits.contains(c))
+                            ? Arrays.toString(ship) : "hit";
+            return "miss";
+        }
+    }
+
+    /**
+     * @return the cells of a ship afloat, with up to {@code extra} empty cells
+     *         away from the sunk ships, drawn at random
+     */
+    private static Set<Integer> freeCells(Fleet fleet, List<IShip> sunk, IShip ship, int extra,
+                                          SplittableRandom random) {
+        Set<Integer> free = new HashSet<>();
+        for (IPosition p : ship.getPositions())
+            free.add(cellOf(p));
+        for (int tries = 0; tries < 1000 && free.size() < ship.getSize() + extra; tries++) {
+            int row = random.nextInt(IFleet.BOARD_SIZE), column = random.nextInt(IFleet.BOARD_SIZE);
+            boolean away = fleet.shipIndexAt(row, column) < 0;
+            for (IShip s : sunk)
+                away &= !s.tooCloseTo(Coordinate.of(row, column));
+            if (away)
+                free.add(row * IFleet.BOARD_SIZE + column);
+        }
+        return free;
+    }
+
+    /**
+     * Misses every empty cell but the free ones.
+     */
+    private static void missAllBut(ShotHistory history, Fleet fleet, Set<Integer> free) {
+        for (int row = 0; row < IFleet.BOARD_SIZE; row++)
+            for (int column = 0; column < IFleet.BOARD_SIZE; column++)
+                if (fleet.shipIndexAt(row, column) < 0 && !free.contains(row * IFleet.BOARD_SIZE + column))
+                    history.miss(row, column);
+    }
+
+    /**
+     * @return whether a ship afloat may lie there: on free cells, and not on hits alone
+     */
+    private static boolean possible(Ship ship, Set<Integer> free, Set<Integer> hits) {
+        boolean open = false;
+        for (IPosition p : ship.getPositions()) {
+            if (!free.contains(cellOf(p)))
+                return false;
+            open |= !hits.contains(cellOf(p));
+        }
+        return open;
+    }
+
+    private static boolean covered(Set<Integer> hits, Ship... ships) {
+        for (int hit : hits) {
+            boolean covered = false;
+            for (Ship s : ships)
+                covered |= s.occupies(Coordinate.of(hit / IFleet.BOARD_SIZE, hit % IFleet.BOARD_SIZE));
+            if (!covered)
+                return false;
+        }
+        return true;
+    }
+
+    private static int[] cellsOf(Ship ship) {
+        return ship.getPositions().stream().mapToInt(EndgameSolverTest::cellOf).toArray();
+    }
+
+    private static int cellOf(IPosition p) {
+        return p.getRow() * IFleet.BOARD_SIZE + p.getColumn();
+    }
+
+    /**
+     * @return every placement of a kind of ship inside the board, once per set of cells
+     */
+    private static List<Ship> placements(String kind) {
+        List<Ship> ships = new ArrayList<>();
+        Set<Set<IPosition>> seen = new HashSet<>();
+        for (Compass bearing : BEARINGS)
+            for (int row = 0; row < IFleet.BOARD_SIZE; row++)
+                for (int column = 0; column < IFleet.BOARD_SIZE; column++) {
+                    Ship s = Ship.buildShip(kind, bearing, Coordinate.of(row, column));
+                    if (s.getBottomMostPos() < IFleet.BOARD_SIZE && s.getRightMostPos() < IFleet.BOARD_SIZE
+                            && seen.add(new HashSet<>(s.getPositions())))
+                        ships.add(s);
+                }
+        return ships;
+    }
+}
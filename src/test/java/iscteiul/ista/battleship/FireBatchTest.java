@@ -0,0 +1,94 @@
+package iscteiul.ista.battleship;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Fires salvos with {@link IGame#fireBatch} and the same shots one by one,
+ * and compares the outcomes, the statistics and the events told.
+ */
+public class FireBatchTest {
+
+    @Test
+    public void gameSalvosCountAsSingleShots() {
+        compare(sink -> new Game(new FleetGenerator(3).nextFleet(), sink));
+    }
+
+    @Test
+    public void bitboardGameSalvosCountAsSingleShots() {
+        compare(sink -> new BitboardGame(bitboardFleet(new FleetGenerator(3).nextFleet()), sink));
+    }
+
+    @Test
+    public void concurrentGameSalvosCountAsSingleShots() {
+        compare(sink -> new ConcurrentGame(new FleetGenerator(3).nextFleet()));
+    }
+
+    @Test
+    public void shortBuffersAreRejected() {
+        IGame game = new Game(new FleetGenerator(3).nextFleet());
+        assertThrows(IllegalArgumentException.class, () -> game.fireBatch(new int[2], new int[3], 3, new byte[3]));
+        assertThrows(IllegalArgumentException.class, () -> game.fireBatch(new int[3], new int[3], 3, new byte[2]));
+        assertEquals(0, game.getInvalidShots() + game.getShots().size());
+    }
+
+    /**
+     * Plays the same random salvos on two games made by a factory, one fired
+     * with fireBatch and the other shot by shot.
+     */
+    private static void compare(Function<IGameEventSink, IGame> factory) {
+        SplittableRandom random = new SplittableRandom(7);
+        List<String> batchEvents = new ArrayList<>();
+        List<String> singleEvents = new ArrayList<>();
+        IGame batch = factory.apply(e -> batchEvents.add(describe(e)));
+        IGame single = factory.apply(e -> singleEvents.add(describe(e)));
+
+        int[] rows = new int[12];
+        int[] columns = new int[12];
+        byte[] outcomes = new byte[12];
+        for (int salvo = 0; salvo < 40; salvo++) {
+            int count = random.nextInt(rows.length + 1);
+            for (int i = 0; i < count; i++) {
+                rows[i] = random.nextInt(-1, IFleet.BOARD_SIZE + 2);
+                columns[i] = random.nextInt(-1, IFleet.BOARD_SIZE + 2);
+            }
+            int sunk = batch.fireBatch(rows, columns, count, outcomes);
+
+            int singleSunk = 0;
+            for (int i = 0; i < count; i++) {
+                byte outcome = IGame.outcomeOf(single.fire(rows[i], columns[i]));
+                assertEquals(outcome, outcomes[i], "shot " + i + " of salvo " + salvo);
+                if (outcome == IGame.SUNK)
+                    singleSunk++;
+            }
+            assertEquals(singleSunk, sunk);
+            assertEquals(single.getHits(), batch.getHits());
+            assertEquals(single.getSunkShips(), batch.getSunkShips());
+            assertEquals(single.getRemainingShips(), batch.getRemainingShips());
+            assertEquals(single.getInvalidShots(), batch.getInvalidShots());
+            assertEquals(single.getRepeatedShots(), batch.getRepeatedShots());
+            assertEquals(single.getShots(), batch.getShots());
+        }
+        assertEquals(singleEvents, batchEvents);
+    }
+
+    private static BitboardFleet bitboardFleet(IFleet fleet) {
+        BitboardFleet copy = new BitboardFleet();
+        for (IShip s : fleet.getShips())
+            copy.addShip(Ship.buildShip(ShipCategory.ofName(s.getCategory()).getKind(), s.getBearing(),
+                    s.getPosition()));
+        return copy;
+    }
+
+    private static String describe(GameEvent e) {
+        return e.getType() + " " + e.getRow() + " " + e.getColumn() + " " + e.getOutcome() + " " + e.getShipIndex()
+                + " " + e.getShip();
+    }
+}
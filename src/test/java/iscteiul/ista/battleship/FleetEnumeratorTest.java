@@ -0,0 +1,105 @@
+package iscteiul.ista.battleship;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks the counts of {@link FleetEnumerator} against a brute-force count
+ * over every pair of ships, on endgames where only a barge and a caravel
+ * are left afloat.
+ */
+public class FleetEnumeratorTest {
+
+    private static final Compass[] BEARINGS = {Compass.NORTH, Compass.SOUTH, Compass.EAST, Compass.WEST};
+
+    @Test
+    public void endgamesCountAsByBruteForce() {
+        List<Ship> barges = placements("barca");
+        List<Ship> caravels = placements("caravela");
+        for (int seed = 0; seed < 10; seed++) {
+            SplittableRandom random = new SplittableRandom(seed);
+            Fleet fleet = new FleetGenerator(seed).nextFleet();
+            IShip caravel = fleet.getShips().get(4);
+            IShip barge = fleet.getShips().get(7);
+
+            ShotHistory history = new ShotHistory();
+            List<IShip> sunk = new ArrayList<>();
+            for (IShip s : fleet.getShips())
+                if (s != caravel && s != barge) {
+                    history.sunk(s);
+                    sunk.add(s);
+                }
+            Set<IPosition> misses = new HashSet<>();
+            for (int i = 0; i < 10; i++) {
+                int row = random.nextInt(IFleet.BOARD_SIZE), column = random.nextInt(IFleet.BOARD_SIZE);
+                if (fleet.shipIndexAt(row, column) < 0) {
+                    history.miss(row, column);
+                    misses.add(Coordinate.of(row, column));
+                }
+            }
+            // one cell of the caravel hit: a barge afloat cannot lie on it, or it would have sunk
+            IPosition hit = caravel.getPositions().get(random.nextInt(caravel.getSize()));
+            history.hit(hit.getRow(), hit.getColumn());
+
+            long configurations = 0;
+            long[][] counts = new long[IFleet.BOARD_SIZE][IFleet.BOARD_SIZE];
+            for (Ship b : barges)
+                for (Ship c : caravels)
+                    if (possible(b, sunk, misses, hit) && possible(c, sunk, misses, hit) && !b.tooCloseTo(c)
+                            && (b.occupies(hit) || c.occupies(hit))) {
+                        configurations++;
+                        for (IPosition p : b.getPositions())
+                            counts[p.getRow()][p.getColumn()]++;
+                        for (IPosition p : c.getPositions())
+                            counts[p.getRow()][p.getColumn()]++;
+                    }
+
+            EnumerationResult result = new FleetEnumerator().enumerate(history);
+            assertTrue(result.isComplete());
+            assertEquals(configurations, result.getConfigurations(), "seed " + seed);
+            for (int row = 0; row < IFleet.BOARD_SIZE; row++)
+                for (int column = 0; column < IFleet.BOARD_SIZE; column++)
+                    assertEquals(counts[row][column], result.getCount(row, column), "seed " + seed);
+            assertEquals(0, result.getCount(ShipCategory.BARCA.getName(), hit.getRow(), hit.getColumn()));
+        }
+    }
+
+    /**
+     * @return whether a ship afloat may lie there: off the misses, away from
+     *         the sunk ships, and not on the hit alone, which would have sunk it
+     */
+    private static boolean possible(Ship ship, List<IShip> sunk, Set<IPosition> misses, IPosition hit) {
+        for (IShip s : sunk)
+            if (ship.tooCloseTo(s))
+                return false;
+        for (IPosition p : ship.getPositions())
+            if (misses.contains(p))
+                return false;
+        return ship.getSize() > 1 || !ship.occupies(hit);
+    }
+
+    /**
+     * @return every placement of a kind of ship inside the board, once per set of cells
+     */
+    private static List<Ship> placements(String kind) {
+        List<Ship> ships = new ArrayList<>();
+        Set<Set<IPosition>> seen = new HashSet<>();
+        for (Compass bearing : BEARINGS)
+            for (int row = 0; row < IFleet.BOARD_SIZE; row++)
+                for (int column = 0; column < IFleet.BOARD_SIZE; column++) {
+                    Ship s = Ship.buildShip(kind, bearing, Coordinate.of(row, column));
+                    if (s.getBottomMostPos() < IFleet.BOARD_SIZE && s.getRightMostPos() < IFleet.BOARD_SIZE
+                            && seen.add(new HashSet<>(s.getPositions())))
+                        ships.add(s);
+                }
+        return ships;
+    }
+}
@@ -0,0 +1,85 @@
+package iscteiul.ista.battleship;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that {@link FleetGenerator} draws legal fleets, reproducibly, and
+ * uniformly over all legal fleets.
+ */
+public class FleetGeneratorTest {
+
+    /*
+     * Counted exactly, by packing the ships widened by one row and one column
+     * into the board widened likewise: the legal standard fleets, those whose
+     * galleon keeps off the edges of the board and those that leave the
+     * top-left cell empty.
+     */
+    private static final double LEGAL_FLEETS = 6176754266272264.0;
+    private static final double GALLEON_OFF_EDGES = 2315627638163184.0;
+    private static final double CORNER_EMPTY = 4225971113420658.0;
+
+    @Test
+    public void fleetsAreLegalAndReproducible() {
+        FleetGenerator generator = new FleetGenerator(11);
+        FleetGenerator same = new FleetGenerator(11);
+        int[] placements = new int[FleetGenerator.FLEET_SHIPS];
+        int[] again = new int[FleetGenerator.FLEET_SHIPS];
+        for (int i = 0; i < 200; i++) {
+            generator.next(placements);
+            same.next(again);
+            assertArrayEquals(placements, again);
+
+            Fleet fleet = FleetGenerator.toFleet(placements);
+            assertEquals(FleetGenerator.FLEET_SHIPS, fleet.getShips().size());
+            for (int s = 0; s < placements.length; s++)
+                assertEquals(FleetGenerator.STANDARD_FLEET[s], FleetGenerator.kindOf(placements[s]));
+        }
+        assertThrows(IllegalArgumentException.class, () -> generator.next(new int[FleetGenerator.FLEET_SHIPS - 1]));
+    }
+
+    @Test
+    public void edgesAndCornersAreDrawnAsOftenAsInAllLegalFleets() {
+        long edgeLow = 0;
+        long edgeHigh = 0;
+        for (int row = 0; row < IFleet.BOARD_SIZE; row++)
+            for (int column = 0; column < IFleet.BOARD_SIZE; column++)
+                if (row == 0 || column == 0 || row == IFleet.BOARD_SIZE - 1 || column == IFleet.BOARD_SIZE - 1) {
+                    int cell = row * IFleet.BOARD_SIZE + column;
+                    if (cell < 64)
+                        edgeLow |= 1L << cell;
+                    else
+                        edgeHigh |= 1L << (cell - 64);
+                }
+
+        int fleets = 5000;
+        int galleonOnEdge = 0;
+        int cornerTaken = 0;
+        FleetGenerator generator = new FleetGenerator(5);
+        int[] placements = new int[FleetGenerator.FLEET_SHIPS];
+        for (int i = 0; i < fleets; i++) {
+            generator.next(placements);
+            int galleon = placements[0];
+            if ((FleetGenerator.cellsLow(galleon) & edgeLow) != 0 || (FleetGenerator.cellsHigh(galleon) & edgeHigh) != 0)
+                galleonOnEdge++;
+            for (int p : placements)
+                if ((FleetGenerator.cellsLow(p) & 1) != 0)
+                    cornerTaken++;
+        }
+        // drawing each ship uniformly among its placements left, without rejection,
+        // puts the galleon on an edge in about 44% of the fleets
+        assertFrequency(1 - GALLEON_OFF_EDGES / LEGAL_FLEETS, galleonOnEdge, fleets);
+        assertFrequency(1 - CORNER_EMPTY / LEGAL_FLEETS, cornerTaken, fleets);
+    }
+
+    /**
+     * Checks a frequency against a probability, within five standard deviations.
+     */
+    private static void assertFrequency(double probability, int count, int trials) {
+        double deviation = Math.sqrt(probability * (1 - probability) / trials);
+        assertEquals(probability, (double) count / trials, 5 * deviation);
+    }
+}
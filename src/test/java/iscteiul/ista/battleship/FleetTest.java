@@ -0,0 +1,238 @@
+package iscteiul.ista.battleship;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks the indexes a {@link Fleet} keeps against scans of its ships.
+ */
+public class FleetTest {
+
+    @Test
+    public void shipAtFindsTheShipOfEveryCell() {
+        for (int seed = 0; seed < 20; seed++) {
+            Fleet fleet = new FleetGenerator(seed).nextFleet();
+            for (int row = 0; row < IFleet.BOARD_SIZE; row++)
+                for (int column = 0; column < IFleet.BOARD_SIZE; column++) {
+                    IPosition p = Coordinate.of(row, column);
+                    IShip expected = scan(fleet, p);
+                    assertSame(expected, fleet.shipAt(p), "seed " + seed + " " + p);
+                    assertEquals(expected == null ? -1 : fleet.getShips().indexOf(expected),
+                            fleet.shipIndexAt(row, column));
+                }
+        }
+    }
+
+    @Test
+    public void shipAtOutsideTheBoardFindsNothing() {
+        Fleet fleet = new FleetGenerator(1).nextFleet();
+        for (int i = -1; i <= IFleet.BOARD_SIZE; i++) {
+            assertNull(fleet.shipAt(Coordinate.of(-1, i)));
+            assertNull(fleet.shipAt(Coordinate.of(IFleet.BOARD_SIZE, i)));
+            assertNull(fleet.shipAt(Coordinate.of(i, -1)));
+            assertNull(fleet.shipAt(Coordinate.of(i, IFleet.BOARD_SIZE)));
+        }
+    }
+
+    @Test
+    public void shipsRejectedAreNotIndexed() {
+        Fleet fleet = new Fleet();
+        IShip barge = new Barge(Compass.NORTH, Coordinate.of(4, 4));
+        assertTrue(fleet.addShip(barge));
+        assertFalse(fleet.addShip(new Caravel(Compass.EAST, Coordinate.of(4, 5))));
+        assertFalse(fleet.addShip(new Frigate(Compass.SOUTH, Coordinate.of(8, 0))));
+
+        assertSame(barge, fleet.shipAt(Coordinate.of(4, 4)));
+        assertNull(fleet.shipAt(Coordinate.of(4, 5)));
+        assertNull(fleet.shipAt(Coordinate.of(8, 0)));
+        assertNull(fleet.shipAt(Coordinate.of(9, 0)));
+    }
+
+    @Test
+    public void shipsAfloatAreCountedAsTheyAreHit() {
+        for (int seed = 0; seed < 10; seed++) {
+            Fleet fleet = new FleetGenerator(seed).nextFleet();
+            Game game = new Game(fleet);
+            Set<IPosition> shots = new HashSet<>();
+            SplittableRandom random = new SplittableRandom(seed);
+            assertEquals(fleet.getShips().size(), fleet.getFloatingShipCount());
+            for (int i = 0; i < 150; i++) {
+                // repeated shots and shots off the board must not count twice
+                IPosition p = Coordinate.of(random.nextInt(-1, IFleet.BOARD_SIZE + 1),
+                        random.nextInt(-1, IFleet.BOARD_SIZE + 1));
+                game.fire(p);
+                shots.add(p);
+
+                int afloat = 0;
+                for (IShip s : fleet.getShips()) {
+                    boolean floating = !shots.containsAll(s.getPositions());
+                    assertEquals(floating, s.stillFloating(), "seed " + seed + " " + s);
+                    if (floating)
+                        afloat++;
+                }
+                assertEquals(afloat, fleet.getFloatingShipCount());
+                assertEquals(afloat, game.getRemainingShips());
+                assertEquals(afloat, fleet.getFloatingShips().size());
+            }
+        }
+    }
+
+    @Test
+    public void shootingAShipTwiceAtACellHitsItOnce() {
+        Ship caravel = new Caravel(Compass.SOUTH, Coordinate.of(2, 3));
+        Fleet fleet = new Fleet();
+        assertTrue(fleet.addShip(caravel));
+        caravel.shoot(Coordinate.of(2, 3));
+        caravel.shoot(Coordinate.of(2, 3));
+        caravel.shoot(Coordinate.of(5, 5));
+        assertTrue(caravel.stillFloating());
+        assertEquals(1, fleet.getFloatingShipCount());
+
+        caravel.shoot(Coordinate.of(3, 3));
+        assertFalse(caravel.stillFloating());
+        assertEquals(0, fleet.getFloatingShipCount());
+        caravel.shoot(Coordinate.of(3, 3));
+        assertEquals(0, fleet.getFloatingShipCount());
+    }
+
+    @Test
+    public void shipsAreAddedOnlyInsideTheBoardAndAwayFromOthers() {
+        String[] kinds = {"barca", "caravela", "nau", "fragata", "galeao"};
+        Compass[] bearings = {Compass.NORTH, Compass.SOUTH, Compass.EAST, Compass.WEST};
+        SplittableRandom random = new SplittableRandom(11);
+        for (int round = 0; round < 200; round++) {
+            Fleet fleet = new Fleet();
+            // the same ships without a precomputed shape, checked cell by cell
+            Fleet plainFleet = new Fleet();
+            List<IShip> added = new ArrayList<>();
+            for (int i = 0; i < 40; i++) {
+                Ship s = Ship.buildShip(kinds[random.nextInt(kinds.length)], bearings[random.nextInt(4)],
+                        Coordinate.of(random.nextInt(-2, IFleet.BOARD_SIZE + 1),
+                                random.nextInt(-2, IFleet.BOARD_SIZE + 1)));
+                boolean expected = added.size() <= IFleet.FLEET_SIZE && insideBoard(s) && awayFrom(added, s);
+                assertEquals(expected, fleet.canPlace(s.getTemplate(), s.getPosition().getRow(),
+                        s.getPosition().getColumn()), s.toString());
+                assertEquals(expected, fleet.addShip(s), s.toString());
+                assertEquals(expected, plainFleet.addShip(new PlainShip(s)), s.toString());
+                if (expected)
+                    added.add(s);
+            }
+            assertEquals(added, fleet.getShips());
+        }
+    }
+
+    @Test
+    public void categoriesIndexTheirShipsAndThoseAfloat() {
+        Fleet fleet = new FleetGenerator(6).nextFleet();
+        Game game = new Game(fleet);
+        SplittableRandom random = new SplittableRandom(6);
+        for (int i = 0; i <= 100; i++) {
+            for (ShipCategory c : ShipCategory.values()) {
+                List<IShip> ships = new ArrayList<>();
+                int afloat = 0;
+                for (IShip s : fleet.getShips())
+                    if (s.getCategory().equals(c.getName())) {
+                        ships.add(s);
+                        if (s.stillFloating())
+                            afloat++;
+                    }
+                assertEquals(ships, fleet.getShips(c));
+                assertEquals(ships, fleet.getShipsLike(c.getName()));
+                assertEquals(afloat, fleet.getFloatingShipCount(c), c + " after " + i + " shots");
+            }
+            game.fire(random.nextInt(IFleet.BOARD_SIZE), random.nextInt(IFleet.BOARD_SIZE));
+        }
+        assertTrue(fleet.getShipsLike("Jangada").isEmpty());
+    }
+
+    @Test
+    public void categoryViewsAreSharedAndReadOnly() {
+        Fleet fleet = new FleetGenerator(7).nextFleet();
+        List<IShip> galleons = fleet.getShips(ShipCategory.GALEAO);
+        assertSame(galleons, fleet.getShips(ShipCategory.GALEAO));
+        assertThrows(UnsupportedOperationException.class, () -> galleons.add(galleons.get(0)));
+
+        Fleet growing = new Fleet();
+        List<IShip> barges = growing.getShips(ShipCategory.BARCA);
+        assertTrue(barges.isEmpty());
+        growing.addShip(new Barge(Compass.NORTH, Coordinate.of(0, 0)));
+        assertEquals(1, barges.size());
+    }
+
+    @Test
+    public void categoriesMatchTheKindsShipsAreBuiltFrom() {
+        for (ShipCategory c : ShipCategory.values()) {
+            assertSame(c, ShipCategory.ofKind(c.getKind()));
+            assertSame(c, ShipCategory.ofName(c.getName()));
+            Ship s = Ship.buildShip(c.getKind(), Compass.NORTH, Coordinate.of(3, 3));
+            assertEquals(c.getName(), s.getCategory());
+            assertSame(c, s.getShipCategory());
+        }
+        assertNull(ShipCategory.ofKind("jangada"));
+        assertNull(ShipCategory.ofName("Jangada"));
+    }
+
+    /**
+     * A ship given by its cells alone, without a precomputed shape.
+     */
+    private static final class PlainShip extends Ship {
+        private final List<IPosition> cells;
+
+        PlainShip(IShip ship) {
+            super(ship.getCategory(), ship.getBearing(), ship.getPosition());
+            cells = new ArrayList<>(ship.getPositions());
+        }
+
+        @Override
+        public Integer getSize() {
+            return cells.size();
+        }
+
+        @Override
+        public List<IPosition> getPositions() {
+            return cells;
+        }
+    }
+
+    private static boolean insideBoard(IShip ship) {
+        for (IPosition p : ship.getPositions())
+            if (p.getRow() < 0 || p.getRow() >= IFleet.BOARD_SIZE || p.getColumn() < 0
+                    || p.getColumn() >= IFleet.BOARD_SIZE)
+                return false;
+        return true;
+    }
+
+    /**
+     * @return whether no cell of a ship is on or next to a cell of the others
+     */
+    private static boolean awayFrom(List<IShip> others, IShip ship) {
+        for (IShip other : others)
+            for (IPosition p : other.getPositions())
+                for (IPosition q : ship.getPositions())
+                    if (p.isAdjacentTo(q))
+                        return false;
+        return true;
+    }
+
+    /**
+     * @return the ship occupying a position, found by asking every ship
+     */
+    private static IShip scan(Fleet fleet, IPosition p) {
+        for (IShip s : fleet.getShips())
+            if (s.occupies(p))
+                return s;
+        return null;
+    }
+}
@@ -0,0 +1,123 @@
+package iscteiul.ista.battleship;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks the events told by {@link Tasks} and {@link Game} to an {@link IGameEventSink}.
+ */
+public class GameEventTest {
+
+    @Test
+    public void taskDTellsEveryEventInOrder() {
+        Fleet fleet = new FleetGenerator(1).nextFleet();
+        IShip barge = null;
+        for (IShip s : fleet.getShips())
+            if (s.getSize() == 1)
+                barge = s;
+        int missRow = 0, missColumn = 0;
+        while (fleet.shipIndexAt(missRow, missColumn) >= 0)
+            missColumn++;
+
+        List<IShip> ships = fleet.getShips();
+        StringBuilder script = new StringBuilder("nova jangada 0 0 n").append(shipArguments(ships.get(0)));
+        for (IShip s : ships)
+            script.append(shipArguments(s));
+        script.append("\nrajada ").append(barge.getPosition().getRow()).append(' ')
+                .append(barge.getPosition().getColumn()).append(" -1 -1 ").append(missRow).append(' ')
+                .append(missColumn).append("\nver\nxpto\ndesisto\nver\n");
+
+        List<String> events = new ArrayList<>();
+        Tasks.taskD(new CommandTokenizer(ByteBuffer.wrap(script.toString().getBytes(StandardCharsets.UTF_8))),
+                new PrintStream(OutputStream.nullOutputStream()), e -> events.add(describe(e)));
+
+        int index = ships.indexOf(barge);
+        assertEquals(List.of(
+                "SHIP_REJECTED null",
+                "SHIP_REJECTED " + ships.get(0).getCategory(),
+                "FLEET_BUILT " + ships.size(),
+                "GAME_STARTED " + ships.size(),
+                "SHOT_FIRED " + barge.getPosition().getRow() + " " + barge.getPosition().getColumn() + " "
+                        + IGame.SUNK + " " + index,
+                "SHIP_SUNK " + barge.getCategory() + " " + index,
+                "SHOT_FIRED -1 -1 " + IGame.INVALID + " -1",
+                "SHOT_FIRED " + missRow + " " + missColumn + " " + IGame.MISS + " -1",
+                "ROUND_FIRED 1 1 0 " + (ships.size() - 1),
+                "BOARD_SHOWN",
+                "UNKNOWN_COMMAND",
+                "QUIT"), events);
+    }
+
+    @Test
+    public void eachGameTellsItsEventsThroughOneObject() {
+        List<GameEvent> events = new ArrayList<>();
+        Game game = new Game(new FleetGenerator(2).nextFleet(), events::add);
+        for (int row = 0; row < IFleet.BOARD_SIZE; row++)
+            game.fire(row, row);
+
+        assertEquals(IFleet.BOARD_SIZE + 1 + game.getSunkShips(), events.size());
+        for (GameEvent e : events)
+            assertSame(events.get(0), e);
+    }
+
+    @Test
+    public void shotsToldToTheDiscardSinkAllocateNothing() {
+        assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threads.isThreadAllocatedMemoryEnabled());
+
+        // every cell shot once, so that later shots are repeated or invalid and add nothing to the list of shots
+        Game game = new Game(new FleetGenerator(4).nextFleet(), IGameEventSink.DISCARD);
+        for (int row = 0; row <= IFleet.BOARD_SIZE; row++)
+            for (int column = 0; column <= IFleet.BOARD_SIZE; column++)
+                game.fire(row, column);
+
+        long id = Thread.currentThread().getId();
+        for (int warm = 0; warm < 2; warm++) {
+            long before = threads.getThreadAllocatedBytes(id);
+            for (int i = 0; i < 100_000; i++)
+                game.fire(i % (IFleet.BOARD_SIZE + 3) - 1, i % IFleet.BOARD_SIZE);
+            long allocated = threads.getThreadAllocatedBytes(id) - before;
+            if (warm == 1)
+                assertEquals(0, allocated / 1024, "KB allocated by 100,000 shots");
+        }
+    }
+
+    private static String shipArguments(IShip s) {
+        return " " + ShipCategory.ofName(s.getCategory()).getKind() + " " + s.getPosition().getRow() + " "
+                + s.getPosition().getColumn() + " " + s.getBearing().getDirection();
+    }
+
+    private static String describe(GameEvent e) {
+        switch (e.getType()) {
+            case SHIP_REJECTED:
+                return "SHIP_REJECTED " + (e.getShip() == null ? null : e.getShip().getCategory());
+            case FLEET_BUILT:
+                return "FLEET_BUILT " + e.getShipCount();
+            case GAME_STARTED:
+                return "GAME_STARTED " + e.getFleet().getShips().size();
+            case SHOT_FIRED:
+                return "SHOT_FIRED " + e.getRow() + " " + e.getColumn() + " " + e.getOutcome() + " "
+                        + e.getShipIndex();
+            case SHIP_SUNK:
+                return "SHIP_SUNK " + e.getShip().getCategory() + " " + e.getShipIndex();
+            case ROUND_FIRED:
+            case GAME_OVER:
+                return e.getType() + " " + e.getHits() + " " + e.getInvalidShots() + " " + e.getRepeatedShots()
+                        + " " + e.getShipCount();
+            default:
+                return e.getType().toString();
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package iscteiul.ista.battleship;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Records games in a {@link GameEventLog} and replays them with a {@link GameReplayer}.
+ */
+public class GameReplayerTest {
+
+    private static final int GAMES = 20;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void replayedGamesMatchTheRecordedOnes() throws Exception {
+        Path file = directory.resolve("events.bin");
+        SplittableRandom random = new SplittableRandom(1);
+        FleetGenerator generator = new FleetGenerator(3);
+        long[] ends = new long[GAMES];
+        Game[] played = new Game[GAMES];
+
+        try (GameEventLog log = new GameEventLog(file)) {
+            for (int g = 0; g < GAMES; g++) {
+                Game game = new Game(generator.nextFleet(), log);
+                // shots off the board and repeated shots are recorded too
+                while (game.getRemainingShips() > 0)
+                    game.fire(random.nextInt(12) - 1, random.nextInt(11));
+                ends[g] = log.size();
+                played[g] = game;
+            }
+        }
+
+        try (GameReplayer replayer = new GameReplayer(file)) {
+            assertEquals(ends[GAMES - 1], replayer.size());
+            assertEquals(GAMES, replayer.verify());
+            for (int g = 0; g < GAMES; g++) {
+                Game game = replayer.replay(ends[g]);
+                assertEquals(played[g].getHits(), game.getHits());
+                assertEquals(played[g].getInvalidShots(), game.getInvalidShots());
+                assertEquals(played[g].getRepeatedShots(), game.getRepeatedShots());
+                assertEquals(played[g].getShots(), game.getShots());
+                assertEquals(0, game.getRemainingShips());
+            }
+        }
+    }
+
+    @Test
+    public void replayStopsWithinAGame() throws Exception {
+        Path file = directory.resolve("partial.bin");
+        Game game;
+        long before;
+        try (GameEventLog log = new GameEventLog(file)) {
+            game = new Game(new FleetGenerator(7).nextFleet(), log);
+            for (int cell = 0; cell < 40; cell++)
+                game.fire(cell / 10, cell % 10);
+            before = log.size();
+            for (int cell = 40; cell < 60; cell++)
+                game.fire(cell / 10, cell % 10);
+        }
+
+        try (GameReplayer replayer = new GameReplayer(file)) {
+            Game replayed = replayer.replay(before);
+            assertEquals(40, replayed.getShots().size());
+            assertEquals(game.getShots().subList(0, 40), replayed.getShots());
+        }
+    }
+
+    @Test
+    public void fleetsWithShipsOfUnknownKindAreNotLogged() throws Exception {
+        Path file = directory.resolve("unknown.bin");
+        Fleet fleet = new Fleet();
+        fleet.addShip(new Barge(Compass.NORTH, Coordinate.of(0, 0)));
+        fleet.addShip(new Barge(Compass.NORTH, Coordinate.of(5, 5)) {
+            @Override
+            public String getCategory() {
+                return "Jangada";
+            }
+        });
+        try (GameEventLog log = new GameEventLog(file)) {
+            long empty = log.size();
+            assertThrows(IllegalArgumentException.class, () -> log.gameStarted(fleet));
+            assertEquals(empty, log.size());
+            new Game(new FleetGenerator(2).nextFleet(), log).fire(0, 0);
+        }
+
+        try (GameReplayer replayer = new GameReplayer(file)) {
+            assertEquals(1, replayer.verify());
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package iscteiul.ista.battleship;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Plays sessions of a {@link GameServer} over local connections.
+ */
+public class GameServerTest {
+
+    @Test
+    public void sessionsAnswerAsWhenPlayedInMemory() throws Exception {
+        String first = fleetCommand(new FleetGenerator(1).nextFleet()) + "rajada 0 0 0 1 0 2\nver\nestado\ndesisto\n";
+        String second = fleetCommand(new FleetGenerator(2).nextFleet()) + "rajada 5 5 6 6 7 7\nquem\nmapa\n";
+        try (GameServer server = new GameServer(0)) {
+            Thread serving = serve(server);
+            try (Socket a = connect(server); Socket b = connect(server)) {
+                // commands cut anywhere, even within a word, wait for the rest
+                int cut = first.length() / 2 + 1;
+                send(a, first.substring(0, cut));
+                send(b, second);
+                b.shutdownOutput();
+                Thread.sleep(50);
+                send(a, first.substring(cut));
+
+                assertEquals(playInMemory(first), readAll(a));
+                assertEquals(playInMemory(second), readAll(b));
+            }
+            server.close();
+            serving.join(5000);
+            assertFalse(serving.isAlive());
+        }
+    }
+
+    @Test
+    public void closingTheServerClosesItsConnections() throws Exception {
+        GameServer server = new GameServer(0);
+        Thread serving = serve(server);
+        try (Socket a = connect(server); Socket b = connect(server)) {
+            for (int i = 0; i < 500 && server.getActiveSessions() < 2; i++)
+                Thread.sleep(10);
+            assertEquals(2, server.getActiveSessions());
+
+            server.close();
+            assertEquals(0, server.getActiveSessions());
+            assertEquals("", readAll(a));
+            assertEquals("", readAll(b));
+        }
+        serving.join(5000);
+        assertFalse(serving.isAlive());
+    }
+
+    private static Thread serve(GameServer server) {
+        Thread serving = new Thread(() -> {
+            try {
+                server.serve();
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        serving.start();
+        return serving;
+    }
+
+    private static Socket connect(GameServer server) throws IOException {
+        Socket socket = new Socket(InetAddress.getLoopbackAddress(), server.getPort());
+        socket.setSoTimeout(5000);
+        return socket;
+    }
+
+    private static void send(Socket socket, String text) throws IOException {
+        OutputStream out = socket.getOutputStream();
+        out.write(text.getBytes(StandardCharsets.UTF_8));
+        out.flush();
+    }
+
+    /**
+     * @return what the server sends until it closes the connection
+     */
+    private static String readAll(Socket socket) throws IOException {
+        InputStream in = socket.getInputStream();
+        return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+    }
+
+    private static String playInMemory(String input) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        PrintStream out = new PrintStream(bytes, false, StandardCharsets.UTF_8);
+        new GameSession(new CommandTokenizer(ByteBuffer.wrap(input.getBytes(StandardCharsets.UTF_8))), out).run();
+        return bytes.toString(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return the {@code nova} command building a fleet
+     */
+    private static String fleetCommand(IFleet fleet) {
+        StringBuilder sb = new StringBuilder("nova");
+        for (IShip s : fleet.getShips())
+            sb.append(' ').append(ShipCategory.ofName(s.getCategory()).getKind())
+                    .append(' ').append(s.getPosition().getRow())
+                    .append(' ').append(s.getPosition().getColumn())
+                    .append(' ').append(s.getBearing().getDirection());
+        return sb.append('\n').toString();
+    }
+}
@@ -0,0 +1,86 @@
+package iscteiul.ista.battleship;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Plays {@link GameSession}s over in-memory input and output.
+ */
+public class GameSessionTest {
+
+    private static final String NL = System.lineSeparator();
+
+    @Test
+    public void answersGoToTheSessionOutput() {
+        Fleet fleet = new FleetGenerator(1).nextFleet();
+        IPosition barca = fleet.getShips(ShipCategory.BARCA).get(0).getPosition();
+        String shot = barca.getRow() + " " + barca.getColumn();
+        String output = play(fleetCommand(fleet) + "rajada " + shot + " " + shot + " 11 11\nquem\ndesisto\nver\n");
+
+        assertEquals("11 navios adicionados com sucesso!" + NL
+                + "Mas... mas... Barcas nao sao a prova de bala? :-(" + NL
+                + "Hits: 1 Inv: 1 Rep: 1 Restam 10 navios." + NL
+                + "Que comando é esse??? Repete ..." + NL
+                + "Bons ventos!" + NL, output);
+    }
+
+    @Test
+    public void rejectedShipsAreReported() {
+        String output = play("nova xpto 1 1 n\n");
+        assertEquals("Navio desconhecido!" + NL, output);
+    }
+
+    @Test
+    public void boardsAreDrawnToTheSessionOutput() {
+        String output = play(fleetCommand(new FleetGenerator(2).nextFleet()) + "rajada 0 0 0 1 0 2\nver\n");
+        String board = output.substring(output.lastIndexOf("Restam"));
+        board = board.substring(board.indexOf(NL) + NL.length());
+        assertEquals("XXX......." + NL + (".........." + NL).repeat(9), board);
+    }
+
+    @Test
+    public void inputHandedOverByteByByteIsPlayedAlike() {
+        String input = fleetCommand(new FleetGenerator(3).nextFleet()) + "rajada 0 0 0 1 0 2\nver\nquem\nestado\n";
+        byte[] bytes = input.getBytes(StandardCharsets.UTF_8);
+        ByteArrayOutputStream answers = new ByteArrayOutputStream();
+        GameSession session = new GameSession(new PrintStream(answers, false, StandardCharsets.UTF_8));
+        ByteBuffer buffer = ByteBuffer.allocate(bytes.length);
+        for (byte b : bytes) {
+            buffer.put(b);
+            buffer.flip();
+            assertTrue(session.offer(buffer, false));
+            buffer.compact();
+        }
+        buffer.flip();
+        assertFalse(session.offer(buffer, true));
+        assertEquals(play(input), answers.toString(StandardCharsets.UTF_8));
+    }
+
+    private static String play(String input) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        PrintStream out = new PrintStream(bytes, false, StandardCharsets.UTF_8);
+        new GameSession(new CommandTokenizer(ByteBuffer.wrap(input.getBytes(StandardCharsets.UTF_8))), out).run();
+        return bytes.toString(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return the {@code nova} command building a fleet
+     */
+    private static String fleetCommand(IFleet fleet) {
+        StringBuilder sb = new StringBuilder("nova");
+        for (IShip s : fleet.getShips())
+            sb.append(' ').append(ShipCategory.ofName(s.getCategory()).getKind())
+                    .append(' ').append(s.getPosition().getRow())
+                    .append(' ').append(s.getPosition().getColumn())
+                    .append(' ').append(s.getBearing().getDirection());
+        return sb.append('\n').toString();
+    }
+}
@@ -0,0 +1,85 @@
+package iscteiul.ista.battleship;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Encodes games and fleets with {@link GameSnapshotCodec} and decodes them back.
+ */
+public class GameSnapshotCodecTest {
+
+    @Test
+    public void decodedGamesMatchTheEncodedOnes() {
+        SplittableRandom random = new SplittableRandom(5);
+        FleetGenerator generator = new FleetGenerator(9);
+        ByteBuffer buffer = ByteBuffer.allocate(GameSnapshotCodec.STANDARD_GAME_SIZE);
+        for (int trial = 0; trial < 500; trial++) {
+            Game game = new Game(generator.nextFleet());
+            int shots = random.nextInt(150);
+            for (int i = 0; i < shots; i++)
+                game.fire(random.nextInt(13) - 1, random.nextInt(12));
+
+            buffer.clear();
+            GameSnapshotCodec.encode(game, buffer);
+            assertEquals(GameSnapshotCodec.STANDARD_GAME_SIZE, buffer.position());
+            buffer.flip();
+            Game decoded = GameSnapshotCodec.decode(buffer);
+
+            assertEquals(describe(game), describe(decoded));
+            // the decoded game plays on as the original does
+            for (int i = 0; i < 50; i++) {
+                int row = random.nextInt(11), column = random.nextInt(11);
+                assertEquals(game.fire(row, column), decoded.fire(row, column));
+            }
+        }
+    }
+
+    @Test
+    public void decodedFleetsMatchTheEncodedOnes() {
+        Fleet fleet = new FleetGenerator(4).nextFleet();
+        ByteBuffer buffer = ByteBuffer.allocate(GameSnapshotCodec.fleetSize(fleet.getShips().size()));
+        GameSnapshotCodec.encodeFleet(fleet, buffer);
+        assertEquals(0, buffer.remaining());
+        buffer.flip();
+        assertEquals(describe(fleet), describe(GameSnapshotCodec.decodeFleet(buffer)));
+    }
+
+    @Test
+    public void invalidBoardSizeIsRejected() {
+        ByteBuffer buffer = ByteBuffer.wrap(new byte[] {(byte) (GameSnapshotCodec.MAX_BOARD_SIZE + 1), 0});
+        assertThrows(IllegalArgumentException.class, () -> GameSnapshotCodec.decodeFleet(buffer));
+    }
+
+    /**
+     * @return the ships of a fleet, with the cells hit
+     */
+    private static List<String> describe(IFleet fleet) {
+        List<String> ships = new ArrayList<>();
+        for (IShip s : fleet.getShips()) {
+            StringBuilder sb = new StringBuilder(s.toString()).append(' ');
+            for (IPosition p : s.getPositions())
+                sb.append(s.isHit(p) ? 'X' : '.');
+            ships.add(sb.append(' ').append(s.stillFloating()).toString());
+        }
+        return ships;
+    }
+
+    /**
+     * @return the fleet, the valid shots in any order and the counters of a game
+     */
+    private static String describe(Game game) {
+        List<String> shots = new ArrayList<>();
+        for (IPosition p : game.getShots())
+            shots.add(p.getRow() + "," + p.getColumn());
+        shots.sort(null);
+        return describe(game.getFleet()) + " " + shots + " " + game.getHits() + " " + game.getSunkShips() + " "
+                + game.getInvalidShots() + " " + game.getRepeatedShots() + " " + game.getRemainingShips();
+    }
+}
@@ -0,0 +1,85 @@
+package iscteiul.ista.battleship;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.lang.management.ManagementFactory;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks the outcome codes of {@link Game#fire(int, int)} and that firing allocates nothing
+ * but the list of shots.
+ */
+public class GameTest {
+
+    @Test
+    public void shotsTellTheirOutcomeAndTheShipTheyStruck() {
+        Fleet fleet = new Fleet();
+        fleet.addShip(new Barge(Compass.NORTH, Coordinate.of(0, 0)));
+        fleet.addShip(new Caravel(Compass.EAST, Coordinate.of(5, 5)));
+        Game game = new Game(fleet);
+
+        assertOutcome(IGame.MISS, -1, game.fire(3, 3));
+        assertOutcome(IGame.REPEATED, -1, game.fire(3, 3));
+        assertOutcome(IGame.INVALID, -1, game.fire(-1, 4));
+        assertOutcome(IGame.INVALID, -1, game.fire(4, IFleet.BOARD_SIZE + 1));
+        assertOutcome(IGame.HIT, 1, game.fire(5, 6));
+        assertOutcome(IGame.REPEATED, -1, game.fire(5, 6));
+        assertOutcome(IGame.SUNK, 1, game.fire(5, 5));
+        assertOutcome(IGame.SUNK, 0, game.fire(0, 0));
+
+        assertEquals(2, game.getInvalidShots());
+        assertEquals(2, game.getRepeatedShots());
+        assertEquals(3, game.getHits());
+        assertEquals(2, game.getSunkShips());
+        assertEquals(0, game.getRemainingShips());
+        assertEquals(4, game.getShots().size());
+    }
+
+    @Test
+    public void firingAPositionAnswersTheShipSunk() {
+        Fleet fleet = new Fleet();
+        IShip caravel = new Caravel(Compass.SOUTH, Coordinate.of(2, 2));
+        fleet.addShip(caravel);
+        Game game = new Game(fleet);
+
+        assertNull(game.fire(Coordinate.of(2, 2)));
+        assertNull(game.fire(Coordinate.of(2, 2)));
+        assertSame(caravel, game.fire(Coordinate.of(3, 2)));
+        assertEquals(1, game.getRepeatedShots());
+        assertEquals(1, game.getSunkShips());
+    }
+
+    @Test
+    public void shotsAddingNoCellAllocateNothing() {
+        assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threads.isThreadAllocatedMemoryEnabled());
+
+        // shots are valid one row and one column past the board: shoot them all, so that only
+        // repeated and invalid shots are left, which add nothing to the list of shots
+        Game game = new Game(new FleetGenerator(4).nextFleet());
+        for (int row = 0; row <= IFleet.BOARD_SIZE; row++)
+            for (int column = 0; column <= IFleet.BOARD_SIZE; column++)
+                game.fire(row, column);
+
+        long id = Thread.currentThread().getId();
+        for (int warm = 0; warm < 2; warm++) {
+            long before = threads.getThreadAllocatedBytes(id);
+            for (int i = 0; i < 100_000; i++)
+                game.fire(i % (IFleet.BOARD_SIZE + 3) - 1, i % IFleet.BOARD_SIZE);
+            long allocated = threads.getThreadAllocatedBytes(id) - before;
+            if (warm == 1)
+                assertEquals(0, allocated / 1024, "KB allocated by 100,000 shots");
+        }
+        assertEquals(2 * 100_000, game.getInvalidShots() + game.getRepeatedShots());
+    }
+
+    private static void assertOutcome(byte outcome, int ship, int result) {
+        assertEquals(outcome, IGame.outcomeOf(result));
+        assertEquals(ship, IGame.shipIndexOf(result));
+    }
+}
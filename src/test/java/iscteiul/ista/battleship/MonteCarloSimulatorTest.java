@@ -0,0 +1,79 @@
+package iscteiul.ista.battleship;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks the games played by {@link MonteCarloSimulator} and the report of their {@link SimulationResult}.
+ */
+public class MonteCarloSimulatorTest {
+
+    @Test
+    public void runsAreReproducible() {
+        MonteCarloSimulator simulator = new MonteCarloSimulator(RandomShooter::new);
+        SimulationResult first = simulator.run(200, 7);
+        SimulationResult second = simulator.run(200, 7);
+        assertEquals(200, first.getGames());
+        assertEquals(0, first.getUnfinishedGames());
+        assertEquals(histogram(first), histogram(second));
+
+        long won = 0;
+        for (int shots = 0; shots <= first.getMaxShots(); shots++)
+            won += first.getGamesWonIn(shots);
+        assertEquals(first.getGames(), won);
+    }
+
+    @Test
+    public void gamesPastTheShotLimitAreUnfinished() {
+        // no game of a standard fleet of 27 cells can end in 20 shots
+        SimulationResult result = new MonteCarloSimulator(RandomShooter::new, 20).run(30, 1);
+        assertEquals(30, result.getGames());
+        assertEquals(30, result.getUnfinishedGames());
+        assertThrows(IllegalArgumentException.class, () -> new MonteCarloSimulator(RandomShooter::new, 0));
+        assertThrows(IllegalArgumentException.class, () -> new MonteCarloSimulator(RandomShooter::new).run(-1, 1));
+    }
+
+    @Test
+    public void referenceFleetsAreStandard() {
+        SplittableRandom random = new SplittableRandom(3);
+        for (int i = 0; i < 20; i++) {
+            Fleet fleet = MonteCarloSimulator.randomFleet(random);
+            assertEquals(FleetGenerator.STANDARD_FLEET.length, fleet.getShips().size());
+            for (int s = 0; s < FleetGenerator.STANDARD_FLEET.length; s++)
+                assertEquals(ShipCategory.ofKind(FleetGenerator.STANDARD_FLEET[s]).getName(),
+                        fleet.getShips().get(s).getCategory());
+        }
+    }
+
+    @Test
+    public void histogramIsPrintedToTheStream() {
+        SimulationResult result = new MonteCarloSimulator(ProbabilityShooter::new).run(20, 5);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        result.printHistogram(new PrintStream(bytes, true, StandardCharsets.UTF_8));
+        String[] lines = bytes.toString(StandardCharsets.UTF_8).split(System.lineSeparator());
+        assertTrue(lines[0].startsWith("20 jogos"), lines[0]);
+
+        long games = 0;
+        for (int i = 1; i < lines.length; i++) {
+            String[] bin = lines[i].trim().split(" ");
+            assertEquals(result.getGamesWonIn(Integer.parseInt(bin[0])), Long.parseLong(bin[1]));
+            games += Long.parseLong(bin[1]);
+        }
+        assertEquals(20, games);
+    }
+
+    private static String histogram(SimulationResult result) {
+        StringBuilder sb = new StringBuilder();
+        for (int shots = 0; shots <= result.getMaxShots(); shots++)
+            sb.append(result.getGamesWonIn(shots)).append(' ');
+        return sb.toString();
+    }
+}
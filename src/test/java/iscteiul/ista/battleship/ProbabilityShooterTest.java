@@ -0,0 +1,133 @@
+package iscteiul.ista.battleship;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks the placements of {@link PlacementIndex} against the ships they
+ * stand for, and the densities a {@link ProbabilityShooter} keeps up to date
+ * against a count from scratch.
+ */
+public class ProbabilityShooterTest {
+
+    private static final Compass[] BEARINGS = {Compass.NORTH, Compass.SOUTH, Compass.EAST, Compass.WEST};
+
+    private static final int BOARD = IFleet.BOARD_SIZE;
+
+    @Test
+    public void placementsAreTheShipsOfEveryKindInEveryBearing() {
+        for (int k = 0; k < PlacementIndex.kindCount(); k++) {
+            Set<Set<Integer>> ships = new HashSet<>();
+            for (Compass bearing : BEARINGS)
+                for (int row = 0; row < BOARD; row++)
+                    for (int column = 0; column < BOARD; column++) {
+                        Ship s = Ship.buildShip(PlacementIndex.kindName(k), bearing, Coordinate.of(row, column));
+                        Set<Integer> cells = new HashSet<>();
+                        for (IPosition p : s.getPositions())
+                            if (p.getRow() >= 0 && p.getRow() < BOARD && p.getColumn() >= 0 && p.getColumn() < BOARD)
+                                cells.add(p.getRow() * BOARD + p.getColumn());
+                        if (cells.size() == s.getSize()) {
+                            ships.add(cells);
+                            assertEquals(k, PlacementIndex.kindOf(PlacementIndex.placementOf(s)));
+                        }
+                    }
+
+            Set<Set<Integer>> placements = new HashSet<>();
+            for (int p = PlacementIndex.firstOf(k); p < PlacementIndex.endOf(k); p++)
+                assertTrue(placements.add(cellSet(p)), "placement " + p + " repeated");
+            assertEquals(ships, placements, PlacementIndex.kindName(k));
+        }
+    }
+
+    @Test
+    public void densitiesKeptUpToDateMatchACountFromScratch() {
+        for (int seed = 0; seed < 10; seed++) {
+            Game game = new Game(new FleetGenerator(seed).nextFleet());
+            ProbabilityShooter shooter = new ProbabilityShooter();
+            shooter.newGame(BOARD, new SplittableRandom(seed));
+            List<Integer> misses = new ArrayList<>();
+            List<Integer> hits = new ArrayList<>();
+            List<Integer> sunk = new ArrayList<>();
+            assertDensities(shooter, misses, hits, sunk);
+
+            while (game.getRemainingShips() > 0) {
+                int cell = shooter.nextShot();
+                int result = game.fire(cell / BOARD, cell % BOARD);
+                byte outcome = IGame.outcomeOf(result);
+                IShip ship = outcome == IGame.SUNK ? game.getFleet().getShips().get(IGame.shipIndexOf(result)) : null;
+                shooter.shotResult(cell / BOARD, cell % BOARD, outcome, ship);
+
+                if (outcome == IGame.MISS)
+                    misses.add(cell);
+                else
+                    hits.add(cell);
+                if (ship != null)
+                    sunk.add(PlacementIndex.placementOf(ship));
+                assertDensities(shooter, misses, hits, sunk);
+            }
+        }
+    }
+
+    /**
+     * Counts, for every cell, the placements still possible covering it,
+     * weighted by the ships of their kind afloat: a placement is ruled out by
+     * a miss it covers, by a hit next to it that it does not cover, or by the
+     * cells of a sunk ship and their neighbours.
+     */
+    private static void assertDensities(ProbabilityShooter shooter, List<Integer> misses, List<Integer> hits,
+                                        List<Integer> sunk) {
+        int[] afloat = new int[PlacementIndex.kindCount()];
+        for (int k = 0; k < afloat.length; k++)
+            afloat[k] = PlacementIndex.shipsOf(k);
+        Set<Integer> blocked = new HashSet<>();
+        for (int s : sunk) {
+            afloat[PlacementIndex.kindOf(s)]--;
+            for (int cell : PlacementIndex.cellsOf(s))
+                blocked.addAll(neighbours(cell));
+        }
+
+        int[] density = new int[BOARD * BOARD];
+        for (int p = 0; p < PlacementIndex.size(); p++) {
+            Set<Integer> cells = cellSet(p);
+            boolean possible = true;
+            for (int cell : cells)
+                possible &= !misses.contains(cell) && !blocked.contains(cell);
+            for (int hit : hits)
+                if (!cells.contains(hit))
+                    for (int n : neighbours(hit))
+                        possible &= !cells.contains(n);
+            if (possible)
+                for (int cell : cells)
+                    density[cell] += afloat[PlacementIndex.kindOf(p)];
+        }
+        for (int cell = 0; cell < density.length; cell++)
+            assertEquals(density[cell], shooter.densityAt(cell), "cell " + cell);
+    }
+
+    /**
+     * @return a cell of the board and its neighbours on the board
+     */
+    private static Set<Integer> neighbours(int cell) {
+        Set<Integer> cells = new HashSet<>();
+        int row = cell / BOARD, column = cell % BOARD;
+        for (int r = Math.max(row - 1, 0); r <= Math.min(row + 1, BOARD - 1); r++)
+            for (int c = Math.max(column - 1, 0); c <= Math.min(column + 1, BOARD - 1); c++)
+                cells.add(r * BOARD + c);
+        return cells;
+    }
+
+    private static Set<Integer> cellSet(int placement) {
+        Set<Integer> cells = new HashSet<>();
+        for (int cell : PlacementIndex.cellsOf(placement))
+            cells.add(cell);
+        return cells;
+    }
+}
@@ -0,0 +1,73 @@
+package iscteiul.ista.battleship;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks the ships laid out from {@link ShipTemplate}s against their cells.
+ */
+public class ShipTemplateTest {
+
+    private static final Compass[] BEARINGS = {Compass.NORTH, Compass.SOUTH, Compass.EAST, Compass.WEST};
+
+    @Test
+    public void queriesMatchTheCells() {
+        for (ShipCategory category : ShipCategory.values())
+            for (Compass bearing : BEARINGS)
+                for (int row = -1; row <= IFleet.BOARD_SIZE + 1; row += 3)
+                    for (int column = -1; column <= IFleet.BOARD_SIZE + 1; column += 2) {
+                        Ship s = Ship.buildShip(category.getKind(), bearing, Coordinate.of(row, column));
+                        List<IPosition> cells = s.getPositions();
+                        assertEquals(s.getSize(), cells.size());
+
+                        int top = Integer.MAX_VALUE, bottom = Integer.MIN_VALUE;
+                        int left = Integer.MAX_VALUE, right = Integer.MIN_VALUE;
+                        for (IPosition p : cells) {
+                            top = Math.min(top, p.getRow());
+                            bottom = Math.max(bottom, p.getRow());
+                            left = Math.min(left, p.getColumn());
+                            right = Math.max(right, p.getColumn());
+                        }
+                        assertEquals(top, s.getTopMostPos());
+                        assertEquals(bottom, s.getBottomMostPos());
+                        assertEquals(left, s.getLeftMostPos());
+                        assertEquals(right, s.getRightMostPos());
+
+                        for (int r = top - 2; r <= bottom + 2; r++)
+                            for (int c = left - 2; c <= right + 2; c++) {
+                                IPosition p = Coordinate.of(r, c);
+                                assertEquals(cells.contains(p), s.occupies(p), s + " " + p);
+                                boolean adjacent = false;
+                                for (IPosition cell : cells)
+                                    adjacent |= cell.isAdjacentTo(p);
+                                assertEquals(adjacent, s.tooCloseTo(p), s + " " + p);
+                            }
+                    }
+    }
+
+    @Test
+    public void shipsOnTheBoardShareTheirCells() {
+        for (ShipCategory category : ShipCategory.values())
+            for (Compass bearing : BEARINGS) {
+                Ship s = Ship.buildShip(category.getKind(), bearing, Coordinate.of(4, 5));
+                Ship same = Ship.buildShip(category.getKind(), bearing, new Position(4, 5));
+                assertSame(s.getPositions(), same.getPositions());
+                assertThrows(UnsupportedOperationException.class, () -> s.getPositions().add(Coordinate.of(0, 0)));
+            }
+    }
+
+    @Test
+    public void invalidBearingsAreRejected() {
+        IPosition pos = Coordinate.of(1, 1);
+        assertThrows(NullPointerException.class, () -> new Galleon(null, pos));
+        assertThrows(NullPointerException.class, () -> new Caravel(null, pos));
+        assertThrows(IllegalArgumentException.class, () -> new Frigate(Compass.UNKNOWN, pos));
+        assertThrows(IllegalArgumentException.class, () -> new Carrack(Compass.UNKNOWN, pos));
+        assertThrows(IllegalArgumentException.class, () -> new Galleon(Compass.UNKNOWN, pos));
+    }
+}
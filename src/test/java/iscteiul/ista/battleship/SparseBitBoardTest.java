@@ -0,0 +1,96 @@
+package iscteiul.ista.battleship;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Plays the same operations on a {@link SparseBitBoard} and a {@link BitBoard}
+ * and compares them, then uses boards far too large to be dense.
+ */
+public class SparseBitBoardTest {
+
+    @Test
+    public void sparseBoardsHoldTheCellsOfDenseOnes() {
+        // neither dimension a multiple of the tile, so that runs cross tiles and end at the edges
+        int rows = 150, columns = 170;
+        SplittableRandom random = new SplittableRandom(5);
+        SparseBitBoard sparse = new SparseBitBoard(rows, columns);
+        BitBoard dense = new BitBoard(rows, columns);
+        for (int i = 0; i < 5000; i++) {
+            int row = random.nextInt(-2, rows + 2);
+            int column = random.nextInt(-70, columns + 2);
+            switch (random.nextInt(4)) {
+                case 0:
+                    if (dense.contains(row, column))
+                        assertEquals(dense.testAndSet(row, column), sparse.testAndSet(row, column));
+                    break;
+                case 1:
+                    if (dense.contains(row, column)) {
+                        dense.clear(row, column);
+                        sparse.clear(row, column);
+                    }
+                    break;
+                default:
+                    int width = random.nextInt(1, 65);
+                    long bits = random.nextLong();
+                    dense.orBits(row, column, width, bits);
+                    sparse.orBits(row, column, width, bits);
+            }
+        }
+
+        assertEquals(dense.cardinality(), sparse.cardinality());
+        for (int row = 0; row < rows; row++) {
+            for (int column = 0; column < columns; column++)
+                assertEquals(dense.get(row, column), sparse.get(row, column), row + " " + column);
+            for (int column = 0; column < columns; column += 7) {
+                int width = Math.min(64, columns - column);
+                assertEquals(dense.getBits(row, column, width), sparse.getBits(row, column, width));
+            }
+        }
+    }
+
+    @Test
+    public void largeBoardsAreCreatedSparse() {
+        assertTrue(IBitBoard.create(IFleet.BOARD_SIZE, IFleet.BOARD_SIZE) instanceof BitBoard);
+        IBitBoard board = IBitBoard.create(100_000, 100_000);
+        assertTrue(board instanceof SparseBitBoard);
+
+        board.set(0, 0);
+        board.set(99_999, 99_999);
+        board.orBits(50_000, 99_990, 64, -1L);
+        assertTrue(board.get(99_999, 99_999));
+        assertFalse(board.get(99_999, 99_998));
+        assertEquals(2 + 10, board.cardinality());
+        assertEquals(0x3FFL, board.getBits(50_000, 99_990, 10));
+
+        board.clear();
+        assertEquals(0, board.cardinality());
+    }
+
+    @Test
+    public void fleetsOnLargeBoardsIndexTheirShips() {
+        int size = 100_000;
+        Fleet fleet = new Fleet(size, 1000);
+        for (int i = 0; i < 1000; i++)
+            assertTrue(fleet.addShip(new Frigate(Compass.EAST, Coordinate.of(i * 97, size - 4 - i * 89))));
+        assertFalse(fleet.addShip(new Barge(Compass.NORTH, Coordinate.of(1, size - 5))));
+        assertFalse(fleet.addShip(new Barge(Compass.NORTH, Coordinate.of(size, 0))));
+
+        IShip last = fleet.getShips().get(999);
+        assertEquals(last, fleet.shipAt(Coordinate.of(999 * 97, size - 1 - 999 * 89)));
+        assertEquals(-1, fleet.shipIndexAt(size / 2, size / 2));
+
+        Game game = new Game(fleet);
+        assertNull(game.fire(Coordinate.of(999 * 97, size - 4 - 999 * 89)));
+        game.fire(Coordinate.of(size + 1, 0));
+        game.fire(Coordinate.of(-1, size / 2));
+        assertEquals(2, game.getInvalidShots());
+        assertEquals(1, game.getHits());
+    }
+}